@@ -0,0 +1,134 @@
+package com.rmgroup.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Measures {@link Sudoku#check} on a valid grid and on a grid which is invalid in its
+ * first row, {@link Sudoku#diagnose(Grid)} on the same grids, plus the {@code transpose}
+ * and {@code subGrid} helpers. {@code editIncrementally} measures an edit of one cell of a
+ * solved grid, breaking or restoring it, and the check which follows, against
+ * {@code editAndCheckGrid} re-checking the whole grid after the same edit. The
+ * {@code fingerprint} and {@code canonical} benchmarks measure the {@link Fingerprint} and
+ * the {@link Canonical} form of a grid. {@code packedCheckValidGrid} packs the grid into
+ * {@link PackedUnits} and checks it by table lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckerBenchmark {
+
+	private Sudoku sudoku;
+
+	private Integer[][] valid;
+
+	private Integer[][] earlyInvalid;
+
+	private Grid validGrid;
+
+	private Grid earlyInvalidGrid;
+
+	private IncrementalChecker incremental;
+
+	private Grid edited;
+
+	private int edit;
+
+	private PackedUnits units;
+
+	@Setup
+	public void setUp() {
+		sudoku = Sudoku.getInstance();
+		valid = Solutions.valid();
+		earlyInvalid = Solutions.earlyInvalid();
+		validGrid = Grid.of(valid);
+		earlyInvalidGrid = Grid.of(earlyInvalid);
+		incremental = new IncrementalChecker(validGrid, (type, index, state) -> { });
+		edited = validGrid.copy();
+		units = new PackedUnits();
+	}
+
+	@Benchmark
+	public Status checkValidBoxed() {
+		return sudoku.check(valid);
+	}
+
+	@Benchmark
+	public Status checkEarlyInvalidBoxed() {
+		return sudoku.check(earlyInvalid);
+	}
+
+	@Benchmark
+	public Status checkValidGrid() {
+		return sudoku.check(validGrid);
+	}
+
+	@Benchmark
+	public Status checkEarlyInvalidGrid() {
+		return sudoku.check(earlyInvalidGrid);
+	}
+
+	@Benchmark
+	public CheckResult diagnoseValidGrid() {
+		return sudoku.diagnose(validGrid);
+	}
+
+	@Benchmark
+	public CheckResult diagnoseEarlyInvalidGrid() {
+		return sudoku.diagnose(earlyInvalidGrid);
+	}
+
+	@Benchmark
+	public Integer[][] transpose() {
+		return sudoku.transpose(valid);
+	}
+
+	@Benchmark
+	public Integer[][] subGrid() {
+		return sudoku.subGrid(3, 6, 3, valid);
+	}
+
+	@Benchmark
+	public boolean editIncrementally() {
+		// alternately put a 1 in the first cell and restore its 3.
+		incremental.set(0, 0, (++edit & 1) == 0 ? 3 : 1);
+		return incremental.isSolved();
+	}
+
+	@Benchmark
+	public Status editAndCheckGrid() {
+		edited.set(0, 0, (++edit & 1) == 0 ? 3 : 1);
+		return sudoku.check(edited);
+	}
+
+	@Benchmark
+	public Fingerprint fingerprint() {
+		return Fingerprint.of(validGrid);
+	}
+
+	@Benchmark
+	public Grid canonical() {
+		return Canonical.of(validGrid);
+	}
+
+	@Benchmark
+	public Status packedCheckValidGrid() {
+		units.pack(validGrid.cells(), 0);
+		return units.check();
+	}
+}
@@ -0,0 +1,130 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Measures validating solution files from end to end: a single solution file read and
+ * checked as {@link Validate} does, and a batch file, reported per solution, both as
+ * comma separated text and converted to the binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EndToEndBenchmark {
+
+	/**
+	 * The number of solutions in the batch file.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	private Path single;
+
+	private Path batch;
+
+	private Path binaryBatch;
+
+	private Sudoku sudoku;
+
+	private Writer sink;
+
+	@Setup(Level.Trial)
+	public void setUp(final Blackhole blackhole) throws IOException {
+		single = Solutions.write(Files.createTempFile("sudoku", ".csv"), 1);
+		batch = Solutions.write(Files.createTempFile("sudoku-batch", ".csv"), BATCH_SIZE);
+		binaryBatch = Files.createTempFile("sudoku-batch", ".bin");
+		try (BinaryGridWriter writer = new BinaryGridWriter(binaryBatch, 9)) {
+			Grid solution = Grid.of(Solutions.valid());
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				writer.write(solution);
+			}
+		}
+		sudoku = Sudoku.getInstance();
+		sink = new BlackholeWriter(blackhole);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(single);
+		Files.deleteIfExists(batch);
+		Files.deleteIfExists(binaryBatch);
+	}
+
+	@Benchmark
+	public Status validateFileBoxed() throws IOException {
+		return sudoku.check(new CsvReader(single, 9).getGrid());
+	}
+
+	@Benchmark
+	public Status validateFileMapped() throws IOException {
+		try (MappedCsvReader reader = new MappedCsvReader(single, 9)) {
+			return sudoku.check(reader.readGrid());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public long validateBatchPerSolution() throws IOException {
+		return new BatchValidator(9, sink).validate(batch).valid();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public long validateBinaryBatchPerSolution() throws IOException {
+		return new BatchValidator(9, sink).validate(binaryBatch).valid();
+	}
+
+	/**
+	 * Discards the batch output into a blackhole.
+	 */
+	private static final class BlackholeWriter extends Writer {
+
+		private final Blackhole blackhole;
+
+		BlackholeWriter(final Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(final char[] text, final int offset, final int length) {
+			blackhole.consume(length);
+		}
+
+		@Override
+		public Writer append(final CharSequence text) {
+			blackhole.consume(text);
+			return this;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate at which {@link GridGenerator} draws 9 x 9 solutions, and writes them
+ * as text with a tenth faulted, to a stream which discards them, and the rate at which
+ * {@link PuzzleGenerator} generates and rates unique 9 x 9 puzzles on one thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+	/**
+	 * The number of grids written per invocation.
+	 */
+	private static final int GRIDS = 10_000;
+
+	private static final OutputStream DISCARD = new OutputStream() {
+		@Override
+		public void write(final int b) {
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+		}
+	};
+
+	private GridGenerator generator;
+
+	private Grid grid;
+
+	private PuzzleGenerator puzzles;
+
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		generator = new GridGenerator(9, 42);
+		grid = new Grid(9);
+		puzzles = new PuzzleGenerator(9);
+	}
+
+	@Benchmark
+	public Grid next() {
+		generator.next(grid);
+		return grid;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GRIDS)
+	public GridGenerator.Summary csv() throws IOException {
+		return generator.write(DISCARD, GridGenerator.Format.CSV, GRIDS, 0.1);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GRIDS)
+	public GridGenerator.Summary line() throws IOException {
+		return generator.write(DISCARD, GridGenerator.Format.LINE, GRIDS, 0.1);
+	}
+
+	@Benchmark
+	public PuzzleGenerator.Puzzle puzzle() {
+		return puzzles.generate(seed++);
+	}
+}
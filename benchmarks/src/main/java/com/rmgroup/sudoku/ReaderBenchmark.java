@@ -0,0 +1,117 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a single solution file and parsing a single row. The {@code binary}
+ * benchmarks read and check a solution of a binary file, decoding it into a grid against
+ * packing its rows, columns and subgrids straight from the record into {@link PackedUnits}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReaderBenchmark {
+
+	private Path file;
+
+	private CsvReader csvReader;
+
+	private MappedCsvReader mappedReader;
+
+	private String row;
+
+	private byte[] cells;
+
+	private Path binaryFile;
+
+	private BinaryGridReader binaryReader;
+
+	private Grid grid;
+
+	private PackedUnits units;
+
+	private Sudoku sudoku;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		file = Solutions.write(Files.createTempFile("sudoku", ".csv"), 1);
+		csvReader = new CsvReader(file, 9);
+		mappedReader = new MappedCsvReader(file, 9);
+		row = Solutions.VALID_ROWS[4];
+		cells = new byte[9];
+
+		binaryFile = Files.createTempFile("sudoku", ".bin");
+		try (BinaryGridWriter writer = new BinaryGridWriter(binaryFile, 9)) {
+			writer.write(Grid.of(Solutions.valid()));
+		}
+		binaryReader = new BinaryGridReader(binaryFile);
+		grid = new Grid(9);
+		units = new PackedUnits();
+		sudoku = Sudoku.getInstance();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		mappedReader.close();
+		binaryReader.close();
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(binaryFile);
+	}
+
+	@Benchmark
+	public Integer[][] csvGetGrid() throws IOException {
+		return csvReader.getGrid();
+	}
+
+	@Benchmark
+	public Grid csvReadGrid() throws IOException {
+		return csvReader.readGrid();
+	}
+
+	@Benchmark
+	public Grid mappedReadGrid() throws IOException {
+		return mappedReader.readGrid();
+	}
+
+	@Benchmark
+	public Integer[] extractCellValues() {
+		return csvReader.extractCellValues(row, 9);
+	}
+
+	@Benchmark
+	public byte[] extractCellValuesIntoGrid() {
+		csvReader.extractCellValues(row, 9, cells, 0);
+		return cells;
+	}
+
+	@Benchmark
+	public Sudoku.Status binaryReadAndCheck() {
+		binaryReader.read(0, grid);
+		return sudoku.check(grid);
+	}
+
+	@Benchmark
+	public Sudoku.Status binaryReadUnitsAndCheck() {
+		binaryReader.readUnits(0, units);
+		return units.check();
+	}
+}
@@ -0,0 +1,111 @@
+package com.rmgroup.sudoku;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the round trip of posting one grid to a resident {@link ValidationServer} over
+ * a kept alive connection, with {@code TCP_NODELAY} set as {@code --serve} sets it, and of
+ * sending one grid to a {@link LineValidationServer}.
+ * Sample time mode reports the percentiles, p99 included.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerBenchmark {
+
+	private ValidationServer server;
+
+	private LineValidationServer lineServer;
+
+	private Socket socket;
+
+	private OutputStream lineOut;
+
+	private BufferedReader lineIn;
+
+	private byte[] line;
+
+	private URL url;
+
+	private byte[] grid;
+
+	private final byte[] response = new byte[4096];
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		// as --serve does, small responses are sent at once.
+		System.setProperty(ValidationServer.NODELAY_PROPERTY, "true");
+		server = new ValidationServer(0, 2);
+		server.start();
+		url = new URL("http", server.address().getHostString(), server.address().getPort(), ValidationServer.PATH);
+		grid = (String.join("\n", Solutions.VALID_ROWS) + "\n").getBytes(StandardCharsets.US_ASCII);
+
+		lineServer = new LineValidationServer(0);
+		lineServer.start();
+		socket = new Socket(lineServer.address().getAddress(), lineServer.address().getPort());
+		socket.setTcpNoDelay(true);
+		lineOut = socket.getOutputStream();
+		lineIn = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		line = (String.join("", Solutions.VALID_ROWS).replace(",", "") + "\n").getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		socket.close();
+		lineServer.close();
+		server.close();
+	}
+
+	@Benchmark
+	public String sendOneLine() throws IOException {
+		lineOut.write(line);
+		lineOut.flush();
+		return lineIn.readLine();
+	}
+
+	@Benchmark
+	public int postOneGrid() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(grid.length);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(grid);
+		}
+
+		// the body is read to the end so the connection returns to the keep alive cache.
+		int length = 0;
+		try (InputStream in = connection.getInputStream()) {
+			int read;
+			while ((read = in.read(response)) >= 0) {
+				length += read;
+			}
+		}
+		return length;
+	}
+}
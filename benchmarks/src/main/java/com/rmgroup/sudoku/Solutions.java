@@ -0,0 +1,72 @@
+package com.rmgroup.sudoku;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The solutions shared by the benchmarks.
+ */
+final class Solutions {
+
+	/**
+	 * The rows of the valid solution used throughout the tests.
+	 */
+	static final String[] VALID_ROWS = {
+			"3,7,1,5,9,4,8,6,2",
+			"5,2,8,3,7,6,1,9,4",
+			"4,9,6,2,8,1,7,3,5",
+			"6,1,4,9,2,3,5,8,7",
+			"9,8,2,7,1,5,6,4,3",
+			"7,5,3,4,6,8,9,2,1",
+			"8,4,5,1,3,9,2,7,6",
+			"2,3,9,6,5,7,4,1,8",
+			"1,6,7,8,4,2,3,5,9"};
+
+	private Solutions() {
+	}
+
+	/**
+	 * @return a valid 9 x 9 solution.
+	 */
+	static Integer[][] valid() {
+		Integer[][] grid = new Integer[9][9];
+		for (int row = 0; row < 9; row++) {
+			String[] cells = VALID_ROWS[row].split(",");
+			for (int col = 0; col < 9; col++) {
+				grid[row][col] = Integer.valueOf(cells[col]);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * @return a solution holding a duplicate in its first row.
+	 */
+	static Integer[][] earlyInvalid() {
+		Integer[][] grid = valid();
+		grid[0][1] = grid[0][0];
+		return grid;
+	}
+
+	/**
+	 * Writes {@code count} copies of the valid solution, one 9 line block after another.
+	 * @param file to write.
+	 * @param count of solutions.
+	 * @return the file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	static Path write(final Path file, final int count) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+			for (int i = 0; i < count; i++) {
+				for (String row : VALID_ROWS) {
+					writer.write(row);
+					writer.newLine();
+				}
+			}
+		}
+		return file;
+	}
+}
@@ -0,0 +1,116 @@
+package com.rmgroup.sudoku;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Solver#solve} on each puzzle of a corpus of well known hard 9 x 9 puzzles,
+ * selected by its index in {@link #HARD_PUZZLES}, and on the whole corpus in turn, then
+ * proving each puzzle of the corpus has a single solution with a {@link SolutionCounter},
+ * searching on one thread and split over the common pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+	/**
+	 * AI Escargot, Easter Monster, the 2012 "world's hardest" and the first four of the top95 collection.
+	 */
+	static final String[] HARD_PUZZLES = {
+			"1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+			"1.......2.9.4...5...6...7...5.9.3.......7.......85..4.7.....6...3...9.8...2.....1",
+			"8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+			"4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+			"52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+			"6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+			"48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5...."};
+
+	private Solver solver;
+
+	private Grid[] puzzles;
+
+	private Grid grid;
+
+	private SolutionCounter counter;
+
+	private SolutionCounter parallelCounter;
+
+	@Setup
+	public void setUp() {
+		solver = new Solver(9);
+		puzzles = new Grid[HARD_PUZZLES.length];
+		for (int i = 0; i < puzzles.length; i++) {
+			puzzles[i] = new Grid(9);
+			CsvRowParser.parseLine(HARD_PUZZLES[i], 9, puzzles[i].cells(), true);
+		}
+		grid = new Grid(9);
+		counter = new SolutionCounter(9);
+		parallelCounter = new SolutionCounter(9, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Selects the puzzle solved by {@link #solveOne}, so the corpus is solved once per run.
+	 */
+	@State(Scope.Thread)
+	public static class Puzzle {
+
+		@Param({"0", "1", "2", "3", "4", "5", "6"})
+		public int index;
+	}
+
+	@Benchmark
+	public Grid solveOne(final Puzzle puzzle) {
+		System.arraycopy(puzzles[puzzle.index].cells(), 0, grid.cells(), 0, grid.size());
+		solver.solve(grid);
+		return grid;
+	}
+
+	/**
+	 * Solves every puzzle of the corpus, the time is for all of them.
+	 */
+	@Benchmark
+	public Grid solveCorpus() {
+		for (Grid next : puzzles) {
+			System.arraycopy(next.cells(), 0, grid.cells(), 0, grid.size());
+			solver.solve(grid);
+		}
+		return grid;
+	}
+
+	/**
+	 * Counts the solutions of every puzzle of the corpus up to 2.
+	 */
+	@Benchmark
+	public long countCorpus() {
+		long solutions = 0;
+		for (Grid next : puzzles) {
+			solutions += counter.count(next, 2).solutions();
+		}
+		return solutions;
+	}
+
+	@Benchmark
+	public long countCorpusParallel() {
+		long solutions = 0;
+		for (Grid next : puzzles) {
+			solutions += parallelCounter.count(next, 2).solutions();
+		}
+		return solutions;
+	}
+}
@@ -0,0 +1,85 @@
+package com.rmgroup.sudoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Measures the {@link VectorChecker} against the scalar {@link BitmaskChecker} and against
+ * {@link Sudoku#check(Grid)}, on a valid grid and on a grid which is invalid in its first
+ * row. The fork runs with the {@code jdk.incubator.vector} module, so {@code check} uses
+ * the checker picked by {@link UnitChecker#select()}. Where the Vector API cannot be used
+ * the {@code vector} benchmarks measure the scalar checker, as the setup reports.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class VectorCheckerBenchmark {
+
+	private Sudoku sudoku;
+
+	private UnitChecker scalar;
+
+	private UnitChecker vector;
+
+	private Grid validGrid;
+
+	private Grid earlyInvalidGrid;
+
+	@Setup
+	public void setUp() {
+		sudoku = Sudoku.getInstance();
+		scalar = UnitChecker.scalar();
+		vector = UnitChecker.vector();
+		if (vector == null) {
+			System.err.println("The Vector API cannot be used, the vector benchmarks measure the scalar checker.");
+			vector = scalar;
+		}
+		validGrid = Grid.of(Solutions.valid());
+		earlyInvalidGrid = Grid.of(Solutions.earlyInvalid());
+	}
+
+	@Benchmark
+	public Status checkValidGrid() {
+		return sudoku.check(validGrid);
+	}
+
+	@Benchmark
+	public Status checkEarlyInvalidGrid() {
+		return sudoku.check(earlyInvalidGrid);
+	}
+
+	@Benchmark
+	public Status scalarValid() {
+		return scalar.check(validGrid.cells(), 0);
+	}
+
+	@Benchmark
+	public Status scalarEarlyInvalid() {
+		return scalar.check(earlyInvalidGrid.cells(), 0);
+	}
+
+	@Benchmark
+	public Status vectorValid() {
+		return vector.check(validGrid.cells(), 0);
+	}
+
+	@Benchmark
+	public Status vectorEarlyInvalid() {
+		return vector.check(earlyInvalidGrid.cells(), 0);
+	}
+}
@@ -0,0 +1,58 @@
+#!/bin/sh
+# Measures the time from launching a one-shot validation of a single solution to its
+# result, which is the whole life of the process, for each way of starting it:
+#
+#   plain   java -jar
+#   c1      java -XX:TieredStopAtLevel=1 -jar
+#   appcds  as c1, with an AppCDS archive of the classes loaded by a training run
+#   native  the executable of mvn package -Pnative, if it was built
+#
+# Run from the top level directory after mvn package:
+#
+#   sh benchmarks/startup.sh [runs] [solution]
+#
+# The minimum, median and mean wall clock times in milliseconds are printed per launch.
+
+RUNS=${1:-20}
+SOLUTION=${2:-src/test/resources/sudokuValid.csv}
+JAR=target/sudoku-validator-0.0.1.jar
+NATIVE=target/sudoku-validate
+ARCHIVE=$(mktemp -d)/startup.jsa
+
+if [ ! -f "$JAR" ]; then
+	echo "Error: $JAR not found, run mvn package first." >&2
+	exit 1
+fi
+
+now() {
+	date +%s%N
+}
+
+# times RUNS launches of the given command, printing the name and its statistics.
+measure() {
+	name=$1
+	shift
+	"$@" > /dev/null 2>&1 || { echo "$name: failed"; return; }
+	i=0
+	while [ $i -lt "$RUNS" ]; do
+		start=$(now)
+		"$@" > /dev/null 2>&1
+		end=$(now)
+		echo $(( (end - start) / 1000000 ))
+		i=$((i + 1))
+	done | sort -n | awk -v name="$name" '
+		{ times[NR] = $1; total += $1 }
+		END { printf "%-8s min %4d ms  median %4d ms  mean %4d ms\n", name, times[1], times[int((NR + 1) / 2)], total / NR }'
+}
+
+# a fresh archive, matching the jar as it is now.
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -XX:TieredStopAtLevel=1 -jar "$JAR" "$SOLUTION" > /dev/null 2>&1
+
+measure plain java -jar "$JAR" "$SOLUTION"
+measure c1 java -XX:TieredStopAtLevel=1 -jar "$JAR" "$SOLUTION"
+measure appcds java -XX:TieredStopAtLevel=1 -XX:SharedArchiveFile="$ARCHIVE" -jar "$JAR" "$SOLUTION"
+if [ -x "$NATIVE" ]; then
+	measure native "$NATIVE" "$SOLUTION"
+fi
+
+rm -rf "$(dirname "$ARCHIVE")"
@@ -0,0 +1,619 @@
+package com.rmgroup.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Holds the grids of an audit, the outcome of each and where it was read from outside the
+ * heap, in three columns of memory mapped files within a directory, so the results of a
+ * corpus of any size may be kept, looked up, traced back to their input and summarised
+ * while the heap holds a few objects.
+ * <p>
+ * The {@link #GRIDS} column is a file in the format of {@link BinaryGridReader}, each grid
+ * packed into a record of {@link BinaryGridReader#recordBytes(int)} bytes, so it may be
+ * validated again with {@code --batch}. The record of a grid which could not be parsed is
+ * left blank. The {@link #RESULTS} column holds a header of
+ * {@link BinaryGridReader#HEADER_BYTES} bytes, the {@link #RESULTS_MAGIC} number, the
+ * version, three reserved bytes and the number of grids as a long, then the
+ * {@link Outcome} of each grid as a byte. Summarising a million grids reads a megabyte of
+ * results and no grid. The {@link #INDEX} column holds a like header, with the
+ * {@link #INDEX_MAGIC} number, then the source of each grid as an int, its line of the
+ * {@link #SOURCES} text file counting from 0, and the index of the grid within that file as
+ * a long, counting from 1 as the result lines of a batch do.
+ * <p>
+ * The columns are mapped a segment of 16MB at a time as the store grows, and written by
+ * the operating system as it sees fit. The headers, giving the number of grids, are
+ * written by {@link #flush()} and {@link #close()}, so a store left unclosed reads as
+ * holding the grids of its last flush. An AuditStore is not thread safe.
+ */
+public final class AuditStore implements Closeable {
+
+	/**
+	 * The outcome of a grid, as stored in the {@link AuditStore#RESULTS} column.
+	 */
+	public enum Outcome {
+		VALID, INVALID,
+		/**
+		 * An INVALID grid which could not be parsed.
+		 */
+		MALFORMED;
+
+		/**
+		 * @return the status of a grid of this outcome.
+		 */
+		public Status status() {
+			return this == VALID ? Status.VALID : Status.INVALID;
+		}
+	}
+
+	/**
+	 * The name of the file holding the grids within the directory of the store.
+	 */
+	public static final String GRIDS = "grids.bin";
+
+	/**
+	 * The name of the file holding the outcomes within the directory of the store.
+	 */
+	public static final String RESULTS = "results.bin";
+
+	/**
+	 * The first four bytes of the {@link #RESULTS} file, {@code SDKR} in ASCII.
+	 */
+	public static final int RESULTS_MAGIC = 0x53444B52;
+
+	/**
+	 * The name of the file holding the source and index of each grid within the directory
+	 * of the store.
+	 */
+	public static final String INDEX = "index.bin";
+
+	/**
+	 * The first four bytes of the {@link #INDEX} file, {@code SDKI} in ASCII.
+	 */
+	public static final int INDEX_MAGIC = 0x53444B49;
+
+	/**
+	 * The name of the text file listing the sources of the grids, one per line, within the
+	 * directory of the store.
+	 */
+	public static final String SOURCES = "sources.txt";
+
+	/**
+	 * The bytes of a record of the {@link #INDEX} column, a source and an index.
+	 */
+	private static final int INDEX_BYTES = Integer.BYTES + Long.BYTES;
+
+	/**
+	 * The number of bytes mapped at a time for each column, 16MB.
+	 */
+	private static final long SEGMENT_BYTES = 1L << 24;
+
+	private static final Outcome[] OUTCOMES = Outcome.values();
+
+	private final Path directory;
+
+	private final int dimension;
+
+	private final Column grids;
+
+	private final Column results;
+
+	private final Column indices;
+
+	/**
+	 * The sources added, the lines of the {@link #SOURCES} file.
+	 */
+	private final List<String> sources;
+
+	/**
+	 * The number of grids stored.
+	 */
+	private long count;
+
+	private AuditStore(final Path directory, final int dimension, final Column grids, final Column results,
+			final Column indices, final List<String> sources, final long count) {
+		this.directory = directory;
+		this.dimension = dimension;
+		this.grids = grids;
+		this.results = results;
+		this.indices = indices;
+		this.sources = sources;
+		this.count = count;
+	}
+
+	/**
+	 * Creates an empty store for grids of the given {@code dimension} in {@code directory},
+	 * which is created if need be. The columns of an earlier store there are replaced.
+	 * @param directory of the store.
+	 * @param dimension of the grids.
+	 * @return the store.
+	 * @throws IOException if the directory or its files cannot be created.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square within range.
+	 */
+	public static AuditStore create(final Path directory, final int dimension) throws IOException {
+		Grid.boxDimensionOf(dimension);
+		Files.createDirectories(directory);
+		Files.write(directory.resolve(SOURCES), new byte[0]);
+		final List<FileChannel> opened = new ArrayList<>();
+		try {
+			final AuditStore store = new AuditStore(directory, dimension,
+					new Column(open(directory.resolve(GRIDS), true, opened), BinaryGridReader.recordBytes(dimension)),
+					new Column(open(directory.resolve(RESULTS), true, opened), 1),
+					new Column(open(directory.resolve(INDEX), true, opened), INDEX_BYTES), new ArrayList<>(), 0);
+			store.writeHeaders();
+			return store;
+		} catch (IOException ex) {
+			close(opened, ex);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Opens the store in {@code directory} to look up its grids, or to append more.
+	 * @param directory of the store.
+	 * @return the store.
+	 * @throws IOException if the files cannot be read, are not the columns of a store, or
+	 *         are shorter than their headers say.
+	 */
+	public static AuditStore open(final Path directory) throws IOException {
+		final List<FileChannel> opened = new ArrayList<>();
+		try {
+			final FileChannel gridChannel = open(directory.resolve(GRIDS), false, opened);
+			final FileChannel resultChannel = open(directory.resolve(RESULTS), false, opened);
+			final FileChannel indexChannel = open(directory.resolve(INDEX), false, opened);
+			final ByteBuffer gridHeader = header(gridChannel), resultHeader = header(resultChannel),
+					indexHeader = header(indexChannel);
+			if (gridHeader.getInt(0) != BinaryGridReader.MAGIC || gridHeader.get(4) != BinaryGridReader.VERSION
+					|| resultHeader.getInt(0) != RESULTS_MAGIC || resultHeader.get(4) != BinaryGridReader.VERSION
+					|| indexHeader.getInt(0) != INDEX_MAGIC || indexHeader.get(4) != BinaryGridReader.VERSION)
+				throw new IOException("Error: " + directory + " is not an audit store.");
+
+			final int dimension = gridHeader.get(5) & 0xFF;
+			try {
+				Grid.boxDimensionOf(dimension);
+			} catch (IllegalArgumentException ex) {
+				throw new IOException("Error: " + directory + " has a bad header. " + ex.getMessage());
+			}
+			if (gridHeader.get(6) != BinaryGridReader.bitsPerCell(dimension))
+				throw new IOException(String.format(
+					"Error: %1$s has a bad header. %2$d bits per cell do not suit dimension %3$d.",
+					directory, gridHeader.get(6), dimension));
+			final long count = gridHeader.getLong(8);
+			if (count != resultHeader.getLong(8) || count != indexHeader.getLong(8))
+				throw new IOException(String.format(
+					"Error: the columns of %1$s hold %2$d, %3$d and %4$d grids.", directory, count,
+					resultHeader.getLong(8), indexHeader.getLong(8)));
+
+			final Column grids = new Column(gridChannel, BinaryGridReader.recordBytes(dimension));
+			final Column results = new Column(resultChannel, 1);
+			final Column indices = new Column(indexChannel, INDEX_BYTES);
+			if (count < 0 || count > grids.capacity() || count > results.capacity() || count > indices.capacity())
+				throw new IOException(String.format(
+					"Error: %1$s is shorter than the %2$d grids its header holds.", directory, count));
+			if (count > 0) {
+				grids.segment(count - 1);
+				results.segment(count - 1);
+				indices.segment(count - 1);
+			}
+			final List<String> sources = new ArrayList<>(Files.readAllLines(directory.resolve(SOURCES), StandardCharsets.UTF_8));
+			return new AuditStore(directory, dimension, grids, results, indices, sources, count);
+		} catch (IOException ex) {
+			close(opened, ex);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Opens a column for reading and writing, adding it to {@code opened}.
+	 * @param create whether to create the file, emptying any there.
+	 */
+	private static FileChannel open(final Path file, final boolean create, final List<FileChannel> opened)
+			throws IOException {
+		final FileChannel channel = create
+				? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)
+				: FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		opened.add(channel);
+		return channel;
+	}
+
+	/**
+	 * Closes the columns opened before {@code failure}, adding any error closing them to it.
+	 */
+	private static void close(final List<FileChannel> opened, final IOException failure) {
+		for (FileChannel channel : opened) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				failure.addSuppressed(ex);
+			}
+		}
+	}
+
+	/**
+	 * Reads the header at the start of a column.
+	 */
+	private static ByteBuffer header(final FileChannel channel) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(BinaryGridReader.HEADER_BYTES);
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+		}
+		return header;
+	}
+
+	/**
+	 * Writes the headers, holding the number of grids stored, at the start of each column.
+	 */
+	private void writeHeaders() throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(BinaryGridReader.HEADER_BYTES);
+		header.putInt(BinaryGridReader.MAGIC)
+			.put((byte) BinaryGridReader.VERSION)
+			.put((byte) dimension)
+			.put((byte) BinaryGridReader.bitsPerCell(dimension))
+			.put((byte) 0)
+			.putLong(count)
+			.flip();
+		grids.writeHeader(header);
+
+		header.clear();
+		header.putInt(RESULTS_MAGIC)
+			.put((byte) BinaryGridReader.VERSION)
+			.put((byte) 0)
+			.put((byte) 0)
+			.put((byte) 0)
+			.putLong(count)
+			.flip();
+		results.writeHeader(header);
+
+		header.clear();
+		header.putInt(INDEX_MAGIC)
+			.put((byte) BinaryGridReader.VERSION)
+			.put((byte) 0)
+			.put((byte) 0)
+			.put((byte) 0)
+			.putLong(count)
+			.flip();
+		indices.writeHeader(header);
+	}
+
+	/**
+	 * Adds the source of the grids to be appended next, such as the path of a file, to the
+	 * {@link #SOURCES} file.
+	 * @param source of the grids, on a single line.
+	 * @return the number of the source, to append its grids with.
+	 * @throws IOException if the sources file cannot be written.
+	 * @throws IllegalArgumentException if the source holds a line break.
+	 */
+	public int addSource(final String source) throws IOException {
+		if (source.indexOf('\n') >= 0 || source.indexOf('\r') >= 0)
+			throw new IllegalArgumentException("ERROR: the source cannot hold a line break: " + source);
+		Files.write(directory.resolve(SOURCES), (source + "\n").getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+		sources.add(source);
+		return sources.size() - 1;
+	}
+
+	/**
+	 * Appends {@code grid} and its status to the store.
+	 * @param grid to store, its blank cells holding {@link Grid#EMPTY}.
+	 * @param status of the grid.
+	 * @param source the number of the source the grid was read from, given by {@link #addSource(String)}.
+	 * @param index of the grid within its source, counting from 1.
+	 * @return the position of the grid within the store, counting from 0.
+	 * @throws IOException if the columns cannot be extended.
+	 * @throws IllegalArgumentException if the grid is of another dimension, or holds values
+	 *         outside 0..dimension, or the source has not been added.
+	 */
+	public long append(final Grid grid, final Status status, final int source, final long index) throws IOException {
+		checkSource(source);
+		if (grid.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, grid.dimension()));
+
+		final ByteBuffer segment = grids.segment(count);
+		final int start = grids.offset(count);
+		final byte[] cells = grid.cells();
+
+		// a value outside the range makes the difference, or the value, negative.
+		int outside = 0;
+		if (dimension <= BinaryGridReader.MAX_PACKED_DIMENSION) {
+			int i = 0;
+			for (; i + 1 < cells.length; i += 2) {
+				segment.put(start + i / 2, (byte) (cells[i] << 4 | cells[i + 1]));
+				outside |= dimension - cells[i] | dimension - cells[i + 1] | cells[i] | cells[i + 1];
+			}
+			if (i < cells.length) {
+				segment.put(start + i / 2, (byte) (cells[i] << 4));
+				outside |= dimension - cells[i] | cells[i];
+			}
+		} else {
+			for (int i = 0; i < cells.length; i++) {
+				segment.put(start + i, cells[i]);
+				outside |= dimension - cells[i] | cells[i];
+			}
+		}
+		// the record is overwritten by the next grid.
+		if (outside < 0)
+			throw BinaryGridReader.outsideRange(cells, dimension);
+		return appendOutcome(status == Status.VALID ? Outcome.VALID : Outcome.INVALID, source, index);
+	}
+
+	/**
+	 * Appends a grid which could not be parsed, whose record is left blank.
+	 * @param source the number of the source the grid was read from, given by {@link #addSource(String)}.
+	 * @param index of the grid within its source, counting from 1.
+	 * @return the position of the grid within the store, counting from 0.
+	 * @throws IOException if the columns cannot be extended.
+	 * @throws IllegalArgumentException if the source has not been added.
+	 */
+	public long appendMalformed(final int source, final long index) throws IOException {
+		checkSource(source);
+		final ByteBuffer segment = grids.segment(count);
+		final int start = grids.offset(count);
+		for (int i = 0; i < grids.recordBytes; i++) {
+			segment.put(start + i, (byte) 0);
+		}
+		return appendOutcome(Outcome.MALFORMED, source, index);
+	}
+
+	private void checkSource(final int source) {
+		if (source < 0 || source >= sources.size())
+			throw new IllegalArgumentException(String.format(
+				"ERROR: source (%1$d) is outside range (%2$d,%3$d)", source, 0, sources.size() - 1));
+	}
+
+	/**
+	 * Stores the outcome, source and index of the grid whose record has just been written.
+	 */
+	private long appendOutcome(final Outcome outcome, final int source, final long index) throws IOException {
+		results.segment(count).put(results.offset(count), (byte) outcome.ordinal());
+		indices.segment(count).putInt(indices.offset(count), source).putLong(indices.offset(count) + Integer.BYTES, index);
+		return count++;
+	}
+
+	/**
+	 * Reads the grid at the given position into {@code grid}. A grid which could not be
+	 * parsed reads as blank.
+	 * @param position of the grid, from 0 to {@link #count()} - 1.
+	 * @param grid to store the cells in, of this store's dimension.
+	 * @throws IndexOutOfBoundsException if the position lies outside the store.
+	 * @throws IllegalArgumentException if the grid is of another dimension, or the record
+	 *         holds a value greater than the dimension.
+	 */
+	public void read(final long position, final Grid grid) {
+		checkPosition(position);
+		if (grid.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, grid.dimension()));
+
+		final byte[] cells = grid.cells();
+		if (BinaryGridReader.unpack(grids.mapped(position), grids.offset(position), cells, dimension) < 0)
+			throw BinaryGridReader.outsideRange(cells, dimension);
+	}
+
+	/**
+	 * @param position of the grid, from 0 to {@link #count()} - 1.
+	 * @return the outcome of the grid at the given position.
+	 * @throws IndexOutOfBoundsException if the position lies outside the store.
+	 */
+	public Outcome outcome(final long position) {
+		checkPosition(position);
+		return OUTCOMES[results.mapped(position).get(results.offset(position))];
+	}
+
+	/**
+	 * @param position of the grid, from 0 to {@link #count()} - 1.
+	 * @return the source the grid at the given position was read from, such as the path of a file.
+	 * @throws IndexOutOfBoundsException if the position lies outside the store.
+	 */
+	public String source(final long position) {
+		checkPosition(position);
+		return sources.get(indices.mapped(position).getInt(indices.offset(position)));
+	}
+
+	/**
+	 * @param position of the grid, from 0 to {@link #count()} - 1.
+	 * @return the index of the grid at the given position within its source, counting from 1.
+	 * @throws IndexOutOfBoundsException if the position lies outside the store.
+	 */
+	public long index(final long position) {
+		checkPosition(position);
+		return indices.mapped(position).getLong(indices.offset(position) + Integer.BYTES);
+	}
+
+	private void checkPosition(final long position) {
+		if (position < 0 || position >= count)
+			throw new IndexOutOfBoundsException(String.format(
+				"ERROR: grid (%1$d) is outside range (%2$d,%3$d)", position, 0, count - 1));
+	}
+
+	/**
+	 * Scans the outcomes from position {@code from} on for the next of the given outcome,
+	 * reading no grid, e.g. to visit each INVALID grid:
+	 * {@code for (long i = store.find(INVALID, 0); i >= 0; i = store.find(INVALID, i + 1)) store.read(i, grid);}
+	 * @param outcome to look for.
+	 * @param from the position to start at, counting from 0.
+	 * @return the position of the next grid of that outcome, or -1 if there is none.
+	 */
+	public long find(final Outcome outcome, final long from) {
+		final byte code = (byte) outcome.ordinal();
+		long position = Math.max(0, from);
+		while (position < count) {
+			final ByteBuffer segment = results.mapped(position);
+			final long first = position - results.offset(position);
+			final int end = (int) (Math.min(first + results.segmentRecords, count) - first);
+			for (int i = (int) (position - first); i < end; i++) {
+				if (segment.get(i) == code)
+					return first + i;
+			}
+			position = first + end;
+		}
+		return -1;
+	}
+
+	/**
+	 * Counts the outcomes of the stored grids in a single scan of the results.
+	 * @return the counts.
+	 */
+	public BatchValidator.Summary summary() {
+		final long[] counts = new long[OUTCOMES.length];
+		for (long first = 0; first < count; first += results.segmentRecords) {
+			final ByteBuffer segment = results.mapped(first);
+			final int end = (int) Math.min(results.segmentRecords, count - first);
+			for (int i = 0; i < end; i++) {
+				counts[segment.get(i)]++;
+			}
+		}
+		final BatchValidator.Summary summary = new BatchValidator.Summary();
+		summary.add(counts[Outcome.VALID.ordinal()], counts[Outcome.INVALID.ordinal()] + counts[Outcome.MALFORMED.ordinal()],
+				counts[Outcome.MALFORMED.ordinal()]);
+		return summary;
+	}
+
+	/**
+	 * @return the number of grids stored.
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * @return the dimension of the grids.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * Writes the mapped records out to the files and the headers after them, so the grids
+	 * stored so far survive a crash.
+	 * @throws IOException if a problem occurs writing the files.
+	 */
+	public void flush() throws IOException {
+		grids.force();
+		results.force();
+		indices.force();
+		writeHeaders();
+	}
+
+	/**
+	 * Writes the headers and cuts the columns down to the grids stored, then closes them.
+	 * The mapped records are written out by the operating system.
+	 * @throws IOException if a problem occurs writing the files.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!grids.channel.isOpen())
+			return;
+		try {
+			writeHeaders();
+		} finally {
+			try {
+				grids.close(count);
+			} finally {
+				try {
+					results.close(count);
+				} finally {
+					indices.close(count);
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return directory.toString();
+	}
+
+	/**
+	 * A file of fixed size records following a header, mapped a segment at a time, each
+	 * segment holding whole records.
+	 */
+	private static final class Column {
+
+		private final FileChannel channel;
+
+		private final int recordBytes;
+
+		private final long segmentRecords;
+
+		private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+		Column(final FileChannel channel, final int recordBytes) {
+			this.channel = channel;
+			this.recordBytes = recordBytes;
+			this.segmentRecords = SEGMENT_BYTES / recordBytes;
+		}
+
+		/**
+		 * @return the number of whole records the file holds.
+		 */
+		long capacity() throws IOException {
+			return Math.max(0, channel.size() - BinaryGridReader.HEADER_BYTES) / recordBytes;
+		}
+
+		/**
+		 * Returns the segment holding the record at {@code position}, mapping the segments
+		 * up to it, which extends the file, if need be.
+		 */
+		MappedByteBuffer segment(final long position) throws IOException {
+			final int index = (int) (position / segmentRecords);
+			while (segments.size() <= index) {
+				segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+						BinaryGridReader.HEADER_BYTES + segments.size() * segmentRecords * recordBytes,
+						segmentRecords * recordBytes));
+			}
+			return segments.get(index);
+		}
+
+		/**
+		 * @return the segment holding the record at {@code position}, already mapped.
+		 */
+		ByteBuffer mapped(final long position) {
+			return segments.get((int) (position / segmentRecords));
+		}
+
+		/**
+		 * @return the offset of the record at {@code position} within its segment.
+		 */
+		int offset(final long position) {
+			return (int) (position % segmentRecords) * recordBytes;
+		}
+
+		void writeHeader(final ByteBuffer header) throws IOException {
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		}
+
+		void force() {
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+		}
+
+		/**
+		 * Cuts the file down to {@code count} records and closes it.
+		 */
+		void close(final long count) throws IOException {
+			try {
+				channel.truncate(BinaryGridReader.HEADER_BYTES + count * recordBytes);
+			} catch (IOException ex) {
+				// a mapped file cannot be cut on some platforms, readers ignore the bytes past the last record.
+			} finally {
+				segments.clear();
+				channel.close();
+			}
+		}
+	}
+}
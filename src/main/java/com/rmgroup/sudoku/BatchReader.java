@@ -0,0 +1,145 @@
+package com.rmgroup.sudoku;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.rmgroup.sudoku.Metrics.Stage;
+
+/**
+ * Reads the grids of a file holding many Sudoku solutions, one {@link BatchRecord}
+ * at a time, so files of any size are read in constant memory.
+ * <p>
+ * A file may hold consecutive blocks of {@code dimension} comma separated lines,
+ * grids written on a single line of {@code dimension * dimension} digits, or a mix of
+ * both. Blank lines between grids are ignored, a blank line within a block ends it
+ * early, so a short block is reported on its own rather than misaligning the rest.
+ */
+public class BatchReader implements Closeable {
+
+	/**
+	 * The name reported for each record.
+	 */
+	private final String source;
+
+	private final BufferedReader lines;
+
+	/**
+	 * The dimension of every grid in the file.
+	 */
+	private final int dimension;
+
+	/**
+	 * The number of lines read so far.
+	 */
+	private long lineNumber;
+
+	/**
+	 * The number of records read so far.
+	 */
+	private long index;
+
+	/**
+	 * Constructs a BatchReader for the given {@code file} of grids of the given {@code dimension}.
+	 * @param file to read.
+	 * @param dimension of the grids.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	public BatchReader(final Path file, final int dimension) throws IOException {
+		this(file.toString(), Files.newBufferedReader(file), dimension);
+	}
+
+	/**
+	 * Constructs a BatchReader reading grids of the given {@code dimension} from {@code lines}.
+	 * @param source name reported for each record.
+	 * @param lines to read.
+	 * @param dimension of the grids.
+	 */
+	public BatchReader(final String source, final BufferedReader lines, final int dimension) {
+		Grid.boxDimensionOf(dimension);
+		this.source = source;
+		this.lines = lines;
+		this.dimension = dimension;
+	}
+
+	/**
+	 * Returns the raw text of the next grid, which is not parsed.
+	 * @return the next record, or {@code null} at the end of the file.
+	 * @throws IOException if a problem occurs reading the file.
+	 */
+	public BatchRecord next() throws IOException {
+		final long started = Metrics.start(Stage.READ);
+		try {
+			return readRecord();
+		} finally {
+			Metrics.stop(Stage.READ, started);
+		}
+	}
+
+	/**
+	 * Reads the lines of the next grid, see {@link #next()}.
+	 */
+	private BatchRecord readRecord() throws IOException {
+		String line;
+		while ((line = lines.readLine()) != null) {
+			lineNumber++;
+			if (isBlank(line))
+				continue;
+
+			index++;
+			if (dimension > 1 && line.indexOf(',') < 0) {
+				return new BatchRecord(source, index, lineNumber, dimension,
+						BatchRecord.Format.LINE, new String[] {line});
+			}
+
+			long firstLine = lineNumber;
+			String[] rows = new String[dimension];
+			int count = 0;
+			rows[count++] = line;
+			while (count < dimension && (line = lines.readLine()) != null) {
+				lineNumber++;
+				if (isBlank(line))
+					break;
+				rows[count++] = line;
+			}
+			return new BatchRecord(source, index, firstLine, dimension, BatchRecord.Format.CSV,
+					count == dimension ? rows : Arrays.copyOf(rows, count));
+		}
+		return null;
+	}
+
+	/**
+	 * Detects the dimension of the grids of the given {@code file} from its first
+	 * non-blank line, as {@link SudokuReader#DETECT_DIMENSION} asks readers to.
+	 * @param file to inspect.
+	 * @return the dimension, or {@link SudokuReader#DETECT_DIMENSION} if every line is blank.
+	 * @throws IOException if the file cannot be read.
+	 * @throws IllegalArgumentException if the first line is not that of a legal grid.
+	 */
+	public static int detectDimension(final Path file) throws IOException {
+		try (BufferedReader lines = Files.newBufferedReader(file)) {
+			String line;
+			while ((line = lines.readLine()) != null) {
+				if (!isBlank(line))
+					return CsvRowParser.dimensionOf(line);
+			}
+		}
+		return SudokuReader.DETECT_DIMENSION;
+	}
+
+	private static boolean isBlank(final String line) {
+		for (int i = 0; i < line.length(); i++) {
+			if (!Character.isWhitespace(line.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		lines.close();
+	}
+}
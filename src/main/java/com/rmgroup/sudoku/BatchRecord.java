@@ -0,0 +1,148 @@
+package com.rmgroup.sudoku;
+
+import com.rmgroup.sudoku.Metrics.Stage;
+
+/**
+ * The raw text of one grid read from a multi-grid file by a {@link BatchReader}.
+ * The text is only parsed, and so only validated, by {@link #parse()}, which lets
+ * reading and parsing happen on different threads.
+ */
+public final class BatchRecord {
+
+	/**
+	 * The layouts a grid may have within a multi-grid file.
+	 */
+	public enum Format {
+		/** One comma separated line per row. */
+		CSV,
+		/** All the cells of the grid on one line, one character per cell. */
+		LINE
+	}
+
+	/**
+	 * The name of the file the grid was read from.
+	 */
+	private final String source;
+
+	/**
+	 * The position of the grid within its file, starting at 1.
+	 */
+	private final long index;
+
+	/**
+	 * The line number of the first line of the grid, starting at 1.
+	 */
+	private final long lineNumber;
+
+	/**
+	 * The dimension of the grid.
+	 */
+	private final int dimension;
+
+	private final Format format;
+
+	/**
+	 * The raw lines of the grid, a single line for the {@code LINE} format.
+	 */
+	private final String[] lines;
+
+	BatchRecord(final String source, final long index, final long lineNumber,
+			final int dimension, final Format format, final String[] lines) {
+		this.source = source;
+		this.index = index;
+		this.lineNumber = lineNumber;
+		this.dimension = dimension;
+		this.format = format;
+		this.lines = lines;
+	}
+
+	/**
+	 * @return the name of the file the grid was read from.
+	 */
+	public String source() {
+		return source;
+	}
+
+	/**
+	 * @return the position of the grid within its file, starting at 1.
+	 */
+	public long index() {
+		return index;
+	}
+
+	/**
+	 * @return the line number of the first line of the grid, starting at 1.
+	 */
+	public long lineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return the dimension of the grid.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the layout of the grid.
+	 */
+	public Format format() {
+		return format;
+	}
+
+	/**
+	 * Parses and validates the raw text into a grid.
+	 * @return the grid.
+	 * @throws NumberFormatException if any cells are non-integer.
+	 * @throws IllegalArgumentException if the grid is incomplete or any cells are not within range.
+	 */
+	public Grid parse() {
+		Grid grid = new Grid(dimension);
+		parseInto(grid);
+		return grid;
+	}
+
+	/**
+	 * Parses and validates the raw text into the given {@code grid}, overwriting all its cells.
+	 * @param grid to store the cells in, of this record's dimension.
+	 * @throws NumberFormatException if any cells are non-integer.
+	 * @throws IllegalArgumentException if the grid is incomplete or any cells are not within range.
+	 */
+	public void parseInto(final Grid grid) {
+		final long started = Metrics.start(Stage.PARSE);
+		try {
+			parseCells(grid);
+		} finally {
+			Metrics.stop(Stage.PARSE, started);
+		}
+	}
+
+	/**
+	 * Parses the raw text into {@code grid}, see {@link #parseInto(Grid)}.
+	 */
+	private void parseCells(final Grid grid) {
+		if (grid.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, grid.dimension()));
+
+		byte[] cells = grid.cells();
+
+		if (format == Format.LINE) {
+			CsvRowParser.parseLine(lines[0], dimension, cells);
+			return;
+		}
+		if (lines.length != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and number of rows in solution {%2$d}.", dimension, lines.length));
+
+		for (int row = 0; row < dimension; row++) {
+			CsvRowParser.parseRow(lines[row], dimension, cells, row * dimension, row + 1);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return source + "#" + index;
+	}
+}
@@ -0,0 +1,485 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Validates every grid of one or more multi-grid files within a single process,
+ * writing a line per grid followed by summary counts.
+ * <p>
+ * Each grid is reported as {@code <file>#<index> VALID} or {@code <file>#<index> INVALID},
+ * a grid which cannot be parsed is INVALID and its line carries the reason. Given a
+ * structured {@link ReportFormat} each grid is written as a JSON or CSV record instead,
+ * naming the violation of an INVALID grid and timing each grid.
+ * <p>
+ * Given {@link SudokuReader#DETECT_DIMENSION} the dimension is detected from the first
+ * line of each file, so files of different dimensions may be validated together.
+ * A file whose dimension cannot be detected is reported as a single malformed grid.
+ * <p>
+ * A file written by a {@link BinaryGridWriter} is recognised by its header and read with
+ * a {@link BinaryGridReader}, which gives the dimension. A binary file whose header is
+ * damaged, or of another dimension than the one given, is reported as a single
+ * malformed grid.
+ * <p>
+ * Given an {@link AuditStore}, each grid and its outcome are appended to it as well, so
+ * the results of a corpus of any size may be looked up later while the heap stays small.
+ */
+public class BatchValidator {
+
+	/**
+	 * The dimension of every grid validated, or {@link SudokuReader#DETECT_DIMENSION}.
+	 */
+	private final int dimension;
+
+	/**
+	 * Where the per grid results are written.
+	 */
+	private final Writer out;
+
+	/**
+	 * The layout of the per grid results.
+	 */
+	private final ReportFormat format;
+
+	/**
+	 * Where each grid and its outcome are stored, {@code null} if they are not.
+	 */
+	private final AuditStore store;
+
+	/**
+	 * Whether the files are memory mapped, rather than read into the heap.
+	 */
+	private final boolean mapped;
+
+	private final Sudoku sudoku = Sudoku.getInstance();
+
+	/**
+	 * Constructs a BatchValidator for grids of the given {@code dimension}, writing its
+	 * results as text.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION} to detect it per file.
+	 * @param out to write the results to, the caller should buffer it.
+	 */
+	public BatchValidator(final int dimension, final Writer out) {
+		this(dimension, out, ReportFormat.TEXT);
+	}
+
+	/**
+	 * Constructs a BatchValidator for grids of the given {@code dimension}.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION} to detect it per file.
+	 * @param out to write the results to, the caller should buffer it.
+	 * @param format of the results, the caller writes any header and the summary.
+	 */
+	public BatchValidator(final int dimension, final Writer out, final ReportFormat format) {
+		this(dimension, out, format, null);
+	}
+
+	/**
+	 * Constructs a BatchValidator for grids of the given {@code dimension}, appending each
+	 * grid and its outcome to {@code store} as well. A grid which could not be parsed, or
+	 * a file which could not be read, is stored as a single malformed grid.
+	 * @param dimension of the grids, that of the store.
+	 * @param out to write the results to, the caller should buffer it.
+	 * @param format of the results, the caller writes any header and the summary.
+	 * @param store to append the grids to, {@code null} for none.
+	 * @throws IllegalArgumentException if the store holds grids of another dimension.
+	 */
+	public BatchValidator(final int dimension, final Writer out, final ReportFormat format, final AuditStore store) {
+		this(dimension, out, format, store, true);
+	}
+
+	/**
+	 * Constructs a BatchValidator for grids of the given {@code dimension}.
+	 * @param dimension of the grids, that of the store.
+	 * @param out to write the results to, the caller should buffer it.
+	 * @param format of the results, the caller writes any header and the summary.
+	 * @param store to append the grids to, {@code null} for none.
+	 * @param mapped {@code false} to read the files into the heap rather than map them, so
+	 *        each may be moved or deleted as soon as it is validated, even on Windows where
+	 *        a mapped file cannot be until the garbage collector releases its mapping.
+	 * @throws IllegalArgumentException if the store holds grids of another dimension.
+	 */
+	BatchValidator(final int dimension, final Writer out, final ReportFormat format, final AuditStore store,
+			final boolean mapped) {
+		if (store != null && store.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", store.dimension(), dimension));
+		this.dimension = dimension;
+		this.out = out;
+		this.format = format;
+		this.store = store;
+		this.mapped = mapped;
+	}
+
+	/**
+	 * Validates every grid in the given file, or in every file of the given directory.
+	 * The files of a directory are visited in name order, sub-directories are skipped.
+	 * @param path of a file or a directory.
+	 * @return the counts of the grids validated.
+	 * @throws IOException if a problem occurs reading a file or writing the results.
+	 */
+	public Summary validate(final Path path) throws IOException {
+		Summary summary = new Summary();
+		for (Path file : filesOf(path)) {
+			validateFile(file, summary);
+		}
+		return summary;
+	}
+
+	/**
+	 * Returns the given file, or the regular files of the given directory in name order.
+	 * @param path of a file or a directory.
+	 * @return the files to read.
+	 * @throws IOException if the directory cannot be listed.
+	 */
+	static List<Path> filesOf(final Path path) throws IOException {
+		List<Path> files = new ArrayList<>();
+		if (!Files.isDirectory(path)) {
+			files.add(path);
+			return files;
+		}
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+			for (Path entry : entries) {
+				if (Files.isRegularFile(entry))
+					files.add(entry);
+			}
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Returns the dimension of the first grid of the given file, or of the files of the
+	 * given directory in name order, detected as a batch run detects that of each file.
+	 * @param path of a file or a directory.
+	 * @return the dimension, or {@link SudokuReader#DETECT_DIMENSION} if no file holds a
+	 *         grid whose dimension can be detected.
+	 * @throws IOException if the directory cannot be listed.
+	 */
+	static int detectDimension(final Path path) throws IOException {
+		for (Path file : filesOf(path)) {
+			try {
+				final int detected = BinaryGridReader.isBinary(file) ? new BinaryGridReader(file, false).dimension()
+						: BatchReader.detectDimension(file);
+				if (detected != SudokuReader.DETECT_DIMENSION)
+					return detected;
+			} catch (IllegalArgumentException | IOException ex) {
+				// the file is reported as malformed when validated.
+			}
+		}
+		return SudokuReader.DETECT_DIMENSION;
+	}
+
+	/**
+	 * Validates every grid in the given {@code file}, adding the outcomes to {@code summary}.
+	 * The file is read through a {@link GridCursor}, straight into the grid.
+	 */
+	private void validateFile(final Path file, final Summary summary) throws IOException {
+		StringBuilder line = new StringBuilder();
+		String source = file.toString();
+
+		final long before = summary.total();
+		final int sourceNumber = store == null ? -1 : store.addSource(source);
+		try (GridCursor cursor = open(file, dimension, format, summary, line, mapped)) {
+			out.append(line);
+			if (cursor == null) {
+				if (store != null && summary.total() > before)
+					store.appendMalformed(sourceNumber, 1);
+				return;
+			}
+
+			// one grid and one line are reused, each record overwrites them.
+			Grid grid = new Grid(cursor.dimension());
+			while (true) {
+				final long started = format.isStructured() ? System.nanoTime() : 0;
+				IllegalArgumentException error = null;
+				CheckResult result = null;
+				Status status;
+				try {
+					if (!cursor.next(grid))
+						break;
+					status = sudoku.check(grid);
+					result = diagnosis(grid, status, sudoku, format);
+				} catch (IllegalArgumentException ex) {
+					status = Status.INVALID;
+					error = ex;
+				}
+				line.setLength(0);
+				appendResult(format, source, cursor.index(), status, result, error, started, summary, line);
+				out.append(line);
+				if (store == null)
+					continue;
+				if (error == null)
+					store.append(grid, status, sourceNumber, cursor.index());
+				else
+					store.appendMalformed(sourceNumber, cursor.index());
+			}
+		}
+	}
+
+	/**
+	 * Opens the {@link GridCursor} for {@code file}, a text file whose dimension cannot be
+	 * detected or a damaged binary file being reported as a single malformed grid.
+	 * @param file to validate.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION}.
+	 * @param format of the result line.
+	 * @param summary to add the outcome of a malformed file to.
+	 * @param out to append the result line of a malformed file to.
+	 * @param mapped {@code false} to read the file into the heap rather than map it.
+	 * @return the cursor, or {@code null} if the file holds no grid to validate.
+	 * @throws IOException if the file cannot be read.
+	 */
+	static GridCursor open(final Path file, final int dimension, final ReportFormat format, final Summary summary,
+			final StringBuilder out, final boolean mapped) throws IOException {
+		if (BinaryGridReader.isBinary(file))
+			return openBinary(file, dimension, format, summary, out, mapped);
+
+		final int fileDimension = dimensionOf(file, dimension, format, summary, out);
+		if (fileDimension == SudokuReader.DETECT_DIMENSION)
+			return null;
+		// windows no larger than a small file are read rather than mapped.
+		return new MappedCsvReader(file, fileDimension, mapped ? MappedCsvReader.DEFAULT_WINDOW : MappedCsvReader.SMALL_FILE);
+	}
+
+	/**
+	 * Returns the dimension of the grids of {@code file}, which is {@code dimension} unless
+	 * it is to be detected. A file whose dimension cannot be detected is reported as a
+	 * single malformed grid.
+	 * @param file to validate.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION}.
+	 * @param format of the result line.
+	 * @param summary to add the outcome of a malformed file to.
+	 * @param out to append the result line of a malformed file to.
+	 * @return the dimension, or {@link SudokuReader#DETECT_DIMENSION} if the file holds no grid to validate.
+	 * @throws IOException if the file cannot be read.
+	 */
+	static int dimensionOf(final Path file, final int dimension, final ReportFormat format, final Summary summary,
+			final StringBuilder out) throws IOException {
+		if (dimension != SudokuReader.DETECT_DIMENSION)
+			return dimension;
+		final long started = format.isStructured() ? System.nanoTime() : 0;
+		try {
+			return BatchReader.detectDimension(file);
+		} catch (IllegalArgumentException ex) {
+			appendResult(format, file.toString(), 1, Status.INVALID, null, ex, started, summary, out);
+			return SudokuReader.DETECT_DIMENSION;
+		}
+	}
+
+	/**
+	 * Opens a binary {@code file} of grids of the given {@code dimension}. A file whose
+	 * header is damaged, or gives another dimension, is reported as a single malformed grid.
+	 * @param file to validate.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION}.
+	 * @param format of the result line.
+	 * @param summary to add the outcome of a malformed file to.
+	 * @param out to append the result line of a malformed file to.
+	 * @return the reader, or {@code null} if the file holds no grid to validate.
+	 */
+	static BinaryGridReader openBinary(final Path file, final int dimension, final ReportFormat format,
+			final Summary summary, final StringBuilder out) {
+		return openBinary(file, dimension, format, summary, out, true);
+	}
+
+	private static BinaryGridReader openBinary(final Path file, final int dimension, final ReportFormat format,
+			final Summary summary, final StringBuilder out, final boolean mapped) {
+		final long started = format.isStructured() ? System.nanoTime() : 0;
+		Exception error;
+		try {
+			BinaryGridReader reader = new BinaryGridReader(file, mapped);
+			if (dimension == SudokuReader.DETECT_DIMENSION || dimension == reader.dimension())
+				return reader;
+			reader.close();
+			error = new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.",
+				dimension, reader.dimension()));
+		} catch (IOException ex) {
+			error = ex;
+		}
+		appendResult(format, file.toString(), 1, Status.INVALID, null, error, started, summary, out);
+		return null;
+	}
+
+	/**
+	 * Reads and checks the grids of a binary file from position {@code from} up to, but
+	 * not including, {@code to}, adding the outcomes to {@code summary} and their result
+	 * lines to {@code out}.
+	 * @param reader of the file.
+	 * @param source the name of the file.
+	 * @param from the position of the first grid, counting from 0.
+	 * @param to the position after the last grid.
+	 * @param grid to read each grid into.
+	 * @param sudoku to check the grids with.
+	 * @param format of the result lines.
+	 * @param summary to add the outcomes to.
+	 * @param out to append the result lines to.
+	 */
+	static void validateRange(final BinaryGridReader reader, final String source, final long from, final long to,
+			final Grid grid, final Sudoku sudoku, final ReportFormat format, final Summary summary,
+			final StringBuilder out) {
+		for (long position = from; position < to; position++) {
+			final long started = format.isStructured() ? System.nanoTime() : 0;
+			IllegalArgumentException error = null;
+			CheckResult result = null;
+			Status status;
+			try {
+				reader.read(position, grid);
+				status = sudoku.check(grid);
+				result = diagnosis(grid, status, sudoku, format);
+			} catch (IllegalArgumentException ex) {
+				status = Status.INVALID;
+				error = ex;
+			}
+			appendResult(format, source, position + 1, status, result, error, started, summary, out);
+		}
+	}
+
+	/**
+	 * Parses and checks one record, adding the outcome to {@code summary} and its result
+	 * line to {@code out}.
+	 * @param record to validate.
+	 * @param grid to parse the record into.
+	 * @param sudoku to check the grid with.
+	 * @param format of the result line.
+	 * @param summary to add the outcome to.
+	 * @param out to append the result line to.
+	 */
+	static void validateRecord(final BatchRecord record, final Grid grid, final Sudoku sudoku,
+			final ReportFormat format, final Summary summary, final StringBuilder out) {
+		final long started = format.isStructured() ? System.nanoTime() : 0;
+		IllegalArgumentException error = null;
+		CheckResult result = null;
+		Status status;
+		try {
+			record.parseInto(grid);
+			status = sudoku.check(grid);
+			result = diagnosis(grid, status, sudoku, format);
+		} catch (IllegalArgumentException ex) {
+			status = Status.INVALID;
+			error = ex;
+		}
+		appendResult(format, record.source(), record.index(), status, result, error, started, summary, out);
+	}
+
+	/**
+	 * Returns the violation of a checked grid for a structured report, which is only
+	 * looked for once the grid is known to be INVALID.
+	 * @return the violation, {@code null} if the grid is VALID or the report is text.
+	 */
+	static CheckResult diagnosis(final Grid grid, final Status status, final Sudoku sudoku,
+			final ReportFormat format) {
+		return status == Status.VALID || !format.isStructured() ? null : sudoku.diagnose(grid);
+	}
+
+	/**
+	 * Adds the outcome of one grid to {@code summary} and its result line to {@code out}.
+	 * @param format of the result line.
+	 * @param source the name of the file of the grid.
+	 * @param index the position of the grid within the file.
+	 * @param status of the grid.
+	 * @param result the violation of an INVALID grid, {@code null} if unknown.
+	 * @param error the reason the grid could not be parsed, {@code null} if it was parsed.
+	 * @param started the {@link System#nanoTime()} at which the grid was started, for a
+	 *        structured report.
+	 * @param summary to add the outcome to.
+	 * @param out to append the result line to.
+	 */
+	static void appendResult(final ReportFormat format, final String source, final long index, final Status status,
+			final CheckResult result, final Exception error, final long started, final Summary summary,
+			final StringBuilder out) {
+		summary.add(status, error != null);
+		Metrics.outcome(status, error != null);
+
+		format.appendResult(out, source, index, status, result, error,
+				format.isStructured() ? System.nanoTime() - started : 0);
+	}
+
+	/**
+	 * The counts of the outcomes of a batch.
+	 */
+	public static final class Summary {
+
+		private long valid;
+
+		private long invalid;
+
+		/**
+		 * The number of the invalid grids which could not be parsed.
+		 */
+		private long malformed;
+
+		void add(final Status status, final boolean isMalformed) {
+			if (status == Status.VALID) {
+				valid++;
+			} else {
+				invalid++;
+			}
+			if (isMalformed) {
+				malformed++;
+			}
+		}
+
+		/**
+		 * Adds the given counts to this summary.
+		 * @param valid the number of VALID grids.
+		 * @param invalid the number of INVALID grids, including malformed ones.
+		 * @param malformed the number of grids which could not be parsed.
+		 */
+		void add(final long valid, final long invalid, final long malformed) {
+			this.valid += valid;
+			this.invalid += invalid;
+			this.malformed += malformed;
+		}
+
+		/**
+		 * Adds the counts of {@code other} to this summary.
+		 * @param other summary to add.
+		 */
+		void add(final Summary other) {
+			valid += other.valid;
+			invalid += other.invalid;
+			malformed += other.malformed;
+		}
+
+		/**
+		 * @return the number of grids validated.
+		 */
+		public long total() {
+			return valid + invalid;
+		}
+
+		/**
+		 * @return the number of VALID grids.
+		 */
+		public long valid() {
+			return valid;
+		}
+
+		/**
+		 * @return the number of INVALID grids, including malformed ones.
+		 */
+		public long invalid() {
+			return invalid;
+		}
+
+		/**
+		 * @return the number of grids which could not be parsed.
+		 */
+		public long malformed() {
+			return malformed;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Checked %1$d grids: %2$d VALID, %3$d INVALID (%4$d malformed)",
+					total(), valid, invalid, malformed);
+		}
+	}
+}
@@ -0,0 +1,446 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.rmgroup.sudoku.Metrics.Stage;
+
+/**
+ * Reads the grids of a file written by a {@link BinaryGridWriter}, in order or by their
+ * position in the file.
+ * <p>
+ * The file starts with a header of {@link #HEADER_BYTES} bytes: the {@link #MAGIC} number,
+ * the {@link #VERSION} of the format, the dimension of the grids, the bits per cell and a
+ * reserved byte, then the number of grids as a long, all big endian. Each grid follows as
+ * a record of {@link #recordBytes(int)} bytes holding its cells in row major order, two to
+ * a byte, the first in the upper nibble, for dimensions up to 9, and a byte each for larger
+ * dimensions. A 9 x 9 grid takes 41 bytes where its CSV text takes 171, and a cell costs a
+ * shift and a mask to read rather than a parse. Blank cells are written as
+ * {@link Grid#EMPTY}, so puzzles may be stored as well as solutions.
+ * <p>
+ * The records are mapped, or read into the heap for a small file, when the reader is
+ * constructed and never moved, so {@link #read(long, Grid)} may be called from several
+ * threads at once. Files larger than 2GB are mapped in several segments, each holding
+ * whole records. {@link #next(Grid)} reads the grids in turn and is not thread safe, while
+ * the stream of {@link #grids(ErrorHandler)} splits the file into ranges of positions, each
+ * read into its own grid, so it may be processed in parallel.
+ */
+public class BinaryGridReader implements SudokuReader, GridCursor {
+
+	/**
+	 * The first four bytes of every file, {@code SDKB} in ASCII.
+	 */
+	public static final int MAGIC = 0x53444B42;
+
+	/**
+	 * The version of the format written, which readers must match.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The size of the header, which precedes the first record.
+	 */
+	public static final int HEADER_BYTES = 16;
+
+	/**
+	 * The largest dimension whose cells are packed two to a byte.
+	 */
+	static final int MAX_PACKED_DIMENSION = 15;
+
+	/**
+	 * The greatest number of bytes mapped in one segment, 1GB.
+	 */
+	private static final long SEGMENT_BYTES = 1L << 30;
+
+	private final Path file;
+
+	private final int dimension;
+
+	private final long count;
+
+	private final int recordBytes;
+
+	/**
+	 * The number of records in each segment, the last may hold fewer.
+	 */
+	private final long segmentRecords;
+
+	private final ByteBuffer[] segments;
+
+	/**
+	 * The number of grids read so far by {@link #next(Grid)}.
+	 */
+	private long index;
+
+	/**
+	 * Constructs a BinaryGridReader for the given {@code file}, reading its header and
+	 * mapping its records.
+	 * @param file to read.
+	 * @throws IOException if the file cannot be read, is not in the binary format, or is
+	 *         shorter than its header says.
+	 */
+	public BinaryGridReader(final Path file) throws IOException {
+		this(file, true);
+	}
+
+	/**
+	 * Constructs a BinaryGridReader for the given {@code file}, reading its header and
+	 * mapping its records, or reading them into the heap.
+	 * @param file to read.
+	 * @param mapped {@code false} to read the records into the heap, in segments too small
+	 *        to be mapped, so the file may be moved or deleted at once, even on Windows.
+	 * @throws IOException if the file cannot be read, is not in the binary format, or is
+	 *         shorter than its header says.
+	 */
+	BinaryGridReader(final Path file, final boolean mapped) throws IOException {
+		this.file = file;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+			}
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC)
+				throw new IOException("Error: " + file + " is not a binary grid file.");
+			if (header.get(4) != VERSION)
+				throw new IOException(String.format(
+					"Error: %1$s is of version %2$d, only version %3$d can be read.", file, header.get(4), VERSION));
+
+			this.dimension = header.get(5) & 0xFF;
+			try {
+				Grid.boxDimensionOf(dimension);
+			} catch (IllegalArgumentException ex) {
+				throw new IOException("Error: " + file + " has a bad header. " + ex.getMessage());
+			}
+			this.count = header.getLong(8);
+			this.recordBytes = recordBytes(dimension);
+			if (header.get(6) != bitsPerCell(dimension))
+				throw new IOException(String.format(
+					"Error: %1$s has a bad header. %2$d bits per cell do not suit dimension %3$d.",
+					file, header.get(6), dimension));
+			if (count < 0 || count > (channel.size() - HEADER_BYTES) / recordBytes)
+				throw new IOException(String.format(
+					"Error: %1$s is shorter than the %2$d grids its header holds.", file, count));
+
+			this.segmentRecords = Math.max(1, (mapped ? SEGMENT_BYTES : MappedCsvReader.SMALL_FILE) / recordBytes);
+			this.segments = new ByteBuffer[(int) ((count + segmentRecords - 1) / segmentRecords)];
+			for (int i = 0; i < segments.length; i++) {
+				final long first = i * segmentRecords;
+				segments[i] = map(channel, HEADER_BYTES + first * recordBytes,
+						Math.min(segmentRecords, count - first) * recordBytes);
+			}
+		}
+	}
+
+	private static ByteBuffer map(final FileChannel channel, final long start, final long length) throws IOException {
+		if (length > MappedCsvReader.SMALL_FILE)
+			return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+		// a mapping is only released by the garbage collector, small files are simply read.
+		final ByteBuffer buffer = ByteBuffer.allocate((int) length);
+		while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * @param dimension of the grids.
+	 * @return the bits each cell takes, 4 or 8.
+	 */
+	static int bitsPerCell(final int dimension) {
+		return dimension <= MAX_PACKED_DIMENSION ? 4 : 8;
+	}
+
+	/**
+	 * @param dimension of the grids.
+	 * @return the bytes each grid takes, 41 for a 9 x 9 grid.
+	 */
+	public static int recordBytes(final int dimension) {
+		return (dimension * dimension * bitsPerCell(dimension) + 7) / 8;
+	}
+
+	/**
+	 * Returns whether the given {@code file} starts with the {@link #MAGIC} number of the
+	 * binary format.
+	 * @param file to inspect.
+	 * @return {@code true} for a binary grid file, {@code false} for any other file.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static boolean isBinary(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+			while (magic.hasRemaining() && channel.read(magic) >= 0) {
+			}
+			return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * Reads the grid at the given position of the file into {@code grid}.
+	 * @param position of the grid, from 0 to {@link #count()} - 1.
+	 * @param grid to store the cells in, of this reader's dimension.
+	 * @throws IndexOutOfBoundsException if the position lies outside the file.
+	 * @throws IllegalArgumentException if the grid is of another dimension, or the record
+	 *         holds a value greater than the dimension.
+	 */
+	public void read(final long position, final Grid grid) {
+		final long started = Metrics.start(Stage.PARSE);
+		try {
+			decode(position, grid);
+		} finally {
+			Metrics.stop(Stage.PARSE, started);
+		}
+	}
+
+	/**
+	 * Decodes the grid at the given position of the file into {@code grid}, see {@link #read(long, Grid)}.
+	 */
+	private void decode(final long position, final Grid grid) {
+		if (position < 0 || position >= count)
+			throw new IndexOutOfBoundsException(String.format(
+				"ERROR: grid (%1$d) is outside range (%2$d,%3$d)", position, 0, count - 1));
+		if (grid.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, grid.dimension()));
+
+		final byte[] cells = grid.cells();
+		if (unpack(segments[(int) (position / segmentRecords)], (int) (position % segmentRecords) * recordBytes,
+				cells, dimension) < 0)
+			throw outsideRange(cells, dimension);
+	}
+
+	/**
+	 * Unpacks the record starting at {@code start} of {@code records} into {@code cells},
+	 * reading by absolute position so the buffer may be shared.
+	 * @param records holding the record.
+	 * @param start the offset of the record.
+	 * @param cells to store the values in.
+	 * @param dimension of the grid.
+	 * @return a negative number if a value is greater than the dimension.
+	 */
+	static int unpack(final ByteBuffer records, final int start, final byte[] cells, final int dimension) {
+		// a value above the dimension makes the difference negative.
+		int outside = 0;
+		if (dimension <= MAX_PACKED_DIMENSION) {
+			final int pairs = cells.length / 2;
+			for (int i = 0; i < pairs; i++) {
+				final int packed = records.get(start + i);
+				final int high = packed >>> 4 & 0xF, low = packed & 0xF;
+				cells[2 * i] = (byte) high;
+				cells[2 * i + 1] = (byte) low;
+				outside |= dimension - high | dimension - low;
+			}
+			if ((cells.length & 1) != 0) {
+				final int last = records.get(start + pairs) >>> 4 & 0xF;
+				cells[cells.length - 1] = (byte) last;
+				outside |= dimension - last;
+			}
+		} else {
+			for (int i = 0; i < cells.length; i++) {
+				final int value = records.get(start + i) & 0xFF;
+				cells[i] = (byte) value;
+				outside |= dimension - value;
+			}
+		}
+		return outside;
+	}
+
+	/**
+	 * Reads the 9 x 9 grid at the given position of the file into {@code units}, straight
+	 * from its packed record. No cell is range checked, a value above 9 fails the check of
+	 * {@code units} instead.
+	 * @param position of the grid, from 0 to {@link #count()} - 1.
+	 * @param units to store the rows, columns and subgrids in.
+	 * @throws IndexOutOfBoundsException if the position lies outside the file.
+	 * @throws IllegalArgumentException if the grids of the file are not 9 x 9.
+	 */
+	public void readUnits(final long position, final PackedUnits units) {
+		if (position < 0 || position >= count)
+			throw new IndexOutOfBoundsException(String.format(
+				"ERROR: grid (%1$d) is outside range (%2$d,%3$d)", position, 0, count - 1));
+		if (dimension != 9)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, 9));
+
+		final long started = Metrics.start(Stage.PARSE);
+		units.unpack(segments[(int) (position / segmentRecords)], (int) (position % segmentRecords) * recordBytes);
+		Metrics.stop(Stage.PARSE, started);
+	}
+
+	/**
+	 * Returns the error for the first cell of the grid whose value exceeds the dimension.
+	 */
+	static IllegalArgumentException outsideRange(final byte[] cells, final int dimension) {
+		int cell = 0;
+		while ((cells[cell] & 0xFF) <= dimension) {
+			cell++;
+		}
+		return new IllegalArgumentException(String.format(
+			"Error: Cell Value %1$d at row %2$d, column %3$d is outside range (%4$d,%5$d)",
+			cells[cell] & 0xFF, cell / dimension + 1, cell % dimension + 1, Grid.EMPTY, dimension));
+	}
+
+	/**
+	 * Reads the next grid of the file into {@code grid}. A rejected grid is consumed, so
+	 * reading may carry on.
+	 * @param grid to store the cells in, of this reader's dimension.
+	 * @return {@code true} if a grid was read, {@code false} at the end of the file.
+	 * @throws IllegalArgumentException if the grid is of another dimension, or the record
+	 *         holds a value greater than the dimension.
+	 */
+	@Override
+	public boolean next(final Grid grid) {
+		if (index == count)
+			return false;
+		index++;
+		read(index - 1, grid);
+		return true;
+	}
+
+	/**
+	 * @return the number of grids read so far by {@link #next(Grid)}, i.e. the position of
+	 *         the last one counting from 1.
+	 */
+	@Override
+	public long index() {
+		return index;
+	}
+
+	/**
+	 * Returns the grids from the position of {@link #next(Grid)} on as a lazy stream, which
+	 * leaves that position alone. A parallel stream splits the file into ranges of grids,
+	 * each read into its own grid, so the error handler may be called from several threads.
+	 * @param onError told of each rejected grid, which is left out of the stream.
+	 * @return the stream of grids.
+	 */
+	@Override
+	public Stream<Grid> grids(final ErrorHandler onError) {
+		return StreamSupport.stream(new Range(index, count, onError), false);
+	}
+
+	/**
+	 * Reads the grids from position {@code from} up to {@code to} into a grid of its own,
+	 * halving the range on each split.
+	 */
+	private final class Range implements Spliterator<Grid> {
+
+		/**
+		 * The fewest grids worth handing to another thread.
+		 */
+		private static final long MIN_SPLIT = 1024;
+
+		private final ErrorHandler onError;
+
+		private long from;
+
+		private final long to;
+
+		private Grid grid;
+
+		Range(final long from, final long to, final ErrorHandler onError) {
+			this.from = from;
+			this.to = to;
+			this.onError = onError;
+		}
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Grid> action) {
+			if (grid == null)
+				grid = new Grid(dimension);
+			while (from < to) {
+				try {
+					read(from++, grid);
+				} catch (IllegalArgumentException ex) {
+					onError.rejected(from, ex);
+					continue;
+				}
+				action.accept(grid);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public Spliterator<Grid> trySplit() {
+			if (to - from < 2 * MIN_SPLIT)
+				return null;
+			final long middle = from + (to - from) / 2;
+			final Range first = new Range(from, middle, onError);
+			from = middle;
+			return first;
+		}
+
+		@Override
+		public long estimateSize() {
+			return to - from;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL;
+		}
+	}
+
+	/**
+	 * @return whether the records are mapped, rather than read into the heap.
+	 */
+	boolean isMapped() {
+		return segments.length > 0 && segments[0].isDirect();
+	}
+
+	/**
+	 * @return the number of grids in the file.
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * @return the dimension of the grids.
+	 */
+	@Override
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * Returns a Sudoku grid from a file which holds exactly one grid.
+	 * @return a SudoGrid containing legal values.
+	 * @throws IllegalArgumentException if the file does not hold a single legal grid.
+	 */
+	@Override
+	public Integer[][] getGrid() throws IOException {
+		return readGrid().toArray();
+	}
+
+	/**
+	 * Returns a compact Grid from a file which holds exactly one grid.
+	 * @return a Grid containing legal values.
+	 * @throws IllegalArgumentException if the file does not hold a single legal grid.
+	 */
+	@Override
+	public Grid readGrid() throws IOException {
+		if (count != 1)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: %1$s holds %2$d grids rather than one.", file, count));
+		final Grid grid = new Grid(dimension);
+		read(0, grid);
+		return grid;
+	}
+
+	/**
+	 * Does nothing: the file is closed once its records are mapped or read, and a mapping
+	 * is released once the reader is garbage collected, so grids being read from other
+	 * threads are never pulled from under them.
+	 */
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,146 @@
+package com.rmgroup.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes grids of one dimension to a file in the binary format read by a
+ * {@link BinaryGridReader}, which describes the format.
+ * <p>
+ * The records are gathered in a buffer and written a block at a time. The header is
+ * written first with a count of 0 and rewritten with the number of grids written by
+ * {@link #close()}, so a file left unclosed reads as empty rather than half written.
+ * A BinaryGridWriter is not thread safe.
+ */
+public class BinaryGridWriter implements Closeable {
+
+	/**
+	 * The size of the buffer the records are gathered in, 64KB.
+	 */
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final FileChannel channel;
+
+	private final int dimension;
+
+	private final int recordBytes;
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * The number of grids written so far.
+	 */
+	private long count;
+
+	/**
+	 * Constructs a BinaryGridWriter creating, or replacing, the given {@code file}.
+	 * @param file to write.
+	 * @param dimension of the grids.
+	 * @throws IOException if the file cannot be created.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square within range.
+	 */
+	public BinaryGridWriter(final Path file, final int dimension) throws IOException {
+		Grid.boxDimensionOf(dimension);
+		this.dimension = dimension;
+		this.recordBytes = BinaryGridReader.recordBytes(dimension);
+		this.buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, recordBytes));
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			writeHeader();
+			channel.position(BinaryGridReader.HEADER_BYTES);
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Writes the header, holding the number of grids written so far, at the start of the file.
+	 */
+	private void writeHeader() throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(BinaryGridReader.HEADER_BYTES);
+		header.putInt(BinaryGridReader.MAGIC)
+			.put((byte) BinaryGridReader.VERSION)
+			.put((byte) dimension)
+			.put((byte) BinaryGridReader.bitsPerCell(dimension))
+			.put((byte) 0)
+			.putLong(count)
+			.flip();
+		while (header.hasRemaining()) {
+			channel.write(header, header.position());
+		}
+	}
+
+	/**
+	 * Appends {@code grid} to the file.
+	 * @param grid to write, its blank cells holding {@link Grid#EMPTY}.
+	 * @throws IOException if a problem occurs writing the file.
+	 * @throws IllegalArgumentException if the grid is of another dimension, or holds values
+	 *         outside 0..dimension.
+	 */
+	public void write(final Grid grid) throws IOException {
+		if (grid.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, grid.dimension()));
+		final byte[] cells = grid.cells();
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] < Grid.EMPTY || cells[cell] > dimension)
+				throw new IllegalArgumentException(String.format(
+					"Error: Cell Value %1$d at row %2$d, column %3$d is outside range (%4$d,%5$d)",
+					cells[cell], cell / dimension + 1, cell % dimension + 1, Grid.EMPTY, dimension));
+		}
+
+		if (buffer.remaining() < recordBytes)
+			flush();
+		if (dimension <= BinaryGridReader.MAX_PACKED_DIMENSION) {
+			int i = 0;
+			for (; i + 1 < cells.length; i += 2) {
+				buffer.put((byte) (cells[i] << 4 | cells[i + 1]));
+			}
+			if (i < cells.length)
+				buffer.put((byte) (cells[i] << 4));
+		} else {
+			buffer.put(cells);
+		}
+		count++;
+	}
+
+	/**
+	 * Writes out the buffered records.
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * @return the number of grids written so far.
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Writes out the buffered records and the final count, then closes the file.
+	 * @throws IOException if a problem occurs writing the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		try {
+			flush();
+			writeHeader();
+		} finally {
+			channel.close();
+		}
+	}
+}
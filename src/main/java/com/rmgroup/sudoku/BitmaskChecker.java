@@ -0,0 +1,184 @@
+package com.rmgroup.sudoku;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * An allocation free checker for 9 x 9 Sudoku solutions held as flat, row major
+ * primitive arrays.
+ * <p>
+ * Every cell value is turned into a single bit, {@code 1 << (value - 1)}, and the bits
+ * are OR-ed into one mask per row, column and subgrid while the cells are visited
+ * exactly once. A unit holding nine cells is a valid Sudoku unit if, and only if, its
+ * mask equals {@link #ALL_DIGITS}. Values outside 1..9 set the {@link #OUT_OF_RANGE}
+ * bit instead, so they can never complete a unit.
+ * <p>
+ * The column and subgrid masks are held in local variables, hence no objects are
+ * created per call and the class is safe for concurrent use.
+ */
+public final class BitmaskChecker {
+
+	/**
+	 * The number of cells in a 9 x 9 solution.
+	 */
+	public static final int CELL_COUNT = 81;
+
+	/**
+	 * The mask of a unit which contains every value 1..9.
+	 */
+	static final int ALL_DIGITS = 0x1FF;
+
+	/**
+	 * The bit recorded for a value outside of the range 1..9.
+	 */
+	static final int OUT_OF_RANGE = 0x200;
+
+	private BitmaskChecker() {
+	}
+
+	/**
+	 * Returns the bit representing the given cell {@code value}.
+	 * @param value of the cell.
+	 * @return {@code 1 << (value - 1)} for values 1..9, {@link #OUT_OF_RANGE} otherwise.
+	 */
+	static int bit(final int value) {
+		return (value >= 1 && value <= 9) ? 1 << (value - 1) : OUT_OF_RANGE;
+	}
+
+	/**
+	 * Checks the 81 row major cells of {@code cells}.
+	 * @param cells of the solution.
+	 * @return {@code VALID} if the solution meets the Sudoku rules, {@code INVALID} otherwise.
+	 * @throws IllegalArgumentException if {@code cells} does not hold 81 values.
+	 */
+	public static Status check(final int[] cells) {
+		if (cells == null || cells.length != CELL_COUNT)
+			throw new IllegalArgumentException("ERROR: a 9 x 9 solution must contain 81 cells.");
+		return check(cells, 0);
+	}
+
+	/**
+	 * Checks the 81 row major cells of {@code cells} starting at {@code offset}.
+	 * @param cells holding the solution.
+	 * @param offset of the first cell of the solution.
+	 * @return {@code VALID} if the solution meets the Sudoku rules, {@code INVALID} otherwise.
+	 * @throws ArrayIndexOutOfBoundsException if fewer than 81 cells follow {@code offset}.
+	 */
+	public static Status check(final int[] cells, final int offset) {
+
+		int col0 = 0, col1 = 0, col2 = 0, col3 = 0, col4 = 0, col5 = 0, col6 = 0, col7 = 0, col8 = 0;
+		final int end = offset + CELL_COUNT;
+
+		// one band of three rows at a time, so each band needs three subgrid masks.
+		for (int band = offset; band < end; band += 27) {
+			int box0 = 0, box1 = 0, box2 = 0;
+
+			for (int row = band; row < band + 27; row += 9) {
+				final int b0 = bit(cells[row]),     b1 = bit(cells[row + 1]), b2 = bit(cells[row + 2]);
+				final int b3 = bit(cells[row + 3]), b4 = bit(cells[row + 4]), b5 = bit(cells[row + 5]);
+				final int b6 = bit(cells[row + 6]), b7 = bit(cells[row + 7]), b8 = bit(cells[row + 8]);
+
+				final int left = b0 | b1 | b2, middle = b3 | b4 | b5, right = b6 | b7 | b8;
+
+				if ((left | middle | right) != ALL_DIGITS)
+					return Status.INVALID;
+
+				box0 |= left; box1 |= middle; box2 |= right;
+				col0 |= b0; col1 |= b1; col2 |= b2;
+				col3 |= b3; col4 |= b4; col5 |= b5;
+				col6 |= b6; col7 |= b7; col8 |= b8;
+			}
+			if (box0 != ALL_DIGITS || box1 != ALL_DIGITS || box2 != ALL_DIGITS)
+				return Status.INVALID;
+		}
+		return allDigits(col0, col1, col2, col3, col4, col5, col6, col7, col8);
+	}
+
+	/**
+	 * Checks the 81 row major cells of {@code cells} starting at {@code offset}.
+	 * @param cells holding the solution.
+	 * @param offset of the first cell of the solution.
+	 * @return {@code VALID} if the solution meets the Sudoku rules, {@code INVALID} otherwise.
+	 * @throws ArrayIndexOutOfBoundsException if fewer than 81 cells follow {@code offset}.
+	 */
+	public static Status check(final byte[] cells, final int offset) {
+
+		int col0 = 0, col1 = 0, col2 = 0, col3 = 0, col4 = 0, col5 = 0, col6 = 0, col7 = 0, col8 = 0;
+		final int end = offset + CELL_COUNT;
+
+		for (int band = offset; band < end; band += 27) {
+			int box0 = 0, box1 = 0, box2 = 0;
+
+			for (int row = band; row < band + 27; row += 9) {
+				final int b0 = bit(cells[row]),     b1 = bit(cells[row + 1]), b2 = bit(cells[row + 2]);
+				final int b3 = bit(cells[row + 3]), b4 = bit(cells[row + 4]), b5 = bit(cells[row + 5]);
+				final int b6 = bit(cells[row + 6]), b7 = bit(cells[row + 7]), b8 = bit(cells[row + 8]);
+
+				final int left = b0 | b1 | b2, middle = b3 | b4 | b5, right = b6 | b7 | b8;
+
+				if ((left | middle | right) != ALL_DIGITS)
+					return Status.INVALID;
+
+				box0 |= left; box1 |= middle; box2 |= right;
+				col0 |= b0; col1 |= b1; col2 |= b2;
+				col3 |= b3; col4 |= b4; col5 |= b5;
+				col6 |= b6; col7 |= b7; col8 |= b8;
+			}
+			if (box0 != ALL_DIGITS || box1 != ALL_DIGITS || box2 != ALL_DIGITS)
+				return Status.INVALID;
+		}
+		return allDigits(col0, col1, col2, col3, col4, col5, col6, col7, col8);
+	}
+
+	/**
+	 * Checks the 81 row major cells of {@code cells} starting at {@code offset}, stopping at
+	 * the first unit found to break the rules. The rows are visited in order, after each row
+	 * the row itself, then any column and then any subgrid now holding a repeated digit is
+	 * reported, so a grid which goes wrong in its first rows is rejected after reading only
+	 * those rows. No objects are created unless the grid is invalid.
+	 * @param cells holding the solution.
+	 * @param offset of the first cell of the solution.
+	 * @return the result naming the first violated unit, if any.
+	 * @throws ArrayIndexOutOfBoundsException if fewer than 81 cells follow {@code offset}.
+	 */
+	public static CheckResult diagnose(final byte[] cells, final int offset) {
+
+		int col0 = 0, col1 = 0, col2 = 0, col3 = 0, col4 = 0, col5 = 0, col6 = 0, col7 = 0, col8 = 0;
+		final int end = offset + CELL_COUNT;
+
+		for (int band = offset; band < end; band += 27) {
+			int box0 = 0, box1 = 0, box2 = 0;
+
+			for (int row = band; row < band + 27; row += 9) {
+				final int b0 = bit(cells[row]),     b1 = bit(cells[row + 1]), b2 = bit(cells[row + 2]);
+				final int b3 = bit(cells[row + 3]), b4 = bit(cells[row + 4]), b5 = bit(cells[row + 5]);
+				final int b6 = bit(cells[row + 6]), b7 = bit(cells[row + 7]), b8 = bit(cells[row + 8]);
+
+				final int left = b0 | b1 | b2, middle = b3 | b4 | b5, right = b6 | b7 | b8;
+
+				// a complete row holds each digit once, so any overlap is a repeat in a column or subgrid.
+				if ((left | middle | right) != ALL_DIGITS
+						|| ((col0 & b0) | (col1 & b1) | (col2 & b2) | (col3 & b3) | (col4 & b4)
+							| (col5 & b5) | (col6 & b6) | (col7 & b7) | (col8 & b8)
+							| (box0 & left) | (box1 & middle) | (box2 & right)) != 0)
+					return MaskChecker.diagnose(cells, offset, 9);
+
+				box0 |= left; box1 |= middle; box2 |= right;
+				col0 |= b0; col1 |= b1; col2 |= b2;
+				col3 |= b3; col4 |= b4; col5 |= b5;
+				col6 |= b6; col7 |= b7; col8 |= b8;
+			}
+		}
+		// every row is complete and no column or subgrid repeats a digit, so all are complete.
+		return CheckResult.valid();
+	}
+
+	/**
+	 * Returns {@code VALID} if every one of the given column masks contains all the digits.
+	 * Only called once all the rows have passed, so no mask can hold {@link #OUT_OF_RANGE}.
+	 */
+	private static Status allDigits(final int col0, final int col1, final int col2,
+			final int col3, final int col4, final int col5, final int col6, final int col7, final int col8) {
+		return (col0 & col1 & col2 & col3 & col4 & col5 & col6 & col7 & col8) == ALL_DIGITS
+				? Status.VALID : Status.INVALID;
+	}
+}
@@ -0,0 +1,301 @@
+package com.rmgroup.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps a grid to a canonical representative of the grids equivalent to it under the
+ * symmetries which preserve the Sudoku rules: relabelling the digits, transposing, and
+ * permuting the bands, the stacks, the rows within a band and the columns within a stack.
+ * Equivalent grids are all valid or all invalid, so the canonical form may stand for any
+ * of them.
+ * <p>
+ * The representative is always a transform of the grid itself, so whatever it is used
+ * for is sound. It is exact, the same for every equivalent grid, for a grid of dimension
+ * 9 or less whose every row and column holds each digit once: it is then the least of its
+ * equivalent grids read in row major order, found by trying every first band row pair
+ * and column order against the second row and completing the few best. The other grids,
+ * being incomplete, larger, or repeating digits along a row or column, only have their
+ * digits relabelled in order of first appearance.
+ */
+public final class Canonical {
+
+	/**
+	 * The largest box dimension whose column orders are all tried, 1296 of them for 9 x 9.
+	 */
+	private static final int MAX_EXACT_BOX = 3;
+
+	/**
+	 * The column orders preserving the stacks, and their inverses, by box dimension.
+	 */
+	private static final int[][][] ORDERS = new int[MAX_EXACT_BOX + 1][][];
+
+	private static final int[][][] INVERSES = new int[MAX_EXACT_BOX + 1][][];
+
+	static {
+		for (int box = 1; box <= MAX_EXACT_BOX; box++) {
+			ORDERS[box] = columnOrders(box);
+			INVERSES[box] = new int[ORDERS[box].length][];
+			for (int i = 0; i < ORDERS[box].length; i++) {
+				INVERSES[box][i] = new int[box * box];
+				for (int j = 0; j < box * box; j++) {
+					INVERSES[box][i][ORDERS[box][i][j]] = j;
+				}
+			}
+		}
+	}
+
+	private Canonical() {
+	}
+
+	/**
+	 * Returns the canonical form of {@code grid}, which is not changed.
+	 * @param grid to canonicalise.
+	 * @return a new grid equivalent to {@code grid}.
+	 * @throws IllegalArgumentException if the grid is null.
+	 */
+	public static Grid of(final Grid grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("ERROR: the grid cannot be null");
+
+		return grid.boxDimension() <= MAX_EXACT_BOX && isLatin(grid.cells(), grid.dimension())
+				? minimal(grid)
+				: relabelled(grid);
+	}
+
+	/**
+	 * @return whether every row and column holds each of 1..dimension once.
+	 */
+	static boolean isLatin(final byte[] cells, final int dimension) {
+		final long all = (1L << dimension) - 1;
+		for (int line = 0; line < dimension; line++) {
+			long row = 0, column = 0;
+			for (int i = 0; i < dimension; i++) {
+				final int across = cells[line * dimension + i], down = cells[i * dimension + line];
+				if (across < 1 || across > dimension || down < 1 || down > dimension)
+					return false;
+				row |= 1L << (across - 1);
+				column |= 1L << (down - 1);
+			}
+			if (row != all || column != all)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Relabels the digits of {@code grid} in order of first appearance, row major, leaving
+	 * blank and out of range cells alone.
+	 */
+	static Grid relabelled(final Grid grid) {
+		final int dimension = grid.dimension();
+		final byte[] cells = grid.cells();
+		final byte[] labels = new byte[dimension + 1];
+		final byte[] result = new byte[cells.length];
+		int next = 0;
+		for (int i = 0; i < cells.length; i++) {
+			final int value = cells[i];
+			if (value < 1 || value > dimension) {
+				result[i] = (byte) value;
+				continue;
+			}
+			if (labels[value] == 0)
+				labels[value] = (byte) ++next;
+			result[i] = labels[value];
+		}
+		return Grid.wrap(dimension, result);
+	}
+
+	/**
+	 * Returns the least equivalent of a grid whose rows and columns each hold every digit.
+	 * <p>
+	 * Relabelling the digits by the first output row makes that row 1..dimension whichever
+	 * row and column order is chosen, so the second row, a band mate of the first, decides.
+	 * With row r1 first and r2 second, the second row holds at output column j the position
+	 * of the column where r1 holds the digit which r2 holds at the column placed at j, and
+	 * every pair of rows, in both orientations, is tried with every column order. The
+	 * orders giving the least second row are completed and compared in full: the remaining
+	 * rows of the first band are sorted, then the band holding the least remaining row comes
+	 * next, its rows sorted, and so on.
+	 */
+	private static Grid minimal(final Grid grid) {
+		final int dimension = grid.dimension();
+		final int box = grid.boxDimension();
+		final int[][] orders = ORDERS[box];
+		final int[][] inverses = INVERSES[box];
+
+		final byte[][] orientations = {grid.cells(), transpose(grid.cells(), dimension)};
+		final int[] leastRow = new int[dimension];
+		leastRow[0] = Integer.MAX_VALUE;
+		final List<int[]> ties = new ArrayList<>();
+
+		final int[] position = new int[dimension + 1];
+		final int[] target = new int[dimension];
+		for (int orientation = 0; orientation < orientations.length; orientation++) {
+			final byte[] cells = orientations[orientation];
+			for (int first = 0; first < dimension; first++) {
+				for (int i = 0; i < dimension; i++) {
+					position[cells[first * dimension + i]] = i;
+				}
+				final int band = first / box * box;
+				for (int second = band; second < band + box; second++) {
+					if (second == first)
+						continue;
+					for (int i = 0; i < dimension; i++) {
+						target[i] = position[cells[second * dimension + i]];
+					}
+
+					for (int order = 0; order < orders.length; order++) {
+						final int[] columns = orders[order], inverse = inverses[order];
+						int compare = 0;
+						for (int j = 0; j < dimension && compare == 0; j++) {
+							compare = Integer.compare(inverse[target[columns[j]]], leastRow[j]);
+						}
+						if (compare > 0)
+							continue;
+						if (compare < 0) {
+							for (int j = 0; j < dimension; j++) {
+								leastRow[j] = inverse[target[columns[j]]];
+							}
+							ties.clear();
+						}
+						ties.add(new int[] {orientation, first, second, order});
+					}
+				}
+			}
+		}
+
+		byte[] least = null;
+		final byte[] candidate = new byte[dimension * dimension];
+		for (int[] tie : ties) {
+			complete(orientations[tie[0]], dimension, box, tie[1], tie[2], orders[tie[3]], inverses[tie[3]], candidate);
+			if (least == null || compare(candidate, least) < 0)
+				least = candidate.clone();
+		}
+		return Grid.wrap(dimension, least);
+	}
+
+	/**
+	 * Writes into {@code result} the least grid with rows {@code first} and {@code second}
+	 * leading and the given column order, relabelled by the first row.
+	 */
+	private static void complete(final byte[] cells, final int dimension, final int box, final int first,
+			final int second, final int[] columns, final int[] inverse, final byte[] result) {
+
+		// the label of each digit is one more than the output column of the first row holding it.
+		final byte[] label = new byte[dimension + 1];
+		for (int i = 0; i < dimension; i++) {
+			label[cells[first * dimension + i]] = (byte) (inverse[i] + 1);
+		}
+		final byte[][] rows = new byte[dimension][dimension];
+		for (int row = 0; row < dimension; row++) {
+			for (int j = 0; j < dimension; j++) {
+				rows[row][j] = label[cells[row * dimension + columns[j]]];
+			}
+		}
+
+		final boolean[] used = new boolean[dimension];
+		int out = 0;
+		used[first] = true;
+		used[second] = true;
+		System.arraycopy(rows[first], 0, result, out++ * dimension, dimension);
+		System.arraycopy(rows[second], 0, result, out++ * dimension, dimension);
+		out = appendBand(rows, used, first / box * box, box, dimension, result, out);
+
+		while (out < dimension) {
+			int least = -1;
+			for (int row = 0; row < dimension; row++) {
+				if (!used[row] && (least < 0 || compare(rows[row], rows[least]) < 0))
+					least = row;
+			}
+			used[least] = true;
+			System.arraycopy(rows[least], 0, result, out++ * dimension, dimension);
+			out = appendBand(rows, used, least / box * box, box, dimension, result, out);
+		}
+	}
+
+	/**
+	 * Appends the unused rows of the band starting at {@code band} in ascending order.
+	 * @return the next output row.
+	 */
+	private static int appendBand(final byte[][] rows, final boolean[] used, final int band, final int box,
+			final int dimension, final byte[] result, int out) {
+		while (true) {
+			int least = -1;
+			for (int row = band; row < band + box; row++) {
+				if (!used[row] && (least < 0 || compare(rows[row], rows[least]) < 0))
+					least = row;
+			}
+			if (least < 0)
+				return out;
+			used[least] = true;
+			System.arraycopy(rows[least], 0, result, out++ * dimension, dimension);
+		}
+	}
+
+	private static int compare(final byte[] a, final byte[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i])
+				return a[i] < b[i] ? -1 : 1;
+		}
+		return 0;
+	}
+
+	private static byte[] transpose(final byte[] cells, final int dimension) {
+		final byte[] result = new byte[cells.length];
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				result[col * dimension + row] = cells[row * dimension + col];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Lists every column order which keeps the columns of a stack together: the stacks in
+	 * any order, and the columns of each in any order.
+	 */
+	private static int[][] columnOrders(final int box) {
+		final int[][] perms = permutations(box);
+		final List<int[]> orders = new ArrayList<>();
+		final int[] choice = new int[box + 1];
+		while (true) {
+			// choice[0] orders the stacks, choice[1 + s] the columns of output stack s.
+			final int[] order = new int[box * box];
+			for (int s = 0; s < box; s++) {
+				for (int c = 0; c < box; c++) {
+					order[s * box + c] = perms[choice[0]][s] * box + perms[choice[1 + s]][c];
+				}
+			}
+			orders.add(order);
+
+			int digit = box;
+			while (digit >= 0 && ++choice[digit] == perms.length) {
+				choice[digit--] = 0;
+			}
+			if (digit < 0)
+				return orders.toArray(new int[0][]);
+		}
+	}
+
+	private static int[][] permutations(final int n) {
+		final List<int[]> result = new ArrayList<>();
+		permute(new int[n], new boolean[n], 0, result);
+		return result.toArray(new int[0][]);
+	}
+
+	private static void permute(final int[] prefix, final boolean[] taken, final int length, final List<int[]> result) {
+		if (length == prefix.length) {
+			result.add(prefix.clone());
+			return;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (!taken[i]) {
+				taken[i] = true;
+				prefix[length] = i;
+				permute(prefix, taken, length + 1, result);
+				taken[i] = false;
+			}
+		}
+	}
+}
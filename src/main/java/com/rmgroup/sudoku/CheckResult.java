@@ -0,0 +1,178 @@
+package com.rmgroup.sudoku;
+
+import com.rmgroup.sudoku.Grid.Unit;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * The outcome of checking a grid, which for an invalid grid names the first unit found to
+ * break the Sudoku rules, the digit at fault and, where there is one, the offending cell.
+ * <p>
+ * Rows, columns and cells are numbered from 0, as for {@link Grid}, while
+ * {@link #toString()} numbers them from 1 for people.
+ */
+public final class CheckResult {
+
+	/**
+	 * The ways in which a unit may break the Sudoku rules.
+	 */
+	public enum Problem {
+		/** The unit holds a digit more than once, the cell is its second occurrence. */
+		DUPLICATE,
+		/** The unit lacks a digit, the cell is its first empty or out of range cell. */
+		MISSING
+	}
+
+	/**
+	 * The result of every valid grid.
+	 */
+	private static final CheckResult VALID = new CheckResult(null, -1, null, 0, -1, -1);
+
+	private final Unit.Type unitType;
+
+	private final int unitIndex;
+
+	private final Problem problem;
+
+	private final int digit;
+
+	private final int row;
+
+	private final int column;
+
+	private CheckResult(final Unit.Type unitType, final int unitIndex, final Problem problem,
+			final int digit, final int row, final int column) {
+		this.unitType = unitType;
+		this.unitIndex = unitIndex;
+		this.problem = problem;
+		this.digit = digit;
+		this.row = row;
+		this.column = column;
+	}
+
+	/**
+	 * @return the result of a valid grid.
+	 */
+	public static CheckResult valid() {
+		return VALID;
+	}
+
+	/**
+	 * Returns the result for the given unit of {@code cells}, which breaks the Sudoku rules.
+	 * The unit is scanned in order, the first repeated digit is reported, otherwise the
+	 * lowest missing digit.
+	 * @param cells of the grid in row major order.
+	 * @param offset of the first cell of the grid.
+	 * @param dimension of the grid.
+	 * @param type of the unit.
+	 * @param index of the unit.
+	 * @return the violation found.
+	 */
+	static CheckResult violation(final byte[] cells, final int offset, final int dimension,
+			final Unit.Type type, final int index) {
+		final int box = Grid.boxDimensionOf(dimension);
+		final boolean[] seen = new boolean[dimension + 1];
+		int firstBad = -1;
+
+		for (int i = 0; i < dimension; i++) {
+			final int row, col;
+			switch (type) {
+			case ROW:
+				row = index;
+				col = i;
+				break;
+			case COLUMN:
+				row = i;
+				col = index;
+				break;
+			default:
+				row = index / box * box + i / box;
+				col = index % box * box + i % box;
+			}
+
+			final int value = cells[offset + row * dimension + col];
+			if (value < 1 || value > dimension) {
+				if (firstBad < 0)
+					firstBad = row * dimension + col;
+			} else if (seen[value]) {
+				return new CheckResult(type, index, Problem.DUPLICATE, value, row, col);
+			} else {
+				seen[value] = true;
+			}
+		}
+
+		int missing = 1;
+		while (missing < dimension && seen[missing])
+			missing++;
+		return new CheckResult(type, index, Problem.MISSING, missing,
+				firstBad < 0 ? -1 : firstBad / dimension, firstBad < 0 ? -1 : firstBad % dimension);
+	}
+
+	/**
+	 * @return {@code VALID} if the grid meets the Sudoku rules, {@code INVALID} otherwise.
+	 */
+	public Status status() {
+		return this == VALID ? Status.VALID : Status.INVALID;
+	}
+
+	/**
+	 * @return {@code true} if the grid meets the Sudoku rules.
+	 */
+	public boolean isValid() {
+		return this == VALID;
+	}
+
+	/**
+	 * @return the kind of unit which breaks the rules, {@code null} for a valid grid.
+	 */
+	public Unit.Type unitType() {
+		return unitType;
+	}
+
+	/**
+	 * @return the index of the unit which breaks the rules, -1 for a valid grid.
+	 */
+	public int unitIndex() {
+		return unitIndex;
+	}
+
+	/**
+	 * @return how the unit breaks the rules, {@code null} for a valid grid.
+	 */
+	public Problem problem() {
+		return problem;
+	}
+
+	/**
+	 * @return the duplicated or missing digit, 0 for a valid grid.
+	 */
+	public int digit() {
+		return digit;
+	}
+
+	/**
+	 * @return the row of the offending cell, -1 if there is none.
+	 */
+	public int row() {
+		return row;
+	}
+
+	/**
+	 * @return the column of the offending cell, -1 if there is none.
+	 */
+	public int column() {
+		return column;
+	}
+
+	@Override
+	public String toString() {
+		if (isValid())
+			return Status.VALID.name();
+
+		StringBuilder text = new StringBuilder(64).append(Status.INVALID.name()).append(": ")
+				.append(unitType.name().toLowerCase()).append(' ').append(unitIndex + 1)
+				.append(problem == Problem.DUPLICATE ? " repeats " : " is missing ").append(digit);
+		if (row >= 0)
+			text.append(" at row ").append(row + 1).append(", column ").append(column + 1);
+		return text.toString();
+	}
+}
@@ -1,13 +1,15 @@
 package com.rmgroup.sudoku;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import com.rmgroup.sudoku.Metrics.Stage;
+
 public class CsvReader implements SudokuReader {
 
 	/**
@@ -16,9 +18,15 @@ public class CsvReader implements SudokuReader {
 	final private Path file;
 	
 	/**
-	 * The dimension of the square Sudoku grid. 
+	 * The dimension of the square Sudoku grid, {@link #DETECT_DIMENSION} to detect it
+	 * from the number of cells in the first row.
 	 */
 	final private Integer dimension;
+
+	/**
+	 * Whether blank cells, written as 0 or {@code .}, are accepted, as in a puzzle.
+	 */
+	final private boolean blanks;
 	
 	/**
 	 * Constructs a CsvReader for the given {@code file} and given {@code dimension}.
@@ -26,8 +34,30 @@ public class CsvReader implements SudokuReader {
 	 * @param dimension
 	 */
 	public CsvReader(final Path file, final Integer dimension) {
+       this(file, dimension, false);
+	}
+
+	/**
+	 * Constructs a CsvReader for the given {@code file} and given {@code dimension} which,
+	 * if {@code blanks} is set, reads a partially filled puzzle: a blank cell is written
+	 * as 0 or {@code .} and read as {@link Grid#EMPTY}.
+	 * @param file 
+	 * @param dimension
+	 * @param blanks whether blank cells are accepted.
+	 */
+	public CsvReader(final Path file, final Integer dimension, final boolean blanks) {
        this.file = file;
        this.dimension = dimension; 
+       this.blanks = blanks;
+	}
+
+	/**
+	 * Constructs a CsvReader for the given {@code file}, detecting the dimension of the
+	 * grid from the number of cells in its first row.
+	 * @param file 
+	 */
+	public CsvReader(final Path file) {
+       this(file, DETECT_DIMENSION);
 	}
 	
 	/**
@@ -38,21 +68,53 @@ public class CsvReader implements SudokuReader {
 	 */
 	@Override
 	public Integer[][] getGrid() throws IOException {
-		
-       Integer[][] sudokuGrid = new Integer[dimension][dimension];
+       return readGrid().toArray();
+     }
+
+	/**
+	 * Returns a compact Grid of {@code dimension} consisting of the values from the
+	 * given Sudoku solution {@code file}. Each line is parsed straight into the grid,
+	 * which is sized by the first line if the dimension is to be detected.
+	 * @return a Grid containing legal values.
+	 * @throws IOException if a problem occurs reading or accessing the file.
+	 * @throws IllegalArgumentException if the file does not hold {@code dimension} legal rows.
+	 */
+	@Override
+	public Grid readGrid() throws IOException {
 
-       try (Stream<String> lines = Files.lines(file))  {
+       Grid sudokuGrid = null;
+       byte[] cells = null;
+       int dimension = this.dimension;
+       int rowNumber = 0;
 
-    	   AtomicInteger rowNumber = new AtomicInteger(0);
+       try (BufferedReader lines = Files.newBufferedReader(file))  {
 
-    	   // save the extracted row.
-    	   lines.forEach((row) -> 
-              sudokuGrid[rowNumber.getAndIncrement()] = extractCellValues(row, dimension)
-           );
+    	   String row;
+    	   while ((row = readLine(lines)) != null) {
+    		   if (sudokuGrid == null) {
+    			   if (dimension == DETECT_DIMENSION)
+    				   dimension = CsvRowParser.dimensionOf(row);
+    			   sudokuGrid = new Grid(dimension);
+    			   cells = sudokuGrid.cells();
+    		   }
+    		   if (rowNumber == dimension)
+    			   throw new IllegalArgumentException(String.format(
+    				  "ERROR: Mismatch between the dimension {%1$d} and number of rows in solution {%2$d}.", dimension, rowNumber + 1));
+
+    		   // save the extracted row.
+    		   extractCellValues(row, dimension, cells, rowNumber * dimension);
+    		   rowNumber++;
+    	   }
         } catch (IOException ioe) {
            throw new IOException(
               "Error: Problem occurred trying to read the file. " + ioe.getMessage());
         }
+
+       if (dimension == DETECT_DIMENSION)
+          throw new IllegalArgumentException("ERROR: the solution holds no rows.");
+       if (rowNumber != dimension)
+          throw new IllegalArgumentException(String.format(
+             "ERROR: Mismatch between the dimension {%1$d} and number of rows in solution {%2$d}.", dimension, rowNumber));
        return sudokuGrid;
      }
 	
@@ -63,21 +125,55 @@ public class CsvReader implements SudokuReader {
      * @return a row of validated values within the specified range. 
      */
      protected Integer[] extractCellValues(final String line, final Integer dimension) {
-	
-        // collect the values 
-        String[] rawCellValues = line.split(",");		
-
-        if (dimension != rawCellValues.length) 
-           throw new IllegalArgumentException(String.format(
-              "ERROR: Mismatch between the dimension {%1$d} and number of elements in solution row {%2$d}.", dimension, rawCellValues.length));
-        	
-        // cell values need to satisfy Suduko grid dimensions.
-        if (isInRange(rawCellValues, dimension)) {
-        	return getCleansedRow(rawCellValues);
-        } else 
-        	throw new IllegalArgumentException("ERROR: Illegal raw cell values");
+
+        byte[] cells = new byte[dimension];
+        CsvRowParser.parseRow(line, dimension, cells, 0, 0);
+
+        Integer[] cleansedRow = new Integer[dimension];
+        for (int col = 0; col < dimension; col++) {
+           cleansedRow[col] = (int) cells[col];
+        }
+        return cleansedRow;
      }
-     
+
+    /**
+     * Extracts and validates values from the given line of data, storing them in
+     * {@code cells} from {@code offset} onwards. The line is parsed in a single pass
+     * and a bad cell is reported with its row and column.
+     * 
+     * @param line to extract the values from.
+     * @param dimension of the grid.
+     * @param cells to store the validated values in.
+     * @param offset of the first value in {@code cells}, a multiple of {@code dimension}.
+     * @throws NumberFormatException if any elements are non-integer.
+     * @throws IllegalArgumentException if the line does not hold {@code dimension} 
+     *         elements or any are not within range.
+     */
+     protected void extractCellValues(
+        final String line, final int dimension, final byte[] cells, final int offset) {
+        final long started = Metrics.start(Stage.PARSE);
+        try {
+           CsvRowParser.parseRow(line, dimension, cells, offset, offset / dimension + 1, blanks);
+        } finally {
+           Metrics.stop(Stage.PARSE, started);
+        }
+     }
+
+     /**
+      * Reads the next line of the file, as the read stage of the {@link Metrics}.
+      * @param lines of the file.
+      * @return the line, or {@code null} at the end of the file.
+      * @throws IOException if a problem occurs reading the file.
+      */
+     private static String readLine(final BufferedReader lines) throws IOException {
+        final long started = Metrics.start(Stage.READ);
+        try {
+           return lines.readLine();
+        } finally {
+           Metrics.stop(Stage.READ, started);
+        }
+     }
+
      /**
       * Returns the raw cell values as to cleansed integer data.
       * Note: A call to isInRange() should be made before calling this method.
@@ -0,0 +1,379 @@
+package com.rmgroup.sudoku;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single pass parsers for the rows of a Sudoku grid, either comma separated or written as
+ * one digit per cell. Each cell is validated, range checked and stored in the same sweep
+ * over the characters, and the first bad cell is reported with its row and column.
+ * <p>
+ * A row must hold exactly {@code dimension} cells, as with {@code String.split(",")}
+ * trailing empty cells are dropped. A row of the wrong width is reported before any of its
+ * cells, as its cells cannot be placed. Otherwise, as when each cell was parsed with
+ * {@link Integer#parseInt(String)}, the first cell, from the left, which is not an integer,
+ * or does not fit an int, raises a {@link NumberFormatException} before any range is
+ * checked, and only then does the first which is outside 1..dimension raise an
+ * {@link IllegalArgumentException}. A cell may carry a leading sign.
+ * <p>
+ * Grids larger than 9 x 9 may also write a cell as a single letter, A (or a) standing for
+ * 10 up to Z for 35, so a 16 x 16 grid may use 1..9 and A..G, and its one line form has a
+ * character per cell. A letter is not an integer in a grid of 9 x 9 or smaller.
+ * <p>
+ * A puzzle, rather than a solution, may leave cells blank, written as 0 or {@code .}, when
+ * the caller asks for it.
+ * <p>
+ * The parsers exist for {@link CharSequence} and for {@link ByteBuffer} input, so mapped
+ * files are parsed without decoding them. Both share one loop and report the same errors.
+ */
+final class CsvRowParser {
+
+	/**
+	 * The value of a cell which is not an integer.
+	 */
+	private static final int NOT_AN_INTEGER = Integer.MIN_VALUE;
+
+	/**
+	 * Larger values, signed or not, do not fit an int, so parsing saturates here.
+	 */
+	private static final long SATURATED = 1L << 32;
+
+	/**
+	 * The largest dimension whose cells are all written as digits.
+	 */
+	private static final int DIGITS_ONLY = 9;
+
+	private CsvRowParser() {
+	}
+
+	/**
+	 * Extracts and validates the values of the comma separated {@code line}, storing them in
+	 * {@code cells} from {@code offset} onwards.
+	 * @param line holding the row.
+	 * @param dimension of the grid.
+	 * @param cells to store the validated values in.
+	 * @param offset of the first value in {@code cells}.
+	 * @param row number reported with errors, starting at 1, 0 if unknown.
+	 * @throws NumberFormatException if any elements are non-integer.
+	 * @throws IllegalArgumentException if the line does not hold {@code dimension}
+	 *         elements or any are not within range.
+	 */
+	static void parseRow(final CharSequence line, final int dimension, final byte[] cells,
+			final int offset, final int row) {
+		parseRow(line, dimension, cells, offset, row, false);
+	}
+
+	/**
+	 * Extracts and validates the values of the comma separated {@code line} as
+	 * {@link #parseRow(CharSequence, int, byte[], int, int)} does, but if {@code blanks}
+	 * is set a cell may also be blank, written as 0 or a single {@code .}, which is
+	 * stored as {@link Grid#EMPTY}.
+	 * @param line holding the row.
+	 * @param dimension of the grid.
+	 * @param cells to store the validated values in.
+	 * @param offset of the first value in {@code cells}.
+	 * @param row number reported with errors, starting at 1, 0 if unknown.
+	 * @param blanks whether blank cells are accepted, as in a puzzle to be solved.
+	 * @throws NumberFormatException if any elements are non-integer.
+	 * @throws IllegalArgumentException if the line does not hold {@code dimension}
+	 *         elements or any are not within range.
+	 */
+	static void parseRow(final CharSequence line, final int dimension, final byte[] cells,
+			final int offset, final int row, final boolean blanks) {
+		parseRow(line, 0, line.length(), dimension, cells, offset, row, blanks);
+	}
+
+	/**
+	 * Extracts and validates the values of the comma separated row held by {@code line}
+	 * between {@code start} and {@code end}, storing them in {@code cells} from {@code offset}
+	 * onwards, as {@link #parseRow(CharSequence, int, byte[], int, int)} does.
+	 * @param line the bytes holding the row.
+	 * @param start of the row, inclusive.
+	 * @param end of the row, exclusive.
+	 * @param dimension of the grid.
+	 * @param cells to store the validated values in.
+	 * @param offset of the first value in {@code cells}.
+	 * @param row number reported with errors, starting at 1, 0 if unknown.
+	 * @throws NumberFormatException if any elements are non-integer.
+	 * @throws IllegalArgumentException if the row does not hold {@code dimension}
+	 *         elements or any are not within range.
+	 */
+	static void parseRow(final ByteBuffer line, final int start, final int end, final int dimension,
+			final byte[] cells, final int offset, final int row) {
+		parseRow(new Bytes(line, start, end), 0, end - start, dimension, cells, offset, row, false);
+	}
+
+	/**
+	 * The single pass over the row held by {@code line} between {@code start} and
+	 * {@code end}, shared by the {@link CharSequence} and {@link ByteBuffer} parsers.
+	 */
+	private static void parseRow(final CharSequence line, final int start, final int end, final int dimension,
+			final byte[] cells, final int offset, final int row, final boolean blanks) {
+
+		final int min = blanks ? Grid.EMPTY : 1;
+		int last = end;
+		while (last > start && line.charAt(last - 1) == ',')
+			last--;
+
+		// an empty line is one, empty, element, which is not an integer.
+		int count = start == end ? 1 : 0;
+		int nonIntegerStart = start == end ? start : -1, nonIntegerEnd = start, nonIntegerColumn = 1;
+		int outsideStart = -1, outsideEnd = start, outsideColumn = 1;
+
+		int tokenStart = start;
+		long value = 0;
+		boolean digits = false, negative = false, integer = true;
+
+		for (int i = start; i < last || (i == last && last > start); i++) {
+			final char c = i < last ? line.charAt(i) : ',';
+
+			if (c != ',') {
+				if (c >= '0' && c <= '9') {
+					value = Math.min(value * 10 + (c - '0'), SATURATED);
+					digits = true;
+				} else if ((c == '-' || c == '+') && i == tokenStart) {
+					negative = c == '-';
+				} else if (i == tokenStart && (i + 1 == last || line.charAt(i + 1) == ',')
+						&& letterValue(c, dimension) != NOT_AN_INTEGER) {
+					value = letterValue(c, dimension);
+					digits = true;
+				} else if (blanks && c == '.' && i == tokenStart && (i + 1 == last || line.charAt(i + 1) == ',')) {
+					value = Grid.EMPTY;
+					digits = true;
+				} else {
+					integer = false;
+					// skip to the end of the token.
+					while (i + 1 < last && line.charAt(i + 1) != ',')
+						i++;
+				}
+				continue;
+			}
+
+			final long cell = negative ? -value : value;
+			if (!integer || !digits || cell > Integer.MAX_VALUE || cell < Integer.MIN_VALUE) {
+				if (nonIntegerStart < 0) {
+					nonIntegerStart = tokenStart;
+					nonIntegerEnd = i;
+					nonIntegerColumn = count + 1;
+				}
+			} else if (count < dimension && cell >= min && cell <= dimension) {
+				cells[offset + count] = (byte) cell;
+			} else if (outsideStart < 0 && (cell < min || cell > dimension)) {
+				outsideStart = tokenStart;
+				outsideEnd = i;
+				outsideColumn = count + 1;
+			}
+			count++;
+			tokenStart = i + 1;
+			value = 0;
+			digits = false;
+			negative = false;
+			integer = true;
+		}
+
+		if (count != dimension)
+			throw wrongWidth(dimension, count, row);
+		if (nonIntegerStart >= 0)
+			throw badCell(line.subSequence(nonIntegerStart, nonIntegerEnd).toString(), false, min, dimension,
+					row, nonIntegerColumn);
+		if (outsideStart >= 0)
+			throw badCell(line.subSequence(outsideStart, outsideEnd).toString(), true, min, dimension,
+					row, outsideColumn);
+	}
+
+	/**
+	 * Parses a whole grid held on one line, one digit, or letter for the larger grids, per cell.
+	 * @param line holding the cells in row major order.
+	 * @param dimension of the grid.
+	 * @param cells to store the values in.
+	 * @throws NumberFormatException if any cells are not digits.
+	 * @throws IllegalArgumentException if the line is the wrong length or any cells are not within range.
+	 */
+	static void parseLine(final CharSequence line, final int dimension, final byte[] cells) {
+		parseLine(line, dimension, cells, false);
+	}
+
+	/**
+	 * Parses a whole grid held on one line as {@link #parseLine(CharSequence, int, byte[])}
+	 * does, but if {@code blanks} is set a cell may also be blank, written as 0 or {@code .},
+	 * which is stored as {@link Grid#EMPTY}.
+	 * @param line holding the cells in row major order.
+	 * @param dimension of the grid.
+	 * @param cells to store the values in.
+	 * @param blanks whether blank cells are accepted, as in a puzzle to be solved.
+	 * @throws NumberFormatException if any cells are not digits.
+	 * @throws IllegalArgumentException if the line is the wrong length or any cells are not within range.
+	 */
+	static void parseLine(final CharSequence line, final int dimension, final byte[] cells, final boolean blanks) {
+		if (line.length() != cells.length)
+			throw wrongLength(cells.length, line.length());
+
+		final int min = blanks ? Grid.EMPTY : 1;
+		for (int i = 0; i < cells.length; i++) {
+			final char c = line.charAt(i);
+			final int value = c >= '0' && c <= '9' ? c - '0'
+					: blanks && c == '.' ? Grid.EMPTY : letterValue(c, dimension);
+			if (value < min || value > dimension)
+				throw badCell(String.valueOf(c), value != NOT_AN_INTEGER, min, dimension, i / dimension + 1, i % dimension + 1);
+			cells[i] = (byte) value;
+		}
+	}
+
+	/**
+	 * Parses a whole grid held on one line between {@code start} and {@code end}, one digit
+	 * per cell, as {@link #parseLine(CharSequence, int, byte[])} does.
+	 */
+	static void parseLine(final ByteBuffer line, final int start, final int end,
+			final int dimension, final byte[] cells) {
+		if (end - start != cells.length)
+			throw wrongLength(cells.length, end - start);
+
+		for (int i = 0; i < cells.length; i++) {
+			final byte c = line.get(start + i);
+			final int value = c >= '0' && c <= '9' ? c - '0' : letterValue(c, dimension);
+			if (value < 1 || value > dimension)
+				throw badCell(decode(line, start + i, start + i + 1), value != NOT_AN_INTEGER, 1, dimension, i / dimension + 1, i % dimension + 1);
+			cells[i] = (byte) value;
+		}
+	}
+
+	/**
+	 * Returns the value of the cell written as the letter {@code c}, A or a for 10 up to
+	 * Z or z for 35, in a grid of the given {@code dimension}.
+	 * @return the value, or {@link #NOT_AN_INTEGER} if {@code c} is not a letter or the grid
+	 *         is written with digits only.
+	 */
+	private static int letterValue(final int c, final int dimension) {
+		if (dimension <= DIGITS_ONLY)
+			return NOT_AN_INTEGER;
+		if (c >= 'A' && c <= 'Z')
+			return c - 'A' + 10;
+		if (c >= 'a' && c <= 'z')
+			return c - 'a' + 10;
+		return NOT_AN_INTEGER;
+	}
+
+	/**
+	 * Detects the dimension of a grid from its first line: the number of comma separated
+	 * cells, trailing empty cells dropped, or for a line without commas holding a whole
+	 * grid, the square root of its length.
+	 * @param line the first line of the grid.
+	 * @return the dimension.
+	 * @throws IllegalArgumentException if the line is not that of a legal grid dimension.
+	 */
+	static int dimensionOf(final CharSequence line) {
+		int last = line.length();
+		while (last > 0 && line.charAt(last - 1) == ',')
+			last--;
+
+		int commas = 0;
+		for (int i = 0; i < last; i++) {
+			if (line.charAt(i) == ',')
+				commas++;
+		}
+
+		if (last == line.length() && commas == 0)
+			return dimensionOfLine(last);
+
+		Grid.boxDimensionOf(commas + 1);
+		return commas + 1;
+	}
+
+	/**
+	 * Detects the dimension of a grid written on one line of {@code length} characters,
+	 * one per cell.
+	 * @param length of the line.
+	 * @return the dimension.
+	 * @throws IllegalArgumentException if the length is not that of a legal grid.
+	 */
+	static int dimensionOfLine(final int length) {
+		final int dimension = (int) Math.round(Math.sqrt(length));
+		if (dimension * dimension != length)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: cannot detect the dimension of a solution line of {%1$d} elements.", length));
+		Grid.boxDimensionOf(dimension);
+		return dimension;
+	}
+
+	/**
+	 * Returns the error for a row which does not hold {@code dimension} elements.
+	 */
+	static IllegalArgumentException wrongWidth(final int dimension, final int count, final int row) {
+		return new IllegalArgumentException(String.format(
+			"ERROR: Mismatch between the dimension {%1$d} and number of elements in solution %3$s {%2$d}.",
+			dimension, count, row > 0 ? "row " + row : "row"));
+	}
+
+	private static IllegalArgumentException wrongLength(final int expected, final int length) {
+		return new IllegalArgumentException(String.format(
+			"ERROR: Mismatch between the number of cells {%1$d} and number of elements in solution line {%2$d}.",
+			expected, length));
+	}
+
+	/**
+	 * Returns the error for the given bad cell: a NumberFormatException if it is not an
+	 * integer, otherwise an IllegalArgumentException for a value outside min..dimension.
+	 */
+	private static IllegalArgumentException badCell(final String text, final boolean integer,
+			final int min, final int dimension, final int row, final int column) {
+		final String at = row > 0 ? "row " + row + ", column " + column : "column " + column;
+
+		if (!integer) {
+			return new NumberFormatException(text.isEmpty()
+				? "Error: missing value at " + at
+				: "Error: non-integer value \"" + text + "\" at " + at);
+		}
+		return new IllegalArgumentException(String.format(
+			"Error: Cell Value %1$s at %2$s is outside range (%3$d,%4$d)", text, at, min, dimension));
+	}
+
+	/**
+	 * The bytes of a row of a mapped file seen as characters, a byte each, so they are
+	 * parsed by the same loop as text. The text of a bad cell is decoded as UTF-8.
+	 */
+	private static final class Bytes implements CharSequence {
+
+		private final ByteBuffer buffer;
+
+		private final int start;
+
+		private final int end;
+
+		Bytes(final ByteBuffer buffer, final int start, final int end) {
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(final int index) {
+			return (char) (buffer.get(start + index) & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(final int from, final int to) {
+			return new Bytes(buffer, start + from, start + to);
+		}
+
+		@Override
+		public String toString() {
+			return decode(buffer, start, end);
+		}
+	}
+
+	/**
+	 * Returns the text between {@code start} and {@code end}, only used to report a bad cell.
+	 */
+	static String decode(final ByteBuffer line, final int start, final int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = line.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,477 @@
+package com.rmgroup.sudoku;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rmgroup.sudoku.BatchValidator.Summary;
+
+/**
+ * Validates each file dropped into a directory as soon as it has been written, on a pool
+ * of worker threads, until closed.
+ * <p>
+ * A file is taken once its size and modification time have not changed for
+ * {@code quietMillis}, so a file still being written is left alone. Its grids are
+ * validated as by a {@link BatchValidator}, the result lines followed by the summary
+ * counts of the file being appended to {@link #RESULTS} in one block. The file is then
+ * moved to {@link #DONE} if every grid is VALID, to {@link #FAILED} otherwise, a number
+ * being added to its name if the folder already holds one of that name. Files are read
+ * into the heap rather than mapped, as a mapped file cannot be moved on Windows until the
+ * garbage collector releases its mapping.
+ * <p>
+ * The outcome of each file is recorded in {@link #CHECKPOINT} before it is moved. A file
+ * found at start up with the name, size and modification time of one recorded, left
+ * behind by a watcher which stopped before moving it, is moved without being validated
+ * again. The checkpoint is rewritten with the outcomes of the files not yet moved at start
+ * up, and whenever {@link #COMPACT_LINES} files have been moved since, so it stays short
+ * however long the watcher runs. Files whose name starts with a dot, the results and
+ * sub-directories are ignored.
+ */
+public class DirectoryWatcher implements Closeable {
+
+	/**
+	 * The folder of the directory the wholly VALID files are moved to.
+	 */
+	public static final String DONE = "done";
+
+	/**
+	 * The folder of the directory the other files are moved to.
+	 */
+	public static final String FAILED = "failed";
+
+	/**
+	 * The file of the directory the results are appended to.
+	 */
+	public static final String RESULTS = "results.log";
+
+	/**
+	 * The file of the directory recording the outcome of each file, one per line as
+	 * {@code <done|failed> <size> <modified millis> <name>}.
+	 */
+	public static final String CHECKPOINT = ".checkpoint";
+
+	/**
+	 * The number of lines of files moved since, after which the checkpoint is rewritten.
+	 */
+	static final int COMPACT_LINES = 1000;
+
+	/**
+	 * The default time a file must be left unchanged before it is validated.
+	 */
+	public static final long DEFAULT_QUIET_MILLIS = 1000;
+
+	private final Path directory;
+
+	private final long quietMillis;
+
+	private final WatchService watcher;
+
+	private final ExecutorService workers;
+
+	private final Writer results;
+
+	/**
+	 * Guards the checkpoint, which is replaced as it is compacted.
+	 */
+	private final Object checkpointLock = new Object();
+
+	private Writer checkpoint;
+
+	/**
+	 * The lines of the checkpoint recording files moved since.
+	 */
+	private int obsoleteLines;
+
+	/**
+	 * The outcome recorded for each file, by name.
+	 */
+	private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+
+	/**
+	 * The files being written, by name, with when each was last seen to change.
+	 */
+	private final Map<String, Observation> candidates = new HashMap<>();
+
+	/**
+	 * The names of the files handed to the workers and not yet moved.
+	 */
+	private final Set<String> taken = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean closed;
+
+	/**
+	 * Constructs a DirectoryWatcher for {@code directory}, creating its folders and reading
+	 * its checkpoint.
+	 * @param directory to watch.
+	 * @param threads the number of worker threads.
+	 * @param quietMillis the time a file must be left unchanged before it is validated.
+	 * @throws IOException if the directory cannot be watched or its files opened.
+	 * @throws IllegalArgumentException if {@code directory} is not a directory or
+	 *         {@code threads} is not positive.
+	 */
+	public DirectoryWatcher(final Path directory, final int threads, final long quietMillis) throws IOException {
+		if (!Files.isDirectory(directory))
+			throw new IllegalArgumentException("ERROR: " + directory + " is not a directory.");
+		if (threads < 1)
+			throw new IllegalArgumentException("ERROR: the number of threads must be positive");
+
+		this.directory = directory;
+		this.quietMillis = quietMillis;
+		Files.createDirectories(directory.resolve(DONE));
+		Files.createDirectories(directory.resolve(FAILED));
+		readCheckpoint();
+
+		this.watcher = FileSystems.getDefault().newWatchService();
+		directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		this.results = open(RESULTS);
+		this.checkpoint = open(CHECKPOINT);
+
+		AtomicInteger worker = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "sudoku-watch-worker-" + worker.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Opens a file of the directory for appending.
+	 */
+	private Writer open(final String name) throws IOException {
+		return new BufferedWriter(Files.newBufferedWriter(directory.resolve(name), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+	}
+
+	/**
+	 * Reads the outcomes recorded in the checkpoint, a damaged line being skipped.
+	 */
+	private void readCheckpoint() throws IOException {
+		final Path file = directory.resolve(CHECKPOINT);
+		if (!Files.exists(file))
+			return;
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			final String[] fields = line.split(" ", 4);
+			if (fields.length != 4 || !(DONE.equals(fields[0]) || FAILED.equals(fields[0])))
+				continue;
+			try {
+				outcomes.put(fields[3], new Outcome(DONE.equals(fields[0]),
+						Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+			} catch (NumberFormatException nfe) {
+				// a line cut short by a crash.
+			}
+		}
+
+		// the files moved since are forgotten, so the checkpoint only holds those left behind.
+		outcomes.keySet().removeIf(name -> !Files.isRegularFile(directory.resolve(name)));
+		writeCheckpoint();
+	}
+
+	/**
+	 * Replaces the checkpoint with the outcomes recorded, writing them aside first so a
+	 * crash leaves either the old checkpoint or the new one.
+	 */
+	private void writeCheckpoint() throws IOException {
+		StringBuilder kept = new StringBuilder();
+		outcomes.forEach((name, outcome) -> kept.append(outcome.line(name)));
+		final Path written = directory.resolve(CHECKPOINT + ".new");
+		Files.write(written, kept.toString().getBytes(StandardCharsets.UTF_8));
+		Files.move(written, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Watches the directory until {@link #close()} is called, validating the files already
+	 * there first.
+	 * @throws IOException if the directory cannot be listed.
+	 */
+	public void run() throws IOException {
+		scan();
+		try {
+			while (!closed) {
+				final WatchKey key = watcher.poll(Math.max(1, quietMillis / 4), TimeUnit.MILLISECONDS);
+				if (key != null) {
+					for (WatchEvent<?> event : key.pollEvents()) {
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+							scan();
+						} else {
+							observe(directory.resolve((Path) event.context()));
+						}
+					}
+					if (!key.reset())
+						return;
+				}
+				submitQuietFiles();
+			}
+		} catch (ClosedWatchServiceException ex) {
+			// closed while waiting.
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Observes every file of the directory.
+	 */
+	private void scan() throws IOException {
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+			for (Path entry : entries) {
+				observe(entry);
+			}
+		}
+	}
+
+	/**
+	 * Notes the size and modification time of {@code file}, if it is to be validated.
+	 */
+	private void observe(final Path file) {
+		final String name = file.getFileName().toString();
+		if (name.startsWith(".") || RESULTS.equals(name) || taken.contains(name))
+			return;
+		final BasicFileAttributes attributes = attributes(file);
+		if (attributes == null || !attributes.isRegularFile()) {
+			candidates.remove(name);
+			return;
+		}
+		final Observation last = candidates.get(name);
+		if (last == null || !last.isSame(attributes))
+			candidates.put(name, new Observation(attributes, System.nanoTime()));
+	}
+
+	/**
+	 * Hands the files left unchanged for {@code quietMillis} to the workers.
+	 */
+	private void submitQuietFiles() {
+		final long now = System.nanoTime();
+		for (Iterator<Map.Entry<String, Observation>> entries = candidates.entrySet().iterator(); entries.hasNext();) {
+			final Map.Entry<String, Observation> entry = entries.next();
+			final Path file = directory.resolve(entry.getKey());
+			final BasicFileAttributes attributes = attributes(file);
+			if (attributes == null) {
+				entries.remove();
+			} else if (!entry.getValue().isSame(attributes)) {
+				entry.setValue(new Observation(attributes, now));
+			} else if (now - entry.getValue().since >= TimeUnit.MILLISECONDS.toNanos(quietMillis)) {
+				entries.remove();
+				taken.add(entry.getKey());
+				final Observation observed = entry.getValue();
+				try {
+					workers.execute(() -> process(file, observed));
+				} catch (RejectedExecutionException ex) {
+					// closing, the file is taken on restart.
+					taken.remove(entry.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the attributes of {@code file}, {@code null} if it has gone.
+	 */
+	private static BasicFileAttributes attributes(final Path file) {
+		try {
+			return Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Validates {@code file}, unless the checkpoint holds its outcome, then records the
+	 * outcome and moves the file.
+	 */
+	private void process(final Path file, final Observation observed) {
+		final String name = file.getFileName().toString();
+		try {
+			Outcome outcome = outcomes.get(name);
+			if (outcome == null || outcome.size != observed.size || outcome.modified != observed.modified) {
+				outcome = new Outcome(validate(file), observed.size, observed.modified);
+				record(name, outcome);
+			}
+			move(file, outcome.valid ? DONE : FAILED);
+			forget(name);
+		} catch (IOException ex) {
+			// the file is left in place and taken again when next changed or on restart.
+			try {
+				append(results, file + " ERROR " + ex.getMessage() + System.lineSeparator());
+			} catch (IOException unwritten) {
+				// the results cannot be written either.
+			}
+		} finally {
+			taken.remove(name);
+		}
+	}
+
+	/**
+	 * Validates every grid of {@code file}, appending the results to {@link #RESULTS}.
+	 * @return {@code true} if every grid is VALID.
+	 */
+	private boolean validate(final Path file) throws IOException {
+		StringWriter lines = new StringWriter();
+		Summary summary = new BatchValidator(SudokuReader.DETECT_DIMENSION, lines, ReportFormat.TEXT, null, false)
+				.validate(file);
+		lines.append(file.toString()).append(' ').append(summary.toString()).append(System.lineSeparator());
+		append(results, lines.toString());
+		return summary.invalid() == 0;
+	}
+
+	/**
+	 * Records the outcome of the file named {@code name} in the checkpoint.
+	 */
+	private void record(final String name, final Outcome outcome) throws IOException {
+		synchronized (checkpointLock) {
+			outcomes.put(name, outcome);
+			append(checkpoint, outcome.line(name));
+		}
+	}
+
+	/**
+	 * Forgets the outcome of the file named {@code name} once it is moved, compacting the
+	 * checkpoint once {@link #COMPACT_LINES} files have been.
+	 */
+	private void forget(final String name) throws IOException {
+		synchronized (checkpointLock) {
+			if (outcomes.remove(name) == null || ++obsoleteLines < COMPACT_LINES)
+				return;
+			checkpoint.close();
+			try {
+				writeCheckpoint();
+				obsoleteLines = 0;
+			} finally {
+				checkpoint = open(CHECKPOINT);
+			}
+		}
+	}
+
+	/**
+	 * Appends {@code text} to {@code out} in one block and flushes it.
+	 */
+	private static void append(final Writer out, final String text) throws IOException {
+		synchronized (out) {
+			out.write(text);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Moves {@code file} to the given folder, numbering it if the name is taken.
+	 */
+	private void move(final Path file, final String folder) throws IOException {
+		final Path target = directory.resolve(folder);
+		final String name = file.getFileName().toString();
+		for (int copy = 0;; copy++) {
+			try {
+				Files.move(file, target.resolve(copy == 0 ? name : name + "." + copy));
+				return;
+			} catch (FileAlreadyExistsException ex) {
+				// try the next number.
+			} catch (NoSuchFileException ex) {
+				if (!Files.exists(file))
+					return;
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Stops watching, lets the files handed to the workers finish, and closes the results
+	 * and the checkpoint.
+	 * @throws IOException if the results or the checkpoint cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		watcher.close();
+		workers.shutdown();
+		try {
+			workers.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (results) {
+			results.close();
+		}
+		synchronized (checkpointLock) {
+			checkpoint.close();
+		}
+	}
+
+	/**
+	 * @return the names of the files recorded in the checkpoint.
+	 */
+	Set<String> recorded() {
+		return outcomes.keySet();
+	}
+
+	/**
+	 * The size and modification time of a file, and when they were first seen.
+	 */
+	private static final class Observation {
+
+		private final long size;
+
+		private final long modified;
+
+		private final long since;
+
+		Observation(final BasicFileAttributes attributes, final long since) {
+			this.size = attributes.size();
+			this.modified = attributes.lastModifiedTime().toMillis();
+			this.since = since;
+		}
+
+		boolean isSame(final BasicFileAttributes attributes) {
+			return size == attributes.size() && modified == attributes.lastModifiedTime().toMillis();
+		}
+	}
+
+	/**
+	 * The outcome of a file, with the size and modification time it was validated at.
+	 */
+	private static final class Outcome {
+
+		private final boolean valid;
+
+		private final long size;
+
+		private final long modified;
+
+		Outcome(final boolean valid, final long size, final long modified) {
+			this.valid = valid;
+			this.size = size;
+			this.modified = modified;
+		}
+
+		/**
+		 * Returns the line of the checkpoint recording this outcome for the file named {@code name}.
+		 */
+		String line(final String name) {
+			return (valid ? DONE : FAILED) + " " + size + " " + modified + " " + name + "\n";
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.rmgroup.sudoku;
+
+/**
+ * A 128 bit hash of a grid's dimension and cells, compact enough to stand for the grid as
+ * the key of a cache. Two different grids share a fingerprint with a chance of about
+ * 2^-128, so a cache of a billion grids expects no collision.
+ * <p>
+ * The cells are read eight to a word and each word is mixed into two independent 64 bit
+ * lanes, which are finalised with the avalanche step of MurmurHash3.
+ */
+public final class Fingerprint {
+
+	private static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+
+	private static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+	private static final long MULTIPLIER_HIGH = 0x87C37B91114253D5L;
+
+	private static final long MULTIPLIER_LOW = 0x4CF5AD432745937FL;
+
+	private final long high;
+
+	private final long low;
+
+	Fingerprint(final long high, final long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * @param grid to fingerprint.
+	 * @return the fingerprint of {@code grid}.
+	 * @throws IllegalArgumentException if the grid is null.
+	 */
+	public static Fingerprint of(final Grid grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("ERROR: the grid cannot be null");
+
+		final byte[] cells = grid.cells();
+		long high = SEED_HIGH ^ grid.dimension();
+		long low = SEED_LOW + grid.dimension();
+		int i = 0;
+		for (; i + Long.BYTES <= cells.length; i += Long.BYTES) {
+			final long word = (cells[i] & 0xFFL) | (cells[i + 1] & 0xFFL) << 8 | (cells[i + 2] & 0xFFL) << 16
+					| (cells[i + 3] & 0xFFL) << 24 | (cells[i + 4] & 0xFFL) << 32 | (cells[i + 5] & 0xFFL) << 40
+					| (cells[i + 6] & 0xFFL) << 48 | (cells[i + 7] & 0xFFL) << 56;
+			high = Long.rotateLeft(high ^ word * MULTIPLIER_HIGH, 31) * MULTIPLIER_LOW;
+			low = Long.rotateLeft(low + word * MULTIPLIER_LOW, 27) * MULTIPLIER_HIGH ^ high;
+		}
+		long tail = 0;
+		for (int shift = 0; i < cells.length; i++, shift += 8) {
+			tail |= (cells[i] & 0xFFL) << shift;
+		}
+		high = Long.rotateLeft(high ^ tail * MULTIPLIER_HIGH, 31) * MULTIPLIER_LOW;
+		low = Long.rotateLeft(low + tail * MULTIPLIER_LOW, 27) * MULTIPLIER_HIGH ^ high;
+
+		high = mix(high ^ cells.length);
+		low = mix(low + high);
+		return new Fingerprint(high + low, low);
+	}
+
+	/**
+	 * The 64 bit finaliser of MurmurHash3, which spreads every input bit over the result.
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xFF51AFD7ED558CCDL;
+		value ^= value >>> 33;
+		value *= 0xC4CEB9FE1A85EC53L;
+		return value ^ value >>> 33;
+	}
+
+	/**
+	 * @return the upper 64 bits.
+	 */
+	public long high() {
+		return high;
+	}
+
+	/**
+	 * @return the lower 64 bits.
+	 */
+	public long low() {
+		return low;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof Fingerprint))
+			return false;
+		final Fingerprint that = (Fingerprint) other;
+		return high == that.high && low == that.low;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (low ^ low >>> 32);
+	}
+
+	/**
+	 * Returns the fingerprint as 32 hexadecimal digits, the upper bits first.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+}
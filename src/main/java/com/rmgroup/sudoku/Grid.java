@@ -0,0 +1,371 @@
+package com.rmgroup.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * A square Sudoku grid held as a flat, row major {@code byte[]} of cell values.
+ * <p>
+ * A grid of {@code dimension} rows and columns is split into subgrids (boxes) of
+ * {@code boxDimension} x {@code boxDimension} cells, so {@code dimension} must be
+ * a perfect square. A cell value of 0 denotes an empty cell. A 9 x 9 grid costs 81
+ * bytes of cell data.
+ * <p>
+ * Rows, columns and boxes are exposed as {@link Unit} views which read straight
+ * from the grid's cells, nothing is copied.
+ */
+public final class Grid {
+
+	/**
+	 * The largest dimension a grid may have, every cell value must fit in a byte.
+	 */
+	public static final int MAX_DIMENSION = 121;
+
+	/**
+	 * The value of an empty cell.
+	 */
+	public static final int EMPTY = 0;
+
+	/**
+	 * The number of rows and columns.
+	 */
+	private final int dimension;
+
+	/**
+	 * The number of rows and columns of each box.
+	 */
+	private final int boxDimension;
+
+	/**
+	 * The cell values in row major order.
+	 */
+	private final byte[] cells;
+
+	/**
+	 * Constructs an empty grid of the given {@code dimension}.
+	 * @param dimension of the grid, e.g. 9 for a 9 x 9 grid.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square within range.
+	 */
+	public Grid(final int dimension) {
+		this(dimension, new byte[cellCount(dimension)]);
+	}
+
+	/**
+	 * Constructs a grid backed by {@code cells}, which are not copied.
+	 */
+	private Grid(final int dimension, final byte[] cells) {
+		this.boxDimension = boxDimensionOf(dimension);
+		this.dimension = dimension;
+		this.cells = cells;
+	}
+
+	/**
+	 * Wraps the given row major {@code cells} without copying them. No range check
+	 * is made on the values.
+	 * @param dimension of the grid.
+	 * @param cells the grid's values, dimension * dimension of them.
+	 * @return a grid viewing the given cells.
+	 * @throws IllegalArgumentException if the dimension is illegal or does not match the cells.
+	 */
+	static Grid wrap(final int dimension, final byte[] cells) {
+		if (cells == null || cells.length != dimension * dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: a %1$d x %1$d grid must contain %2$d cells.", dimension, dimension * dimension));
+		return new Grid(dimension, cells);
+	}
+
+	/**
+	 * Returns a grid holding the values of the given boxed square {@code grid}.
+	 * @param grid to copy.
+	 * @return the new grid.
+	 * @throws IllegalArgumentException if the grid is not square, has an illegal
+	 *         dimension, or holds values outside 0..dimension.
+	 */
+	public static Grid of(final Integer[][] grid) {
+		if (grid == null)
+			throw new IllegalArgumentException("ERROR: the grid cannot be null");
+
+		Grid result = new Grid(grid.length);
+
+		for (int row = 0; row < grid.length; row++) {
+			if (grid[row] == null || grid[row].length != grid.length)
+				throw new IllegalArgumentException("ERROR: the grid must be square in dimensions");
+
+			for (int col = 0; col < grid.length; col++) {
+				if (grid[row][col] == null)
+					throw new IllegalArgumentException(
+						String.format("ERROR: cell [%1$d][%2$d] cannot be null", row, col));
+				result.set(row, col, grid[row][col]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of cells of a grid of the given {@code dimension}.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square within range.
+	 */
+	static int cellCount(final int dimension) {
+		boxDimensionOf(dimension);
+		return dimension * dimension;
+	}
+
+	/**
+	 * Returns the box dimension for a grid of the given {@code dimension}.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square within range.
+	 */
+	static int boxDimensionOf(final int dimension) {
+		if (dimension < 1 || dimension > MAX_DIMENSION)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: dimension (%1$d) is outside range (%2$d,%3$d)", dimension, 1, MAX_DIMENSION));
+
+		int boxDimension = (int) Math.round(Math.sqrt(dimension));
+		if (boxDimension * boxDimension != dimension)
+			throw new IllegalArgumentException(
+				String.format("ERROR: dimension (%1$d) must be a perfect square", dimension));
+		return boxDimension;
+	}
+
+	/**
+	 * @return the number of rows and columns of this grid.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return the number of rows and columns of each box.
+	 */
+	public int boxDimension() {
+		return boxDimension;
+	}
+
+	/**
+	 * @return the number of cells in this grid.
+	 */
+	public int size() {
+		return cells.length;
+	}
+
+	/**
+	 * Returns the value of the cell at {@code row}, {@code col}.
+	 * @param row of the cell, zero based.
+	 * @param col of the cell, zero based.
+	 * @return the cell value, {@link #EMPTY} for an empty cell.
+	 */
+	public int get(final int row, final int col) {
+		return cells[index(row, col)];
+	}
+
+	/**
+	 * Returns the value of the cell at the given row major {@code index}.
+	 * @param index of the cell.
+	 * @return the cell value, {@link #EMPTY} for an empty cell.
+	 */
+	public int get(final int index) {
+		return cells[index];
+	}
+
+	/**
+	 * Sets the value of the cell at {@code row}, {@code col}.
+	 * @param row of the cell, zero based.
+	 * @param col of the cell, zero based.
+	 * @param value to set, {@link #EMPTY} to clear the cell.
+	 * @throws IllegalArgumentException if the value is outside 0..dimension.
+	 */
+	public void set(final int row, final int col, final int value) {
+		if (value < EMPTY || value > dimension)
+			throw new IllegalArgumentException(
+				String.format("Error: Cell Value is outside range (%1$d,%2$d)", EMPTY, dimension));
+		cells[index(row, col)] = (byte) value;
+	}
+
+	/**
+	 * Returns the row major index of the cell at {@code row}, {@code col}.
+	 * @throws IndexOutOfBoundsException if the row or column lie outside the grid.
+	 */
+	private int index(final int row, final int col) {
+		if (row < 0 || row >= dimension || col < 0 || col >= dimension)
+			throw new IndexOutOfBoundsException(String.format(
+				"ERROR: cell [%1$d][%2$d] lies outside a %3$d x %3$d grid", row, col, dimension));
+		return row * dimension + col;
+	}
+
+	/**
+	 * @return the cell values in row major order, shared rather than copied.
+	 */
+	byte[] cells() {
+		return cells;
+	}
+
+	/**
+	 * @param row index, zero based.
+	 * @return a view of the given row.
+	 */
+	public Unit row(final int row) {
+		return new Unit(this, Unit.Type.ROW, checkUnit(row));
+	}
+
+	/**
+	 * @param col index, zero based.
+	 * @return a view of the given column.
+	 */
+	public Unit column(final int col) {
+		return new Unit(this, Unit.Type.COLUMN, checkUnit(col));
+	}
+
+	/**
+	 * Returns a view of a box, boxes are numbered in row major order,
+	 * e.g. the centre box of a 9 x 9 grid is box 4.
+	 * @param box index, zero based.
+	 * @return a view of the given box.
+	 */
+	public Unit box(final int box) {
+		return new Unit(this, Unit.Type.BOX, checkUnit(box));
+	}
+
+	private int checkUnit(final int index) {
+		if (index < 0 || index >= dimension)
+			throw new IndexOutOfBoundsException(
+				String.format("ERROR: unit (%1$d) is outside range (%2$d,%3$d)", index, 0, dimension - 1));
+		return index;
+	}
+
+	/**
+	 * @return a copy of this grid.
+	 */
+	public Grid copy() {
+		return new Grid(dimension, cells.clone());
+	}
+
+	/**
+	 * Returns the values of this grid as a boxed two dimensional array, as used by
+	 * {@link SudokuReader#getGrid()} and {@link Sudoku#check(Integer[][])}.
+	 * @return the boxed grid.
+	 */
+	public Integer[][] toArray() {
+		Integer[][] grid = new Integer[dimension][dimension];
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				grid[row][col] = (int) cells[row * dimension + col];
+			}
+		}
+		return grid;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof Grid))
+			return false;
+		Grid that = (Grid) other;
+		return dimension == that.dimension && Arrays.equals(cells, that.cells);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(cells);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(cells.length * 3);
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				text.append(col == 0 ? "" : ",").append(cells[row * dimension + col]);
+			}
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * A row, column or box of a grid. A unit is a view, it reflects later
+	 * changes to the grid.
+	 */
+	public static final class Unit {
+
+		/**
+		 * The kinds of unit which must each hold every value exactly once.
+		 */
+		public enum Type {ROW, COLUMN, BOX}
+
+		private final Grid grid;
+
+		private final Type type;
+
+		private final int index;
+
+		private Unit(final Grid grid, final Type type, final int index) {
+			this.grid = grid;
+			this.type = type;
+			this.index = index;
+		}
+
+		/**
+		 * @return the kind of this unit.
+		 */
+		public Type type() {
+			return type;
+		}
+
+		/**
+		 * @return the index of this unit within the grid, zero based.
+		 */
+		public int index() {
+			return index;
+		}
+
+		/**
+		 * @return the number of cells in this unit.
+		 */
+		public int size() {
+			return grid.dimension;
+		}
+
+		/**
+		 * Returns the row major index, within the grid, of the {@code i}th cell of this unit.
+		 * @param i position of the cell within this unit, zero based.
+		 * @return the index of the cell within the grid.
+		 */
+		public int cellIndex(final int i) {
+			final int dimension = grid.dimension;
+			final int box = grid.boxDimension;
+			switch (type) {
+			case ROW:
+				return index * dimension + i;
+			case COLUMN:
+				return i * dimension + index;
+			default:
+				return (index / box * box + i / box) * dimension + index % box * box + i % box;
+			}
+		}
+
+		/**
+		 * @param i position of the cell within this unit, zero based.
+		 * @return the value of the {@code i}th cell of this unit.
+		 */
+		public int get(final int i) {
+			if (i < 0 || i >= grid.dimension)
+				throw new IndexOutOfBoundsException(
+					String.format("ERROR: cell (%1$d) is outside range (%2$d,%3$d)", i, 0, grid.dimension - 1));
+			return grid.cells[cellIndex(i)];
+		}
+
+		/**
+		 * @return the values of this unit as a boxed line, as used by {@link Sudoku#isSudokuLine(Integer[])}.
+		 */
+		public Integer[] toArray() {
+			Integer[] line = new Integer[grid.dimension];
+			for (int i = 0; i < line.length; i++) {
+				line[i] = get(i);
+			}
+			return line;
+		}
+
+		@Override
+		public String toString() {
+			return type.name().toLowerCase() + " " + (index + 1);
+		}
+	}
+}
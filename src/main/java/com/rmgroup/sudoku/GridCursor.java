@@ -0,0 +1,148 @@
+package com.rmgroup.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the grids of a multi-grid input one at a time into a grid owned by the caller,
+ * so inputs of any size are read in constant memory. Each grid is parsed only when
+ * {@link #next(Grid)} reaches it, and a grid which is rejected is consumed, so reading
+ * may carry on past it.
+ * <p>
+ * {@link #grids(ErrorHandler)} offers the same grids as a {@link Stream}, which hands on
+ * one reused grid per thread and reports the rejected grids to an {@link ErrorHandler}
+ * instead of ending the stream.
+ * <p>
+ * A {@link SudokuReader} yields a single grid, a cursor yields every grid of its input.
+ * {@link #open(Path, int)} picks the cursor for a file: a {@link BinaryGridReader} for a
+ * file written by a {@link BinaryGridWriter}, a {@link MappedCsvReader} otherwise.
+ */
+public interface GridCursor extends Closeable {
+
+	/**
+	 * Told of each grid rejected while streaming.
+	 */
+	@FunctionalInterface
+	interface ErrorHandler {
+
+		/**
+		 * @param index of the grid within the input, counting from 1.
+		 * @param error raised for the grid, naming the reason it was rejected.
+		 */
+		void rejected(long index, IllegalArgumentException error);
+	}
+
+	/**
+	 * The error handler which skips rejected grids silently. It is a class rather than a
+	 * lambda, being created whenever a cursor is, so a single check does not bootstrap
+	 * the lambda machinery on start up.
+	 */
+	ErrorHandler SKIP = new ErrorHandler() {
+
+		@Override
+		public void rejected(final long index, final IllegalArgumentException error) {
+			// skipped.
+		}
+	};
+
+	/**
+	 * @return the dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION} if the
+	 *         input holds no grid.
+	 * @throws IOException if a problem occurs reading the input.
+	 */
+	int dimension() throws IOException;
+
+	/**
+	 * Reads the next grid of the input into {@code grid}. A rejected grid is consumed.
+	 * @param grid to store the cells in, of this cursor's dimension.
+	 * @return {@code true} if a grid was read, {@code false} at the end of the input.
+	 * @throws IOException if a problem occurs reading the input.
+	 * @throws IllegalArgumentException if the grid is malformed or holds values out of range.
+	 */
+	boolean next(Grid grid) throws IOException;
+
+	/**
+	 * @return the number of grids read so far by {@link #next(Grid)}, i.e. the position of
+	 *         the last one counting from 1.
+	 */
+	long index();
+
+	/**
+	 * Returns the remaining grids of the input as a lazy stream, reading each one as the
+	 * stream reaches it. Every element is the same grid, overwritten by the next one, so
+	 * an element must be copied to be kept beyond the step which receives it. A stream
+	 * made parallel reads on a single thread, unless the cursor can split its input.
+	 * @param onError told of each rejected grid, which is left out of the stream.
+	 * @return the stream of grids.
+	 * @throws IOException if a problem occurs reading the input.
+	 * @throws UncheckedIOException if a problem occurs reading the input while streaming.
+	 */
+	default Stream<Grid> grids(final ErrorHandler onError) throws IOException {
+		final int dimension = dimension();
+		if (dimension == SudokuReader.DETECT_DIMENSION)
+			return Stream.empty();
+
+		final Grid grid = new Grid(dimension);
+		return StreamSupport.stream(new Spliterator<Grid>() {
+
+			@Override
+			public boolean tryAdvance(final Consumer<? super Grid> action) {
+				while (true) {
+					try {
+						if (!next(grid))
+							return false;
+					} catch (IllegalArgumentException ex) {
+						onError.rejected(index(), ex);
+						continue;
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+					action.accept(grid);
+					return true;
+				}
+			}
+
+			@Override
+			public Spliterator<Grid> trySplit() {
+				// never split, the grid is shared by every element.
+				return null;
+			}
+
+			@Override
+			public long estimateSize() {
+				return Long.MAX_VALUE;
+			}
+
+			@Override
+			public int characteristics() {
+				return ORDERED | NONNULL;
+			}
+		}, false);
+	}
+
+	/**
+	 * Opens the cursor suited to the given {@code file}.
+	 * @param file to read.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION} to detect it.
+	 * @return a {@link BinaryGridReader} for a binary file, a {@link MappedCsvReader} otherwise.
+	 * @throws IOException if the file cannot be read, or is a damaged binary file.
+	 * @throws IllegalArgumentException if a binary file holds grids of another dimension.
+	 */
+	static GridCursor open(final Path file, final int dimension) throws IOException {
+		if (!BinaryGridReader.isBinary(file))
+			return new MappedCsvReader(file, dimension);
+
+		final BinaryGridReader reader = new BinaryGridReader(file);
+		if (dimension != SudokuReader.DETECT_DIMENSION && dimension != reader.dimension())
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.",
+				dimension, reader.dimension()));
+		return reader;
+	}
+}
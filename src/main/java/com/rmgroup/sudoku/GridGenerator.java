@@ -0,0 +1,496 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Generates random valid solutions, some with a fault injected, to test and load the
+ * readers and checkers at scale.
+ * <p>
+ * Each solution is drawn from the grids equivalent to a seed solution under the
+ * symmetries listed by {@link Canonical}: the bands, the rows within each band, the
+ * stacks and the columns within each stack are shuffled, the grid is transposed half of
+ * the time and the digits are relabelled. Every such grid is valid, and drawing one costs
+ * a few dozen random numbers and a pass over the cells, so millions of grids are written
+ * a second. The same seed draws the same grids and faults, so a run is reproducible.
+ * <p>
+ * A fault makes a grid one of those {@link CsvReader} rejects, or one which reads but is
+ * INVALID, see {@link Fault}. The first grid of a file is never faulted, as the readers
+ * detect the dimension from it. A GridGenerator is not thread safe.
+ */
+public final class GridGenerator {
+
+	/**
+	 * A fault injected into a generated grid.
+	 */
+	public enum Fault {
+		/**
+		 * A cell repeats another value of its box, so the grid reads but is INVALID.
+		 */
+		DUPLICATE_IN_BOX,
+		/**
+		 * A cell is written as dimension + 1 in CSV, or as 0 on one line, which the
+		 * readers reject as outside range.
+		 */
+		OUT_OF_RANGE,
+		/**
+		 * A cell is left out, which the readers reject as a row, or a line, of the wrong
+		 * length. A binary record, having no such thing, holds the cell as blank instead,
+		 * which reads but is INVALID.
+		 */
+		MISSING_CELL,
+		/**
+		 * A cell is written as {@code x}, which the readers reject as not an integer.
+		 */
+		NON_INTEGER;
+	}
+
+	/**
+	 * A format grids are written in.
+	 */
+	public enum Format {
+		/**
+		 * A block of {@code dimension} comma separated lines per grid, read by a
+		 * {@link BatchReader}.
+		 */
+		CSV(Fault.values()),
+		/**
+		 * A line of {@code dimension * dimension} characters per grid, 1 - 9 then A - Z,
+		 * read by a {@link BatchReader}. Grids larger than 25 x 25 cannot be written so.
+		 */
+		LINE(Fault.values()),
+		/**
+		 * The binary format read by a {@link BinaryGridReader}, which holds neither
+		 * out of range values nor text.
+		 */
+		BINARY(Fault.DUPLICATE_IN_BOX, Fault.MISSING_CELL);
+
+		/**
+		 * The faults which may be injected into a grid written in this format.
+		 */
+		private final Fault[] faults;
+
+		Format(final Fault... faults) {
+			this.faults = faults;
+		}
+
+		/**
+		 * Returns the format of the given {@code file}: binary for a {@code .bin} file,
+		 * CSV otherwise.
+		 * @param file to be written.
+		 * @return the format.
+		 */
+		public static Format of(final Path file) {
+			return file.toString().toLowerCase(Locale.ROOT).endsWith(".bin") ? BINARY : CSV;
+		}
+	}
+
+	/**
+	 * The largest dimension a grid written on one line may have, its values being 1 - 9 then A - Z.
+	 */
+	static final int MAX_LINE_DIMENSION = 25;
+
+	/**
+	 * The size of the buffer text is gathered in, 64KB.
+	 */
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	private final int dimension;
+
+	private final int box;
+
+	private final SplittableRandom random;
+
+	/**
+	 * The cells of the seed solution, in row major order.
+	 */
+	private final byte[] seed;
+
+	/**
+	 * The order the seed's rows and columns are read in, and the digit each of its
+	 * values is relabelled to, redrawn for each grid. The column order is held as
+	 * offsets into the seed once drawn.
+	 */
+	private final int[] rowOrder, columnOrder;
+
+	private final byte[] digits;
+
+	/**
+	 * Scratch permutations of the bands or stacks, and of the lines within one.
+	 */
+	private final int[] outer, inner;
+
+	/**
+	 * The fault injected into the grid last drawn, null if none was, and its cell.
+	 */
+	private Fault fault;
+
+	private int faultCell;
+
+	/**
+	 * Constructs a GridGenerator for grids of the given {@code dimension}, from the seed
+	 * solution whose row {@code r} is shifted {@code box * (r % box) + r / box} cells
+	 * left of 1, 2, ... dimension.
+	 * @param dimension of the grids.
+	 * @param seed of the random numbers.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square within range.
+	 */
+	public GridGenerator(final int dimension, final long seed) {
+		this(pattern(dimension), seed);
+	}
+
+	/**
+	 * Constructs a GridGenerator drawing its grids from the given {@code solution}.
+	 * @param solution the seed solution, which is copied.
+	 * @param seed of the random numbers.
+	 * @throws IllegalArgumentException if the solution is null or not VALID.
+	 */
+	public GridGenerator(final Grid solution, final long seed) {
+		if (solution == null)
+			throw new IllegalArgumentException("ERROR: the seed solution cannot be null");
+		if (Sudoku.getInstance().check(solution) != Status.VALID)
+			throw new IllegalArgumentException("ERROR: the seed solution must be VALID");
+
+		this.dimension = solution.dimension();
+		this.box = solution.boxDimension();
+		this.random = new SplittableRandom(seed);
+		this.seed = solution.cells().clone();
+		this.rowOrder = identity(dimension);
+		this.columnOrder = identity(dimension);
+		this.digits = new byte[dimension + 1];
+		for (int value = 1; value <= dimension; value++) {
+			digits[value] = (byte) value;
+		}
+		this.outer = identity(box);
+		this.inner = identity(box);
+	}
+
+	/**
+	 * Returns the seed solution of the given {@code dimension}, see {@link #GridGenerator(int, long)}.
+	 */
+	private static Grid pattern(final int dimension) {
+		final int box = Grid.boxDimensionOf(dimension);
+		final Grid grid = new Grid(dimension);
+		for (int row = 0; row < dimension; row++) {
+			final int shift = box * (row % box) + row / box;
+			for (int col = 0; col < dimension; col++) {
+				grid.set(row, col, (shift + col) % dimension + 1);
+			}
+		}
+		return grid;
+	}
+
+	private static int[] identity(final int length) {
+		final int[] order = new int[length];
+		for (int i = 0; i < length; i++) {
+			order[i] = i;
+		}
+		return order;
+	}
+
+	/**
+	 * @return the dimension of the grids generated.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * Draws the next valid solution into {@code grid}.
+	 * @param grid to overwrite.
+	 * @throws IllegalArgumentException if the grid is of another dimension.
+	 */
+	public void next(final Grid grid) {
+		if (grid.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, grid.dimension()));
+		fault = null;
+		draw(grid.cells());
+	}
+
+	/**
+	 * Draws the next solution into {@code grid}, injecting one of the given {@code faults}
+	 * with probability {@code faultRate}. The faults which cannot be held by a grid, out of
+	 * range values and text, are recorded rather than injected, and are only written out
+	 * by {@link #write(OutputStream, Format, long, double)}.
+	 * @param grid to overwrite.
+	 * @param faultRate the probability of a fault, from 0 to 1.
+	 * @param faults to choose from, evenly.
+	 * @return the fault chosen, null if none was.
+	 * @throws IllegalArgumentException if the grid is of another dimension.
+	 */
+	Fault next(final Grid grid, final double faultRate, final Fault... faults) {
+		next(grid);
+		if (faults.length == 0 || !(random.nextDouble() < faultRate))
+			return null;
+
+		fault = faults[random.nextInt(faults.length)];
+		if (fault == Fault.DUPLICATE_IN_BOX && box == 1) {
+			// a 1 x 1 box has no other cell.
+			fault = null;
+			return null;
+		}
+		faultCell = random.nextInt(grid.cells().length);
+		final byte[] cells = grid.cells();
+		if (fault == Fault.DUPLICATE_IN_BOX) {
+			// another cell of the box, in another row and column.
+			final int row = faultCell / dimension, col = faultCell % dimension;
+			final int other = (row / box * box + (row % box + 1 + random.nextInt(box - 1)) % box) * dimension
+					+ col / box * box + (col % box + 1 + random.nextInt(box - 1)) % box;
+			cells[faultCell] = cells[other];
+		} else if (fault == Fault.MISSING_CELL) {
+			cells[faultCell] = Grid.EMPTY;
+		}
+		return fault;
+	}
+
+	/**
+	 * Draws a valid solution into {@code cells}: the seed's rows and columns are read in
+	 * a random order preserving the bands and stacks, transposed half of the time, and
+	 * its values relabelled.
+	 */
+	private void draw(final byte[] cells) {
+		order(rowOrder);
+		order(columnOrder);
+		for (int i = dimension; i > 1; i--) {
+			final int j = 1 + random.nextInt(i);
+			final byte digit = digits[i];
+			digits[i] = digits[j];
+			digits[j] = digit;
+		}
+		// a transposed seed is read down its columns.
+		final boolean transposed = random.nextBoolean();
+		final int across = transposed ? dimension : 1, down = transposed ? 1 : dimension;
+		for (int col = 0; col < dimension; col++) {
+			columnOrder[col] *= across;
+		}
+		for (int row = 0, cell = 0; row < dimension; row++) {
+			final int start = rowOrder[row] * down;
+			for (int col = 0; col < dimension; col++, cell++) {
+				cells[cell] = digits[seed[start + columnOrder[col]]];
+			}
+		}
+	}
+
+	/**
+	 * Draws an order of the lines, shuffling the bands, or stacks, then the lines within each.
+	 */
+	private void order(final int[] lines) {
+		shuffle(outer);
+		for (int band = 0; band < box; band++) {
+			shuffle(inner);
+			for (int line = 0; line < box; line++) {
+				lines[band * box + line] = outer[band] * box + inner[line];
+			}
+		}
+	}
+
+	/**
+	 * Shuffles {@code values} in place, Fisher - Yates.
+	 */
+	private void shuffle(final int[] values) {
+		for (int i = values.length - 1; i > 0; i--) {
+			swap(values, i, random.nextInt(i + 1));
+		}
+	}
+
+	private static void swap(final int[] values, final int i, final int j) {
+		final int value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
+	/**
+	 * Writes {@code count} grids to {@code file}, replacing it, in the given {@code format}.
+	 * @param file to write.
+	 * @param format of the file.
+	 * @param count of grids to write.
+	 * @param faultRate the probability of a grid after the first being faulted, from 0 to 1.
+	 * @return the counts of the grids written.
+	 * @throws IOException if a problem occurs writing the file.
+	 * @throws IllegalArgumentException if the count is negative, the rate outside 0 - 1,
+	 *         or the grids too large to be written on a line.
+	 */
+	public Summary write(final Path file, final Format format, final long count, final double faultRate)
+			throws IOException {
+		if (format != Format.BINARY) {
+			try (OutputStream out = Files.newOutputStream(file)) {
+				return write(out, format, count, faultRate);
+			}
+		}
+
+		check(count, faultRate);
+		final Summary summary = new Summary();
+		final Grid grid = new Grid(dimension);
+		try (BinaryGridWriter writer = new BinaryGridWriter(file, dimension)) {
+			for (long i = 0; i < count; i++) {
+				summary.add(next(grid, i == 0 ? 0 : faultRate, format.faults));
+				writer.write(grid);
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * Writes {@code count} grids to {@code out}, in the given text {@code format}.
+	 * @param out to write to, which is flushed but not closed.
+	 * @param format CSV or LINE.
+	 * @param count of grids to write.
+	 * @param faultRate the probability of a grid after the first being faulted, from 0 to 1.
+	 * @return the counts of the grids written.
+	 * @throws IOException if a problem occurs writing.
+	 * @throws IllegalArgumentException if the format is binary, the count negative, the
+	 *         rate outside 0 - 1, or the grids too large to be written on a line.
+	 */
+	public Summary write(final OutputStream out, final Format format, final long count, final double faultRate)
+			throws IOException {
+		if (format == Format.BINARY)
+			throw new IllegalArgumentException("ERROR: binary grids must be written to a file");
+		if (format == Format.LINE && dimension > MAX_LINE_DIMENSION)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: a %1$d x %1$d grid cannot be written on one line.", dimension));
+		check(count, faultRate);
+
+		final Summary summary = new Summary();
+		final Grid grid = new Grid(dimension);
+		final byte[] cells = grid.cells();
+		// the longest record, a grid of 3 digit values each followed by a comma or new line.
+		final int recordBytes = 4 * cells.length;
+		final byte[] buffer = new byte[Math.max(BUFFER_BYTES, recordBytes)];
+		int length = 0;
+		for (long i = 0; i < count; i++) {
+			summary.add(next(grid, i == 0 ? 0 : faultRate, format.faults));
+			if (buffer.length - length < recordBytes) {
+				out.write(buffer, 0, length);
+				length = 0;
+			}
+			length = format == Format.CSV ? appendCsv(cells, buffer, length) : appendLine(cells, buffer, length);
+		}
+		out.write(buffer, 0, length);
+		out.flush();
+		return summary;
+	}
+
+	private static void check(final long count, final double faultRate) {
+		if (count < 0)
+			throw new IllegalArgumentException("ERROR: the number of grids cannot be negative");
+		if (!(faultRate >= 0 && faultRate <= 1))
+			throw new IllegalArgumentException(String.format(
+				"ERROR: fault rate %1$s is outside range (%2$d,%3$d)", faultRate, 0, 1));
+	}
+
+	/**
+	 * Appends the grid last drawn, as comma separated rows, to {@code buffer} at {@code at}.
+	 * @return the end of the grid in the buffer.
+	 */
+	private int appendCsv(final byte[] cells, final byte[] buffer, int at) {
+		for (int row = 0, cell = 0; row < dimension; row++) {
+			boolean first = true;
+			for (int col = 0; col < dimension; col++, cell++) {
+				if (fault == Fault.MISSING_CELL && cell == faultCell)
+					continue;
+				if (!first)
+					buffer[at++] = ',';
+				first = false;
+				if (fault == Fault.NON_INTEGER && cell == faultCell) {
+					buffer[at++] = 'x';
+				} else {
+					at = appendDecimal(fault == Fault.OUT_OF_RANGE && cell == faultCell ? dimension + 1 : cells[cell],
+							buffer, at);
+				}
+			}
+			buffer[at++] = '\n';
+		}
+		return at;
+	}
+
+	private static int appendDecimal(final int value, final byte[] buffer, int at) {
+		if (value >= 100)
+			buffer[at++] = (byte) ('0' + value / 100);
+		if (value >= 10)
+			buffer[at++] = (byte) ('0' + value / 10 % 10);
+		buffer[at++] = (byte) ('0' + value % 10);
+		return at;
+	}
+
+	/**
+	 * Appends the grid last drawn, on one line, to {@code buffer} at {@code at}.
+	 * @return the end of the grid in the buffer.
+	 */
+	private int appendLine(final byte[] cells, final byte[] buffer, int at) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			final int value = cells[cell];
+			buffer[at++] = (byte) (value < 10 ? '0' + value : 'A' + value - 10);
+		}
+		if (fault == Fault.OUT_OF_RANGE) {
+			buffer[at - cells.length + faultCell] = '0';
+		} else if (fault == Fault.NON_INTEGER) {
+			buffer[at - cells.length + faultCell] = 'x';
+		} else if (fault == Fault.MISSING_CELL) {
+			System.arraycopy(buffer, at - cells.length + faultCell + 1, buffer, at - cells.length + faultCell,
+					cells.length - faultCell - 1);
+			at--;
+		}
+		buffer[at++] = '\n';
+		return at;
+	}
+
+	/**
+	 * The counts of the grids generated, by fault.
+	 */
+	public static final class Summary {
+
+		private long total;
+
+		private final long[] faulty = new long[Fault.values().length];
+
+		void add(final Fault fault) {
+			total++;
+			if (fault != null) {
+				faulty[fault.ordinal()]++;
+			}
+		}
+
+		/**
+		 * @return the number of grids generated.
+		 */
+		public long total() {
+			return total;
+		}
+
+		/**
+		 * @return the number of grids generated without a fault, all VALID.
+		 */
+		public long valid() {
+			long valid = total;
+			for (long count : faulty) {
+				valid -= count;
+			}
+			return valid;
+		}
+
+		/**
+		 * @param fault injected.
+		 * @return the number of grids generated with the given {@code fault}.
+		 */
+		public long faulty(final Fault fault) {
+			return faulty[fault.ordinal()];
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder text = new StringBuilder(String.format("Generated %1$d grids: %2$d VALID",
+					total, valid()));
+			for (Fault fault : Fault.values()) {
+				text.append(", ").append(faulty[fault.ordinal()]).append(' ').append(fault);
+			}
+			return text.toString();
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package com.rmgroup.sudoku;
+
+import com.rmgroup.sudoku.Grid.Unit;
+
+/**
+ * A checker for a grid edited a cell at a time, as by an interactive front end, which
+ * re-checks only the three units of the cell changed.
+ * <p>
+ * For every row, column and box the checker counts how often each digit occurs, how many
+ * distinct digits it holds and how many digits it repeats. A unit is {@link State#VALID}
+ * once it holds every digit, {@link State#CONFLICTED} while it repeats any and
+ * {@link State#INCOMPLETE} otherwise, and the checker counts the units in each state. So
+ * {@link #set(int, int, int)} costs a constant time, whatever the dimension, and
+ * {@link #isSolved()} is a comparison. The counts cost a byte per digit per unit, 243 bytes
+ * for a 9 x 9 grid.
+ * <p>
+ * Each unit whose state changes is reported to the checker's {@link Listener}. An
+ * IncrementalChecker is not thread safe, a session should own its checker.
+ */
+public final class IncrementalChecker {
+
+	/**
+	 * The state of a unit.
+	 */
+	public enum State {INCOMPLETE, VALID, CONFLICTED}
+
+	/**
+	 * Told of every unit whose state is changed by an edit.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+
+		/**
+		 * @param type of the unit changed.
+		 * @param index of the unit, zero based as for {@link Grid#row(int)} and the like.
+		 * @param state the unit is now in.
+		 */
+		void unitChanged(Unit.Type type, int index, State state);
+	}
+
+	private static final Listener IGNORE = (type, index, state) -> { };
+
+	private final Grid grid;
+
+	private final int dimension;
+
+	private final int boxDimension;
+
+	private final Listener listener;
+
+	/**
+	 * The occurrences of each digit in each unit, {@code dimension} per unit: the rows,
+	 * then the columns and then the boxes.
+	 */
+	private final byte[] counts;
+
+	/**
+	 * The number of distinct digits held by each unit.
+	 */
+	private final short[] distinct;
+
+	/**
+	 * The number of digits repeated within each unit.
+	 */
+	private final short[] repeated;
+
+	private int validUnits;
+
+	private int conflictedUnits;
+
+	/**
+	 * Constructs an IncrementalChecker for an empty grid of the given {@code dimension}.
+	 * @param dimension of the grid.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square within range.
+	 */
+	public IncrementalChecker(final int dimension) {
+		this(new Grid(dimension), IGNORE);
+	}
+
+	/**
+	 * Constructs an IncrementalChecker starting from a copy of the given {@code grid}, which
+	 * reports every change of a unit's state to {@code listener}. The starting states are not
+	 * reported.
+	 * @param grid holding the starting values, {@link Grid#EMPTY} for a blank cell.
+	 * @param listener told of every unit whose state is changed by an edit.
+	 * @throws IllegalArgumentException if the grid or listener is null, or the grid holds
+	 *         values outside 0..dimension.
+	 */
+	public IncrementalChecker(final Grid grid, final Listener listener) {
+		if (grid == null)
+			throw new IllegalArgumentException("ERROR: the grid cannot be null");
+		if (listener == null)
+			throw new IllegalArgumentException("ERROR: the listener cannot be null");
+
+		this.dimension = grid.dimension();
+		this.boxDimension = grid.boxDimension();
+		this.grid = new Grid(dimension);
+		this.listener = listener;
+		this.counts = new byte[3 * dimension * dimension];
+		this.distinct = new short[3 * dimension];
+		this.repeated = new short[3 * dimension];
+
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				set(row, col, grid.get(row, col), IGNORE);
+			}
+		}
+	}
+
+	/**
+	 * Sets the value of the cell at {@code row}, {@code col}, re-checking its row, column
+	 * and box, and reports each of them whose state changes.
+	 * @param row of the cell, zero based.
+	 * @param col of the cell, zero based.
+	 * @param value to set, {@link Grid#EMPTY} to clear the cell.
+	 * @return the number of units whose state changed, 0 to 3.
+	 * @throws IllegalArgumentException if the value is outside 0..dimension.
+	 * @throws IndexOutOfBoundsException if the cell lies outside the grid.
+	 */
+	public int set(final int row, final int col, final int value) {
+		return set(row, col, value, listener);
+	}
+
+	private int set(final int row, final int col, final int value, final Listener listener) {
+		final int old = grid.get(row, col);
+		grid.set(row, col, value);
+		if (old == value)
+			return 0;
+
+		return update(Unit.Type.ROW, row, old, value, listener)
+				+ update(Unit.Type.COLUMN, col, old, value, listener)
+				+ update(Unit.Type.BOX, row / boxDimension * boxDimension + col / boxDimension, old, value, listener);
+	}
+
+	/**
+	 * Moves one occurrence from the {@code old} digit to the {@code value} in a unit,
+	 * a count never exceeds the 121 cells of the largest unit so fits a byte.
+	 * @return 1 if the unit's state changed, 0 otherwise.
+	 */
+	private int update(final Unit.Type type, final int index, final int old, final int value,
+			final Listener listener) {
+		final int unit = type.ordinal() * dimension + index;
+		final State before = state(unit);
+
+		if (old != Grid.EMPTY) {
+			final int count = --counts[unit * dimension + old - 1];
+			if (count == 0)
+				distinct[unit]--;
+			else if (count == 1)
+				repeated[unit]--;
+		}
+		if (value != Grid.EMPTY) {
+			final int count = ++counts[unit * dimension + value - 1];
+			if (count == 1)
+				distinct[unit]++;
+			else if (count == 2)
+				repeated[unit]++;
+		}
+
+		final State after = state(unit);
+		if (after == before)
+			return 0;
+
+		validUnits += (after == State.VALID ? 1 : 0) - (before == State.VALID ? 1 : 0);
+		conflictedUnits += (after == State.CONFLICTED ? 1 : 0) - (before == State.CONFLICTED ? 1 : 0);
+		listener.unitChanged(type, index, after);
+		return 1;
+	}
+
+	private State state(final int unit) {
+		return repeated[unit] > 0 ? State.CONFLICTED
+				: distinct[unit] == dimension ? State.VALID : State.INCOMPLETE;
+	}
+
+	/**
+	 * @param type of the unit.
+	 * @param index of the unit, zero based.
+	 * @return the state of the unit.
+	 * @throws IndexOutOfBoundsException if the unit lies outside the grid.
+	 */
+	public State state(final Unit.Type type, final int index) {
+		if (index < 0 || index >= dimension)
+			throw new IndexOutOfBoundsException(
+				String.format("ERROR: unit (%1$d) is outside range (%2$d,%3$d)", index, 0, dimension - 1));
+		return state(type.ordinal() * dimension + index);
+	}
+
+	/**
+	 * @param row of the cell, zero based.
+	 * @param col of the cell, zero based.
+	 * @return the cell value, {@link Grid#EMPTY} for an empty cell.
+	 */
+	public int get(final int row, final int col) {
+		return grid.get(row, col);
+	}
+
+	/**
+	 * @return whether every unit holds every digit, so the grid is a valid solution.
+	 */
+	public boolean isSolved() {
+		return validUnits == 3 * dimension;
+	}
+
+	/**
+	 * @return the number of units repeating a digit.
+	 */
+	public int conflictedUnits() {
+		return conflictedUnits;
+	}
+
+	/**
+	 * @return the number of rows and columns of the grid.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return a copy of the grid as edited.
+	 */
+	public Grid grid() {
+		return grid.copy();
+	}
+}
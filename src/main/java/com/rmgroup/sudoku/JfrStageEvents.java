@@ -0,0 +1,52 @@
+package com.rmgroup.sudoku;
+
+import com.rmgroup.sudoku.Metrics.Stage;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Commits a Flight Recorder event for each stage measured by the {@link Metrics}.
+ * <p>
+ * The Flight Recorder API is missing from Java 8, so this class is only compiled on JDK 11
+ * or later and is loaded by name. The event is committed only while a recording has it enabled.
+ */
+final class JfrStageEvents implements Metrics.StageListener {
+
+	@Override
+	public void stopped(final Stage stage, final long nanos, final long bytes) {
+		final StageEvent event = new StageEvent();
+		if (!event.isEnabled())
+			return;
+		event.stage = stage.label();
+		event.elapsed = nanos;
+		event.allocated = bytes;
+		event.commit();
+	}
+
+	/**
+	 * One stage of a validation, committed as it ends.
+	 */
+	@Name("com.rmgroup.sudoku.Stage")
+	@Label("Sudoku Stage")
+	@Category("Sudoku")
+	@Description("A read, parse or check stage of a validation")
+	static final class StageEvent extends Event {
+
+		@Label("Stage")
+		String stage;
+
+		@Label("Elapsed")
+		@Timespan(Timespan.NANOSECONDS)
+		long elapsed;
+
+		@Label("Allocated")
+		@DataAmount(DataAmount.BYTES)
+		long allocated;
+	}
+}
@@ -0,0 +1,76 @@
+package com.rmgroup.sudoku;
+
+/**
+ * Renders the few JSON values the application writes, straight into a
+ * {@link StringBuilder}, so no JSON library is needed.
+ */
+final class Json {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private Json() {
+	}
+
+	/**
+	 * Appends {@code value} as a quoted JSON string, escaping quotes, backslashes and
+	 * control characters.
+	 * @param out to append to.
+	 * @param value to quote, {@code null} is written as {@code null}.
+	 * @return {@code out}.
+	 */
+	static StringBuilder string(final StringBuilder out, final String value) {
+		if (value == null)
+			return out.append("null");
+
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		return out.append('"');
+	}
+
+	/**
+	 * Appends the members describing the outcome of checking a grid, without braces:
+	 * its status and, if invalid, the violated unit, the problem, the digit and the cell.
+	 * Units, rows and columns are numbered from 0 as for {@link CheckResult}.
+	 * @param out to append to.
+	 * @param result of the check.
+	 * @return {@code out}.
+	 */
+	static StringBuilder result(final StringBuilder out, final CheckResult result) {
+		out.append("\"status\":\"").append(result.status().name()).append('"');
+		if (result.isValid())
+			return out;
+
+		out.append(",\"unit\":\"").append(result.unitType().name())
+			.append("\",\"unitIndex\":").append(result.unitIndex())
+			.append(",\"problem\":\"").append(result.problem().name())
+			.append("\",\"digit\":").append(result.digit());
+		if (result.row() >= 0)
+			out.append(",\"row\":").append(result.row()).append(",\"column\":").append(result.column());
+		return out;
+	}
+}
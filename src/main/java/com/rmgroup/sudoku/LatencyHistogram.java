@@ -0,0 +1,135 @@
+package com.rmgroup.sudoku;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in buckets of logarithmically growing width, as an HDR histogram does,
+ * so any value from 1 nanosecond up to {@link Long#MAX_VALUE} is held within 1 in 64 of
+ * its true value in a fixed 29 KB.
+ * <p>
+ * Values below 128 each have a bucket of their own. Above, every power of two is split
+ * into 64 buckets, so the width of a bucket is a 64th of the values it holds. Recording
+ * is lock free and may be done from any number of threads; a percentile read while
+ * values are being recorded reflects some of them.
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * The number of bits below the highest one which pick the bucket within its power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The largest shift, that of a value whose highest bit is bit 62.
+	 */
+	private static final int MAX_SHIFT = Long.SIZE - 2 - SUB_BUCKET_BITS;
+
+	private final AtomicLongArray counts = new AtomicLongArray((MAX_SHIFT + 2) * SUB_BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder total = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records one value, a negative one being recorded as 0.
+	 * @param value to record, in nanoseconds.
+	 */
+	public void record(final long value) {
+		final long recorded = Math.max(value, 0);
+		counts.getAndIncrement(bucket(recorded));
+		count.increment();
+		total.add(recorded);
+		max.accumulate(recorded);
+	}
+
+	/**
+	 * Returns the bucket of a non-negative {@code value}.
+	 */
+	static int bucket(final long value) {
+		final int shift = Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the lowest value held by {@code bucket}.
+	 */
+	static long lowest(final int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return bucket;
+		final int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		return (long) (bucket - (shift << SUB_BUCKET_BITS)) << shift;
+	}
+
+	/**
+	 * Returns the value below which the given percentage of the recorded values lie, as the
+	 * highest value of its bucket but no more than the maximum recorded.
+	 * @param percentile from 0 to 100.
+	 * @return the value, 0 if none has been recorded.
+	 * @throws IllegalArgumentException if the percentile is outside 0 - 100.
+	 */
+	public long percentile(final double percentile) {
+		if (!(percentile >= 0 && percentile <= 100))
+			throw new IllegalArgumentException(String.format(
+				"ERROR: percentile %1$s is outside range (%2$d,%3$d)", percentile, 0, 100));
+
+		long recorded = 0;
+		for (int bucket = 0; bucket < counts.length(); bucket++) {
+			recorded += counts.get(bucket);
+		}
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+		long seen = 0;
+		for (int bucket = 0; bucket < counts.length(); bucket++) {
+			seen += counts.get(bucket);
+			if (seen >= rank)
+				return Math.min(bucket + 1 < counts.length() ? lowest(bucket + 1) - 1 : Long.MAX_VALUE, max());
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the number of values recorded.
+	 */
+	public long count() {
+		return count.sum();
+	}
+
+	/**
+	 * @return the sum of the values recorded.
+	 */
+	public long total() {
+		return total.sum();
+	}
+
+	/**
+	 * @return the mean of the values recorded, 0 if none has been.
+	 */
+	public long mean() {
+		final long values = count();
+		return values == 0 ? 0 : total() / values;
+	}
+
+	/**
+	 * @return the largest value recorded, 0 if none has been.
+	 */
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * Forgets every value recorded. Values recorded meanwhile may be partly forgotten.
+	 */
+	public void reset() {
+		for (int bucket = 0; bucket < counts.length(); bucket++) {
+			counts.set(bucket, 0);
+		}
+		count.reset();
+		total.reset();
+		max.reset();
+	}
+}
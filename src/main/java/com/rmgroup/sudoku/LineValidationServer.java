@@ -0,0 +1,272 @@
+package com.rmgroup.sudoku;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rmgroup.sudoku.Metrics.Stage;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * A resident validation server speaking a plain line protocol over TCP, for clients which
+ * need the lowest latency per grid. Each request is a grid written on one line, one digit
+ * or letter per cell as read by {@link BatchReader}, and each response a line holding
+ * the JSON result of that grid, as for a result of the {@link ValidationServer}:
+ * <pre>
+ * {"index":1,"status":"VALID"}
+ * {"index":2,"status":"INVALID","unit":"BOX","unitIndex":4,"problem":"DUPLICATE","digit":7,"row":4,"column":5}
+ * {"index":3,"status":"INVALID","error":"ERROR: cannot detect the dimension of a solution line of {80} elements."}
+ * </pre>
+ * The index counts the grids of the connection and blank lines are ignored. The dimension
+ * is detected from the length of each line.
+ * <p>
+ * Requests may be pipelined: responses are written in order and only flushed once every
+ * request received so far is answered, so a client streaming grids gets its results in
+ * few packets while a lone request is answered at once. Every connection is served by its
+ * own thread with blocking I/O, which avoids any hand over between threads per request.
+ * The threads are bounded: a connection beyond the limit is closed as soon as it is accepted.
+ */
+public class LineValidationServer implements Closeable {
+
+	/**
+	 * The longest line accepted, enough for a 121 x 121 grid.
+	 */
+	static final int MAX_LINE = 1 << 14;
+
+	/**
+	 * The connections served at once by default.
+	 */
+	public static final int DEFAULT_CONNECTIONS = 256;
+
+	/**
+	 * The bytes read from a connection at a time.
+	 */
+	private static final int READ_BYTES = 1 << 16;
+
+	private final ServerSocket listener;
+
+	private final ThreadPoolExecutor connections;
+
+	private final Thread acceptor;
+
+	/**
+	 * The open connections, closed with the server.
+	 */
+	private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+
+	private final Sudoku sudoku = Sudoku.getInstance();
+
+	/**
+	 * Constructs a LineValidationServer on the loopback interface serving up to
+	 * {@link #DEFAULT_CONNECTIONS} connections at once, which does not accept connections
+	 * until started.
+	 * @param port to listen on, 0 for any free port.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public LineValidationServer(final int port) throws IOException {
+		this(port, DEFAULT_CONNECTIONS);
+	}
+
+	/**
+	 * Constructs a LineValidationServer on the loopback interface, which does not accept
+	 * connections until started.
+	 * @param port to listen on, 0 for any free port.
+	 * @param maxConnections the connections served at once, each by a thread.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public LineValidationServer(final int port, final int maxConnections) throws IOException {
+		if (maxConnections < 1)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: the connections {%1$d} must be at least 1.", maxConnections));
+		listener = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		AtomicInteger connection = new AtomicInteger();
+		// no queue: a connection is either handed to a thread at once or refused.
+		connections = new ThreadPoolExecutor(0, maxConnections, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+			Thread thread = new Thread(task, "sudoku-line-server-" + connection.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		acceptor = new Thread(this::accept, "sudoku-line-server-accept");
+		acceptor.setDaemon(true);
+	}
+
+	/**
+	 * Starts accepting connections on a background thread.
+	 */
+	public void start() {
+		acceptor.start();
+	}
+
+	/**
+	 * @return the address listened on, with the actual port if any free port was asked for.
+	 */
+	public InetSocketAddress address() {
+		return (InetSocketAddress) listener.getLocalSocketAddress();
+	}
+
+	/**
+	 * Stops accepting connections and closes every open one.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			listener.close();
+			for (Socket socket : open) {
+				socket.close();
+			}
+		} finally {
+			connections.shutdownNow();
+		}
+	}
+
+	/**
+	 * Accepts connections until the server is closed, serving each on its own thread, or
+	 * closing it at once if every thread is busy.
+	 */
+	private void accept() {
+		while (!listener.isClosed()) {
+			try {
+				Socket socket = listener.accept();
+				socket.setTcpNoDelay(true);
+				open.add(socket);
+				try {
+					connections.execute(() -> serve(socket));
+				} catch (RejectedExecutionException ex) {
+					open.remove(socket);
+					socket.close();
+				}
+			} catch (IOException ex) {
+				// closed, or a connection failed before it was accepted.
+			}
+		}
+	}
+
+	/**
+	 * Answers the requests of one connection until the client closes it.
+	 */
+	private void serve(final Socket socket) {
+		try (Socket client = socket) {
+			InputStream in = client.getInputStream();
+			Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+			serve(in, out);
+		} catch (SocketException ex) {
+			// the connection was reset or the server closed.
+		} catch (IOException ex) {
+			// nothing can be reported to a client which is gone.
+		} finally {
+			open.remove(socket);
+		}
+	}
+
+	/**
+	 * Answers every line of {@code in} on {@code out}, flushing whenever no further request
+	 * is waiting. The input is read in blocks and split into lines here, so {@code in}
+	 * need not be buffered.
+	 * @param in the requests.
+	 * @param out the responses.
+	 * @throws IOException if the connection fails.
+	 */
+	void serve(final InputStream in, final Writer out) throws IOException {
+		byte[] input = new byte[READ_BYTES];
+		// the bytes of input not yet split into lines.
+		int start = 0;
+		int limit = 0;
+		byte[] line = new byte[256];
+		ByteBuffer bytes = ByteBuffer.wrap(line);
+		StringBuilder response = new StringBuilder(128);
+		Grid grid = new Grid(9);
+		long index = 0;
+
+		while (true) {
+			// read one line, dropping its terminator.
+			int length = 0;
+			boolean terminated = false;
+			while (!terminated) {
+				if (start == limit) {
+					int read = in.read(input, 0, input.length);
+					if (read < 0)
+						break;
+					start = 0;
+					limit = read;
+				}
+				int end = start;
+				while (end < limit && input[end] != '\n')
+					end++;
+				int count = end - start;
+				if (length + count > line.length && line.length < MAX_LINE) {
+					line = Arrays.copyOf(line, Math.min(Math.max(line.length * 2, length + count), MAX_LINE));
+					bytes = ByteBuffer.wrap(line);
+				}
+				// an over long line is only counted.
+				if (length < line.length)
+					System.arraycopy(input, start, line, length, Math.min(count, line.length - length));
+				length = Math.min(length + count, MAX_LINE + 1);
+				terminated = end < limit;
+				start = terminated ? end + 1 : end;
+			}
+			if (length > 0 && length <= line.length && line[length - 1] == '\r')
+				length--;
+
+			if (!isBlank(line, Math.min(length, line.length))) {
+				response.setLength(0);
+				response.append("{\"index\":").append(++index).append(',');
+				try {
+					if (length > MAX_LINE)
+						throw new IllegalArgumentException(String.format(
+							"ERROR: the line exceeds %1$d characters.", MAX_LINE));
+
+					final int dimension = CsvRowParser.dimensionOfLine(length);
+					if (grid.dimension() != dimension)
+						grid = new Grid(dimension);
+					final long started = Metrics.start(Stage.PARSE);
+					try {
+						CsvRowParser.parseLine(bytes, 0, length, dimension, grid.cells());
+					} finally {
+						Metrics.stop(Stage.PARSE, started);
+					}
+					final CheckResult result = sudoku.diagnose(grid);
+					Metrics.outcome(result.status(), false);
+					Json.result(response, result);
+				} catch (IllegalArgumentException ex) {
+					Metrics.outcome(Status.INVALID, true);
+					response.append("\"status\":\"INVALID\",\"error\":");
+					Json.string(response, ex.getMessage());
+				}
+				out.append(response).append("}\n");
+			}
+
+			if (!terminated) {
+				out.flush();
+				return;
+			}
+			if (start == limit && in.available() == 0)
+				out.flush();
+		}
+	}
+
+	private static boolean isBlank(final byte[] line, final int length) {
+		for (int i = 0; i < length; i++) {
+			if (line[i] != ' ' && line[i] != '\t')
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,419 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.rmgroup.sudoku.Metrics.Stage;
+
+/**
+ * Reads comma separated Sudoku grids by memory mapping the file and parsing the digits
+ * and commas straight from the mapped bytes into a {@link Grid} with the {@link CsvRowParser},
+ * no Strings are created unless a cell is rejected.
+ * <p>
+ * {@link #readGrid()} reads a file holding a single grid and rejects it exactly as
+ * {@link CsvReader} does: a row of the wrong width, a non-integer cell or an out of range
+ * cell raise the same exceptions with the same messages, naming the row and column. As a
+ * {@link GridCursor}, {@link #next(Grid)} reads the grids of a multi-grid file one at a
+ * time, in the layouts accepted by {@link BatchReader}.
+ * <p>
+ * The file is mapped through a window of at most {@code window} bytes which slides along
+ * the file, so files larger than 2GB may be read. A window of no more than
+ * {@link #SMALL_FILE} bytes is read into the heap instead, mapping costs more than it
+ * saves for a single grid file.
+ * <p>
+ * Given {@link #DETECT_DIMENSION} the reader detects the dimension from the first
+ * non-blank line of the file, as soon as the file is opened.
+ */
+public class MappedCsvReader implements SudokuReader, GridCursor {
+
+	/**
+	 * The default size of the mapped window, 256MB.
+	 */
+	public static final long DEFAULT_WINDOW = 1L << 28;
+
+	/**
+	 * Windows of at most this many bytes are read rather than mapped, 64KB.
+	 */
+	static final long SMALL_FILE = 1L << 16;
+
+	/**
+	 * The name of the file containing the Sudoku solutions.
+	 */
+	private final Path file;
+
+	/**
+	 * The dimension of the square Sudoku grid, {@link #DETECT_DIMENSION} until detected.
+	 */
+	private int dimension;
+
+	/**
+	 * The greatest number of bytes mapped at a time.
+	 */
+	private final long window;
+
+	private FileChannel channel;
+
+	/**
+	 * The size of the file in bytes.
+	 */
+	private long size;
+
+	/**
+	 * The mapped window of the file.
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * The position within the file of the start of the window.
+	 */
+	private long bufferStart;
+
+	/**
+	 * The position within the window of the next unread byte.
+	 */
+	private int position;
+
+	/**
+	 * The bounds within the window of the current line, excluding its terminator.
+	 */
+	private int lineStart, lineEnd;
+
+	/**
+	 * The number of lines read so far.
+	 */
+	private long lineNumber;
+
+	/**
+	 * The number of grids read so far by {@link #next(Grid)}.
+	 */
+	private long index;
+
+	/**
+	 * Constructs a MappedCsvReader for the given {@code file}, detecting the dimension of
+	 * the grids from the first line.
+	 * @param file to read.
+	 */
+	public MappedCsvReader(final Path file) {
+		this(file, DETECT_DIMENSION, DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Constructs a MappedCsvReader for the given {@code file} and given {@code dimension}.
+	 * @param file to read.
+	 * @param dimension of the grids, or {@link #DETECT_DIMENSION}.
+	 */
+	public MappedCsvReader(final Path file, final int dimension) {
+		this(file, dimension, DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Constructs a MappedCsvReader for the given {@code file} and given {@code dimension}.
+	 * @param file to read.
+	 * @param dimension of the grids, or {@link #DETECT_DIMENSION}.
+	 * @param window the greatest number of bytes mapped at a time, must exceed the longest line.
+	 */
+	public MappedCsvReader(final Path file, final int dimension, final long window) {
+		if (dimension != DETECT_DIMENSION)
+			Grid.boxDimensionOf(dimension);
+		if (window < 2 || window > Integer.MAX_VALUE)
+			throw new IllegalArgumentException(
+				String.format("ERROR: window (%1$d) is outside range (%2$d,%3$d)", window, 2, Integer.MAX_VALUE));
+		this.file = file;
+		this.dimension = dimension;
+		this.window = window;
+	}
+
+	/**
+	 * Returns a Square Grid of {@code dimension} consisting of the values from the
+	 * given Sudoku solution {@code file}.
+	 * @return a SudoGrid containing legal values.
+	 * @throws IOException if a problem occurs reading or accessing the file.
+	 */
+	@Override
+	public Integer[][] getGrid() throws IOException {
+		return readGrid().toArray();
+	}
+
+	/**
+	 * Returns a compact Grid of {@code dimension} consisting of the values from the
+	 * given Sudoku solution {@code file}, which must hold exactly one grid.
+	 * @return a Grid containing legal values.
+	 * @throws IOException if a problem occurs reading or accessing the file.
+	 * @throws IllegalArgumentException if the file does not hold {@code dimension} legal rows.
+	 */
+	@Override
+	public Grid readGrid() throws IOException {
+		final long started = Metrics.start(Stage.PARSE);
+		try {
+			return parseGrid();
+		} finally {
+			Metrics.stop(Stage.PARSE, started);
+		}
+	}
+
+	/**
+	 * Parses the single grid of the file, see {@link #readGrid()}.
+	 */
+	private Grid parseGrid() throws IOException {
+		open();
+		rewind();
+		if (dimension == DETECT_DIMENSION)
+			throw new IllegalArgumentException("ERROR: the solution holds no rows.");
+
+		Grid sudokuGrid = new Grid(dimension);
+		byte[] cells = sudokuGrid.cells();
+		int rowNumber = 0;
+
+		while (nextLine()) {
+			if (rowNumber == dimension)
+				throw new IllegalArgumentException(String.format(
+					"ERROR: Mismatch between the dimension {%1$d} and number of rows in solution {%2$d}.", dimension, rowNumber + 1));
+
+			CsvRowParser.parseRow(buffer, lineStart, lineEnd, dimension, cells, rowNumber * dimension, rowNumber + 1);
+			rowNumber++;
+		}
+
+		if (rowNumber != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and number of rows in solution {%2$d}.", dimension, rowNumber));
+		return sudokuGrid;
+	}
+
+	/**
+	 * Reads the next grid of a multi-grid file into {@code grid}. The grid may be a block
+	 * of {@code dimension} comma separated lines or a single line of digits, blank lines
+	 * between grids are skipped. A rejected grid is consumed, so reading may carry on.
+	 * @param grid to store the cells in, of this reader's dimension.
+	 * @return {@code true} if a grid was read, {@code false} at the end of the file.
+	 * @throws IOException if a problem occurs reading or accessing the file.
+	 * @throws NumberFormatException if any cells of the grid are non-integer.
+	 * @throws IllegalArgumentException if the grid is incomplete or any cells are not within range.
+	 */
+	@Override
+	public boolean next(final Grid grid) throws IOException {
+		final long started = Metrics.start(Stage.PARSE);
+		try {
+			return parseNext(grid);
+		} finally {
+			Metrics.stop(Stage.PARSE, started);
+		}
+	}
+
+	/**
+	 * Parses the next grid of the file into {@code grid}, see {@link #next(Grid)}.
+	 */
+	private boolean parseNext(final Grid grid) throws IOException {
+		open();
+		if (dimension == DETECT_DIMENSION)
+			return false;
+		if (grid.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and the grid dimension {%2$d}.", dimension, grid.dimension()));
+
+		do {
+			if (!nextLine())
+				return false;
+		} while (isBlank(buffer, lineStart, lineEnd));
+
+		index++;
+		byte[] cells = grid.cells();
+
+		if (dimension > 1 && indexOf(buffer, lineStart, lineEnd, (byte) ',') < 0) {
+			CsvRowParser.parseLine(buffer, lineStart, lineEnd, dimension, cells);
+			return true;
+		}
+
+		// every line of the block is consumed before any error is raised.
+		RuntimeException error = null;
+		int count = 0;
+		do {
+			try {
+				CsvRowParser.parseRow(buffer, lineStart, lineEnd, dimension, cells, count * dimension, count + 1);
+			} catch (IllegalArgumentException ex) {
+				if (error == null)
+					error = ex;
+			}
+			count++;
+		} while (count < dimension && nextLine() && !isBlank(buffer, lineStart, lineEnd));
+
+		if (count != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: Mismatch between the dimension {%1$d} and number of rows in solution {%2$d}.", dimension, count));
+		if (error != null)
+			throw error;
+		return true;
+	}
+
+	/**
+	 * Returns the dimension of the grids, detecting it first if need be.
+	 * @return the dimension, or {@link #DETECT_DIMENSION} if the file holds no grid.
+	 * @throws IOException if a problem occurs reading or accessing the file.
+	 * @throws IllegalArgumentException if the dimension cannot be detected.
+	 */
+	@Override
+	public int dimension() throws IOException {
+		open();
+		return dimension;
+	}
+
+	/**
+	 * @return the number of grids read so far by {@link #next(Grid)}, i.e. the position of the last one.
+	 */
+	@Override
+	public long index() {
+		return index;
+	}
+
+	/**
+	 * Opens and maps the start of the file, unless already open.
+	 */
+	private void open() throws IOException {
+		if (channel != null)
+			return;
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			size = channel.size();
+			map(0);
+			if (dimension == DETECT_DIMENSION)
+				detect();
+		} catch (IOException ioe) {
+			close();
+			throw new IOException(
+				"Error: Problem occurred trying to read the file. " + ioe.getMessage());
+		} catch (IllegalArgumentException ex) {
+			close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Detects the dimension from the first non-blank line, then moves back to the start of
+	 * the file. The dimension is left undetected if every line is blank.
+	 */
+	private void detect() throws IOException {
+		while (nextLine()) {
+			if (!isBlank(buffer, lineStart, lineEnd)) {
+				dimension = CsvRowParser.dimensionOf(CsvRowParser.decode(buffer, lineStart, lineEnd));
+				break;
+			}
+		}
+		rewind();
+	}
+
+	/**
+	 * Moves back to the start of the file.
+	 */
+	private void rewind() throws IOException {
+		if (bufferStart != 0)
+			map(0);
+		position = 0;
+		lineNumber = 0;
+		index = 0;
+	}
+
+	/**
+	 * @return whether the current window of the file is mapped, rather than read into the heap.
+	 */
+	boolean isMapped() {
+		return buffer != null && buffer.isDirect();
+	}
+
+	/**
+	 * Maps the window of the file beginning at {@code start}, or reads it into the heap if
+	 * it is no larger than {@link #SMALL_FILE}.
+	 */
+	private void map(final long start) throws IOException {
+		final long length = Math.min(window, size - start);
+
+		if (length > SMALL_FILE) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		} else {
+			// a mapping is only released by the garbage collector, small files are simply read.
+			buffer = ByteBuffer.allocate((int) length);
+			while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+			}
+			buffer.flip();
+		}
+		bufferStart = start;
+		position = 0;
+	}
+
+	/**
+	 * Finds the next line, as {@link java.io.BufferedReader#readLine()} would, and records its
+	 * bounds, sliding the window along the file whenever the line runs past its end.
+	 * @return {@code true} if a line was found, {@code false} at the end of the file.
+	 */
+	private boolean nextLine() throws IOException {
+		while (true) {
+			final int limit = buffer.limit();
+			final boolean lastWindow = bufferStart + limit >= size;
+
+			for (int i = position; i < limit; i++) {
+				final byte b = buffer.get(i);
+				if (b == '\n' || b == '\r') {
+					int next = i + 1;
+					if (b == '\r') {
+						if (next < limit) {
+							if (buffer.get(next) == '\n')
+								next++;
+						} else if (!lastWindow) {
+							// a '\n' may follow in the next window.
+							break;
+						}
+					}
+					lineStart = position;
+					lineEnd = i;
+					position = next;
+					lineNumber++;
+					return true;
+				}
+			}
+
+			if (lastWindow) {
+				if (position == limit)
+					return false;
+				lineStart = position;
+				lineEnd = limit;
+				position = limit;
+				lineNumber++;
+				return true;
+			}
+			if (position == 0)
+				throw new IOException(String.format(
+					"Error: line %1$d is longer than the mapped window of %2$d bytes.", lineNumber + 1, window));
+			map(bufferStart + position);
+		}
+	}
+
+	private static boolean isBlank(final ByteBuffer line, final int start, final int end) {
+		for (int i = start; i < end; i++) {
+			final byte b = line.get(i);
+			if (b < 0 || !Character.isWhitespace((char) b))
+				return false;
+		}
+		return true;
+	}
+
+	private static int indexOf(final ByteBuffer line, final int start, final int end, final byte value) {
+		for (int i = start; i < end; i++) {
+			if (line.get(i) == value)
+				return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer = null;
+		if (channel != null) {
+			try {
+				channel.close();
+			} finally {
+				channel = null;
+			}
+		}
+	}
+}
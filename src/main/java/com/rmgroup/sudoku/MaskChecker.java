@@ -0,0 +1,191 @@
+package com.rmgroup.sudoku;
+
+import java.util.Arrays;
+
+import com.rmgroup.sudoku.Grid.Unit;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * A checker for Sudoku solutions of any dimension, 4 x 4, 16 x 16, 25 x 25 and so on,
+ * held as flat, row major primitive arrays. The classic 9 x 9 solution is better served
+ * by the unrolled {@link BitmaskChecker}.
+ * <p>
+ * As for the {@link BitmaskChecker} each cell value becomes a single bit, but the masks
+ * are sized to the dimension: a {@code long} holds the digits of a grid of up to
+ * {@link #LONG_DIGITS} symbols, larger grids use a bitset of as many {@code long} words
+ * as they need. The rows, then the columns and then the subgrids are checked one at a time
+ * and a repeated digit ends the check, so a unit of {@code dimension} cells without a
+ * repeat is complete. Values outside 1..dimension end it too.
+ */
+public final class MaskChecker {
+
+	/**
+	 * The most symbols whose masks fit a single {@code long}.
+	 */
+	static final int LONG_DIGITS = 64;
+
+	private MaskChecker() {
+	}
+
+	/**
+	 * Checks the row major cells of a grid of the given {@code dimension} starting at {@code offset}.
+	 * @param cells holding the solution.
+	 * @param offset of the first cell of the solution.
+	 * @param dimension of the grid.
+	 * @return {@code VALID} if the solution meets the Sudoku rules, {@code INVALID} otherwise.
+	 * @throws IllegalArgumentException if {@code dimension} is not a legal grid dimension.
+	 * @throws ArrayIndexOutOfBoundsException if too few cells follow {@code offset}.
+	 */
+	public static Status check(final byte[] cells, final int offset, final int dimension) {
+		final int box = Grid.boxDimensionOf(dimension);
+		return dimension <= LONG_DIGITS
+				? checkNarrow(cells, offset, dimension, box)
+				: checkWide(cells, offset, dimension, box);
+	}
+
+	/**
+	 * Checks a grid whose masks fit a {@code long}, no objects are created.
+	 */
+	private static Status checkNarrow(final byte[] cells, final int offset, final int dimension, final int box) {
+		final int end = offset + dimension * dimension;
+
+		// rows, which also range check every cell for the columns and subgrids.
+		for (int row = offset; row < end; row += dimension) {
+			long mask = 0;
+			for (int i = row; i < row + dimension; i++) {
+				final int value = cells[i];
+				if (value < 1 || value > dimension)
+					return Status.INVALID;
+				final long bit = 1L << (value - 1);
+				if ((mask & bit) != 0)
+					return Status.INVALID;
+				mask |= bit;
+			}
+		}
+
+		for (int col = offset; col < offset + dimension; col++) {
+			long mask = 0;
+			for (int i = col; i < end; i += dimension) {
+				final long bit = 1L << (cells[i] - 1);
+				if ((mask & bit) != 0)
+					return Status.INVALID;
+				mask |= bit;
+			}
+		}
+
+		for (int index = 0; index < dimension; index++) {
+			final int first = offset + (index / box * box) * dimension + index % box * box;
+			long mask = 0;
+			for (int row = first; row < first + box * dimension; row += dimension) {
+				for (int i = row; i < row + box; i++) {
+					final long bit = 1L << (cells[i] - 1);
+					if ((mask & bit) != 0)
+						return Status.INVALID;
+					mask |= bit;
+				}
+			}
+		}
+		return Status.VALID;
+	}
+
+	/**
+	 * Checks a grid whose masks need several {@code long} words, held in one reused bitset.
+	 */
+	private static Status checkWide(final byte[] cells, final int offset, final int dimension, final int box) {
+		final int end = offset + dimension * dimension;
+		final long[] mask = new long[words(dimension)];
+
+		for (int row = offset; row < end; row += dimension) {
+			Arrays.fill(mask, 0);
+			for (int i = row; i < row + dimension; i++) {
+				final int value = cells[i];
+				if (value < 1 || value > dimension || !add(mask, value))
+					return Status.INVALID;
+			}
+		}
+
+		for (int col = offset; col < offset + dimension; col++) {
+			Arrays.fill(mask, 0);
+			for (int i = col; i < end; i += dimension) {
+				if (!add(mask, cells[i]))
+					return Status.INVALID;
+			}
+		}
+
+		for (int index = 0; index < dimension; index++) {
+			final int first = offset + (index / box * box) * dimension + index % box * box;
+			Arrays.fill(mask, 0);
+			for (int row = first; row < first + box * dimension; row += dimension) {
+				for (int i = row; i < row + box; i++) {
+					if (!add(mask, cells[i]))
+						return Status.INVALID;
+				}
+			}
+		}
+		return Status.VALID;
+	}
+
+	/**
+	 * Checks the row major cells of a grid of the given {@code dimension} starting at
+	 * {@code offset}, stopping at the first unit found to break the rules in the order
+	 * described by {@link BitmaskChecker#diagnose(byte[], int)}: row by row, the row
+	 * itself, then any column and then any subgrid now holding a repeated digit.
+	 * @param cells holding the solution.
+	 * @param offset of the first cell of the solution.
+	 * @param dimension of the grid.
+	 * @return the result naming the first violated unit, if any.
+	 * @throws IllegalArgumentException if {@code dimension} is not a legal grid dimension.
+	 */
+	public static CheckResult diagnose(final byte[] cells, final int offset, final int dimension) {
+		final int box = Grid.boxDimensionOf(dimension);
+		final int words = words(dimension);
+		final long[] rowMask = new long[words];
+		final long[] columnMasks = new long[dimension * words];
+		final long[] boxMasks = new long[dimension * words];
+
+		for (int row = 0; row < dimension; row++) {
+			final int start = offset + row * dimension;
+
+			Arrays.fill(rowMask, 0);
+			for (int col = 0; col < dimension; col++) {
+				final int value = cells[start + col];
+				if (value < 1 || value > dimension || !add(rowMask, 0, value))
+					return CheckResult.violation(cells, offset, dimension, Unit.Type.ROW, row);
+			}
+			for (int col = 0; col < dimension; col++) {
+				if (!add(columnMasks, col * words, cells[start + col]))
+					return CheckResult.violation(cells, offset, dimension, Unit.Type.COLUMN, col);
+			}
+			for (int col = 0; col < dimension; col++) {
+				final int index = row / box * box + col / box;
+				if (!add(boxMasks, index * words, cells[start + col]))
+					return CheckResult.violation(cells, offset, dimension, Unit.Type.BOX, index);
+			}
+		}
+		return CheckResult.valid();
+	}
+
+	/**
+	 * Returns the number of {@code long} words holding the mask of a unit of {@code dimension} symbols.
+	 */
+	static int words(final int dimension) {
+		return (dimension + LONG_DIGITS - 1) / LONG_DIGITS;
+	}
+
+	private static boolean add(final long[] mask, final int value) {
+		return add(mask, 0, value);
+	}
+
+	/**
+	 * Sets the bit of {@code value} in the bitset starting at {@code mask[first]}.
+	 * @return {@code false} if the bit was already set.
+	 */
+	private static boolean add(final long[] mask, final int first, final int value) {
+		final int word = first + ((value - 1) >>> 6);
+		final long bit = 1L << (value - 1);
+		if ((mask[word] & bit) != 0)
+			return false;
+		mask[word] |= bit;
+		return true;
+	}
+}
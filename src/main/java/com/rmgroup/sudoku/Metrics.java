@@ -0,0 +1,525 @@
+package com.rmgroup.sudoku;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Measures where the time of a validation goes: reading the input, parsing it into grids
+ * and checking them, with a {@link LatencyHistogram} of the times and the bytes allocated
+ * per {@link Stage}, and counts of the VALID, INVALID and malformed grids.
+ * <p>
+ * Measuring is off unless enabled, with {@code -Dsudoku.metrics=true} or through JMX, and
+ * each probe then costs a single read of a flag. While enabled, every stage which ends
+ * also commits a JDK Flight Recorder event, {@code com.rmgroup.sudoku.Stage}, on a JVM
+ * with the Flight Recorder. The figures are exposed as MXBeans, and may be written out
+ * as text or JSON every {@code sudoku.metrics.interval} seconds and when the JVM exits.
+ * <p>
+ * A stage is measured by bracketing it, whatever way it ends:
+ * <pre>
+ * final long started = Metrics.start(Stage.CHECK);
+ * try {
+ *     ...
+ * } finally {
+ *     Metrics.stop(Stage.CHECK, started);
+ * }
+ * </pre>
+ */
+public final class Metrics {
+
+	/**
+	 * The stages of a validation.
+	 */
+	public enum Stage {
+
+		/**
+		 * Reading the text of a grid from its input, as lines or as a raw record.
+		 */
+		READ,
+
+		/**
+		 * Turning the text or binary record of a grid into its cells. A memory mapped file
+		 * is read as it is parsed, so its reads are part of this stage.
+		 */
+		PARSE,
+
+		/**
+		 * Checking a grid against the Sudoku rules.
+		 */
+		CHECK;
+
+		/**
+		 * @return the name of the stage in lower case.
+		 */
+		public String label() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	/**
+	 * Told of each stage which ends while measuring is enabled.
+	 */
+	@FunctionalInterface
+	interface StageListener {
+
+		/**
+		 * @param stage which ended.
+		 * @param nanos taken by the stage.
+		 * @param bytes allocated by the stage.
+		 */
+		void stopped(Stage stage, long nanos, long bytes);
+	}
+
+	/**
+	 * The system property which enables measuring when {@code true}.
+	 */
+	static final String METRICS_PROPERTY = "sudoku.metrics";
+
+	/**
+	 * The system property giving the seconds between two dumps, none if 0 or unset.
+	 */
+	static final String INTERVAL_PROPERTY = "sudoku.metrics.interval";
+
+	/**
+	 * The system property selecting the format of the dumps, {@code json} or {@code text}.
+	 */
+	static final String FORMAT_PROPERTY = "sudoku.metrics.format";
+
+	/**
+	 * The name of the Flight Recorder events, which are only built on a JDK which has them.
+	 */
+	static final String JFR_EVENTS = "com.rmgroup.sudoku.JfrStageEvents";
+
+	/**
+	 * The object name of the {@link MetricsMXBean}, the stages adding their own key.
+	 */
+	static final String OBJECT_NAME = "com.rmgroup.sudoku:type=Metrics";
+
+	private static volatile boolean enabled;
+
+	private Metrics() {
+	}
+
+	/**
+	 * @return {@code true} if the stages are being measured.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts or stops measuring the stages. A stage already under way when measuring
+	 * starts is not measured.
+	 * @param enable {@code true} to measure the stages.
+	 */
+	public static void setEnabled(final boolean enable) {
+		enabled = enable;
+	}
+
+	/**
+	 * Marks the start of a stage on the current thread.
+	 * @param stage which starts.
+	 * @return the time the stage started, to pass to {@link #stop(Stage, long)}, or 0 if
+	 *         measuring is off.
+	 */
+	public static long start(final Stage stage) {
+		if (!enabled)
+			return 0;
+		Figures.ALLOCATED.get()[stage.ordinal()] = allocatedBytes();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a stage on the current thread, recording its time and allocations.
+	 * @param stage which ends.
+	 * @param started as returned by {@link #start(Stage)}, nothing being recorded if 0.
+	 */
+	public static void stop(final Stage stage, final long started) {
+		if (started == 0 || !enabled)
+			return;
+		final long nanos = System.nanoTime() - started;
+		final long bytes = Math.max(0, allocatedBytes() - Figures.ALLOCATED.get()[stage.ordinal()]);
+		Figures.STAGES[stage.ordinal()].record(nanos, bytes);
+		if (Figures.EVENTS != null)
+			Figures.EVENTS.stopped(stage, nanos, bytes);
+	}
+
+	/**
+	 * Counts the outcome of one grid, if measuring is on.
+	 * @param status of the grid.
+	 * @param malformed {@code true} if the grid could not be parsed.
+	 */
+	public static void outcome(final Status status, final boolean malformed) {
+		if (!enabled)
+			return;
+		if (status == Status.VALID) {
+			Figures.VALID.increment();
+		} else {
+			Figures.INVALID.increment();
+		}
+		if (malformed) {
+			Figures.MALFORMED.increment();
+		}
+	}
+
+	/**
+	 * @param stage to look at.
+	 * @return the figures of the stage.
+	 */
+	public static StageMXBean stage(final Stage stage) {
+		return Figures.STAGES[stage.ordinal()];
+	}
+
+	/**
+	 * @param stage to look at.
+	 * @return the times of the stage.
+	 */
+	public static LatencyHistogram histogram(final Stage stage) {
+		return Figures.STAGES[stage.ordinal()].times;
+	}
+
+	/**
+	 * @return the number of VALID grids.
+	 */
+	public static long valid() {
+		return Figures.VALID.sum();
+	}
+
+	/**
+	 * @return the number of INVALID grids, including malformed ones.
+	 */
+	public static long invalid() {
+		return Figures.INVALID.sum();
+	}
+
+	/**
+	 * @return the number of grids which could not be parsed.
+	 */
+	public static long malformed() {
+		return Figures.MALFORMED.sum();
+	}
+
+	/**
+	 * Zeroes every count and stage.
+	 */
+	public static void reset() {
+		Figures.VALID.reset();
+		Figures.INVALID.reset();
+		Figures.MALFORMED.reset();
+		for (StageMetrics stage : Figures.STAGES) {
+			stage.reset();
+		}
+	}
+
+	/**
+	 * Returns the counts followed by a line per stage, e.g.
+	 * {@code check  count=12 mean=180ns p50=177ns ... allocated=0B}.
+	 * @return the figures as text.
+	 */
+	public static String text() {
+		StringBuilder out = new StringBuilder(String.format(
+				"Grids: %1$d VALID, %2$d INVALID (%3$d malformed)", valid(), invalid(), malformed()));
+		for (Stage stage : Stage.values()) {
+			final StageMetrics metrics = Figures.STAGES[stage.ordinal()];
+			out.append(System.lineSeparator()).append(String.format(
+				"%1$-6s count=%2$d mean=%3$dns p50=%4$dns p90=%5$dns p99=%6$dns p99.9=%7$dns max=%8$dns allocated=%9$dB",
+				stage.label(), metrics.getCount(), metrics.getMeanNanos(), metrics.getP50Nanos(), metrics.getP90Nanos(),
+				metrics.getP99Nanos(), metrics.getP999Nanos(), metrics.getMaxNanos(), metrics.getAllocatedBytes()));
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Returns the figures as a single line JSON document, e.g.
+	 * {@code {"valid":10,"invalid":2,"malformed":1,"stages":{"read":{"count":12,...},...}}}.
+	 * @return the figures as JSON.
+	 */
+	public static String json() {
+		StringBuilder out = new StringBuilder(512);
+		out.append("{\"valid\":").append(valid())
+			.append(",\"invalid\":").append(invalid())
+			.append(",\"malformed\":").append(malformed())
+			.append(",\"stages\":{");
+		for (Stage stage : Stage.values()) {
+			final StageMetrics metrics = Figures.STAGES[stage.ordinal()];
+			out.append(stage.ordinal() == 0 ? "" : ",");
+			Json.string(out, stage.label())
+				.append(":{\"count\":").append(metrics.getCount())
+				.append(",\"meanNanos\":").append(metrics.getMeanNanos())
+				.append(",\"p50Nanos\":").append(metrics.getP50Nanos())
+				.append(",\"p90Nanos\":").append(metrics.getP90Nanos())
+				.append(",\"p99Nanos\":").append(metrics.getP99Nanos())
+				.append(",\"p999Nanos\":").append(metrics.getP999Nanos())
+				.append(",\"maxNanos\":").append(metrics.getMaxNanos())
+				.append(",\"allocatedBytes\":").append(metrics.getAllocatedBytes())
+				.append('}');
+		}
+		return out.append("}}").toString();
+	}
+
+	/**
+	 * Registers the MXBeans with the platform MBean server, unless they already are.
+	 * @throws IllegalStateException if the MBean server refuses them.
+	 */
+	public static synchronized void register() {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name))
+				server.registerMBean(new Bean(), name);
+			for (Stage stage : Stage.values()) {
+				final ObjectName stageName = new ObjectName(OBJECT_NAME + ",stage=" + stage.label());
+				if (!server.isRegistered(stageName))
+					server.registerMBean(Figures.STAGES[stage.ordinal()], stageName);
+			}
+		} catch (JMException ex) {
+			throw new IllegalStateException("ERROR: the metrics cannot be registered. " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Writes the figures to {@code out} every {@code period}, from a daemon thread.
+	 * @param period between two dumps.
+	 * @param unit of the period.
+	 * @param out to write to.
+	 * @param json {@code true} to write them as JSON, {@code false} as text.
+	 * @return the executor writing them, to shut down to stop.
+	 * @throws IllegalArgumentException if the period is not positive.
+	 */
+	public static ScheduledExecutorService dumpEvery(final long period, final TimeUnit unit, final PrintStream out,
+			final boolean json) {
+		if (period <= 0)
+			throw new IllegalArgumentException("ERROR: the period between two dumps must be positive");
+
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "sudoku-metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleAtFixedRate(() -> dump(out, json), period, period, unit);
+		return executor;
+	}
+
+	/**
+	 * Writes the figures to {@code out}.
+	 */
+	private static void dump(final PrintStream out, final boolean json) {
+		out.println(json ? json() : text());
+		out.flush();
+	}
+
+	/**
+	 * Sets up measuring from the system properties: {@code sudoku.metrics=true} enables it,
+	 * registers the MXBeans and writes the figures to {@code out} when the JVM exits, and
+	 * {@code sudoku.metrics.interval} sets the seconds between dumps while it runs.
+	 * {@code sudoku.metrics.format=json} writes them as JSON rather than text.
+	 * @param out to write the figures to.
+	 * @throws IllegalArgumentException if the interval is not an integer.
+	 */
+	public static void configure(final PrintStream out) {
+		if (!Boolean.getBoolean(METRICS_PROPERTY))
+			return;
+
+		final boolean json = "json".equalsIgnoreCase(System.getProperty(FORMAT_PROPERTY));
+		long interval = 0;
+		final String seconds = System.getProperty(INTERVAL_PROPERTY);
+		if (seconds != null) {
+			try {
+				interval = Long.parseLong(seconds.trim());
+			} catch (NumberFormatException nfe) {
+				throw new IllegalArgumentException("ERROR: the metrics interval must be an integer");
+			}
+		}
+
+		setEnabled(true);
+		register();
+		if (interval > 0)
+			dumpEvery(interval, TimeUnit.SECONDS, out, json);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(out, json), "sudoku-metrics-exit"));
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread so far, 0 if the JVM cannot count them.
+	 */
+	private static long allocatedBytes() {
+		return Figures.THREADS == null ? 0 : Figures.THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Returns the thread MXBean if it counts the bytes allocated per thread, {@code null} otherwise.
+	 */
+	private static com.sun.management.ThreadMXBean threads() {
+		try {
+			final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean) {
+				final com.sun.management.ThreadMXBean counting = (com.sun.management.ThreadMXBean) threads;
+				if (counting.isThreadAllocatedMemorySupported() && counting.isThreadAllocatedMemoryEnabled())
+					return counting;
+			}
+		} catch (LinkageError | UnsupportedOperationException ex) {
+			// the JVM has no such counter.
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the Flight Recorder events, or {@code null} if they were not built, the JVM
+	 * has no Flight Recorder or this is a native image, which loads no class by name.
+	 */
+	static StageListener events() {
+		if (System.getProperty(UnitChecker.NATIVE_IMAGE_PROPERTY) != null)
+			return null;
+		try {
+			return Class.forName(JFR_EVENTS).asSubclass(StageListener.class).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * The figures, only created once measured or read, so a run which never measures
+	 * loads neither the histograms nor the management and Flight Recorder classes.
+	 */
+	private static final class Figures {
+
+		static final StageMetrics[] STAGES = new StageMetrics[Stage.values().length];
+
+		static {
+			for (Stage stage : Stage.values()) {
+				STAGES[stage.ordinal()] = new StageMetrics();
+			}
+		}
+
+		static final LongAdder VALID = new LongAdder();
+
+		static final LongAdder INVALID = new LongAdder();
+
+		static final LongAdder MALFORMED = new LongAdder();
+
+		/**
+		 * The bytes the current thread had allocated when each stage started.
+		 */
+		static final ThreadLocal<long[]> ALLOCATED = ThreadLocal.withInitial(() -> new long[Stage.values().length]);
+
+		/**
+		 * Counts the bytes allocated per thread, {@code null} if the JVM cannot.
+		 */
+		static final com.sun.management.ThreadMXBean THREADS = threads();
+
+		/**
+		 * Commits the Flight Recorder events, {@code null} if the JVM has no Flight Recorder.
+		 */
+		static final StageListener EVENTS = events();
+	}
+
+	/**
+	 * The figures of one stage.
+	 */
+	static final class StageMetrics implements StageMXBean {
+
+		private final LatencyHistogram times = new LatencyHistogram();
+
+		private final LongAdder allocated = new LongAdder();
+
+		void record(final long nanos, final long bytes) {
+			times.record(nanos);
+			allocated.add(bytes);
+		}
+
+		void reset() {
+			times.reset();
+			allocated.reset();
+		}
+
+		@Override
+		public long getCount() {
+			return times.count();
+		}
+
+		@Override
+		public long getMeanNanos() {
+			return times.mean();
+		}
+
+		@Override
+		public long getP50Nanos() {
+			return times.percentile(50);
+		}
+
+		@Override
+		public long getP90Nanos() {
+			return times.percentile(90);
+		}
+
+		@Override
+		public long getP99Nanos() {
+			return times.percentile(99);
+		}
+
+		@Override
+		public long getP999Nanos() {
+			return times.percentile(99.9);
+		}
+
+		@Override
+		public long getMaxNanos() {
+			return times.max();
+		}
+
+		@Override
+		public long getAllocatedBytes() {
+			return allocated.sum();
+		}
+	}
+
+	/**
+	 * The {@link MetricsMXBean}, which reads and drives the static figures.
+	 */
+	private static final class Bean implements MetricsMXBean {
+
+		@Override
+		public boolean isEnabled() {
+			return Metrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(final boolean enabled) {
+			Metrics.setEnabled(enabled);
+		}
+
+		@Override
+		public long getValid() {
+			return valid();
+		}
+
+		@Override
+		public long getInvalid() {
+			return invalid();
+		}
+
+		@Override
+		public long getMalformed() {
+			return malformed();
+		}
+
+		@Override
+		public String getJson() {
+			return json();
+		}
+
+		@Override
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+}
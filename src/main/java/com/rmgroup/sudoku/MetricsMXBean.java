@@ -0,0 +1,44 @@
+package com.rmgroup.sudoku;
+
+/**
+ * The management interface of the {@link Metrics}, registered as
+ * {@code com.rmgroup.sudoku:type=Metrics}.
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * @return {@code true} if the stages are being measured.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Starts or stops measuring the stages.
+	 * @param enabled {@code true} to measure them.
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return the number of VALID grids.
+	 */
+	long getValid();
+
+	/**
+	 * @return the number of INVALID grids, including malformed ones.
+	 */
+	long getInvalid();
+
+	/**
+	 * @return the number of grids which could not be parsed.
+	 */
+	long getMalformed();
+
+	/**
+	 * @return every count and stage as a JSON document.
+	 */
+	String getJson();
+
+	/**
+	 * Zeroes every count and stage.
+	 */
+	void reset();
+}
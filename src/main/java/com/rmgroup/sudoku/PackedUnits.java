@@ -0,0 +1,187 @@
+package com.rmgroup.sudoku;
+
+import static com.rmgroup.sudoku.BitmaskChecker.ALL_DIGITS;
+import static com.rmgroup.sudoku.BitmaskChecker.CELL_COUNT;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * The units of a 9 x 9 solution packed as nine 4 bit digits in the low 36 bits of a
+ * {@code long}, the first digit in the highest nibble, and checked with a precomputed table.
+ * <p>
+ * Every cell is written to its row and to its column as it is read, so the columns are
+ * ready without a transposed view of the grid. The subgrids need no representation of
+ * their own: the 12 bits of a row above each of its three subgrids are a third of that
+ * subgrid. {@link #TRIPLES} gives the mask of the three digits packed in any 12 bits, so
+ * a row, column or subgrid is checked in three lookups, being valid if, and only if, the
+ * three masks OR to {@link BitmaskChecker#ALL_DIGITS}. The lookups of the rows are shared
+ * with the subgrids, so the 27 units take 54 lookups.
+ * <p>
+ * A binary record of 9 x 9 grids already holds its rows as runs of 4 bit digits, which
+ * {@link BinaryGridReader#readUnits(long, PackedUnits)} copies without decoding the cells.
+ * An instance is reused from grid to grid and is not safe for concurrent use.
+ */
+public final class PackedUnits {
+
+	/**
+	 * The mask of the three digits packed in each 12 bit value, with
+	 * {@link BitmaskChecker#OUT_OF_RANGE} if any lies outside 1..9.
+	 */
+	static final short[] TRIPLES = new short[1 << 12];
+
+	static {
+		for (int triple = 0; triple < TRIPLES.length; triple++) {
+			TRIPLES[triple] = (short) (BitmaskChecker.bit(triple >>> 8)
+					| BitmaskChecker.bit(triple >>> 4 & 0xF) | BitmaskChecker.bit(triple & 0xF));
+		}
+	}
+
+	/**
+	 * The bits of a packed unit.
+	 */
+	private static final long UNIT_BITS = (1L << 36) - 1;
+
+	private final long[] rows = new long[9];
+
+	private final long[] columns = new long[9];
+
+	/**
+	 * Empties every cell.
+	 */
+	public void clear() {
+		Arrays.fill(rows, 0);
+		Arrays.fill(columns, 0);
+	}
+
+	/**
+	 * Writes a value to the given cell of its row and column.
+	 * @param row of the cell, 0 - 8.
+	 * @param col of the cell, 0 - 8.
+	 * @param value of the cell, any value outside 0..15 being held as 15, which is out of range too.
+	 * @throws IndexOutOfBoundsException if the row or column is outside 0 - 8.
+	 */
+	public void set(final int row, final int col, final int value) {
+		if (row < 0 || row > 8 || col < 0 || col > 8)
+			throw new IndexOutOfBoundsException(String.format(
+				"ERROR: cell (%1$d,%2$d) is outside range (%3$d,%4$d)", row, col, 0, 8));
+		final long nibble = nibble(value);
+		final int rowShift = 4 * (8 - col), colShift = 4 * (8 - row);
+		rows[row] = rows[row] & ~(0xFL << rowShift) | nibble << rowShift;
+		columns[col] = columns[col] & ~(0xFL << colShift) | nibble << colShift;
+	}
+
+	/**
+	 * Packs the 81 row major cells of {@code cells} starting at {@code offset}.
+	 * @param cells holding the solution.
+	 * @param offset of the first cell of the solution.
+	 * @throws ArrayIndexOutOfBoundsException if fewer than 81 cells follow {@code offset}.
+	 */
+	public void pack(final byte[] cells, final int offset) {
+		if (offset < 0 || offset > cells.length - CELL_COUNT)
+			throw new ArrayIndexOutOfBoundsException(offset);
+
+		for (int row = 0, cell = offset; row < 9; row++) {
+			long packed = 0;
+			for (int col = 0; col < 9; col++, cell++) {
+				packed = packed << 4 | nibble(cells[cell]);
+			}
+			rows[row] = packed;
+		}
+		transpose();
+	}
+
+	/**
+	 * Packs the 81 cells of a binary record, two to a byte with the first in the upper nibble.
+	 * Each row is cut from the eight bytes holding it, the last from the last eight bytes of
+	 * the record so as not to read past it.
+	 * @param record holding the packed cells.
+	 * @param start of the record within {@code record}.
+	 */
+	void unpack(final ByteBuffer record, final int start) {
+		for (int row = 0; row < 9; row++) {
+			final int first = Math.min(9 * row / 2, CELL_COUNT / 2 + 1 - Long.BYTES);
+			// the nibbles after the row are shifted out.
+			final int after = 2 * (first + Long.BYTES) - 9 * (row + 1);
+			rows[row] = record.getLong(start + first) >>> 4 * after & UNIT_BITS;
+		}
+		transpose();
+	}
+
+	/**
+	 * Builds the columns from the rows.
+	 */
+	private void transpose() {
+		for (int col = 0; col < 9; col++) {
+			final int shift = 4 * (8 - col);
+			long packed = 0;
+			for (int row = 0; row < 9; row++) {
+				packed = packed << 4 | rows[row] >>> shift & 0xF;
+			}
+			columns[col] = packed;
+		}
+	}
+
+	/**
+	 * Returns the nibble holding {@code value}, 15 for a value which does not fit one.
+	 */
+	private static int nibble(final int value) {
+		return (value & ~0xF) == 0 ? value : 0xF;
+	}
+
+	/**
+	 * Checks the packed solution.
+	 * @return {@code VALID} if every row, column and subgrid holds the digits 1..9, {@code INVALID} otherwise.
+	 */
+	public Status check() {
+		for (int band = 0; band < 9; band += 3) {
+			int left = 0, middle = 0, right = 0;
+			for (int row = band; row < band + 3; row++) {
+				final long packed = rows[row];
+				final int l = TRIPLES[(int) (packed >>> 24) & 0xFFF];
+				final int m = TRIPLES[(int) (packed >>> 12) & 0xFFF];
+				final int r = TRIPLES[(int) packed & 0xFFF];
+				if ((l | m | r) != ALL_DIGITS)
+					return Status.INVALID;
+				left |= l;
+				middle |= m;
+				right |= r;
+			}
+			if (left != ALL_DIGITS || middle != ALL_DIGITS || right != ALL_DIGITS)
+				return Status.INVALID;
+		}
+		for (long packed : columns) {
+			if (mask(packed) != ALL_DIGITS)
+				return Status.INVALID;
+		}
+		return Status.VALID;
+	}
+
+	/**
+	 * Returns the mask of the nine digits of a packed {@code unit}, including the
+	 * {@link BitmaskChecker#OUT_OF_RANGE} bit if any lies outside 1..9.
+	 * @param unit the nine 4 bit digits.
+	 * @return the mask of the unit.
+	 */
+	static int mask(final long unit) {
+		return TRIPLES[(int) (unit >>> 24) & 0xFFF] | TRIPLES[(int) (unit >>> 12) & 0xFFF] | TRIPLES[(int) unit & 0xFFF];
+	}
+
+	/**
+	 * @param row 0 - 8.
+	 * @return the nine 4 bit digits of the row, the first in the highest nibble.
+	 */
+	long row(final int row) {
+		return rows[row];
+	}
+
+	/**
+	 * @param col 0 - 8.
+	 * @return the nine 4 bit digits of the column, the first in the highest nibble.
+	 */
+	long column(final int col) {
+		return columns[col];
+	}
+}
@@ -0,0 +1,281 @@
+package com.rmgroup.sudoku;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rmgroup.sudoku.BatchValidator.Summary;
+
+/**
+ * Validates every grid of one or more multi-grid files on a pool of worker threads,
+ * producing exactly the output of a {@link BatchValidator}, in the same order.
+ * <p>
+ * The calling thread only reads the raw text of each grid. Records are handed to the
+ * workers in chunks, and each worker parses and checks its chunk and renders the
+ * result lines. The chunks are written in the order they were read. At most
+ * {@code maxInFlight} chunks are queued or being worked on, once that many are
+ * outstanding the calling thread waits for, and writes, the oldest chunk before
+ * reading on, so memory use is bounded whatever the size of the input.
+ * <p>
+ * As for a {@link BatchValidator} the dimension may be detected per file. A binary
+ * file needs no reading on the calling thread: each worker is handed a range of
+ * positions and reads its grids straight from the shared {@link BinaryGridReader}.
+ */
+public class ParallelBatchValidator {
+
+	/**
+	 * The default number of records handed to a worker at a time.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/**
+	 * The dimension of every grid validated, or {@link SudokuReader#DETECT_DIMENSION}.
+	 */
+	private final int dimension;
+
+	/**
+	 * Where the per grid results are written.
+	 */
+	private final Writer out;
+
+	/**
+	 * The number of worker threads.
+	 */
+	private final int workers;
+
+	/**
+	 * The number of records in each chunk.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * The greatest number of chunks outstanding at any time.
+	 */
+	private final int maxInFlight;
+
+	/**
+	 * The layout of the per grid results.
+	 */
+	private final ReportFormat format;
+
+	private final Sudoku sudoku = Sudoku.getInstance();
+
+	/**
+	 * Constructs a ParallelBatchValidator for grids of the given {@code dimension}
+	 * using {@code workers} threads and the default chunk size.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION} to detect it per file.
+	 * @param out to write the results to, the caller should buffer it.
+	 * @param workers the number of worker threads.
+	 */
+	public ParallelBatchValidator(final int dimension, final Writer out, final int workers) {
+		this(dimension, out, workers, DEFAULT_CHUNK_SIZE, workers * 4);
+	}
+
+	/**
+	 * Constructs a ParallelBatchValidator for grids of the given {@code dimension}.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION} to detect it per file.
+	 * @param out to write the results to, the caller should buffer it.
+	 * @param workers the number of worker threads.
+	 * @param chunkSize the number of records handed to a worker at a time.
+	 * @param maxInFlight the greatest number of chunks outstanding at any time.
+	 * @throws IllegalArgumentException if any of the sizes are less than 1.
+	 */
+	public ParallelBatchValidator(final int dimension, final Writer out,
+			final int workers, final int chunkSize, final int maxInFlight) {
+		this(dimension, out, workers, chunkSize, maxInFlight, ReportFormat.TEXT);
+	}
+
+	/**
+	 * Constructs a ParallelBatchValidator for grids of the given {@code dimension}, writing
+	 * its results in the given {@code format}.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION} to detect it per file.
+	 * @param out to write the results to, the caller should buffer it.
+	 * @param workers the number of worker threads.
+	 * @param chunkSize the number of records handed to a worker at a time.
+	 * @param maxInFlight the greatest number of chunks outstanding at any time.
+	 * @param format of the results, the caller writes any header and the summary.
+	 * @throws IllegalArgumentException if any of the sizes are less than 1.
+	 */
+	public ParallelBatchValidator(final int dimension, final Writer out,
+			final int workers, final int chunkSize, final int maxInFlight, final ReportFormat format) {
+		if (workers < 1 || chunkSize < 1 || maxInFlight < 1)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: workers (%1$d), chunk size (%2$d) and chunks in flight (%3$d) must be at least 1",
+				workers, chunkSize, maxInFlight));
+		this.dimension = dimension;
+		this.out = out;
+		this.workers = workers;
+		this.chunkSize = chunkSize;
+		this.maxInFlight = maxInFlight;
+		this.format = format;
+	}
+
+	/**
+	 * Validates every grid in the given file, or in every file of the given directory.
+	 * The files of a directory are visited in name order, sub-directories are skipped.
+	 * @param path of a file or a directory.
+	 * @return the counts of the grids validated.
+	 * @throws IOException if a problem occurs reading a file or writing the results.
+	 */
+	public Summary validate(final Path path) throws IOException {
+		Summary summary = new Summary();
+		ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>(maxInFlight);
+		ExecutorService pool = Executors.newFixedThreadPool(workers, new WorkerFactory());
+
+		try {
+			for (Path file : BatchValidator.filesOf(path)) {
+				if (BinaryGridReader.isBinary(file)) {
+					submitBinary(file, pool, inFlight, summary);
+					continue;
+				}
+				Chunk rejected = new Chunk(1);
+				final int fileDimension = BatchValidator.dimensionOf(file, dimension, format, rejected.summary, rejected.lines);
+				if (rejected.summary.total() > 0) {
+					makeRoom(inFlight, summary);
+					inFlight.add(CompletableFuture.completedFuture(rejected));
+				}
+				if (fileDimension == SudokuReader.DETECT_DIMENSION)
+					continue;
+
+				try (BatchReader reader = new BatchReader(file, fileDimension)) {
+					List<BatchRecord> records = new ArrayList<>(chunkSize);
+					BatchRecord record;
+					while ((record = reader.next()) != null) {
+						records.add(record);
+						if (records.size() == chunkSize) {
+							submit(pool, records, inFlight, summary);
+							records = new ArrayList<>(chunkSize);
+						}
+					}
+					if (!records.isEmpty()) {
+						submit(pool, records, inFlight, summary);
+					}
+				}
+			}
+			while (!inFlight.isEmpty()) {
+				write(inFlight.poll(), summary);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return summary;
+	}
+
+	/**
+	 * Hands the given records to a worker, first writing the oldest chunk if too many are outstanding.
+	 */
+	private void submit(final ExecutorService pool, final List<BatchRecord> records,
+			final ArrayDeque<Future<Chunk>> inFlight, final Summary summary) throws IOException {
+		makeRoom(inFlight, summary);
+		inFlight.add(pool.submit(() -> validateChunk(records)));
+	}
+
+	/**
+	 * Hands the grids of a binary file to the workers a chunk of positions at a time.
+	 */
+	private void submitBinary(final Path file, final ExecutorService pool,
+			final ArrayDeque<Future<Chunk>> inFlight, final Summary summary) throws IOException {
+		Chunk rejected = new Chunk(1);
+		final BinaryGridReader reader = BatchValidator.openBinary(file, dimension, format, rejected.summary, rejected.lines);
+		if (reader == null) {
+			makeRoom(inFlight, summary);
+			inFlight.add(CompletableFuture.completedFuture(rejected));
+			return;
+		}
+		final String source = file.toString();
+		for (long from = 0; from < reader.count(); from += chunkSize) {
+			final long start = from, end = Math.min(from + chunkSize, reader.count());
+			makeRoom(inFlight, summary);
+			inFlight.add(pool.submit(() -> {
+				Chunk chunk = new Chunk((int) (end - start));
+				BatchValidator.validateRange(reader, source, start, end, new Grid(reader.dimension()), sudoku,
+						format, chunk.summary, chunk.lines);
+				return chunk;
+			}));
+		}
+	}
+
+	/**
+	 * Writes the oldest chunk if too many are outstanding.
+	 */
+	private void makeRoom(final ArrayDeque<Future<Chunk>> inFlight, final Summary summary) throws IOException {
+		if (inFlight.size() == maxInFlight) {
+			write(inFlight.poll(), summary);
+		}
+	}
+
+	/**
+	 * Waits for the given chunk, then writes its result lines and adds its counts to {@code summary}.
+	 */
+	private void write(final Future<Chunk> pending, final Summary summary) throws IOException {
+		Chunk chunk;
+		try {
+			chunk = pending.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Error: interrupted while waiting for a worker.");
+		} catch (ExecutionException ee) {
+			throw new IOException("Error: a worker failed. " + ee.getCause(), ee.getCause());
+		}
+		out.append(chunk.lines);
+		summary.add(chunk.summary);
+	}
+
+	/**
+	 * Parses and checks every record of a chunk, run by a worker thread.
+	 */
+	private Chunk validateChunk(final List<BatchRecord> records) {
+		Chunk chunk = new Chunk(records.size());
+		// the records of a chunk all come from one file, so share its dimension.
+		Grid grid = new Grid(records.get(0).dimension());
+		for (BatchRecord record : records) {
+			BatchValidator.validateRecord(record, grid, sudoku, format, chunk.summary, chunk.lines);
+		}
+		return chunk;
+	}
+
+	/**
+	 * The result lines and counts of a chunk of records.
+	 */
+	private static final class Chunk {
+
+		final StringBuilder lines;
+
+		final Summary summary = new Summary();
+
+		Chunk(final int records) {
+			// enough for a typical result line per record.
+			lines = new StringBuilder(records * 48);
+		}
+	}
+
+	/**
+	 * Creates named daemon worker threads, so an abandoned pool never keeps the JVM alive.
+	 */
+	private static final class WorkerFactory implements ThreadFactory {
+
+		private static final AtomicInteger POOL = new AtomicInteger();
+
+		private final int pool = POOL.incrementAndGet();
+
+		private final AtomicInteger worker = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable task) {
+			Thread thread = new Thread(task, "sudoku-batch-" + pool + "-worker-" + worker.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,432 @@
+package com.rmgroup.sudoku;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates puzzles with a single solution, and rates how hard they are to solve.
+ * <p>
+ * A puzzle starts from a random solution: its diagonal boxes, which share no unit, are
+ * filled with random permutations of the digits and the {@link Solver} completes the rest.
+ * The cells are then blanked one at a time in a random order, each blank being kept only
+ * if the puzzle still has a single solution, counted with a limit of 2 by the same search
+ * as the {@link SolutionCounter}. The count is skipped for a cell whose peers leave it a
+ * single digit, as most of the early blanks are. Every given left is needed: blanking any
+ * one of them would admit a second solution.
+ * <p>
+ * The puzzle is rated by the propagation it needs, see {@link Difficulty}. A puzzle is
+ * drawn from its own seed, so the same seeds give the same puzzles however many threads
+ * {@link #generate(int, long, int, ForkJoinPool)} spreads them over. A PuzzleGenerator is
+ * not thread safe.
+ */
+public final class PuzzleGenerator {
+
+	/**
+	 * How hard a puzzle is to solve, by the techniques it needs.
+	 */
+	public enum Difficulty {
+		/**
+		 * Solved by naked singles alone: a blank cell with a single candidate takes it.
+		 */
+		EASY,
+		/**
+		 * Solved once hidden singles are added: a digit which fits a single blank cell of
+		 * a unit goes there.
+		 */
+		MEDIUM,
+		/**
+		 * Left with blank cells by both, so it needs further techniques or a search.
+		 */
+		HARD;
+	}
+
+	/**
+	 * The puzzles generated by each task of {@link #generate(int, long, int, ForkJoinPool)}
+	 * once the range is split no further.
+	 */
+	private static final int PUZZLES_PER_TASK = 16;
+
+	/**
+	 * The increment of the golden ratio sequence mixing a puzzle's index into its seed.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final int dimension;
+
+	private final int box;
+
+	private final Solver solver;
+
+	/**
+	 * The cells of each unit, as for the {@link Solver}: the rows, then the columns and then the boxes.
+	 */
+	private final int[][] units;
+
+	/**
+	 * The three units of each cell.
+	 */
+	private final int[][] unitsOf;
+
+	/**
+	 * The mask holding every digit of the grid.
+	 */
+	private final long all;
+
+	/**
+	 * The working state of a rating: the cells and the candidates of each blank cell.
+	 */
+	private final byte[] cells;
+
+	private final long[] candidates;
+
+	/**
+	 * The order the cells are blanked in, and the digits of a box, shuffled for each puzzle.
+	 */
+	private final int[] order, boxDigits;
+
+	/**
+	 * Constructs a PuzzleGenerator for puzzles of the given {@code dimension}.
+	 * @param dimension of the puzzles.
+	 * @throws IllegalArgumentException if the dimension is not one the {@link Solver} supports.
+	 */
+	public PuzzleGenerator(final int dimension) {
+		this.solver = new Solver(dimension);
+		this.dimension = dimension;
+		this.box = Grid.boxDimensionOf(dimension);
+		this.all = dimension == Long.SIZE ? -1L : (1L << dimension) - 1;
+
+		final Grid grid = new Grid(dimension);
+		final int size = dimension * dimension;
+		this.units = new int[3 * dimension][];
+		this.unitsOf = new int[size][3];
+		for (int index = 0; index < dimension; index++) {
+			final Grid.Unit[] views = {grid.row(index), grid.column(index), grid.box(index)};
+			for (int type = 0; type < views.length; type++) {
+				final int unit = type * dimension + index;
+				units[unit] = new int[dimension];
+				for (int i = 0; i < dimension; i++) {
+					units[unit][i] = views[type].cellIndex(i);
+					unitsOf[units[unit][i]][type] = unit;
+				}
+			}
+		}
+		this.cells = new byte[size];
+		this.candidates = new long[size];
+		this.order = new int[size];
+		this.boxDigits = new int[dimension];
+	}
+
+	/**
+	 * @return the dimension of the puzzles generated.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * Generates the puzzle of the given {@code seed}.
+	 * @param seed of the random numbers drawing the solution and the order its cells are blanked in.
+	 * @return the puzzle, with its solution and rating.
+	 */
+	public Puzzle generate(final long seed) {
+		final SplittableRandom random = new SplittableRandom(seed);
+		final Grid solution = solution(random);
+		final Grid puzzle = solution.copy();
+		final byte[] givens = puzzle.cells();
+
+		for (int cell = 0; cell < order.length; cell++) {
+			order[cell] = cell;
+		}
+		shuffle(order, random);
+		long nodes = 0;
+		for (int cell : order) {
+			final byte value = givens[cell];
+			givens[cell] = Grid.EMPTY;
+			// a blank whose peers leave it a single digit cannot admit another solution.
+			if (isForced(givens, cell))
+				continue;
+			solver.start(puzzle, 2, null);
+			solver.search(0);
+			nodes += solver.nodes();
+			if (solver.solutions() != 1)
+				givens[cell] = value;
+		}
+		return new Puzzle(puzzle, solution, rate(puzzle), nodes);
+	}
+
+	/**
+	 * @return whether the givens of the units of the blank {@code cell} leave it a single digit.
+	 */
+	private boolean isForced(final byte[] givens, final int cell) {
+		long seen = 0;
+		for (int unit : unitsOf[cell]) {
+			for (int peer : units[unit]) {
+				final int value = givens[peer];
+				if (value != Grid.EMPTY)
+					seen |= 1L << (value - 1);
+			}
+		}
+		final long left = all & ~seen;
+		return (left & (left - 1)) == 0;
+	}
+
+	/**
+	 * Draws a random solution: the diagonal boxes are filled at random and solved around.
+	 */
+	private Grid solution(final SplittableRandom random) {
+		final Grid grid = new Grid(dimension);
+		do {
+			for (int value = 0; value < dimension; value++) {
+				boxDigits[value] = value + 1;
+			}
+			for (int diagonal = 0; diagonal < box; diagonal++) {
+				shuffle(boxDigits, random);
+				final int[] cellsOfBox = units[2 * dimension + diagonal * (box + 1)];
+				for (int i = 0; i < dimension; i++) {
+					grid.cells()[cellsOfBox[i]] = (byte) boxDigits[i];
+				}
+			}
+			// the diagonal boxes share no unit, but a draw may not complete, as for some 4 x 4 grids.
+		} while (!solver.solve(grid));
+		return grid;
+	}
+
+	private static void shuffle(final int[] values, final SplittableRandom random) {
+		for (int i = values.length - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final int value = values[i];
+			values[i] = values[j];
+			values[j] = value;
+		}
+	}
+
+	/**
+	 * Rates {@code puzzle} by solving as much of it as singles will: naked singles as long
+	 * as there are any, then a hidden single at a time, until neither is left.
+	 * @param puzzle to rate, which is not changed.
+	 * @return the difficulty.
+	 * @throws IllegalArgumentException if the puzzle is of another dimension.
+	 */
+	public Difficulty rate(final Grid puzzle) {
+		if (puzzle.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: a %1$d x %1$d puzzle cannot be rated by a %2$d x %2$d generator", puzzle.dimension(), dimension));
+
+		Arrays.fill(cells, (byte) Grid.EMPTY);
+		Arrays.fill(candidates, all);
+		int blanks = cells.length;
+		final byte[] givens = puzzle.cells();
+		for (int cell = 0; cell < givens.length; cell++) {
+			if (givens[cell] != Grid.EMPTY) {
+				place(cell, 1L << (givens[cell] - 1));
+				blanks--;
+			}
+		}
+
+		Difficulty difficulty = Difficulty.EASY;
+		while (blanks > 0) {
+			int placedNow = 0;
+			for (int cell = 0; cell < cells.length; cell++) {
+				final long digits = candidates[cell];
+				if (cells[cell] == Grid.EMPTY && digits != 0 && (digits & (digits - 1)) == 0) {
+					place(cell, digits);
+					placedNow++;
+				}
+			}
+			if (placedNow == 0) {
+				final int hidden = hiddenSingle();
+				if (hidden < 0)
+					return Difficulty.HARD;
+				difficulty = Difficulty.MEDIUM;
+				placedNow = 1;
+			}
+			blanks -= placedNow;
+		}
+		return difficulty;
+	}
+
+	/**
+	 * Places the first hidden single found.
+	 * @return the cell placed, -1 if there is none.
+	 */
+	private int hiddenSingle() {
+		for (int[] unit : units) {
+			long once = 0, twice = 0;
+			for (int cell : unit) {
+				final long digits = candidates[cell];
+				twice |= once & digits;
+				once |= digits;
+			}
+			final long hidden = once & ~twice;
+			if (hidden == 0)
+				continue;
+			for (int cell : unit) {
+				final long single = candidates[cell] & hidden;
+				if (single != 0) {
+					place(cell, single & -single);
+					return cell;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Places the digit of the single set {@code bit} in {@code cell}, eliminating it from
+	 * the candidates of the blank cells of its units.
+	 */
+	private void place(final int cell, final long bit) {
+		cells[cell] = (byte) (Long.numberOfTrailingZeros(bit) + 1);
+		candidates[cell] = 0;
+		for (int unit : unitsOf[cell]) {
+			for (int peer : units[unit]) {
+				candidates[peer] &= ~bit;
+			}
+		}
+	}
+
+	/**
+	 * Generates {@code count} puzzles over the threads of {@code pool}, the puzzle at index
+	 * {@code i} from a seed mixing {@code seed} with {@code i}, so the puzzles are the same
+	 * whatever the parallelism.
+	 * @param dimension of the puzzles.
+	 * @param seed of the run.
+	 * @param count of puzzles to generate.
+	 * @param pool to generate them on.
+	 * @return the puzzles, in index order.
+	 * @throws IllegalArgumentException if the count is negative, or the dimension is not one
+	 *         the {@link Solver} supports.
+	 */
+	public static Puzzle[] generate(final int dimension, final long seed, final int count, final ForkJoinPool pool) {
+		if (count < 0)
+			throw new IllegalArgumentException("ERROR: the number of puzzles cannot be negative");
+		// rejects an unsupported dimension before the range is split.
+		new Solver(dimension);
+
+		final Puzzle[] puzzles = new Puzzle[count];
+		pool.invoke(new Range(dimension, seed, puzzles, 0, count));
+		return puzzles;
+	}
+
+	/**
+	 * Returns the seed of the puzzle at {@code index} of a run of the given {@code seed}.
+	 */
+	static long seedOf(final long seed, final long index) {
+		return seed + GOLDEN_GAMMA * (index + 1);
+	}
+
+	/**
+	 * Generates the puzzles of a range of indices, splitting it in two until it is small
+	 * enough for a generator of its own.
+	 */
+	private static final class Range extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int dimension;
+
+		private final long seed;
+
+		private final transient Puzzle[] puzzles;
+
+		private final int from, to;
+
+		Range(final int dimension, final long seed, final Puzzle[] puzzles, final int from, final int to) {
+			this.dimension = dimension;
+			this.seed = seed;
+			this.puzzles = puzzles;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > PUZZLES_PER_TASK) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new Range(dimension, seed, puzzles, from, middle), new Range(dimension, seed, puzzles, middle, to));
+				return;
+			}
+			final PuzzleGenerator generator = new PuzzleGenerator(dimension);
+			for (int index = from; index < to; index++) {
+				puzzles[index] = generator.generate(seedOf(seed, index));
+			}
+		}
+	}
+
+	/**
+	 * A generated puzzle, with its solution and rating.
+	 */
+	public static final class Puzzle {
+
+		private final Grid puzzle;
+
+		private final Grid solution;
+
+		private final Difficulty difficulty;
+
+		private final long nodes;
+
+		Puzzle(final Grid puzzle, final Grid solution, final Difficulty difficulty, final long nodes) {
+			this.puzzle = puzzle;
+			this.solution = solution;
+			this.difficulty = difficulty;
+			this.nodes = nodes;
+		}
+
+		/**
+		 * @return the puzzle, its blank cells holding {@link Grid#EMPTY}.
+		 */
+		public Grid puzzle() {
+			return puzzle;
+		}
+
+		/**
+		 * @return its single solution.
+		 */
+		public Grid solution() {
+			return solution;
+		}
+
+		/**
+		 * @return how hard it is to solve.
+		 */
+		public Difficulty difficulty() {
+			return difficulty;
+		}
+
+		/**
+		 * @return the number of cells given.
+		 */
+		public int givens() {
+			int givens = 0;
+			for (byte value : puzzle.cells()) {
+				if (value != Grid.EMPTY)
+					givens++;
+			}
+			return givens;
+		}
+
+		/**
+		 * @return the search nodes visited by the solution counts made generating it.
+		 */
+		public long nodes() {
+			return nodes;
+		}
+
+		/**
+		 * Returns the puzzle on one line, {@code .} for each blank cell and letters for
+		 * values above 9, followed by its difficulty and number of givens, e.g.
+		 * {@code 4.....8.5.3.......... MEDIUM 24}.
+		 */
+		@Override
+		public String toString() {
+			final StringBuilder text = new StringBuilder(puzzle.cells().length + 16);
+			for (byte value : puzzle.cells()) {
+				text.append(value == Grid.EMPTY ? '.' : (char) (value < 10 ? '0' + value : 'A' + value - 10));
+			}
+			return text.append(' ').append(difficulty).append(' ').append(givens()).toString();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.rmgroup.sudoku;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * The layouts the result of each grid of a batch may be written in: the text read by
+ * people, or a record per grid in JSON Lines or CSV for other programs to ingest.
+ * <p>
+ * A record holds the file and the position of the grid within it, its status, the unit,
+ * problem, digit and cell of a violation as for {@link CheckResult}, the class and message
+ * of the error of a grid which could not be parsed, and the nanoseconds taken to parse and
+ * check it. Each is appended straight into the {@link StringBuilder} of the lines being
+ * gathered, so writing a record allocates nothing.
+ */
+public enum ReportFormat {
+
+	/**
+	 * {@code <file>#<index> <status>}, followed by the error in brackets for a grid which
+	 * could not be parsed. No timing is taken.
+	 */
+	TEXT,
+	/**
+	 * A JSON object per line, e.g.
+	 * {@code {"source":"a.csv","index":2,"status":"INVALID","unit":"ROW",...,"nanos":812}},
+	 * the violation members being those of the {@link ValidationServer}, followed by a
+	 * {@code {"summary":{...}}} line.
+	 */
+	JSONL,
+	/**
+	 * A header line, then a comma separated line per grid with the columns of
+	 * {@link #CSV_HEADER}, empty where they do not apply. The summary is left out.
+	 */
+	CSV;
+
+	/**
+	 * The columns of a {@link #CSV} report.
+	 */
+	static final String CSV_HEADER = "source,index,status,unit,unitIndex,problem,digit,row,column,errorClass,error,nanos";
+
+	/**
+	 * Returns the format of the given name, in any case.
+	 * @param name {@code text}, {@code jsonl} or {@code csv}.
+	 * @return the format.
+	 * @throws IllegalArgumentException if there is no format of that name.
+	 */
+	public static ReportFormat of(final String name) {
+		for (ReportFormat format : values()) {
+			if (format.name().equalsIgnoreCase(name))
+				return format;
+		}
+		throw new IllegalArgumentException("ERROR: the report format must be text, jsonl or csv");
+	}
+
+	/**
+	 * @return whether the records carry the violation of an INVALID grid and the time taken.
+	 */
+	boolean isStructured() {
+		return this != TEXT;
+	}
+
+	/**
+	 * Appends the line preceding the records, if the format has one.
+	 * @param out to append to.
+	 * @return {@code out}.
+	 */
+	StringBuilder appendHeader(final StringBuilder out) {
+		return this == CSV ? out.append(CSV_HEADER).append(System.lineSeparator()) : out;
+	}
+
+	/**
+	 * Appends the record of one grid.
+	 * @param out to append to.
+	 * @param source the name of the file of the grid.
+	 * @param index the position of the grid within the file.
+	 * @param status of the grid.
+	 * @param result of the check of an INVALID grid, naming the violation, {@code null} if
+	 *        the grid is VALID, could not be parsed, or was checked without a diagnosis.
+	 * @param error the reason the grid could not be parsed, {@code null} if it was parsed.
+	 * @param nanos taken by the grid, ignored by {@link #TEXT}.
+	 * @return {@code out}.
+	 */
+	StringBuilder appendResult(final StringBuilder out, final String source, final long index, final Status status,
+			final CheckResult result, final Exception error, final long nanos) {
+		switch (this) {
+		case JSONL:
+			Json.string(out.append("{\"source\":"), source).append(",\"index\":").append(index).append(',');
+			if (result != null) {
+				Json.result(out, result);
+			} else {
+				out.append("\"status\":\"").append(status.name()).append('"');
+			}
+			if (error != null) {
+				Json.string(out.append(",\"errorClass\":"), error.getClass().getSimpleName());
+				Json.string(out.append(",\"error\":"), error.getMessage());
+			}
+			out.append(",\"nanos\":").append(nanos).append('}');
+			break;
+		case CSV:
+			csv(out, source).append(',').append(index).append(',').append(status.name()).append(',');
+			if (result != null && !result.isValid()) {
+				out.append(result.unitType().name()).append(',').append(result.unitIndex()).append(',')
+					.append(result.problem().name()).append(',').append(result.digit()).append(',');
+				if (result.row() >= 0)
+					out.append(result.row()).append(',').append(result.column());
+				else
+					out.append(',');
+			} else {
+				out.append(",,,,,");
+			}
+			out.append(',');
+			if (error != null) {
+				csv(out.append(error.getClass().getSimpleName()).append(','), error.getMessage());
+			} else {
+				out.append(',');
+			}
+			out.append(',').append(nanos);
+			break;
+		default:
+			out.append(source).append('#').append(index).append(' ').append(status.name());
+			if (error != null) {
+				out.append(" (").append(error.getMessage()).append(')');
+			}
+		}
+		return out.append(System.lineSeparator());
+	}
+
+	/**
+	 * Appends the summary counts of a batch, as text, as a JSON line, or, for CSV, nothing.
+	 * @param out to append to.
+	 * @param summary of the batch.
+	 * @return {@code out}.
+	 */
+	StringBuilder appendSummary(final StringBuilder out, final BatchValidator.Summary summary) {
+		switch (this) {
+		case JSONL:
+			return out.append("{\"summary\":{\"total\":").append(summary.total())
+				.append(",\"valid\":").append(summary.valid())
+				.append(",\"invalid\":").append(summary.invalid())
+				.append(",\"malformed\":").append(summary.malformed()).append("}}").append(System.lineSeparator());
+		case CSV:
+			return out;
+		default:
+			return out.append(summary).append(System.lineSeparator());
+		}
+	}
+
+	/**
+	 * Appends {@code value} as a CSV field, quoted if it holds a comma, quote or line break.
+	 */
+	private static StringBuilder csv(final StringBuilder out, final String value) {
+		if (value == null)
+			return out;
+		boolean quoted = false;
+		for (int i = 0; i < value.length() && !quoted; i++) {
+			final char c = value.charAt(i);
+			quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quoted)
+			return out.append(value);
+
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"')
+				out.append('"');
+			out.append(c);
+		}
+		return out.append('"');
+	}
+}
@@ -0,0 +1,218 @@
+package com.rmgroup.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the solutions of a partially filled puzzle up to a limit, typically 2 to learn
+ * whether a puzzle has a single solution.
+ * <p>
+ * The search is that of the {@link Solver}, which prunes every branch as soon as a cell is
+ * left without candidates or a unit without room for one of its digits, but carries on
+ * past each solution until the limit is reached. A counter given a {@link ForkJoinPool}
+ * splits the first few levels of the search tree into subtrees, each searched by its own
+ * copy of the solver, so a hard instance is spread over the cores. The subtrees share the
+ * count, so every one of them stops once the limit is reached.
+ * <p>
+ * The count is exact below the limit and equals the limit otherwise, whether the search
+ * was split or not. The nodes visited may differ between runs of a split search, as its
+ * subtrees stop at different points.
+ */
+public final class SolutionCounter {
+
+	/**
+	 * The subtrees of the search split beyond those needed to occupy every thread, so
+	 * threads finishing early find more work.
+	 */
+	private static final int SPARE_SPLITS = 3;
+
+	private final Solver solver;
+
+	/**
+	 * The pool searching the subtrees, {@code null} to search on the caller's thread.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The depth of the search tree up to which it is split into subtrees.
+	 */
+	private final int splitDepth;
+
+	/**
+	 * Constructs a SolutionCounter for puzzles of the given {@code dimension} which searches
+	 * on the caller's thread.
+	 * @param dimension of the puzzles.
+	 * @throws IllegalArgumentException if the dimension is not one the {@link Solver} supports.
+	 */
+	public SolutionCounter(final int dimension) {
+		this(dimension, null);
+	}
+
+	/**
+	 * Constructs a SolutionCounter for puzzles of the given {@code dimension} which splits
+	 * the search over the threads of {@code pool}.
+	 * @param dimension of the puzzles.
+	 * @param pool to search the subtrees, {@code null}, or a pool of a single thread, to
+	 *        search on the caller's thread.
+	 * @throws IllegalArgumentException if the dimension is not one the {@link Solver} supports.
+	 */
+	public SolutionCounter(final int dimension, final ForkJoinPool pool) {
+		this.solver = new Solver(dimension);
+		this.pool = pool == null || pool.getParallelism() == 1 ? null : pool;
+		// every level at least doubles the subtrees.
+		this.splitDepth = this.pool == null ? 0
+				: Integer.SIZE - Integer.numberOfLeadingZeros(this.pool.getParallelism() - 1) + SPARE_SPLITS;
+	}
+
+	/**
+	 * Counts the solutions of {@code puzzle}, stopping at {@code limit}. The puzzle is not
+	 * changed. A counter may be called from several threads: one which searches on the
+	 * caller's thread runs one search at a time on its solver, the others waiting for it.
+	 * @param puzzle to count the solutions of, its blank cells holding {@link Grid#EMPTY}.
+	 * @param limit the count at which to stop, 2 to check a puzzle has a single solution.
+	 * @return the count, with the nodes visited and time taken.
+	 * @throws IllegalArgumentException if the limit is less than 1, or the puzzle is null,
+	 *         of another dimension, or holds values outside 0..dimension.
+	 */
+	public Count count(final Grid puzzle, final long limit) {
+		if (limit < 1)
+			throw new IllegalArgumentException(String.format("ERROR: the limit (%1$d) must be at least 1", limit));
+
+		final long start = System.nanoTime();
+		if (pool == null) {
+			synchronized (solver) {
+				if (solver.start(puzzle, limit, null))
+					solver.search(0);
+				return new Count(solver.solutions(), limit, solver.nodes(), System.nanoTime() - start);
+			}
+		}
+
+		final AtomicLong solutions = new AtomicLong();
+		final LongAdder nodes = new LongAdder();
+		final Solver root = solver.copy();
+		if (root.start(puzzle, limit, solutions))
+			pool.invoke(new Subtree(root, 0, nodes));
+		return new Count(Math.min(solutions.get(), limit), limit, nodes.sum(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Searches the subtree rooted at the state of its solver, splitting it into further
+	 * subtrees, one per candidate of the branch cell, until the split depth.
+	 */
+	private final class Subtree extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Solver solver;
+
+		private final int depth;
+
+		private final transient LongAdder nodes;
+
+		Subtree(final Solver solver, final int depth, final LongAdder nodes) {
+			this.solver = solver;
+			this.depth = depth;
+			this.nodes = nodes;
+		}
+
+		@Override
+		protected void compute() {
+			if (solver.stopped())
+				return;
+
+			final int cell = solver.visit();
+			if (cell >= 0 && depth >= splitDepth) {
+				solver.branch(cell, 0);
+			} else if (cell >= 0) {
+				List<Subtree> subtrees = new ArrayList<>();
+				for (long digits = solver.candidates(cell); digits != 0; digits &= digits - 1) {
+					Solver branch = solver.copy();
+					if (branch.place(cell, digits & -digits)) {
+						subtrees.add(new Subtree(branch, depth + 1, nodes));
+					}
+				}
+				invokeAll(subtrees);
+			}
+			nodes.add(solver.nodes());
+		}
+	}
+
+	/**
+	 * The outcome of counting the solutions of a puzzle.
+	 */
+	public static final class Count {
+
+		private final long solutions;
+
+		private final long limit;
+
+		private final long nodes;
+
+		private final long elapsedNanos;
+
+		Count(final long solutions, final long limit, final long nodes, final long elapsedNanos) {
+			this.solutions = solutions;
+			this.limit = limit;
+			this.nodes = nodes;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * @return the number of solutions found, no more than the limit.
+		 */
+		public long solutions() {
+			return solutions;
+		}
+
+		/**
+		 * @return the limit the count stopped at.
+		 */
+		public long limit() {
+			return limit;
+		}
+
+		/**
+		 * @return whether the count stopped at its limit, so the puzzle may have more solutions.
+		 */
+		public boolean isLimited() {
+			return solutions >= limit;
+		}
+
+		/**
+		 * @return whether the puzzle has exactly one solution, which requires a limit above 1.
+		 */
+		public boolean isUnique() {
+			return solutions == 1 && limit > 1;
+		}
+
+		/**
+		 * @return the number of search nodes visited, one per propagation.
+		 */
+		public long nodes() {
+			return nodes;
+		}
+
+		/**
+		 * @param unit to express the time in.
+		 * @return the time taken by the count.
+		 */
+		public long elapsed(final TimeUnit unit) {
+			return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Returns the count as, for example, {@code 2+ solutions, 415 nodes, 231us}, a
+		 * {@code +} marking a count stopped at its limit.
+		 */
+		@Override
+		public String toString() {
+			return solutions + (isLimited() ? "+" : "") + (solutions == 1 ? " solution, " : " solutions, ")
+					+ nodes + " nodes, " + elapsed(TimeUnit.MICROSECONDS) + "us";
+		}
+	}
+}
@@ -0,0 +1,466 @@
+package com.rmgroup.sudoku;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves partially filled Sudoku puzzles, those whose blank cells hold {@link Grid#EMPTY},
+ * of a single dimension.
+ * <p>
+ * The solver works on the same units as the checkers: the rows, columns and boxes of the
+ * grid, taken from {@link Grid.Unit}, each of which holds the mask of the digits placed in
+ * it. A cell's candidates are the digits placed in none of its three units, one bit each as
+ * for the {@link MaskChecker}, so a grid of up to {@link #MAX_DIMENSION} symbols is solved
+ * with a {@code long} per unit and per cell. Placing a digit eliminates it from the candidates
+ * of the cell's peers, the cells sharing a unit with it, and the candidates are propagated to
+ * a fixed point with
+ * <ul>
+ * <li>naked singles: a blank cell with a single candidate takes it, and</li>
+ * <li>hidden singles: a digit which fits a single blank cell of a unit goes there,</li>
+ * </ul>
+ * after which the search branches on the blank cell with the fewest candidates, trying
+ * each in turn and backtracking on a contradiction: a cell without candidates, or a unit
+ * which can no longer hold one of its digits. The hardest known 9 x 9 puzzles need a few
+ * hundred branches at most.
+ * <p>
+ * The same search, carried on past each solution, counts the solutions of a puzzle for the
+ * {@link SolutionCounter}.
+ * <p>
+ * A Solver keeps its working state between calls, so it is not thread safe, but solving
+ * allocates nothing once the search has been as deep before.
+ */
+public final class Solver {
+
+	/**
+	 * The largest dimension solved, the candidates of a cell must fit a {@code long}.
+	 */
+	public static final int MAX_DIMENSION = MaskChecker.LONG_DIGITS;
+
+	private final int dimension;
+
+	/**
+	 * The mask holding every digit of the grid.
+	 */
+	private final long all;
+
+	/**
+	 * The cells of each unit: the rows, then the columns and then the boxes.
+	 */
+	private final int[][] units;
+
+	/**
+	 * The units of each cell, as indices into {@link #units} and {@link #placed}.
+	 */
+	private final int[] rowOf, columnOf, boxOf;
+
+	/**
+	 * The other cells sharing a unit with each cell, from which a placed digit is eliminated.
+	 */
+	private final int[][] peers;
+
+	/**
+	 * The cells being solved.
+	 */
+	private final byte[] cells;
+
+	/**
+	 * The digits which may still be placed in each blank cell.
+	 */
+	private final long[] candidates;
+
+	/**
+	 * The digits placed in each unit.
+	 */
+	private final long[] placed;
+
+	/**
+	 * The blank cells left with a single candidate by the placements, yet to be filled.
+	 */
+	private final int[] singles;
+
+	private int singleCount;
+
+	/**
+	 * The state saved at each depth of the search, grown as the search goes deeper.
+	 */
+	private byte[][] savedCells = new byte[0][];
+
+	private long[][] savedCandidates = new long[0][];
+
+	private long[][] savedPlaced = new long[0][];
+
+	/**
+	 * The blank cell with the fewest candidates found by the last propagation, -1 if none is blank.
+	 */
+	private int branchCell;
+
+	/**
+	 * The number of search nodes visited by the last solve.
+	 */
+	private long nodes;
+
+	/**
+	 * The number of solutions after which the search stops, 1 to solve.
+	 */
+	private long limit;
+
+	/**
+	 * The solutions found by this solver since it was started.
+	 */
+	private long solutions;
+
+	/**
+	 * The solutions found by every solver sharing a count, {@code null} when searching alone.
+	 */
+	private AtomicLong shared;
+
+	/**
+	 * Constructs a Solver for puzzles of the given {@code dimension}.
+	 * @param dimension of the puzzles, e.g. 9 for a 9 x 9 grid.
+	 * @throws IllegalArgumentException if the dimension is not a perfect square up to {@link #MAX_DIMENSION}.
+	 */
+	public Solver(final int dimension) {
+		Grid.boxDimensionOf(dimension);
+		if (dimension > MAX_DIMENSION)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: dimension (%1$d) is outside the range solved (%2$d,%3$d)", dimension, 1, MAX_DIMENSION));
+
+		this.dimension = dimension;
+		this.all = dimension == Long.SIZE ? -1L : (1L << dimension) - 1;
+		this.cells = new byte[dimension * dimension];
+		this.candidates = new long[cells.length];
+		this.placed = new long[3 * dimension];
+		this.singles = new int[cells.length];
+		this.rowOf = new int[cells.length];
+		this.columnOf = new int[cells.length];
+		this.boxOf = new int[cells.length];
+
+		// the units are those the checkers report, in the same order.
+		Grid grid = new Grid(dimension);
+		units = new int[3 * dimension][];
+		for (int index = 0; index < dimension; index++) {
+			units[index] = cellsOf(grid.row(index));
+			units[dimension + index] = cellsOf(grid.column(index));
+			units[2 * dimension + index] = cellsOf(grid.box(index));
+			for (int i = 0; i < dimension; i++) {
+				rowOf[units[index][i]] = index;
+				columnOf[units[dimension + index][i]] = dimension + index;
+				boxOf[units[2 * dimension + index][i]] = 2 * dimension + index;
+			}
+		}
+
+		peers = new int[cells.length][];
+		boolean[] peer = new boolean[cells.length];
+		for (int cell = 0; cell < cells.length; cell++) {
+			int count = 0;
+			for (int unit : new int[] {rowOf[cell], columnOf[cell], boxOf[cell]}) {
+				for (int other : units[unit]) {
+					if (other != cell && !peer[other]) {
+						peer[other] = true;
+						count++;
+					}
+				}
+			}
+			peers[cell] = new int[count];
+			for (int other = 0, i = 0; other < cells.length; other++) {
+				if (peer[other]) {
+					peers[cell][i++] = other;
+					peer[other] = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Constructs a Solver sharing the tables of {@code from} and holding a copy of its state,
+	 * to search one branch of it on another thread.
+	 */
+	private Solver(final Solver from) {
+		this.dimension = from.dimension;
+		this.all = from.all;
+		this.units = from.units;
+		this.rowOf = from.rowOf;
+		this.columnOf = from.columnOf;
+		this.boxOf = from.boxOf;
+		this.peers = from.peers;
+		this.cells = from.cells.clone();
+		this.candidates = from.candidates.clone();
+		this.placed = from.placed.clone();
+		this.singles = from.singles.clone();
+		this.singleCount = from.singleCount;
+		this.limit = from.limit;
+		this.shared = from.shared;
+	}
+
+	private static int[] cellsOf(final Grid.Unit unit) {
+		int[] cells = new int[unit.size()];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = unit.cellIndex(i);
+		}
+		return cells;
+	}
+
+	/**
+	 * @return the dimension of the puzzles solved.
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * Solves the given {@code puzzle} in place, filling its blank cells. A puzzle with more
+	 * than one solution is given the first found.
+	 * @param puzzle to solve, its blank cells holding {@link Grid#EMPTY}.
+	 * @return {@code true} if the puzzle was solved, {@code false} if it has no solution,
+	 *         in which case it is left unchanged.
+	 * @throws IllegalArgumentException if the puzzle is null, of another dimension, or holds
+	 *         values outside 0..dimension.
+	 */
+	public boolean solve(final Grid puzzle) {
+		if (!start(puzzle, 1, null) || !search(0))
+			return false;
+
+		System.arraycopy(cells, 0, puzzle.cells(), 0, cells.length);
+		return true;
+	}
+
+	/**
+	 * @return the number of search nodes visited by the last solve, one per propagation.
+	 */
+	public long nodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return the number of solutions found since the solver was started, or copied.
+	 */
+	long solutions() {
+		return solutions;
+	}
+
+	/**
+	 * Copies the given {@code puzzle} into the working state, ready to search for up to
+	 * {@code limit} solutions.
+	 * @param puzzle to search.
+	 * @param limit the number of solutions after which the search stops.
+	 * @param shared the count of solutions shared with other solvers, or {@code null}.
+	 * @return {@code false} if two of its givens already clash.
+	 */
+	boolean start(final Grid puzzle, final long limit, final AtomicLong shared) {
+		this.nodes = 0;
+		this.solutions = 0;
+		this.limit = limit;
+		this.shared = shared;
+		return load(puzzle);
+	}
+
+	/**
+	 * @return a solver holding a copy of this one's state, which counts its nodes and
+	 *         solutions afresh.
+	 */
+	Solver copy() {
+		return new Solver(this);
+	}
+
+	/**
+	 * Copies the given {@code puzzle} into the working state.
+	 * @return {@code false} if two of its givens already clash.
+	 */
+	private boolean load(final Grid puzzle) {
+		if (puzzle == null)
+			throw new IllegalArgumentException("ERROR: the puzzle cannot be null");
+		if (puzzle.dimension() != dimension)
+			throw new IllegalArgumentException(String.format(
+				"ERROR: a %1$d x %1$d puzzle cannot be solved by a %2$d x %2$d solver", puzzle.dimension(), dimension));
+
+		final byte[] givens = puzzle.cells();
+		Arrays.fill(placed, 0);
+		Arrays.fill(candidates, all);
+		Arrays.fill(cells, (byte) Grid.EMPTY);
+		singleCount = 0;
+		boolean consistent = true;
+		for (int cell = 0; cell < cells.length; cell++) {
+			final int value = givens[cell];
+			if (value < Grid.EMPTY || value > dimension)
+				throw new IllegalArgumentException(
+					String.format("Error: Cell Value is outside range (%1$d,%2$d)", Grid.EMPTY, dimension));
+
+			if (value != Grid.EMPTY && consistent) {
+				final long bit = 1L << (value - 1);
+				consistent = (candidates[cell] & bit) != 0 && place(cell, bit);
+			}
+		}
+		return consistent;
+	}
+
+	/**
+	 * Propagates the current state and, unless it is solved or contradictory, branches on
+	 * the candidates of the blank cell with the fewest.
+	 * @param depth of the search, where the state is saved before branching.
+	 * @return {@code true} once the limit of solutions is reached, with the last in {@link #cells}.
+	 */
+	boolean search(final int depth) {
+		if (stopped())
+			return true;
+
+		final int cell = visit();
+		return cell < 0 ? stopped() : branch(cell, depth);
+	}
+
+	/**
+	 * Visits the current state as a node of the search: propagates it, and counts it if it
+	 * is solved.
+	 * @return the blank cell with the fewest candidates, or -1 if the state is solved or contradictory.
+	 */
+	int visit() {
+		nodes++;
+		if (!propagate())
+			return -1;
+		if (branchCell < 0) {
+			solutions++;
+			if (shared != null)
+				shared.incrementAndGet();
+		}
+		return branchCell;
+	}
+
+	/**
+	 * Searches each candidate of {@code cell} in turn, from the current state.
+	 * @param cell to branch on.
+	 * @param depth of the search, where the state is saved before branching.
+	 * @return {@code true} once the limit of solutions is reached.
+	 */
+	boolean branch(final int cell, final int depth) {
+		save(depth);
+		for (long digits = candidates[cell]; digits != 0; digits &= digits - 1) {
+			if (place(cell, digits & -digits) && search(depth + 1))
+				return true;
+			restore(depth);
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the limit of solutions is reached, by this solver or those it shares a count with.
+	 */
+	boolean stopped() {
+		return (shared == null ? solutions : shared.get()) >= limit;
+	}
+
+	/**
+	 * @return the digits which may still be placed in the blank {@code cell}.
+	 */
+	long candidates(final int cell) {
+		return candidates[cell];
+	}
+
+	/**
+	 * Places the naked and hidden singles until none is left, noting the blank cell with
+	 * the fewest candidates in {@link #branchCell}.
+	 * @return {@code false} on a contradiction.
+	 */
+	private boolean propagate() {
+		boolean progress = true;
+		while (progress) {
+			progress = false;
+
+			// the naked singles, which cascade as each placement may leave more.
+			while (singleCount > 0) {
+				final int cell = singles[--singleCount];
+				if (cells[cell] == Grid.EMPTY && !place(cell, candidates[cell]))
+					return false;
+			}
+
+			for (int unit = 0; unit < units.length; unit++) {
+				// the digits which fit at least one, and at least two, blank cells.
+				long once = 0, twice = 0;
+				for (int cell : units[unit]) {
+					final long digits = candidates[cell];
+					twice |= once & digits;
+					once |= digits;
+				}
+				if ((once | placed[unit]) != all)
+					return false;
+
+				final long hidden = once & ~twice;
+				if (hidden == 0)
+					continue;
+				for (int cell : units[unit]) {
+					final long single = candidates[cell] & hidden;
+					if (single == 0)
+						continue;
+					// a cell cannot take two digits which fit nowhere else.
+					if ((single & (single - 1)) != 0 || !place(cell, single))
+						return false;
+					progress = true;
+				}
+			}
+		}
+
+		branchCell = -1;
+		int fewest = Integer.MAX_VALUE;
+		for (int cell = 0; cell < cells.length; cell++) {
+			final long digits = candidates[cell];
+			if (digits != 0 && Long.bitCount(digits) < fewest) {
+				fewest = Long.bitCount(digits);
+				branchCell = cell;
+				// no blank cell has fewer.
+				if (fewest == 2)
+					break;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Places the digit of the single set {@code bit} in the blank {@code cell}, eliminating
+	 * it from the candidates of the cell's peers and queueing those left with a single one.
+	 * @return {@code false} if a blank peer is left without candidates.
+	 */
+	boolean place(final int cell, final long bit) {
+		cells[cell] = (byte) (Long.numberOfTrailingZeros(bit) + 1);
+		candidates[cell] = 0;
+		placed[rowOf[cell]] |= bit;
+		placed[columnOf[cell]] |= bit;
+		placed[boxOf[cell]] |= bit;
+
+		boolean consistent = true;
+		for (int peer : peers[cell]) {
+			final long digits = candidates[peer];
+			if ((digits & bit) != 0) {
+				final long left = digits & ~bit;
+				candidates[peer] = left;
+				if ((left & (left - 1)) == 0) {
+					if (left == 0)
+						consistent = false;
+					else
+						singles[singleCount++] = peer;
+				}
+			}
+		}
+		return consistent;
+	}
+
+	private void save(final int depth) {
+		if (depth == savedCells.length) {
+			savedCells = Arrays.copyOf(savedCells, depth + 8);
+			savedCandidates = Arrays.copyOf(savedCandidates, depth + 8);
+			savedPlaced = Arrays.copyOf(savedPlaced, depth + 8);
+			for (int i = depth; i < savedCells.length; i++) {
+				savedCells[i] = new byte[cells.length];
+				savedCandidates[i] = new long[cells.length];
+				savedPlaced[i] = new long[placed.length];
+			}
+		}
+		System.arraycopy(cells, 0, savedCells[depth], 0, cells.length);
+		System.arraycopy(candidates, 0, savedCandidates[depth], 0, cells.length);
+		System.arraycopy(placed, 0, savedPlaced[depth], 0, placed.length);
+	}
+
+	private void restore(final int depth) {
+		singleCount = 0;
+		System.arraycopy(savedCells[depth], 0, cells, 0, cells.length);
+		System.arraycopy(savedCandidates[depth], 0, candidates, 0, cells.length);
+		System.arraycopy(savedPlaced[depth], 0, placed, 0, placed.length);
+	}
+}
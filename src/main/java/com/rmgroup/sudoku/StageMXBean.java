@@ -0,0 +1,48 @@
+package com.rmgroup.sudoku;
+
+/**
+ * The management interface of one {@link Metrics.Stage}, registered as
+ * {@code com.rmgroup.sudoku:type=Metrics,stage=<name>}. Times are in nanoseconds.
+ */
+public interface StageMXBean {
+
+	/**
+	 * @return the number of times the stage ran.
+	 */
+	long getCount();
+
+	/**
+	 * @return the mean time of the stage.
+	 */
+	long getMeanNanos();
+
+	/**
+	 * @return the median time of the stage.
+	 */
+	long getP50Nanos();
+
+	/**
+	 * @return the time within which 90% of the stages ran.
+	 */
+	long getP90Nanos();
+
+	/**
+	 * @return the time within which 99% of the stages ran.
+	 */
+	long getP99Nanos();
+
+	/**
+	 * @return the time within which 99.9% of the stages ran.
+	 */
+	long getP999Nanos();
+
+	/**
+	 * @return the longest time of the stage.
+	 */
+	long getMaxNanos();
+
+	/**
+	 * @return the bytes allocated by the stage, 0 if the JVM cannot count them.
+	 */
+	long getAllocatedBytes();
+}
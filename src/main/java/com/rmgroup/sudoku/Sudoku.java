@@ -4,15 +4,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import com.rmgroup.sudoku.Metrics.Stage;
+
 public class Sudoku {
 
     /**
@@ -21,20 +19,16 @@ public class Sudoku {
     public enum Status {VALID, INVALID}
 
     /**
-     * The set of values which constitute a valid Sudoku row, column or subgrid for a 9 x 9 
-     * dimension solution. 
-     */
-	private static final Set<Integer> validValues = new HashSet<>(Arrays.asList(1,2,3,4,5,6,7,8,9));
-
-    /**
-     * The dimension for a 9 x 9 solution.
+     * The dimension for a 9 x 9 solution, checked by the unrolled {@link BitmaskChecker},
+     * or the {@link VectorChecker} where the JDK supports it, see {@link UnitChecker#select()}.
+     * Every other dimension is checked by the {@link MaskChecker}.
      */
      private static final int GRID_DIMENSION = 9;
 
     /**
-     * The size of all subgrids is 3 x 3 for a 9 x 9 solution.
+     * The checker of 9 x 9 solutions, chosen once per JVM.
      */
-     private static final int SUBGRID_DIMENSION = 3;
+     private static final UnitChecker NINE_BY_NINE = UnitChecker.select();
 
     /**
      * Returns an instance of a Sudoku.
@@ -55,35 +49,162 @@ public class Sudoku {
       public Status check(final Integer[][] sudokuGrid) {
          Status result = Status.VALID;
 
+       // A complete square grid goes through the single pass bitmask engines.
+       if (isSquare(sudokuGrid)) {
+          return check(unbox(sudokuGrid));
+       }
+
        // Perform each Sudoku check.
        result = checkAllRows(sudokuGrid);
        
        result = checkAllColumns(result, sudokuGrid);
        
-       result = checkAllSubGrids(result, sudokuGrid, SUBGRID_DIMENSION);
+       result = checkAllSubGrids(result, sudokuGrid, (int) Math.round(Math.sqrt(sudokuGrid.length)));
 
        return result;
     }
 
       
+    /**
+     * Checks whether the grid is square, of a dimension which is itself a perfect square,
+     * such as 4 x 4, 9 x 9 or 16 x 16.
+     * @param grid to inspect.
+     * @return {@code true} if the grid has a legal Sudoku shape, {@code false} otherwise.
+     */
+    private static boolean isSquare(final Integer[][] grid) {
+       if (grid == null || !isDimension(grid.length)) {
+          return false;
+       }
+       for (Integer[] row : grid) {
+          if (row == null || row.length != grid.length) {
+             return false;
+          }
+       }
+       return true;
+    }
+
+    /**
+     * Checks Sudoku Solution held in a compact grid and provides an answer as to whether
+     * it is a valid or an invalid solution according to Sudoku rules.
+     * 
+     * @param sudokuGrid to be checked.
+     * @return {@code VALID} if the solution meets the Sudoku rules, INVALID otherwise.
+     */
+    public Status check(final Grid sudokuGrid) {
+       if (sudokuGrid == null)
+          throw new IllegalArgumentException("ERROR: the grid cannot be null");
+
+       final long started = Metrics.start(Stage.CHECK);
+       try {
+          if (sudokuGrid.dimension() == GRID_DIMENSION) {
+             return NINE_BY_NINE.check(sudokuGrid.cells(), 0);
+          }
+          return MaskChecker.check(sudokuGrid.cells(), 0, sudokuGrid.dimension());
+       } finally {
+          Metrics.stop(Stage.CHECK, started);
+       }
+    }
+
+    /**
+     * Checks Sudoku Solution held in a compact grid, stopping at the first unit which
+     * breaks the Sudoku rules and naming it, with the duplicated or missing digit.
+     * The rows are read in order and a grid is rejected as soon as a row, column or
+     * subgrid is known to be wrong, so a grid which is bad in its first rows is cheap to reject.
+     * 
+     * @param sudokuGrid to be checked.
+     * @return the result, naming the first violated unit if the solution is INVALID.
+     */
+    public CheckResult diagnose(final Grid sudokuGrid) {
+       if (sudokuGrid == null)
+          throw new IllegalArgumentException("ERROR: the grid cannot be null");
+
+       final long started = Metrics.start(Stage.CHECK);
+       try {
+          if (sudokuGrid.dimension() == GRID_DIMENSION) {
+             return BitmaskChecker.diagnose(sudokuGrid.cells(), 0);
+          }
+          return MaskChecker.diagnose(sudokuGrid.cells(), 0, sudokuGrid.dimension());
+       } finally {
+          Metrics.stop(Stage.CHECK, started);
+       }
+    }
+
+    /**
+     * Checks Sudoku Solution, stopping at the first unit which breaks the Sudoku rules,
+     * as {@link #diagnose(Grid)} does. Cells which cannot occur in a solution, including
+     * null, are reported as missing digits.
+     * 
+     * @param sudokuGrid to be checked.
+     * @return the result, naming the first violated unit if the solution is INVALID.
+     * @throws IllegalArgumentException if the grid is not square with a square box dimension.
+     */
+    public CheckResult diagnose(final Integer[][] sudokuGrid) {
+       if (!isSquare(sudokuGrid))
+          throw new IllegalArgumentException(
+             "ERROR: the grid must be square, of a dimension which is a perfect square");
+
+       return diagnose(unbox(sudokuGrid));
+    }
+
+    /**
+     * Copies a square boxed grid into a compact grid. Values which cannot occur in a 
+     * solution, including null, become empty cells and so fail the check just as
+     * they do for the set comparison.
+     * @param grid to copy, as accepted by {@link #isSquare(Integer[][])}.
+     * @return the compact grid.
+     */
+    private static Grid unbox(final Integer[][] grid) {
+       final int dimension = grid.length;
+       byte[] cells = new byte[dimension * dimension];
+       for (int row = 0; row < dimension; row++) {
+          for (int col = 0; col < dimension; col++) {
+             Integer value = grid[row][col];
+             if (value != null && value >= 1 && value <= dimension) {
+                cells[row * dimension + col] = (byte) (int) value;
+             }
+          }
+       }
+       return Grid.wrap(dimension, cells);
+    }
+
+    /**
+     * Checks whether the given number of cells is the dimension of a legal Sudoku grid.
+     * @param dimension to inspect.
+     * @return {@code true} if it is a perfect square within range, {@code false} otherwise.
+     */
+    private static boolean isDimension(final int dimension) {
+       int box = (int) Math.round(Math.sqrt(dimension));
+       return dimension >= 1 && dimension <= Grid.MAX_DIMENSION && box * box == dimension;
+    }
+
     /**
      * Checks whether all columns in the grid are valid according to Sudoku rules.
+     * The columns are read in place, as the rows of the grid {@link #transpose(Integer[][])}
+     * would return, without copying them.
      * @param result holds the current status of previous checks. 
      * @param grid to check.
      * @return {@code Valid} if all rows are valid, {@code INVALID} otherwise.
      */
     private Status checkAllColumns(final Status result, final Integer[][] grid) {
     
-       Status currentResult = result;
-   
-       // transpose the grid then we can just check rows!
-       if (result.equals(Status.VALID)) {
-    	   
-          Integer[][] columnView = transpose(grid);
-          
-          currentResult = checkAllRows(columnView);
+       if (!result.equals(Status.VALID))
+          return result;
+
+       transposeCheck(grid);
+
+       final int size = grid[1].length;
+       if (!isDimension(size))
+          return Status.INVALID;
+
+       final long[] mask = new long[MaskChecker.words(size)];
+       for (int col = 0; col < grid[0].length; col++) {
+          Arrays.fill(mask, 0);
+          for (int row = 0; row < size; row++) {
+             if (!addToUnit(mask, grid[row][col], size))
+                return Status.INVALID;
+          }
        }
-       return currentResult;
+       return result;
     }
     
     
@@ -96,8 +217,9 @@ public class Sudoku {
 	
         Status answer = Status.VALID;
 
-        for(int row = 0; row < grid.length; row++) {        	
-           if (answer.equals(Status.VALID) && !isSudokuLine(grid[row])) {
+        // the first bad row settles the answer, so stop there.
+        for(int row = 0; row < grid.length && answer.equals(Status.VALID); row++) {        	
+           if (!isUnit(grid[row])) {
               answer = Status.INVALID;	
            }
         }
@@ -106,7 +228,8 @@ public class Sudoku {
 
 
     /**
-     * Checks whether all subgrids in the parent grid are valid according to Sudoku rules. 
+     * Checks whether all subgrids in the parent grid are valid according to Sudoku rules.
+     * Each subgrid is read in place, as {@link #subGrid} would copy it.
      * @param src the parent grid
      * @param dimension of the subgrid
      * @return {@code VALID} if all subgrids satisfy Sudoku rules, {@code INVALID} otherwise.
@@ -114,19 +237,29 @@ public class Sudoku {
      protected Status checkAllSubGrids(
         final Status result, final Integer[][] src, final int dimension) {
         
-    	Status currentResult = result;
+    	// no subgrid is read once the answer is known.
+        if (!result.equals(Status.VALID))
+           return result;
 
+        final int size = dimension * dimension;
+        final long[] mask = new long[MaskChecker.words(Math.max(size, 1))];
         for (int row = 0; row < src.length; row += dimension) {
            
         	for (int col = 0; col < src.length; col += dimension) {
-        	   Integer[][] grid = subGrid(row, col, dimension, src);
-              
-              if (currentResult.equals(Status.VALID) && !isSudokuGrid(grid)) {
-                 currentResult = Status.INVALID;
+              gridRangeCheck(row, col, dimension, src);
+              if (!isDimension(size))
+                 return Status.INVALID;
+
+              Arrays.fill(mask, 0);
+              for (int r = row; r < row + dimension; r++) {
+                 for (int c = col; c < col + dimension; c++) {
+                    if (!addToUnit(mask, src[r][c], size))
+                       return Status.INVALID;
+                 }
               }
            }
         }
-        return currentResult;
+        return result;
      }
 
 
@@ -242,11 +375,7 @@ public class Sudoku {
      */
      protected Integer[][] transpose(final Integer[][] src) {	
 	
-        if (src == null) 
-           throw new IllegalArgumentException("ERROR: src grid cannot be null");
-
-        if (src[1].length != src[2].length) 
-           throw new IllegalArgumentException("ERROR: src grid must be square in dimensions");
+        transposeCheck(src);
 
         Integer[][] columnView = new Integer[src[0].length][src[1].length];
 
@@ -259,8 +388,39 @@ public class Sudoku {
      }
 
     /**
-     * Checks whether the given line is a valid Sudoku line, that is, contains all values
-     * from in the range 1-9 and each is unique.
+     * Checks that {@code src} may be transposed, throws an exception if it may not.
+     */
+     private static void transposeCheck(final Integer[][] src) {
+        if (src == null) 
+           throw new IllegalArgumentException("ERROR: src grid cannot be null");
+
+        if (src[1].length != src[2].length) 
+           throw new IllegalArgumentException("ERROR: src grid must be square in dimensions");
+     }
+
+    /**
+     * Checks whether a row of a grid holds each of 1..n once, n being its number of cells.
+     * @param line to check.
+     * @return {@code true} if the row is complete, {@code false} otherwise.
+     */
+     private static boolean isUnit(final Integer[] line) {
+        if (!isDimension(line.length))
+           return false;
+
+        final long[] mask = new long[MaskChecker.words(line.length)];
+        for (Integer value : line) {
+           if (!addToUnit(mask, value, line.length))
+              return false;
+        }
+        return true;
+     }
+
+    /**
+     * Checks whether the given line is a valid Sudoku line, that is, whether the set of
+     * its values is 1..n, n being its length if that is a dimension such as 4, 9 or 16,
+     * and 9 otherwise. As ever, the values are compared as a set: one held twice counts
+     * once, so the values 1..9 followed by a second 9 still make a valid line, while a
+     * line missing any of 1..n does not.
      * @param line to validate.
      * @return true if the line is a valid Sudoku line, false otherwise.
      */
@@ -269,14 +429,20 @@ public class Sudoku {
      if (line == null) 
         throw new IllegalArgumentException("ERROR: a Sudoku line cannot be null.");
 		
-        Set<Integer> row = new HashSet<Integer>(Arrays.asList(line));
-        
-        return validValues.equals(row);
+        final int size = isDimension(line.length) ? line.length : GRID_DIMENSION;
+        final long[] mask = new long[MaskChecker.words(size)];
+        for (Integer value : line) {
+           if (!addToSet(mask, value, size))
+              return false;
+        }
+        return isValueSet(mask, size);
      }
 
     /**
-     * Checks whether the given grid is a valid Sudoku grid, that is, contains all values
-     * from in the range 1-9 and each is unique.
+     * Checks whether the given grid is a valid Sudoku grid, that is, whether the set of its
+     * values is 1..n, compared as for {@link #isSudokuLine(Integer[])}. For an N x N grid,
+     * n is N x N, the cells of a box, or N, the cells of a row, whichever is a dimension;
+     * for any other shape it is 9.
      * @param grid to validate.
      * @return true if the line is a valid Sudoku grid, false otherwise.
      */
@@ -285,14 +451,76 @@ public class Sudoku {
        if (grid == null) 
           throw new IllegalArgumentException("ERROR: the grid cannot be null");
 
-       // flatten the elements into a set for comparison.
-       List<Integer> list = Arrays.stream(grid)
-                                  .flatMap(Arrays::stream)
-                                  .collect(Collectors.toList());
+       boolean square = grid.length > 0;
+       for (Integer[] row : grid) {
+          square &= row.length == grid.length;
+       }
+       final int box = square && isDimension(grid.length * grid.length) ? grid.length * grid.length : 0;
+       final int row = square && grid.length > 1 && isDimension(grid.length) ? grid.length : 0;
+       final int size = box == 0 && row == 0 ? GRID_DIMENSION : Math.max(box, row);
+
+       final long[] mask = new long[MaskChecker.words(size)];
+       for (Integer[] cells : grid) {
+          for (Integer value : cells) {
+             if (!addToSet(mask, value, size))
+                return false;
+          }
+       }
+       return box == 0 && row == 0 ? isValueSet(mask, size) : isValueSet(mask, box) || isValueSet(mask, row);
+    }
+
+    /**
+     * Adds a value to a set of values by setting its bit in {@code mask}.
+     * @param mask of the values added so far, of {@link MaskChecker#words(int)} words.
+     * @param value to add.
+     * @param size the number of values, none of a set of 1..n exceeds it.
+     * @return {@code false} if the value is null or outside 1..size.
+     */
+    private static boolean addToSet(final long[] mask, final Integer value, final int size) {
+       if (value == null || value < 1 || value > size)
+          return false;
+
+       final int digit = value - 1;
+       mask[digit >>> 6] |= 1L << digit;
+       return true;
+    }
 
-       Set<Integer> allElements = new HashSet<Integer>(list);
+    /**
+     * @param mask of a set of values.
+     * @param size the n of 1..n, 0 for none.
+     * @return {@code true} if the set is 1..size.
+     */
+    private static boolean isValueSet(final long[] mask, final int size) {
+       if (size == 0)
+          return false;
+       int count = 0;
+       int highest = 0;
+       for (int word = 0; word < mask.length; word++) {
+          count += Long.bitCount(mask[word]);
+          if (mask[word] != 0)
+             highest = word * Long.SIZE + Long.SIZE - Long.numberOfLeadingZeros(mask[word]);
+       }
+       return count == size && highest == size;
+    }
+
+    /**
+     * Adds a value to a unit of {@code size} cells by setting its bit in {@code mask}. A unit
+     * whose every value is added holds each of 1..size once, so is complete.
+     * @param mask of the values added so far, of {@link MaskChecker#words(int)} words.
+     * @param value to add.
+     * @param size of the unit.
+     * @return {@code false} if the value is null, outside 1..size or already in the unit.
+     */
+    private static boolean addToUnit(final long[] mask, final Integer value, final int size) {
+       if (value == null || value < 1 || value > size)
+          return false;
 
-       return validValues.equals(allElements);
+       final int digit = value - 1;
+       final long bit = 1L << digit;
+       if ((mask[digit >>> 6] & bit) != 0)
+          return false;
+       mask[digit >>> 6] |= bit;
+       return true;
     }
 
 
@@ -3,7 +3,22 @@ package com.rmgroup.sudoku;
 import java.io.IOException;
 
 public interface SudokuReader {
+
+	/**
+	 * The dimension given to a reader which should detect the dimension from its input.
+	 */
+	int DETECT_DIMENSION = 0;
 	
 	Integer[][] getGrid() throws IOException;
+
+	/**
+	 * Returns the grid as a compact {@link Grid}. Implementations should override this to
+	 * read straight into the grid, by default the boxed grid is copied.
+	 * @return the grid read.
+	 * @throws IOException if a problem occurs reading the grid.
+	 */
+	default Grid readGrid() throws IOException {
+		return Grid.of(getGrid());
+	}
 	
 }
@@ -0,0 +1,88 @@
+package com.rmgroup.sudoku;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+/**
+ * Checks the 81 row major cells of a 9 x 9 solution, building a mask per row, column
+ * and subgrid as {@link BitmaskChecker#check(byte[], int)} does.
+ * <p>
+ * {@link #select()} picks the implementation once per JVM: the {@link #vector()} checker
+ * when the JDK offers the incubating Vector API, run with
+ * {@code --add-modules jdk.incubator.vector}, and the hardware holds 16 short lanes in a
+ * register, the scalar {@link BitmaskChecker} otherwise. Setting the system property
+ * {@value #VECTOR_PROPERTY} to {@code false} keeps the scalar checker.
+ */
+@FunctionalInterface
+interface UnitChecker {
+
+	/**
+	 * The system property which, set to {@code false}, turns the vector checker off.
+	 */
+	String VECTOR_PROPERTY = "sudoku.vector";
+
+	/**
+	 * The name of the vector checker, compiled only when building on JDK 17 or later.
+	 */
+	String VECTOR_CHECKER = "com.rmgroup.sudoku.VectorChecker";
+
+	/**
+	 * The system property set within a GraalVM native image, which has no Vector API.
+	 */
+	String NATIVE_IMAGE_PROPERTY = "org.graalvm.nativeimage.imagecode";
+
+	/**
+	 * Checks the 81 row major cells of {@code cells} starting at {@code offset}.
+	 * @param cells holding the solution.
+	 * @param offset of the first cell of the solution.
+	 * @return {@code VALID} if the solution meets the Sudoku rules, {@code INVALID} otherwise.
+	 * @throws IndexOutOfBoundsException if fewer than 81 cells follow {@code offset}.
+	 */
+	Status check(byte[] cells, int offset);
+
+	/**
+	 * @return the scalar checker, {@link BitmaskChecker#check(byte[], int)}.
+	 */
+	static UnitChecker scalar() {
+		return Scalar.INSTANCE;
+	}
+
+	/**
+	 * The scalar checker, a class rather than a method reference so a single check does
+	 * not bootstrap the lambda machinery on start up.
+	 */
+	final class Scalar implements UnitChecker {
+
+		static final Scalar INSTANCE = new Scalar();
+
+		private Scalar() {
+		}
+
+		@Override
+		public Status check(final byte[] cells, final int offset) {
+			return BitmaskChecker.check(cells, offset);
+		}
+	}
+
+	/**
+	 * Loads the vector checker, which is absent before JDK 17, fails to link without the
+	 * {@code jdk.incubator.vector} module and refuses hardware too narrow to gain from it.
+	 * @return the vector checker, or {@code null} if it cannot be used.
+	 */
+	static UnitChecker vector() {
+		try {
+			return Class.forName(VECTOR_CHECKER).asSubclass(UnitChecker.class).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the vector checker if it can be used and is not turned off, the scalar one
+	 *         otherwise, which is always the one of a native image.
+	 */
+	static UnitChecker select() {
+		UnitChecker vector = Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+				&& System.getProperty(NATIVE_IMAGE_PROPERTY) == null ? vector() : null;
+		return vector != null ? vector : scalar();
+	}
+}
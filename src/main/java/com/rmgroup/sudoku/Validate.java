@@ -1,41 +1,200 @@
 package com.rmgroup.sudoku;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import com.rmgroup.sudoku.Sudoku.Status;
 
 public class Validate {
 	
+	/**
+	 * The option setting the layout of the results of a single file or a batch.
+	 */
+	static final String REPORT_OPTION = "--report";
+
+	/**
+	 * The option selecting batch mode.
+	 */
+	static final String BATCH_OPTION = "--batch";
+
+	/**
+	 * The batch mode option setting the number of worker threads.
+	 */
+	static final String THREADS_OPTION = "--threads";
+
+	/**
+	 * The option selecting server mode.
+	 */
+	static final String SERVE_OPTION = "--serve";
+
+	/**
+	 * The option selecting solve mode.
+	 */
+	static final String SOLVE_OPTION = "--solve";
+
+	/**
+	 * The option selecting count mode.
+	 */
+	static final String COUNT_OPTION = "--count";
+
+	/**
+	 * The option selecting convert mode.
+	 */
+	static final String CONVERT_OPTION = "--convert";
+
+	/**
+	 * The option selecting watch mode.
+	 */
+	static final String WATCH_OPTION = "--watch";
+
+	/**
+	 * The option selecting generate mode.
+	 */
+	static final String GENERATE_OPTION = "--generate";
+
+	/**
+	 * The option selecting puzzle mode.
+	 */
+	static final String PUZZLES_OPTION = "--puzzles";
+
+	/**
+	 * The option selecting audit mode.
+	 */
+	static final String AUDIT_OPTION = "--audit";
+
+	/**
+	 * Drops the per grid lines of audit mode, whose results go to the store.
+	 */
+	private static final Writer DISCARD = new Writer() {
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public Writer append(CharSequence csq) {
+			return this;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	/**
+	 * The generate and puzzle mode options setting the dimension, the seed, the fault rate and the format.
+	 */
+	static final String DIMENSION_OPTION = "--dimension", SEED_OPTION = "--seed", FAULTS_OPTION = "--faults",
+			FORMAT_OPTION = "--format";
+
 	/**
 	 * The entry point to the application.
-	 * @param args position 0 must contain the path of the file containing the solution.
+	 * @param args position 0 must contain the path of the file containing the solution,
+	 *        optionally preceded, as may {@code --batch}, by {@code --report} and
+	 *        {@code text}, {@code jsonl} or {@code csv},
+	 *        or {@code --batch} followed by the path of a multi-grid file or directory,
+	 *        or {@code --serve} optionally followed by the port to listen on,
+	 *        or {@code --solve} followed by the path of a puzzle,
+	 *        or {@code --count} optionally followed by the limit, then the path of a puzzle,
+	 *        or {@code --convert} followed by the paths of a multi-grid file and of the
+	 *        binary file to write,
+	 *        or {@code --watch} followed by the path of a directory to watch,
+	 *        or {@code --generate} followed by the number of grids and the path of the
+	 *        file to write,
+	 *        or {@code --puzzles} followed by the number of puzzles and the path of the
+	 *        file to write,
+	 *        or {@code --audit} followed by the path of a store, then optionally the path
+	 *        of a multi-grid file or directory to validate into it.
 	 */
 	public static void main(String[] args) {
 
+		// measures the stages if -Dsudoku.metrics=true.
+		Metrics.configure(System.err);
+
+		ReportFormat report = ReportFormat.TEXT;
+		if (args.length > 1 && REPORT_OPTION.equals(args[0])) {
+			report = ReportFormat.of(args[1]);
+			args = Arrays.copyOfRange(args, 2, args.length);
+		}
+
+		if (args.length > 0 && BATCH_OPTION.equals(args[0])) {
+			batch(Arrays.copyOfRange(args, 1, args.length), report);
+			return;
+		}
+		if (args.length > 0 && SERVE_OPTION.equals(args[0])) {
+			serve(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && SOLVE_OPTION.equals(args[0])) {
+			solve(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && COUNT_OPTION.equals(args[0])) {
+			count(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && CONVERT_OPTION.equals(args[0])) {
+			convert(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && WATCH_OPTION.equals(args[0])) {
+			watch(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && GENERATE_OPTION.equals(args[0])) {
+			generate(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && PUZZLES_OPTION.equals(args[0])) {
+			puzzles(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && AUDIT_OPTION.equals(args[0])) {
+			audit(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
 		Optional<Path> filePath = getFilePath(args);
 
 		if (!filePath.isPresent()) 
 			throw new IllegalArgumentException("ERROR: Input file not detected");
 
+		if (report.isStructured()) {
+			report(filePath.get(), report);
+			return;
+		}
+
 		// Assume solution is incorrect and determine otherwise.
 		Status validity = Status.INVALID;
 		
-		// A Sudoku Grid of 9 x 9.
-		int sudokuDimension = 9;
-				
 		try {
-			// Read contents of the CSV file.
-			SudokuReader csvReader = new CsvReader(filePath.get(), sudokuDimension);
-			Integer[][] sudokuGrid = csvReader.getGrid();
+			// Read contents of the CSV file, its first row gives the dimension.
+			Grid sudokuGrid;
+			try (MappedCsvReader csvReader = new MappedCsvReader(filePath.get())) {
+				sudokuGrid = csvReader.readGrid();
+			}
 
-			// inject & check.
-			validity = Sudoku.getInstance().check(sudokuGrid);
+			// inject & check, naming the first rule broken.
+			CheckResult result = Sudoku.getInstance().diagnose(sudokuGrid);
+			validity = result.status();
+			Metrics.outcome(validity, false);
+			if (!result.isValid())
+				System.out.println(result);
 		
 		} catch (IllegalArgumentException | IndexOutOfBoundsException| IOException ex ) {
+			Metrics.outcome(Status.INVALID, true);
 			System.out.println(ex.getMessage());
 		}
 
@@ -44,6 +203,478 @@ public class Validate {
 		System.out.println("The solution: " + filePath.get() + " is " + validity.name());
 	}
 	
+	/**
+	 * Validates a single solution file, printing its result as a structured record.
+	 * @param file containing the solution.
+	 * @param report the layout of the record, JSON Lines or CSV.
+	 */
+	private static void report(Path file, ReportFormat report) {
+		long started = System.nanoTime();
+		Status validity = Status.INVALID;
+		CheckResult result = null;
+		Exception error = null;
+		try (MappedCsvReader csvReader = new MappedCsvReader(file)) {
+			result = Sudoku.getInstance().diagnose(csvReader.readGrid());
+			validity = result.status();
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | IOException ex) {
+			error = ex;
+		}
+		Metrics.outcome(validity, error != null);
+
+		StringBuilder line = report.appendHeader(new StringBuilder(128));
+		report.appendResult(line, file.toString(), 1, validity, result, error, System.nanoTime() - started);
+		System.out.print(line);
+	}
+
+	/**
+	 * Validates every grid of a multi-grid file, or of every file in a directory,
+	 * printing a line per grid followed by the summary counts.
+	 * @param args position 0 must contain the path of the file or directory, optionally
+	 *        preceded by {@code --threads} and the number of worker threads, 0 for one per core.
+	 * @param report the layout of the lines.
+	 */
+	private static void batch(String[] args, ReportFormat report) {
+
+		int threads = 1;
+		if (args.length > 1 && THREADS_OPTION.equals(args[0])) {
+			threads = threadsOf(args[1]);
+			args = Arrays.copyOfRange(args, 2, args.length);
+		}
+
+		Optional<Path> path = getFilePath(args);
+
+		if (!path.isPresent()) 
+			throw new IllegalArgumentException("ERROR: Input file not detected");
+
+		// The dimension is detected from the first row of each file.
+		int sudokuDimension = SudokuReader.DETECT_DIMENSION;
+
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+		try {
+			out.append(report.appendHeader(new StringBuilder()));
+			BatchValidator.Summary summary = threads == 1
+					? new BatchValidator(sudokuDimension, out, report).validate(path.get())
+					: new ParallelBatchValidator(sudokuDimension, out, threads, ParallelBatchValidator.DEFAULT_CHUNK_SIZE,
+							threads * 4, report).validate(path.get());
+			out.append(report.appendSummary(new StringBuilder(), summary));
+			out.flush();
+		} catch (IOException ex) {
+			System.out.println(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Parses the value of the {@code --threads} option.
+	 * @param value the number of threads, 0 for one per core.
+	 * @return the number of threads.
+	 */
+	private static int threadsOf(String value) {
+		int threads;
+		try {
+			threads = Integer.parseInt(value);
+		} catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("ERROR: the number of threads must be an integer");
+		}
+		if (threads < 0)
+			throw new IllegalArgumentException("ERROR: the number of threads cannot be negative");
+		return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+	}
+
+	/**
+	 * Validates each file dropped into a directory until the process is stopped, on a
+	 * worker thread per core unless {@code --threads} is given. The results are appended
+	 * to the {@code results.log} of the directory and each file is then moved to its
+	 * {@code done} or {@code failed} folder.
+	 * @param args position 0 must contain the path of the directory, optionally preceded
+	 *        by {@code --threads} and the number of worker threads, 0 for one per core.
+	 */
+	private static void watch(String[] args) {
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length > 1 && THREADS_OPTION.equals(args[0])) {
+			threads = threadsOf(args[1]);
+			args = Arrays.copyOfRange(args, 2, args.length);
+		}
+
+		Optional<Path> path = getFilePath(args);
+
+		if (!path.isPresent()) 
+			throw new IllegalArgumentException("ERROR: Input directory not detected");
+
+		final DirectoryWatcher watcher;
+		try {
+			watcher = new DirectoryWatcher(path.get(), threads, DirectoryWatcher.DEFAULT_QUIET_MILLIS);
+		} catch (IOException ex) {
+			System.out.println(ex.getMessage());
+			return;
+		}
+		// closed by the hook when the process is stopped, or here if watching fails first.
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(watcher)));
+		try {
+			System.out.println("Watching " + path.get() + " for solutions, results in "
+					+ path.get().resolve(DirectoryWatcher.RESULTS));
+			watcher.run();
+		} catch (IOException ex) {
+			System.out.println(ex.getMessage());
+		} finally {
+			closeQuietly(watcher);
+		}
+	}
+
+	private static void closeQuietly(final DirectoryWatcher watcher) {
+		try {
+			watcher.close();
+		} catch (IOException ex) {
+			// stopping anyway.
+		}
+	}
+
+	/**
+	 * Writes random valid solutions to a file, a given share of them faulted, printing the
+	 * counts of each fault. The file is written as CSV blocks, or in the binary format if
+	 * its name ends with {@code .bin}, unless {@code --format} says otherwise.
+	 * @param args the number of grids followed by the path of the file, optionally preceded by
+	 *        {@code --dimension} and the dimension, 9 unless given,
+	 *        {@code --seed} and the seed of the random numbers, which differs run to run unless given,
+	 *        {@code --faults} and the share of the grids faulted, 0 - 1, none unless given,
+	 *        {@code --format} and {@code csv}, {@code line} or {@code binary}.
+	 */
+	private static void generate(String[] args) {
+
+		int dimension = 9;
+		long seed = System.nanoTime();
+		double faultRate = 0;
+		GridGenerator.Format format = null;
+		try {
+			while (args.length > 2 && args[0].startsWith("--")) {
+				if (DIMENSION_OPTION.equals(args[0])) {
+					dimension = Integer.parseInt(args[1]);
+				} else if (SEED_OPTION.equals(args[0])) {
+					seed = Long.parseLong(args[1]);
+				} else if (FAULTS_OPTION.equals(args[0])) {
+					faultRate = Double.parseDouble(args[1]);
+				} else if (FORMAT_OPTION.equals(args[0])) {
+					format = formatOf(args[1]);
+				} else {
+					throw new IllegalArgumentException("ERROR: unknown option " + args[0]);
+				}
+				args = Arrays.copyOfRange(args, 2, args.length);
+			}
+		} catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("ERROR: the dimension, seed and fault rate must be numbers");
+		}
+
+		if (args.length < 2) 
+			throw new IllegalArgumentException("ERROR: the number of grids and output file not detected");
+
+		long count;
+		try {
+			count = Long.parseLong(args[0]);
+		} catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("ERROR: the number of grids must be an integer");
+		}
+
+		Path output = Paths.get(args[1]);
+		try {
+			long started = System.nanoTime();
+			GridGenerator.Summary summary = new GridGenerator(dimension, seed)
+					.write(output, format == null ? GridGenerator.Format.of(output) : format, count, faultRate);
+			long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+			System.out.println(summary + " to " + output + " in " + millis + "ms, seed " + seed);
+		} catch (IllegalArgumentException | IOException ex) {
+			System.out.println(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Writes puzzles with a single solution to a file, one per line followed by its
+	 * difficulty and number of givens, generating them on every core unless {@code --threads}
+	 * is given, and prints the count of each difficulty.
+	 * @param args the number of puzzles followed by the path of the file, optionally preceded by
+	 *        {@code --dimension} and the dimension, 9 unless given,
+	 *        {@code --seed} and the seed of the random numbers, which differs run to run unless given,
+	 *        {@code --threads} and the number of threads, 0 for one per core.
+	 */
+	private static void puzzles(String[] args) {
+
+		int dimension = 9;
+		long seed = System.nanoTime();
+		int threads = Runtime.getRuntime().availableProcessors();
+		try {
+			while (args.length > 2 && args[0].startsWith("--")) {
+				if (DIMENSION_OPTION.equals(args[0])) {
+					dimension = Integer.parseInt(args[1]);
+				} else if (SEED_OPTION.equals(args[0])) {
+					seed = Long.parseLong(args[1]);
+				} else if (THREADS_OPTION.equals(args[0])) {
+					threads = threadsOf(args[1]);
+				} else {
+					throw new IllegalArgumentException("ERROR: unknown option " + args[0]);
+				}
+				args = Arrays.copyOfRange(args, 2, args.length);
+			}
+		} catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("ERROR: the dimension and seed must be integers");
+		}
+
+		if (args.length < 2) 
+			throw new IllegalArgumentException("ERROR: the number of puzzles and output file not detected");
+
+		int count;
+		try {
+			count = Integer.parseInt(args[0]);
+		} catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("ERROR: the number of puzzles must be an integer");
+		}
+
+		Path output = Paths.get(args[1]);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try (Writer out = Files.newBufferedWriter(output)) {
+			long started = System.nanoTime();
+			PuzzleGenerator.Puzzle[] puzzles = PuzzleGenerator.generate(dimension, seed, count, pool);
+			long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+			int[] difficulties = new int[PuzzleGenerator.Difficulty.values().length];
+			for (PuzzleGenerator.Puzzle puzzle : puzzles) {
+				out.write(puzzle.toString());
+				out.write(System.lineSeparator());
+				difficulties[puzzle.difficulty().ordinal()]++;
+			}
+			StringBuilder text = new StringBuilder("Generated " + count + " unique puzzles:");
+			for (PuzzleGenerator.Difficulty difficulty : PuzzleGenerator.Difficulty.values()) {
+				text.append(difficulty.ordinal() == 0 ? " " : ", ")
+					.append(difficulties[difficulty.ordinal()]).append(' ').append(difficulty);
+			}
+			System.out.println(text + " to " + output + " in " + millis + "ms (" + count * 1000L / millis
+					+ "/s), seed " + seed);
+		} catch (IllegalArgumentException | IOException ex) {
+			System.out.println(ex.getMessage());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Validates every grid of a multi-grid file, or of every file in a directory, into an
+	 * {@link AuditStore}, which holds the grids and their outcomes outside the heap, then
+	 * prints the counts scanned from the store. The dimension of the store is detected
+	 * from the first grid found, as {@code --batch} detects it; the grids of any other
+	 * dimension are stored as malformed. Given no file, the counts of an existing store are
+	 * printed.
+	 * @param args position 0 must contain the path of the store directory, position 1 may
+	 *        contain the path of the file or directory to validate, optionally preceded by
+	 *        {@code --dimension} and the dimension of the grids, detected unless given.
+	 */
+	private static void audit(String[] args) {
+
+		int dimension = SudokuReader.DETECT_DIMENSION;
+		try {
+			while (args.length > 2 && args[0].startsWith("--")) {
+				if (DIMENSION_OPTION.equals(args[0])) {
+					dimension = Integer.parseInt(args[1]);
+				} else {
+					throw new IllegalArgumentException("ERROR: unknown option " + args[0]);
+				}
+				args = Arrays.copyOfRange(args, 2, args.length);
+			}
+		} catch (NumberFormatException nfe) {
+			throw new IllegalArgumentException("ERROR: the dimension must be an integer");
+		}
+
+		if (args.length < 1) 
+			throw new IllegalArgumentException("ERROR: the store directory not detected");
+		Path directory = Paths.get(args[0]);
+
+		if (args.length == 1) {
+			try (AuditStore store = AuditStore.open(directory)) {
+				System.out.println(store.summary() + " in " + directory);
+			} catch (IOException ex) {
+				System.out.println(ex.getMessage());
+			}
+			return;
+		}
+
+		Optional<Path> path = getFilePath(Arrays.copyOfRange(args, 1, args.length));
+
+		if (!path.isPresent()) 
+			throw new IllegalArgumentException("ERROR: Input file not detected");
+
+		try {
+			if (dimension == SudokuReader.DETECT_DIMENSION)
+				dimension = BatchValidator.detectDimension(path.get());
+		} catch (IOException ex) {
+			System.out.println(ex.getMessage());
+			return;
+		}
+		if (dimension == SudokuReader.DETECT_DIMENSION) {
+			System.out.println("ERROR: " + path.get() + " holds no grids.");
+			return;
+		}
+
+		try (AuditStore store = AuditStore.create(directory, dimension)) {
+			long started = System.nanoTime();
+			new BatchValidator(dimension, DISCARD, ReportFormat.TEXT, store).validate(path.get());
+			long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+			System.out.println(store.summary() + " into " + directory + " in " + millis + "ms");
+		} catch (IllegalArgumentException | IOException ex) {
+			System.out.println(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Parses the value of the {@code --format} option.
+	 * @param value {@code csv}, {@code line} or {@code binary}.
+	 * @return the format.
+	 */
+	private static GridGenerator.Format formatOf(String value) {
+		for (GridGenerator.Format format : GridGenerator.Format.values()) {
+			if (format.name().equalsIgnoreCase(value))
+				return format;
+		}
+		throw new IllegalArgumentException("ERROR: the format must be csv, line or binary");
+	}
+
+	/**
+	 * Solves a puzzle, printing its solution as comma separated rows.
+	 * @param args position 0 must contain the path of the puzzle, whose blank cells are
+	 *        written as 0 or {@code .}.
+	 */
+	private static void solve(String[] args) {
+
+		Optional<Path> path = getFilePath(args);
+
+		if (!path.isPresent()) 
+			throw new IllegalArgumentException("ERROR: Input file not detected");
+
+		try {
+			Grid puzzle = new CsvReader(path.get(), SudokuReader.DETECT_DIMENSION, true).readGrid();
+			if (new Solver(puzzle.dimension()).solve(puzzle)) {
+				System.out.print(puzzle);
+			} else {
+				System.out.println("The puzzle: " + path.get() + " has no solution");
+			}
+		} catch (IllegalArgumentException | IOException ex) {
+			System.out.println(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Counts the solutions of a puzzle up to a limit, 2 unless given, splitting the search
+	 * over every core.
+	 * @param args position 0 may contain the limit, followed by the path of the puzzle.
+	 */
+	private static void count(String[] args) {
+
+		long limit = 2;
+		if (args.length > 1) {
+			try {
+				limit = Long.parseLong(args[0]);
+			} catch (NumberFormatException nfe) {
+				throw new IllegalArgumentException("ERROR: the limit must be an integer");
+			}
+			args = Arrays.copyOfRange(args, 1, args.length);
+		}
+
+		Optional<Path> path = getFilePath(args);
+
+		if (!path.isPresent()) 
+			throw new IllegalArgumentException("ERROR: Input file not detected");
+
+		try {
+			Grid puzzle = new CsvReader(path.get(), SudokuReader.DETECT_DIMENSION, true).readGrid();
+			SolutionCounter.Count count = new SolutionCounter(puzzle.dimension(), ForkJoinPool.commonPool())
+					.count(puzzle, limit);
+			System.out.println("The puzzle: " + path.get() + " has " + count);
+		} catch (IllegalArgumentException | IOException ex) {
+			System.out.println(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Converts a multi-grid file to the binary format, which {@code --batch} reads far
+	 * faster. A grid which cannot be parsed is reported with its index, as by
+	 * {@code --batch}, and written as a blank record, so every grid keeps its index.
+	 * @param args position 0 must contain the path of the multi-grid file, position 1 the
+	 *        path of the binary file to write.
+	 */
+	private static void convert(String[] args) {
+
+		Optional<Path> input = getFilePath(args);
+
+		if (!input.isPresent() || args.length < 2) 
+			throw new IllegalArgumentException("ERROR: Input and output files not detected");
+
+		Path output = Paths.get(args[1]);
+		try (MappedCsvReader reader = new MappedCsvReader(input.get())) {
+			if (reader.dimension() == SudokuReader.DETECT_DIMENSION)
+				throw new IllegalArgumentException("ERROR: " + input.get() + " holds no grids.");
+			Grid grid = new Grid(reader.dimension());
+			final Grid blank = new Grid(reader.dimension());
+			long count;
+			long malformed = 0;
+			try (BinaryGridWriter writer = new BinaryGridWriter(output, grid.dimension())) {
+				while (true) {
+					try {
+						if (!reader.next(grid))
+							break;
+						writer.write(grid);
+					} catch (IllegalArgumentException ex) {
+						writer.write(blank);
+						malformed++;
+						System.out.println(input.get() + "#" + reader.index() + " INVALID (" + ex.getMessage() + ")");
+					}
+				}
+				count = writer.count();
+			}
+			System.out.println("Converted " + count + " grids from " + input.get() + " to " + output
+					+ (malformed == 0 ? "" : ", " + malformed + " malformed written blank"));
+		} catch (IllegalArgumentException | IOException ex) {
+			System.out.println(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the validation servers until the process is stopped: HTTP on the given port,
+	 * answering on a thread per core, and the line protocol on the port after it.
+	 * @param args position 0 may contain the HTTP port to listen on.
+	 */
+	private static void serve(String[] args) {
+
+		int port = ValidationServer.DEFAULT_PORT;
+		if (args.length > 0) {
+			try {
+				port = Integer.parseInt(args[0]);
+			} catch (NumberFormatException nfe) {
+				throw new IllegalArgumentException("ERROR: the port must be an integer");
+			}
+		}
+
+		// small responses are sent at once, the JDK server reads this when it is first created.
+		if (System.getProperty(ValidationServer.NODELAY_PROPERTY) == null)
+			System.setProperty(ValidationServer.NODELAY_PROPERTY, "true");
+
+		try {
+			ValidationServer server = new ValidationServer(port, Runtime.getRuntime().availableProcessors());
+			LineValidationServer lineServer = new LineValidationServer(port + 1);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				server.close();
+				try {
+					lineServer.close();
+				} catch (IOException ex) {
+					// stopping anyway.
+				}
+			}));
+			server.start();
+			lineServer.start();
+			System.out.println("Validating grids posted to http://" + server.address().getHostString()
+					+ ":" + server.address().getPort() + ValidationServer.PATH);
+			System.out.println("Validating grids sent one per line to " + lineServer.address().getHostString()
+					+ ":" + lineServer.address().getPort());
+		} catch (IOException ex) {
+			System.out.println(ex.getMessage());
+		}
+	}
+
 	/**
 	 * Extracts the file path from the {@code paths} if it exists,
 	 * otherwise returns an empty option.
@@ -0,0 +1,272 @@
+package com.rmgroup.sudoku;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A resident validation server, so a grid is checked without launching a JVM for it.
+ * It listens on the loopback interface with the JDK {@link HttpServer} and answers
+ * {@code POST /validate} with a JSON document holding one result per grid of the body.
+ * <p>
+ * A body holds one or more grids in any of the layouts read by {@link BatchReader}:
+ * blocks of comma separated rows or one grid per line. The dimension is detected from
+ * the first line unless given as {@code /validate?dimension=16}. The response reads
+ * <pre>
+ * {"dimension":9,"valid":1,"invalid":2,"results":[
+ *  {"index":1,"status":"VALID"},
+ *  {"index":2,"status":"INVALID","unit":"ROW","unitIndex":0,"problem":"DUPLICATE","digit":3,"row":0,"column":6},
+ *  {"index":3,"status":"INVALID","error":"Error: non-integer value \"A\" at row 4, column 6"}]}
+ * </pre>
+ * on one line, with units, rows and columns numbered from 0.
+ * <p>
+ * Connections are kept alive, so a client may send many requests, pipelined or not, over one
+ * connection and they are answered in order. Every response carries its length, so the
+ * connection may be kept alive. Small responses are only sent at once, rather than held
+ * back waiting for more, if the {@link #NODELAY_PROPERTY} system property is {@code true}
+ * when the first server of the JVM is created, as {@code --serve} sees to.
+ */
+public class ValidationServer implements Closeable {
+
+	/**
+	 * The port listened on by default.
+	 */
+	public static final int DEFAULT_PORT = 8080;
+
+	/**
+	 * The path grids are posted to.
+	 */
+	public static final String PATH = "/validate";
+
+	/**
+	 * The system property setting {@code TCP_NODELAY} on the connections of the JDK server.
+	 */
+	public static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	/**
+	 * The largest body accepted, 64MB, larger batches should be split.
+	 */
+	static final int MAX_BODY = 1 << 26;
+
+	private final HttpServer server;
+
+	private final ExecutorService pool;
+
+	private final Sudoku sudoku = Sudoku.getInstance();
+
+	/**
+	 * Constructs a ValidationServer on the loopback interface, which does not accept
+	 * requests until started.
+	 * @param port to listen on, 0 for any free port.
+	 * @param workers the number of threads handling requests.
+	 * @throws IOException if the port cannot be bound.
+	 * @throws IllegalArgumentException if {@code workers} is less than 1.
+	 */
+	public ValidationServer(final int port, final int workers) throws IOException {
+		if (workers < 1)
+			throw new IllegalArgumentException(String.format("ERROR: workers (%1$d) must be at least 1", workers));
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		pool = Executors.newFixedThreadPool(workers, new WorkerFactory());
+		server.setExecutor(pool);
+		server.createContext(PATH, this::handle);
+	}
+
+	/**
+	 * Starts accepting requests on a background thread.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * @return the address listened on, with the actual port if any free port was asked for.
+	 */
+	public InetSocketAddress address() {
+		return server.getAddress();
+	}
+
+	/**
+	 * Stops accepting requests, closing every connection at once.
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Answers one request.
+	 */
+	private void handle(final HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().set("Allow", "POST");
+				respond(exchange, 405, error("ERROR: grids must be sent with POST"));
+				return;
+			}
+			if (!PATH.equals(exchange.getRequestURI().getPath())) {
+				respond(exchange, 404, error("ERROR: no such resource " + exchange.getRequestURI().getPath()));
+				return;
+			}
+
+			String body = readBody(exchange.getRequestBody());
+			if (body == null) {
+				respond(exchange, 413, error(String.format("ERROR: the body exceeds %1$d bytes", MAX_BODY)));
+				return;
+			}
+			respond(exchange, 200, validate(body, dimensionOf(exchange.getRequestURI().getQuery())));
+		} catch (IllegalArgumentException ex) {
+			respond(exchange, 400, error(ex.getMessage()));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Validates every grid of {@code body} and renders the results.
+	 * @param body holding the grids.
+	 * @param dimension of the grids, or {@link SudokuReader#DETECT_DIMENSION}.
+	 * @return the JSON document.
+	 * @throws IllegalArgumentException if the dimension cannot be detected.
+	 */
+	String validate(final String body, final int dimension) throws IOException {
+		final int bodyDimension = dimension == SudokuReader.DETECT_DIMENSION ? detectDimension(body) : dimension;
+		StringBuilder results = new StringBuilder(64 + body.length() / 4);
+		long valid = 0, invalid = 0;
+
+		if (bodyDimension != SudokuReader.DETECT_DIMENSION) {
+			Grid grid = new Grid(bodyDimension);
+			try (BatchReader reader = new BatchReader(PATH, new BufferedReader(new StringReader(body)), bodyDimension)) {
+				BatchRecord record;
+				while ((record = reader.next()) != null) {
+					results.append(results.length() == 0 ? "" : ",").append("{\"index\":").append(record.index()).append(',');
+					try {
+						record.parseInto(grid);
+						CheckResult result = sudoku.diagnose(grid);
+						Metrics.outcome(result.status(), false);
+						Json.result(results, result);
+						if (result.isValid()) {
+							valid++;
+						} else {
+							invalid++;
+						}
+					} catch (IllegalArgumentException ex) {
+						Metrics.outcome(Status.INVALID, true);
+						results.append("\"status\":\"INVALID\",\"error\":");
+						Json.string(results, ex.getMessage());
+						invalid++;
+					}
+					results.append('}');
+				}
+			}
+		}
+
+		StringBuilder json = new StringBuilder(results.length() + 64);
+		json.append("{\"dimension\":").append(bodyDimension)
+			.append(",\"valid\":").append(valid)
+			.append(",\"invalid\":").append(invalid)
+			.append(",\"results\":[").append(results).append("]}");
+		return json.toString();
+	}
+
+	/**
+	 * Detects the dimension from the first non-blank line of {@code body}.
+	 * @return the dimension, or {@link SudokuReader#DETECT_DIMENSION} if the body is blank.
+	 */
+	private static int detectDimension(final String body) throws IOException {
+		BufferedReader lines = new BufferedReader(new StringReader(body));
+		String line;
+		while ((line = lines.readLine()) != null) {
+			if (!line.trim().isEmpty())
+				return CsvRowParser.dimensionOf(line);
+		}
+		return SudokuReader.DETECT_DIMENSION;
+	}
+
+	/**
+	 * Returns the dimension given by the {@code dimension} query parameter, if any.
+	 * @throws IllegalArgumentException if it is not a legal dimension.
+	 */
+	private static int dimensionOf(final String query) {
+		if (query == null)
+			return SudokuReader.DETECT_DIMENSION;
+
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith("dimension=")) {
+				try {
+					int dimension = Integer.parseInt(parameter.substring("dimension=".length()));
+					Grid.boxDimensionOf(dimension);
+					return dimension;
+				} catch (NumberFormatException nfe) {
+					throw new IllegalArgumentException("ERROR: the dimension must be an integer");
+				}
+			}
+		}
+		return SudokuReader.DETECT_DIMENSION;
+	}
+
+	/**
+	 * Reads the whole body as UTF-8 text. A body which is too large is still read to its
+	 * end, and dropped, so the client has sent it all before it is refused.
+	 * @return the body, or {@code null} if it exceeds {@link #MAX_BODY}.
+	 */
+	private static String readBody(final InputStream in) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+		byte[] buffer = new byte[8192];
+		boolean tooLarge = false;
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			tooLarge |= body.size() + read > MAX_BODY;
+			if (!tooLarge)
+				body.write(buffer, 0, read);
+		}
+		return tooLarge ? null : new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static String error(final String message) {
+		return Json.string(new StringBuilder("{\"error\":"), message).append('}').toString();
+	}
+
+	/**
+	 * Sends {@code json} with its length, so the connection may be kept alive.
+	 */
+	private static void respond(final HttpExchange exchange, final int code, final String json) throws IOException {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(code, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Creates named daemon threads for the requests.
+	 */
+	private static final class WorkerFactory implements ThreadFactory {
+
+		private final AtomicInteger worker = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable task) {
+			Thread thread = new Thread(task, "sudoku-server-worker-" + worker.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
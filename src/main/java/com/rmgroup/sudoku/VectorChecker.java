@@ -0,0 +1,132 @@
+package com.rmgroup.sudoku;
+
+import static com.rmgroup.sudoku.BitmaskChecker.ALL_DIGITS;
+import static com.rmgroup.sudoku.BitmaskChecker.CELL_COUNT;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A checker for 9 x 9 Sudoku solutions built on the incubating Vector API, giving the
+ * same answers as {@link BitmaskChecker}.
+ * <p>
+ * Each row is loaded as one vector of 16 bytes, widened to 16 short lanes of which the
+ * first nine hold the row, and turned into bits by a lane-wise shift,
+ * {@code 1 << (value - 1)}, values outside 1..9 being given a bit outside
+ * {@link BitmaskChecker#ALL_DIGITS}.
+ * The row mask is the OR-reduction of the nine lanes, the column masks are the lanes of
+ * a vector OR-ed with every row and the subgrid masks are OR-reductions of three lanes of
+ * a vector OR-ed with the rows of a band. The lanes past the ninth are never read.
+ * <p>
+ * Only compiled when building on JDK 17 or later, and only usable when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, see {@link UnitChecker#select()}.
+ */
+final class VectorChecker implements UnitChecker {
+
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+
+	private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_256;
+
+	/**
+	 * The lanes of a row, then of its left, middle and right subgrids, as vectors of all
+	 * ones in those lanes and zero elsewhere, ANDed in before a reduction.
+	 */
+	private static final ShortVector ROW = lanes(0x1FF);
+
+	private static final ShortVector LEFT = lanes(0x007);
+
+	private static final ShortVector MIDDLE = lanes(0x038);
+
+	private static final ShortVector RIGHT = lanes(0x1C0);
+
+	/**
+	 * The column masks of a valid solution, {@link BitmaskChecker#ALL_DIGITS} in the lanes of a row.
+	 */
+	private static final ShortVector ALL_COLUMNS = ROW.and((short) ALL_DIGITS);
+
+	/**
+	 * Moves the lanes of the last row, loaded from seven cells before it, down to the first lanes.
+	 */
+	private static final VectorShuffle<Byte> LAST_ROW = VectorShuffle.iota(BYTES, 7, 1, true);
+
+	private static final ShortVector ONE = ShortVector.broadcast(SHORTS, (short) 1);
+
+	/**
+	 * Constructs the checker, called through {@link UnitChecker#vector()}.
+	 * @throws UnsupportedOperationException if the preferred vectors hold fewer than 16 short
+	 *         lanes, as the vector operations would then be emulated.
+	 */
+	VectorChecker() {
+		if (ShortVector.SPECIES_PREFERRED.length() < SHORTS.length())
+			throw new UnsupportedOperationException("ERROR: 256 bit vectors are not supported.");
+	}
+
+	@Override
+	public Status check(final byte[] cells, final int offset) {
+		if (offset < 0 || offset > cells.length - CELL_COUNT)
+			throw new ArrayIndexOutOfBoundsException(offset);
+
+		// a single loop, as the JIT leaves nested loops or fully unrolled code carrying
+		// vectors to the boxed, allocating, fallback.
+		ShortVector columns = ShortVector.zero(SHORTS);
+		ShortVector boxes = ShortVector.zero(SHORTS);
+		for (int row = 0; row < 8; row++) {
+			final ShortVector bits = bits(ByteVector.fromArray(BYTES, cells, offset + row * 9));
+			if (!isComplete(bits, ROW))
+				return Status.INVALID;
+			columns = columns.or(bits);
+			boxes = boxes.or(bits);
+			if (row == 2 || row == 5) {
+				if (!areBoxesComplete(boxes))
+					return Status.INVALID;
+				boxes = ShortVector.zero(SHORTS);
+			}
+		}
+		// a whole vector from the last row would pass the end of the solution, so it is
+		// loaded from seven cells earlier and its lanes moved down.
+		final ShortVector last = bits(ByteVector.fromArray(BYTES, cells, offset + 65).rearrange(LAST_ROW));
+		if (!isComplete(last, ROW) || !areBoxesComplete(boxes.or(last)))
+			return Status.INVALID;
+
+		// every row is complete, so no column can hold the out of range bit.
+		return columns.or(last).and(ROW).eq(ALL_COLUMNS).allTrue() ? Status.VALID : Status.INVALID;
+	}
+
+	/**
+	 * Returns the bits of the nine cells in the first nine lanes of {@code cells}. The values
+	 * are first clamped to 0..10, so a value above 9 gives {@link BitmaskChecker#OUT_OF_RANGE}
+	 * and one below 1 a bit above it, neither of which can complete a unit.
+	 */
+	private static ShortVector bits(final ByteVector cells) {
+		final ByteVector values = cells.max((byte) 0).min((byte) 10);
+		final ShortVector shifts = (ShortVector) values.convertShape(VectorOperators.B2S, SHORTS, 0);
+		return ONE.lanewise(VectorOperators.LSHL, shifts.sub((short) 1));
+	}
+
+	/**
+	 * Returns {@code true} if the OR-reduction of the given {@code lanes} of {@code bits} holds every digit.
+	 */
+	private static boolean isComplete(final ShortVector bits, final ShortVector lanes) {
+		return bits.and(lanes).reduceLanes(VectorOperators.OR) == ALL_DIGITS;
+	}
+
+	/**
+	 * Returns {@code true} if the three subgrids of a band, the OR of its rows, are complete.
+	 */
+	private static boolean areBoxesComplete(final ShortVector band) {
+		return isComplete(band, LEFT) && isComplete(band, MIDDLE) && isComplete(band, RIGHT);
+	}
+
+	/**
+	 * Returns a vector of all ones in the lanes set in {@code lanes}, zero elsewhere.
+	 */
+	private static ShortVector lanes(final long lanes) {
+		return ShortVector.zero(SHORTS).blend((short) -1, VectorMask.fromLong(SHORTS, lanes));
+	}
+}
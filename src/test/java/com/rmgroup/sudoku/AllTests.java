@@ -13,7 +13,32 @@ import org.junit.runners.Suite.SuiteClasses;
 	TransposeTest.class,
 	IsInRangeTest.class,
 	CleansedRowTest.class,
-	ExtractCellValuesTest.class
+	ExtractCellValuesTest.class,
+	BitmaskCheckerTest.class,
+	GridTest.class,
+	CsvReaderTest.class,
+	BatchValidatorTest.class,
+	ParallelBatchValidatorTest.class,
+	MappedCsvReaderTest.class,
+	CsvRowParserTest.class,
+	CheckResultTest.class,
+	MaskCheckerTest.class,
+	ValidationServerTest.class,
+	LineValidationServerTest.class,
+	SolverTest.class,
+	SolutionCounterTest.class,
+	IncrementalCheckerTest.class,
+	CanonicalTest.class,
+	BinaryGridReaderTest.class,
+	GridCursorTest.class,
+	UnitCheckerTest.class,
+	PackedUnitsTest.class,
+	LatencyHistogramTest.class,
+	MetricsTest.class,
+	DirectoryWatcherTest.class,
+	GridGeneratorTest.class,
+	PuzzleGeneratorTest.class,
+	ReportFormatTest.class, AuditStoreTest.class
 })
 public class AllTests {
 }
@@ -0,0 +1,186 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rmgroup.sudoku.AuditStore.Outcome;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class AuditStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void appendAndReadTest() throws Exception {
+		for (int dimension : new int[] {1, 4, 9, 16}) {
+			Path directory = folder.getRoot().toPath().resolve("store" + dimension);
+			GridGenerator generator = new GridGenerator(dimension, dimension);
+			Grid[] grids = new Grid[50];
+			Grid grid = new Grid(dimension);
+			try (AuditStore store = AuditStore.create(directory, dimension)) {
+				assertEquals(0, store.addSource("first"));
+				assertEquals(1, store.addSource("second"));
+				for (int i = 0; i < grids.length; i++) {
+					generator.next(grid);
+					if (i % 5 == 3) {
+						assertEquals(i, store.appendMalformed(i % 2, i + 1));
+						grids[i] = new Grid(dimension);
+					} else {
+						if (i % 5 == 1)
+							grid.cells()[0] = Grid.EMPTY;
+						assertEquals(i, store.append(grid, Sudoku.getInstance().check(grid), i % 2, i + 1));
+						grids[i] = grid.copy();
+					}
+				}
+				assertEquals(grids.length, store.count());
+				assertEquals(dimension, store.dimension());
+			}
+
+			// the columns read back, and take more grids, once reopened.
+			try (AuditStore store = AuditStore.open(directory)) {
+				assertEquals(grids.length, store.count());
+				for (int i = 0; i < grids.length; i++) {
+					store.read(i, grid);
+					assertEquals(grids[i].toString(), grid.toString());
+					assertEquals(i % 5 == 3 ? Outcome.MALFORMED : i % 5 == 1 ? Outcome.INVALID : Outcome.VALID,
+							store.outcome(i));
+					assertEquals(i % 2 == 0 ? "first" : "second", store.source(i));
+					assertEquals(i + 1, store.index(i));
+				}
+				assertEquals("Checked 50 grids: 30 VALID, 20 INVALID (10 malformed)", store.summary().toString());
+				assertEquals(1, store.find(Outcome.INVALID, 0));
+				assertEquals(6, store.find(Outcome.INVALID, 2));
+				assertEquals(-1, store.find(Outcome.INVALID, 47));
+				store.append(grids[0], Status.VALID, store.addSource("third"), 7);
+			}
+			try (AuditStore store = AuditStore.open(directory)) {
+				assertEquals("third", store.source(grids.length));
+				assertEquals(7, store.index(grids.length));
+			}
+
+			// the grid column is a binary grid file.
+			try (BinaryGridReader reader = new BinaryGridReader(directory.resolve(AuditStore.GRIDS))) {
+				assertEquals(grids.length + 1, reader.count());
+				assertEquals(BinaryGridReader.HEADER_BYTES + reader.count() * BinaryGridReader.recordBytes(dimension),
+						Files.size(directory.resolve(AuditStore.GRIDS)));
+				reader.read(grids.length, grid);
+				assertEquals(grids[0].toString(), grid.toString());
+			}
+		}
+	}
+
+	@Test
+	public void segmentsTest() throws Exception {
+		Grid valid = SolutionFixture.solution();
+		Grid invalid = valid.copy();
+		invalid.set(8, 8, 1);
+		// more grids than a 16MB segment holds.
+		long count = (1 << 24) / BinaryGridReader.recordBytes(9) + 10;
+		Grid grid = new Grid(9);
+		try (AuditStore store = AuditStore.create(folder.getRoot().toPath(), 9)) {
+			final int source = store.addSource("segments");
+			for (long i = 0; i < count; i++) {
+				store.append(i % 1000 == 999 ? invalid : valid, i % 1000 == 999 ? Status.INVALID : Status.VALID, source, i + 1);
+			}
+			assertEquals(count, store.index(count - 1));
+			for (long i = count - 20; i < count; i++) {
+				store.read(i, grid);
+				assertEquals((i % 1000 == 999 ? invalid : valid).toString(), grid.toString());
+			}
+			assertEquals(count - count / 1000, store.summary().valid());
+			assertEquals(count / 1000, store.summary().invalid());
+			assertEquals(count / 1000 * 1000 - 1, store.find(Outcome.INVALID, count / 1000 * 1000 - 1000));
+		}
+	}
+
+	@Test
+	public void batchTest() throws Exception {
+		Path batch = CsvReaderTest.resource("sudokuBatch.txt");
+		StringWriter out = new StringWriter();
+		BatchValidator.Summary summary;
+		try (AuditStore store = AuditStore.create(folder.getRoot().toPath().resolve("batch"), 9)) {
+			summary = new BatchValidator(9, out, ReportFormat.TEXT, store).validate(batch);
+			assertEquals(summary.toString(), store.summary().toString());
+
+			String[] lines = out.toString().split(System.lineSeparator());
+			assertEquals(lines.length, store.count());
+			for (int i = 0; i < lines.length; i++) {
+				Outcome outcome = lines[i].endsWith(" VALID") ? Outcome.VALID
+						: lines[i].endsWith(" INVALID") ? Outcome.INVALID : Outcome.MALFORMED;
+				assertEquals(lines[i], outcome, store.outcome(i));
+				// each grid is traced back to its result line.
+				assertTrue(lines[i], lines[i].startsWith(store.source(i) + "#" + store.index(i) + " "));
+			}
+		}
+
+		// a file of another dimension is stored as a single malformed grid.
+		Path binary = folder.newFile("four.bin").toPath();
+		try (BinaryGridWriter writer = new BinaryGridWriter(binary, 4)) {
+			writer.write(new Grid(4));
+		}
+		try (AuditStore store = AuditStore.create(folder.getRoot().toPath().resolve("four"), 9)) {
+			new BatchValidator(9, new StringWriter(), ReportFormat.TEXT, store).validate(binary);
+			assertEquals(1, store.count());
+			assertEquals(Outcome.MALFORMED, store.outcome(0));
+			assertEquals(binary.toString(), store.source(0));
+			assertEquals(1, store.index(0));
+		}
+	}
+
+	@Test
+	public void illegalArgumentsTest() throws Exception {
+		try (AuditStore store = AuditStore.create(folder.getRoot().toPath(), 4)) {
+			final int source = store.addSource("test");
+			try {
+				store.append(new Grid(4), Status.VALID, source + 1, 1);
+				fail("A source not added should be rejected");
+			} catch (IllegalArgumentException ex) {
+				assertEquals("ERROR: source (1) is outside range (0,0)", ex.getMessage());
+			}
+			try {
+				store.append(new Grid(9), Status.VALID, source, 1);
+				fail("A grid of another dimension should be rejected");
+			} catch (IllegalArgumentException ex) {
+				assertEquals("ERROR: Mismatch between the dimension {4} and the grid dimension {9}.", ex.getMessage());
+			}
+			Grid grid = new Grid(4);
+			grid.cells()[5] = 5;
+			try {
+				store.append(grid, Status.INVALID, source, 1);
+				fail("A value outside the range should be rejected");
+			} catch (IllegalArgumentException ex) {
+				assertEquals("Error: Cell Value 5 at row 2, column 2 is outside range (0,4)", ex.getMessage());
+			}
+			assertEquals(0, store.count());
+			try {
+				store.outcome(0);
+				fail("A position outside the store should be rejected");
+			} catch (IndexOutOfBoundsException ex) {
+				assertEquals("ERROR: grid (0) is outside range (0,-1)", ex.getMessage());
+			}
+			try {
+				new BatchValidator(9, new StringWriter(), ReportFormat.TEXT, store);
+				fail("A store of another dimension should be rejected");
+			} catch (IllegalArgumentException ex) {
+				// expected.
+			}
+		}
+
+		Files.write(folder.getRoot().toPath().resolve(AuditStore.RESULTS), new byte[16]);
+		try {
+			AuditStore.open(folder.getRoot().toPath()).close();
+			fail("A damaged results column should be rejected");
+		} catch (IOException ex) {
+			assertEquals("Error: " + folder.getRoot() + " is not an audit store.", ex.getMessage());
+		}
+	}
+}
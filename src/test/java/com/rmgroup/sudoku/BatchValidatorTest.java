@@ -0,0 +1,94 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchValidatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private StringWriter out;
+
+	private BatchValidator validator;
+
+	@Before
+	public void setUp() throws Exception {
+		out = new StringWriter();
+		validator = new BatchValidator(9, out);
+	}
+
+	@Test
+	public void mixedFormatsTest() throws Exception {
+		BatchValidator.Summary summary = validator.validate(CsvReaderTest.resource("sudokuBatch.txt"));
+
+		assertEquals(6, summary.total());
+		assertEquals(2, summary.valid());
+		assertEquals(4, summary.invalid());
+		assertEquals(2, summary.malformed());
+
+		String[] lines = out.toString().split(System.lineSeparator());
+		assertEquals(6, lines.length);
+		assertTrue(lines[0].endsWith("sudokuBatch.txt#1 VALID"));
+		assertTrue(lines[1].endsWith("#2 VALID"));
+		assertTrue(lines[2].endsWith("#3 INVALID"));
+		assertTrue(lines[3].contains("#4 INVALID ("));
+		assertTrue(lines[4].contains("#5 INVALID (ERROR: Mismatch between the dimension {9} and number of rows"));
+		assertTrue(lines[5].endsWith("#6 INVALID"));
+	}
+
+	@Test
+	public void directoryTest() throws Exception {
+		Files.copy(CsvReaderTest.resource("sudokuBatch.txt"), folder.getRoot().toPath().resolve("a.txt"));
+		Files.copy(CsvReaderTest.resource("sudokuValid.csv"), folder.getRoot().toPath().resolve("b.csv"));
+		folder.newFolder("skipped");
+
+		BatchValidator.Summary summary = validator.validate(folder.getRoot().toPath());
+
+		assertEquals(7, summary.total());
+		assertEquals(3, summary.valid());
+		assertEquals(2, summary.malformed());
+		assertTrue(out.toString().trim().endsWith("b.csv#1 VALID"));
+	}
+
+	@Test
+	public void detectsDimensionPerFileTest() throws Exception {
+		Files.copy(CsvReaderTest.resource("sudokuBatch.txt"), folder.getRoot().toPath().resolve("a.txt"));
+		Files.copy(CsvReaderTest.resource("sudoku16x16Valid.csv"), folder.getRoot().toPath().resolve("b.csv"));
+		Files.write(folder.getRoot().toPath().resolve("c.csv"), "1,2,3,4,5\n".getBytes(StandardCharsets.US_ASCII));
+
+		validator = new BatchValidator(SudokuReader.DETECT_DIMENSION, out);
+		BatchValidator.Summary summary = validator.validate(folder.getRoot().toPath());
+
+		assertEquals(8, summary.total());
+		assertEquals(3, summary.valid());
+		assertEquals(3, summary.malformed());
+		String[] lines = out.toString().split(System.lineSeparator());
+		assertTrue(lines[6].endsWith("b.csv#1 VALID"));
+		assertTrue(lines[7].endsWith("c.csv#1 INVALID (ERROR: dimension (5) must be a perfect square)"));
+
+		StringWriter parallel = new StringWriter();
+		new ParallelBatchValidator(SudokuReader.DETECT_DIMENSION, parallel, 2, 2, 2).validate(folder.getRoot().toPath());
+		assertEquals(out.toString(), parallel.toString());
+	}
+
+	@Test
+	public void detectDimensionTest() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		assertEquals(SudokuReader.DETECT_DIMENSION, BatchValidator.detectDimension(directory));
+		Files.write(directory.resolve("a.csv"), "1,2,3,4,5\n".getBytes(StandardCharsets.US_ASCII));
+		Files.copy(CsvReaderTest.resource("sudoku16x16Valid.csv"), directory.resolve("b.csv"));
+		Files.copy(CsvReaderTest.resource("sudokuBatch.txt"), directory.resolve("c.txt"));
+		assertEquals(16, BatchValidator.detectDimension(directory));
+		assertEquals(9, BatchValidator.detectDimension(directory.resolve("c.txt")));
+	}
+}
@@ -0,0 +1,246 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rmgroup.sudoku.BatchValidator.Summary;
+
+public class BinaryGridReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Grid randomGrid(final int dimension, final Random random) {
+		Grid grid = new Grid(dimension);
+		for (int cell = 0; cell < grid.size(); cell++) {
+			grid.cells()[cell] = (byte) random.nextInt(dimension + 1);
+		}
+		return grid;
+	}
+
+	private Path write(final String name, final List<Grid> grids, final int dimension) throws IOException {
+		Path file = folder.getRoot().toPath().resolve(name);
+		try (BinaryGridWriter writer = new BinaryGridWriter(file, dimension)) {
+			for (Grid grid : grids) {
+				writer.write(grid);
+			}
+			assertEquals(grids.size(), writer.count());
+		}
+		return file;
+	}
+
+	@Test
+	public void roundTripTest() throws Exception {
+		Random random = new Random(15);
+		for (int dimension : new int[] {1, 4, 9, 16, 25}) {
+			List<Grid> grids = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				grids.add(randomGrid(dimension, random));
+			}
+			Path file = write("grids" + dimension + ".bin", grids, dimension);
+			assertEquals(BinaryGridReader.HEADER_BYTES + 100L * BinaryGridReader.recordBytes(dimension), Files.size(file));
+			assertTrue(BinaryGridReader.isBinary(file));
+
+			try (BinaryGridReader reader = new BinaryGridReader(file)) {
+				assertEquals(dimension, reader.dimension());
+				assertEquals(100, reader.count());
+				Grid grid = new Grid(dimension);
+				for (Grid expected : grids) {
+					assertTrue(reader.next(grid));
+					assertEquals(expected, grid);
+				}
+				assertFalse(reader.next(grid));
+				assertEquals(100, reader.index());
+
+				// and in any order.
+				for (int i = 0; i < 100; i++) {
+					int position = random.nextInt(100);
+					reader.read(position, grid);
+					assertEquals(grids.get(position), grid);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void heapSegmentsTest() throws Exception {
+		Random random = new Random(9);
+		List<Grid> grids = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			grids.add(randomGrid(9, random));
+		}
+		Path file = write("large.bin", grids, 9);
+		assertTrue(Files.size(file) > 3 * MappedCsvReader.SMALL_FILE);
+
+		Grid grid = new Grid(9);
+		try (BinaryGridReader mapped = new BinaryGridReader(file); BinaryGridReader heap = new BinaryGridReader(file, false)) {
+			assertTrue(mapped.isMapped());
+			assertFalse(heap.isMapped());
+			for (int i = 0; i < grids.size(); i++) {
+				heap.read(i, grid);
+				assertEquals(grids.get(i), grid);
+				assertTrue(mapped.next(grid));
+				assertEquals(grids.get(i), grid);
+			}
+		}
+		// read into the heap, the file may be deleted at once.
+		Files.delete(file);
+	}
+
+	@Test
+	public void nineByNineTakes41BytesTest() {
+		assertEquals(41, BinaryGridReader.recordBytes(9));
+		assertEquals(8, BinaryGridReader.recordBytes(4));
+		assertEquals(256, BinaryGridReader.recordBytes(16));
+	}
+
+	@Test
+	public void readGridTest() throws Exception {
+		Grid solution = SolutionFixture.solution();
+		List<Grid> grids = new ArrayList<>();
+		grids.add(solution);
+		try (BinaryGridReader reader = new BinaryGridReader(write("one.bin", grids, 9))) {
+			assertEquals(solution, reader.readGrid());
+			assertEquals(Sudoku.Status.VALID, Sudoku.getInstance().check(reader.getGrid()));
+		}
+		grids.add(solution);
+		try (BinaryGridReader reader = new BinaryGridReader(write("two.bin", grids, 9))) {
+			reader.readGrid();
+			fail("two grids");
+		} catch (IllegalArgumentException ex) {
+			assertTrue(ex.getMessage().contains("holds 2 grids"));
+		}
+	}
+
+	@Test
+	public void outOfRangeRecordTest() throws Exception {
+		List<Grid> grids = new ArrayList<>();
+		grids.add(new Grid(9));
+		grids.add(new Grid(9));
+		Path file = write("bad.bin", grids, 9);
+		// byte 5 packs cells 10 and 11, the latter, at row 2, column 3, becomes 12.
+		patch(file, BinaryGridReader.HEADER_BYTES + 5, (byte) 0x0C);
+
+		try (BinaryGridReader reader = new BinaryGridReader(file)) {
+			Grid grid = new Grid(9);
+			try {
+				reader.next(grid);
+				fail("out of range");
+			} catch (IllegalArgumentException ex) {
+				assertEquals("Error: Cell Value 12 at row 2, column 3 is outside range (0,9)", ex.getMessage());
+			}
+			// the bad grid is consumed.
+			assertTrue(reader.next(grid));
+			assertEquals(new Grid(9), grid);
+		}
+	}
+
+	@Test
+	public void damagedFilesTest() throws Exception {
+		List<Grid> grids = new ArrayList<>();
+		grids.add(new Grid(4));
+		Path file = write("damaged.bin", grids, 4);
+
+		patch(file, 15, (byte) 2);
+		assertRejected(file, "is shorter than the 2 grids");
+		patch(file, 15, (byte) 1);
+		patch(file, 5, (byte) 5);
+		assertRejected(file, "has a bad header");
+		patch(file, 5, (byte) 4);
+		patch(file, 4, (byte) 2);
+		assertRejected(file, "only version 1 can be read");
+
+		Path text = CsvReaderTest.resource("sudokuValid.csv");
+		assertFalse(BinaryGridReader.isBinary(text));
+		assertRejected(text, "is not a binary grid file");
+	}
+
+	private static void assertRejected(final Path file, final String message) {
+		try {
+			new BinaryGridReader(file);
+			fail(message);
+		} catch (IOException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().contains(message));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void positionOutsideFileTest() throws Exception {
+		List<Grid> grids = new ArrayList<>();
+		grids.add(new Grid(4));
+		try (BinaryGridReader reader = new BinaryGridReader(write("short.bin", grids, 4))) {
+			reader.read(1, new Grid(4));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void writerRejectsOtherDimensionTest() throws Exception {
+		try (BinaryGridWriter writer = new BinaryGridWriter(folder.newFile("x.bin").toPath(), 9)) {
+			writer.write(new Grid(4));
+		}
+	}
+
+	@Test
+	public void batchValidatorsReadBinaryFilesTest() throws Exception {
+		// the binary copy of a CSV batch gives the same report, with the file name changed.
+		Path csv = folder.newFile("many.txt").toPath();
+		Random random = new Random(3);
+		StringBuilder text = new StringBuilder();
+		List<Grid> grids = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			Grid grid = SolutionFixture.solution();
+			if (random.nextBoolean())
+				grid.cells()[random.nextInt(81)] = (byte) (1 + random.nextInt(9));
+			grids.add(grid);
+			for (int cell = 0; cell < 81; cell++) {
+				text.append(grid.get(cell));
+			}
+			text.append(System.lineSeparator());
+		}
+		Files.write(csv, text.toString().getBytes("US-ASCII"));
+		Path binary = write("many.bin", grids, 9);
+
+		StringWriter expected = new StringWriter();
+		Summary csvSummary = new BatchValidator(9, expected).validate(csv);
+		StringWriter sequential = new StringWriter();
+		Summary binarySummary = new BatchValidator(SudokuReader.DETECT_DIMENSION, sequential).validate(binary);
+		StringWriter parallel = new StringWriter();
+		Summary parallelSummary = new ParallelBatchValidator(9, parallel, 4, 100, 3).validate(binary);
+
+		String report = expected.toString().replace(csv.toString(), binary.toString());
+		assertEquals(report, sequential.toString());
+		assertEquals(report, parallel.toString());
+		assertEquals(csvSummary.toString(), binarySummary.toString());
+		assertEquals(csvSummary.toString(), parallelSummary.toString());
+	}
+
+	@Test
+	public void batchValidatorReportsWrongDimensionTest() throws Exception {
+		List<Grid> grids = new ArrayList<>();
+		grids.add(new Grid(4));
+		StringWriter out = new StringWriter();
+		Summary summary = new BatchValidator(9, out).validate(write("four.bin", grids, 4));
+		assertEquals(1, summary.malformed());
+		assertTrue(out.toString().contains("four.bin#1 INVALID (ERROR: Mismatch between the dimension {9}"));
+	}
+
+	private static void patch(final Path file, final long position, final byte value) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {value}), position);
+		}
+	}
+}
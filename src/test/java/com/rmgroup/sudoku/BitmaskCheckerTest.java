@@ -0,0 +1,100 @@
+package com.rmgroup.sudoku;
+
+import static com.rmgroup.sudoku.SolutionFixture.*;
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class BitmaskCheckerTest {
+
+	@Test
+	public void validSolutionTest() {
+		assertEquals(Status.VALID, BitmaskChecker.check(VALID_SOLUTION.clone()));
+	}
+
+	@Test
+	public void validByteSolutionAtOffsetTest() {
+		byte[] cells = new byte[BitmaskChecker.CELL_COUNT + 5];
+		for (int i = 0; i < VALID_SOLUTION.length; i++) {
+			cells[i + 5] = (byte) VALID_SOLUTION[i];
+		}
+		assertEquals(Status.VALID, BitmaskChecker.check(cells, 5));
+	}
+
+	@Test
+	public void duplicateInLastRowTest() {
+		int[] cells = VALID_SOLUTION.clone();
+		cells[80] = 8;
+		assertEquals(Status.INVALID, BitmaskChecker.check(cells));
+	}
+
+	@Test
+	public void rowsValidColumnsInvalidTest() {
+		// every row is 1..9 but all columns hold a single value.
+		int[] cells = new int[BitmaskChecker.CELL_COUNT];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = i % 9 + 1;
+		}
+		assertEquals(Status.INVALID, BitmaskChecker.check(cells));
+	}
+
+	@Test
+	public void outOfRangeValuesTest() {
+		int[] cells = VALID_SOLUTION.clone();
+		cells[40] = 0;
+		assertEquals(Status.INVALID, BitmaskChecker.check(cells));
+		cells[40] = 34;
+		assertEquals(Status.INVALID, BitmaskChecker.check(cells));
+		cells[40] = -1;
+		assertEquals(Status.INVALID, BitmaskChecker.check(cells));
+	}
+
+	@Test
+	public void agreesWithSetComparisonTest() {
+		Random random = new Random(42);
+		for (int trial = 0; trial < 2000; trial++) {
+			int[] cells = VALID_SOLUTION.clone();
+			int changes = random.nextInt(3);
+			for (int change = 0; change < changes; change++) {
+				cells[random.nextInt(cells.length)] = random.nextInt(11);
+			}
+			assertEquals(referenceCheck(cells), BitmaskChecker.check(cells));
+			assertEquals(referenceCheck(cells), Sudoku.getInstance().check(toGrid(cells)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongLengthTest() {
+		BitmaskChecker.check(new int[80]);
+	}
+
+	/**
+	 * The set based comparison the checker replaces.
+	 */
+	private static Status referenceCheck(final int[] cells) {
+		Set<Integer> digits = new HashSet<>();
+		for (int i = 1; i <= 9; i++) {
+			digits.add(i);
+		}
+		for (int unit = 0; unit < 9; unit++) {
+			Set<Integer> row = new HashSet<>();
+			Set<Integer> col = new HashSet<>();
+			Set<Integer> box = new HashSet<>();
+			for (int i = 0; i < 9; i++) {
+				row.add(cells[unit * 9 + i]);
+				col.add(cells[i * 9 + unit]);
+				box.add(cells[(unit / 3 * 3 + i / 3) * 9 + unit % 3 * 3 + i % 3]);
+			}
+			if (!digits.equals(row) || !digits.equals(col) || !digits.equals(box)) {
+				return Status.INVALID;
+			}
+		}
+		return Status.VALID;
+	}
+}
@@ -0,0 +1,188 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class CanonicalTest {
+
+	/**
+	 * Returns {@code grid} disguised by a random symmetry: its digits relabelled, its bands,
+	 * rows within a band, stacks and columns within a stack shuffled, and maybe transposed.
+	 */
+	static Grid disguise(final Grid grid, final Random random) {
+		final int dimension = grid.dimension(), box = grid.boxDimension();
+		final int[] labels = shuffled(dimension + 1, 1, random);
+		final int[] rows = lineOrder(box, random), columns = lineOrder(box, random);
+		final boolean transpose = random.nextBoolean();
+		final Grid result = new Grid(dimension);
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				final int value = grid.get(rows[row], columns[col]);
+				final int mapped = value >= 1 && value <= dimension ? labels[value] : value;
+				if (transpose)
+					result.set(col, row, mapped);
+				else
+					result.set(row, col, mapped);
+			}
+		}
+		return result;
+	}
+
+	private static int[] lineOrder(final int box, final Random random) {
+		final int[] bands = shuffled(box, 0, random);
+		final int[] order = new int[box * box];
+		for (int band = 0; band < box; band++) {
+			final int[] lines = shuffled(box, 0, random);
+			for (int i = 0; i < box; i++) {
+				order[band * box + i] = bands[band] * box + lines[i];
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * @return 0..length-1 with the values from {@code from} on shuffled.
+	 */
+	private static int[] shuffled(final int length, final int from, final Random random) {
+		final int[] values = new int[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = i;
+		}
+		for (int i = length - 1; i > from; i--) {
+			final int j = from + random.nextInt(i - from + 1);
+			final int swap = values[i];
+			values[i] = values[j];
+			values[j] = swap;
+		}
+		return values;
+	}
+
+	@Test
+	public void disguisedSolutionsShareAFormTest() {
+		Random random = new Random(14);
+		Grid canonical = Canonical.of(SolutionFixture.solution());
+		assertEquals(Sudoku.Status.VALID, Sudoku.getInstance().check(canonical));
+		// the least form starts with the digits in order.
+		assertEquals("[1, 2, 3, 4, 5, 6, 7, 8, 9]", Arrays.toString(canonical.row(0).toArray()));
+		for (int trial = 0; trial < 50; trial++) {
+			assertEquals("trial " + trial, canonical, Canonical.of(disguise(SolutionFixture.solution(), random)));
+		}
+	}
+
+	@Test
+	public void gridIsUnchangedTest() {
+		Grid grid = disguise(SolutionFixture.solution(), new Random(1));
+		Grid copy = grid.copy();
+		Canonical.of(grid);
+		assertEquals(copy, grid);
+	}
+
+	@Test
+	public void fourByFourSolutionsFormTwoClassesTest() {
+		// the 288 4 x 4 solutions are of two essentially different kinds.
+		Set<Grid> forms = new HashSet<>();
+		int solutions = fill(new Grid(4), 0, forms);
+		assertEquals(288, solutions);
+		assertEquals(2, forms.size());
+	}
+
+	private static int fill(final Grid grid, final int cell, final Set<Grid> forms) {
+		if (cell == grid.size()) {
+			forms.add(Canonical.of(grid));
+			return 1;
+		}
+		int solutions = 0;
+		for (int value = 1; value <= 4; value++) {
+			grid.set(cell / 4, cell % 4, value);
+			if (!repeats(grid, cell)) {
+				solutions += fill(grid, cell + 1, forms);
+			}
+		}
+		grid.set(cell / 4, cell % 4, Grid.EMPTY);
+		return solutions;
+	}
+
+	/**
+	 * @return whether the value at {@code cell} repeats one of its row, column or box.
+	 */
+	private static boolean repeats(final Grid grid, final int cell) {
+		final int row = cell / 4, col = cell % 4, value = grid.get(row, col);
+		for (int i = 0; i < 4; i++) {
+			final int boxRow = row / 2 * 2 + i / 2, boxCol = col / 2 * 2 + i % 2;
+			if (i != col && grid.get(row, i) == value || i != row && grid.get(i, col) == value
+					|| (boxRow != row || boxCol != col) && grid.get(boxRow, boxCol) == value)
+				return true;
+		}
+		return false;
+	}
+
+	@Test
+	public void invalidGridsStayInvalidTest() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < 50; trial++) {
+			Grid grid = SolutionFixture.solution();
+			grid.set(random.nextInt(9), random.nextInt(9), 1 + random.nextInt(9));
+			if (trial % 3 == 0)
+				grid.set(random.nextInt(9), random.nextInt(9), Grid.EMPTY);
+			assertEquals("trial " + trial, Sudoku.getInstance().check(grid),
+					Sudoku.getInstance().check(Canonical.of(grid)));
+		}
+	}
+
+	@Test
+	public void latinButInvalidBoxesTest() {
+		// a cyclic Latin square keeps every row and column whole but repeats within boxes.
+		Grid grid = new Grid(9);
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				grid.set(row, col, 1 + (row + col) % 9);
+			}
+		}
+		assertTrue(Canonical.isLatin(grid.cells(), 9));
+		assertEquals(Sudoku.Status.INVALID, Sudoku.getInstance().check(Canonical.of(grid)));
+		assertEquals(Canonical.of(grid), Canonical.of(disguise(grid, new Random(3))));
+	}
+
+	@Test
+	public void otherGridsAreRelabelledTest() {
+		Grid puzzle = SolverTest.puzzle(SolverTest.HARD_PUZZLES[0]);
+		assertFalse(Canonical.isLatin(puzzle.cells(), 9));
+		Grid form = Canonical.of(puzzle);
+		assertEquals(1, form.get(0));
+		// the blanks stay where they were.
+		for (int cell = 0; cell < 81; cell++) {
+			assertEquals(puzzle.get(cell) == Grid.EMPTY, form.get(cell) == Grid.EMPTY);
+		}
+		// relabelling is exact: a puzzle with its digits renamed has the same form.
+		Random random = new Random(9);
+		int[] labels = shuffled(10, 1, random);
+		Grid renamed = puzzle.copy();
+		for (int cell = 0; cell < 81; cell++) {
+			renamed.cells()[cell] = (byte) labels[puzzle.get(cell)];
+		}
+		assertEquals(form, Canonical.of(renamed));
+	}
+
+	@Test
+	public void largerSolutionsAreRelabelledTest() {
+		Grid grid = new Grid(16);
+		for (int row = 0; row < 16; row++) {
+			for (int col = 0; col < 16; col++) {
+				grid.set(row, col, 1 + (row % 4 * 4 + row / 4 + col) % 16);
+			}
+		}
+		assertEquals(Sudoku.Status.VALID, Sudoku.getInstance().check(grid));
+		assertEquals(Sudoku.Status.VALID, Sudoku.getInstance().check(Canonical.of(grid)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullGridTest() {
+		Canonical.of(null);
+	}
+}
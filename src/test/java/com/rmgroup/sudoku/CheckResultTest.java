@@ -0,0 +1,169 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.CheckResult.Problem;
+import com.rmgroup.sudoku.Grid.Unit;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class CheckResultTest {
+
+	private final Sudoku sudoku = Sudoku.getInstance();
+
+	private static byte[] validCells() {
+		byte[] cells = new byte[BitmaskChecker.CELL_COUNT];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = (byte) SolutionFixture.VALID_SOLUTION[i];
+		}
+		return cells;
+	}
+
+	@Test
+	public void validSolutionTest() {
+		CheckResult result = BitmaskChecker.diagnose(validCells(), 0);
+		assertTrue(result.isValid());
+		assertEquals(Status.VALID, result.status());
+		assertNull(result.unitType());
+		assertEquals("VALID", result.toString());
+	}
+
+	@Test
+	public void duplicateInRowTest() {
+		byte[] cells = validCells();
+		cells[6] = 3;
+		CheckResult result = BitmaskChecker.diagnose(cells, 0);
+
+		assertEquals(Status.INVALID, result.status());
+		assertEquals(Unit.Type.ROW, result.unitType());
+		assertEquals(0, result.unitIndex());
+		assertEquals(Problem.DUPLICATE, result.problem());
+		assertEquals(3, result.digit());
+		assertEquals(0, result.row());
+		assertEquals(6, result.column());
+		assertEquals("INVALID: row 1 repeats 3 at row 1, column 7", result.toString());
+	}
+
+	@Test
+	public void emptyCellTest() {
+		byte[] cells = validCells();
+		cells[40] = Grid.EMPTY;
+		CheckResult result = BitmaskChecker.diagnose(cells, 0);
+
+		assertEquals(Unit.Type.ROW, result.unitType());
+		assertEquals(4, result.unitIndex());
+		assertEquals(Problem.MISSING, result.problem());
+		assertEquals(1, result.digit());
+		assertEquals(4, result.row());
+		assertEquals(4, result.column());
+		assertEquals("INVALID: row 5 is missing 1 at row 5, column 5", result.toString());
+	}
+
+	@Test
+	public void duplicateInColumnTest() {
+		// swapping two cells of the first row leaves it complete but repeats 5 in column 1.
+		byte[] cells = validCells();
+		cells[0] = 5;
+		cells[3] = 3;
+		CheckResult result = BitmaskChecker.diagnose(cells, 0);
+
+		assertEquals(Unit.Type.COLUMN, result.unitType());
+		assertEquals(0, result.unitIndex());
+		assertEquals(Problem.DUPLICATE, result.problem());
+		assertEquals(5, result.digit());
+		assertEquals(1, result.row());
+		assertEquals(0, result.column());
+	}
+
+	@Test
+	public void duplicateInBoxTest() {
+		// every row and column is complete, only the subgrids repeat digits.
+		byte[] cells = new byte[BitmaskChecker.CELL_COUNT];
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				cells[row * 9 + col] = (byte) ((row + col) % 9 + 1);
+			}
+		}
+		CheckResult result = BitmaskChecker.diagnose(cells, 0);
+
+		assertEquals(Unit.Type.BOX, result.unitType());
+		assertEquals(0, result.unitIndex());
+		assertEquals(2, result.digit());
+		assertEquals(1, result.row());
+		assertEquals(0, result.column());
+		assertEquals("INVALID: box 1 repeats 2 at row 2, column 1", result.toString());
+	}
+
+	@Test
+	public void stopsAtFirstViolatedRowTest() {
+		byte[] cells = validCells();
+		cells[20] = 9;
+		cells[80] = 0;
+		CheckResult result = BitmaskChecker.diagnose(cells, 0);
+
+		assertEquals(Unit.Type.ROW, result.unitType());
+		assertEquals(2, result.unitIndex());
+	}
+
+	@Test
+	public void offsetTest() {
+		byte[] cells = new byte[BitmaskChecker.CELL_COUNT + 3];
+		System.arraycopy(validCells(), 0, cells, 3, BitmaskChecker.CELL_COUNT);
+		assertTrue(BitmaskChecker.diagnose(cells, 3).isValid());
+	}
+
+	@Test
+	public void fourByFourTest() {
+		Grid grid = Grid.of(new Integer[][] {
+			{1, 2, 3, 4},
+			{3, 4, 1, 2},
+			{2, 1, 4, 3},
+			{4, 3, 2, 1}});
+		assertTrue(sudoku.diagnose(grid).isValid());
+
+		grid.set(3, 3, 4);
+		CheckResult result = sudoku.diagnose(grid);
+		assertEquals(Unit.Type.ROW, result.unitType());
+		assertEquals(3, result.unitIndex());
+		assertEquals(Problem.DUPLICATE, result.problem());
+		assertEquals(4, result.digit());
+	}
+
+	@Test
+	public void boxedGridTest() {
+		Integer[][] grid = SolutionFixture.toGrid(SolutionFixture.VALID_SOLUTION);
+		assertTrue(sudoku.diagnose(grid).isValid());
+
+		grid[7][2] = null;
+		CheckResult result = sudoku.diagnose(grid);
+		assertEquals(Unit.Type.ROW, result.unitType());
+		assertEquals(7, result.unitIndex());
+		assertEquals(Problem.MISSING, result.problem());
+		assertEquals(9, result.digit());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullGridTest() {
+		sudoku.diagnose((Grid) null);
+	}
+
+	@Test
+	public void agreesWithCheckTest() {
+		Random random = new Random(7);
+		for (int trial = 0; trial < 2000; trial++) {
+			byte[] cells = validCells();
+			int changes = random.nextInt(3);
+			for (int change = 0; change < changes; change++) {
+				cells[random.nextInt(cells.length)] = (byte) random.nextInt(10);
+			}
+			CheckResult fast = BitmaskChecker.diagnose(cells, 0);
+			CheckResult general = MaskChecker.diagnose(cells, 0, 9);
+
+			assertEquals(BitmaskChecker.check(cells, 0), fast.status());
+			assertEquals(general.toString(), fast.toString());
+		}
+	}
+}
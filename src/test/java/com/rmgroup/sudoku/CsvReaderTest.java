@@ -0,0 +1,84 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class CsvReaderTest {
+
+	static Path resource(final String name) throws URISyntaxException {
+		return Paths.get(CsvReaderTest.class.getResource("/" + name).toURI());
+	}
+
+	@Test
+	public void readValidGridTest() throws Exception {
+		Grid grid = new CsvReader(resource("sudokuValid.csv"), 9).readGrid();
+		assertEquals(SolutionFixture.solution(), grid);
+		assertEquals(Status.VALID, Sudoku.getInstance().check(grid));
+	}
+
+	@Test
+	public void boxedAdapterTest() throws Exception {
+		CsvReader reader = new CsvReader(resource("sudokuInvalid.csv"), 9);
+		assertTrue(Arrays.deepEquals(reader.readGrid().toArray(), reader.getGrid()));
+		assertEquals(Status.INVALID, Sudoku.getInstance().check(reader.getGrid()));
+		assertEquals(Status.INVALID, Sudoku.getInstance().check(reader.readGrid()));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void letterCellTest() throws Exception {
+		new CsvReader(resource("sudokuHasCellWithLetterA.csv"), 9).readGrid();
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void missingCellTest() throws Exception {
+		new CsvReader(resource("sudokuMissingCell.csv"), 9).readGrid();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void outOfRangeTest() throws Exception {
+		new CsvReader(resource("sudokuOutOfRange.csv"), 9).readGrid();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void tooFewRowsTest() throws Exception {
+		new CsvReader(resource("sudokuValid.csv"), 16).readGrid();
+	}
+
+	@Test(expected = IOException.class)
+	public void missingFileTest() throws Exception {
+		new CsvReader(Paths.get("DummyFile"), 9).readGrid();
+	}
+
+	@Test
+	public void detectsDimensionTest() throws Exception {
+		Grid grid = new CsvReader(resource("sudoku16x16Valid.csv")).readGrid();
+		assertEquals(16, grid.dimension());
+		assertEquals(10, grid.get(0, 9));
+		assertEquals(Status.VALID, Sudoku.getInstance().check(grid));
+
+		assertEquals(9, new CsvReader(resource("sudokuValid.csv")).readGrid().dimension());
+	}
+
+	@Test
+	public void blankCellsTest() throws Exception {
+		Grid puzzle = new CsvReader(resource("sudokuPuzzle.csv"), SudokuReader.DETECT_DIMENSION, true).readGrid();
+		assertEquals(5, puzzle.get(0, 0));
+		assertEquals(Grid.EMPTY, puzzle.get(0, 2));
+		assertEquals(Grid.EMPTY, puzzle.get(8, 0));
+		assertEquals(Status.INVALID, Sudoku.getInstance().check(puzzle));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void blankCellsOnlyInPuzzlesTest() throws Exception {
+		new CsvReader(resource("sudokuPuzzle.csv")).readGrid();
+	}
+}
@@ -0,0 +1,214 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CsvRowParserTest {
+
+	@Test
+	public void validRowTest() {
+		byte[] cells = new byte[12];
+		CsvRowParser.parseRow("9,2,8,4,7,6,1,3,5", 9, cells, 3, 1);
+		assertArrayEquals(new byte[] {0,0,0,9,2,8,4,7,6,1,3,5}, cells);
+	}
+
+	@Test
+	public void signsLeadingZerosAndTrailingCommasTest() {
+		byte[] cells = new byte[9];
+		CsvRowParser.parseRow("+1,2,3,4,5,6,7,8,09,,,", 9, cells, 0, 1);
+		assertArrayEquals(new byte[] {1,2,3,4,5,6,7,8,9}, cells);
+	}
+
+	@Test
+	public void nonIntegerCellTest() {
+		assertEquals("java.lang.NumberFormatException: Error: non-integer value \"A\" at row 4, column 6",
+				parse("6,1,4,9,2,A,5,8,7", 4));
+	}
+
+	@Test
+	public void missingCellTest() {
+		assertEquals("java.lang.NumberFormatException: Error: missing value at row 2, column 3",
+				parse("1,2,,4,5,6,7,8,9", 2));
+		assertEquals("java.lang.NumberFormatException: Error: non-integer value \" \" at row 2, column 9",
+				parse("5,2,8,3,7,6,1,9, ", 2));
+	}
+
+	@Test
+	public void outOfRangeCellTest() {
+		assertEquals("java.lang.IllegalArgumentException: Error: Cell Value 10 at row 6, column 7 is outside range (1,9)",
+				parse("7,5,3,4,6,8,10,2,1", 6));
+		assertEquals("java.lang.IllegalArgumentException: Error: Cell Value -2147483648 at column 1 is outside range (1,9)",
+				parse("-2147483648,5,3,4,6,8,1,2,1", 0));
+		assertEquals("java.lang.IllegalArgumentException: Error: Cell Value -1 at row 1, column 9 is outside range (1,9)",
+				parse("1,2,3,4,5,6,7,8,-1", 1));
+	}
+
+	@Test
+	public void firstBadCellIsReportedTest() {
+		assertEquals("java.lang.IllegalArgumentException: Error: Cell Value 0 at row 3, column 1 is outside range (1,9)",
+				parse("0,2,3,4,5,6,7,8,10", 3));
+	}
+
+	@Test
+	public void nonIntegerIsReportedBeforeRangeTest() {
+		// as Integer.parseInt did, a cell which is not an int is reported before a cell out of range.
+		assertEquals("java.lang.NumberFormatException: Error: non-integer value \"x\" at row 3, column 9",
+				parse("0,2,3,4,5,6,7,8,x", 3));
+		assertEquals("java.lang.NumberFormatException: Error: non-integer value \"A\" at row 1, column 2",
+				parse("10,A,3,4,5,6,7,8,9", 1));
+		assertEquals("java.lang.NumberFormatException: Error: non-integer value \"99999999999\" at column 1",
+				parse("99999999999,5,3,4,6,8,1,2,1", 0));
+		assertEquals("java.lang.NumberFormatException: Error: non-integer value \"2147483648\" at row 1, column 9",
+				parse("10,2,3,4,5,6,7,8,2147483648", 1));
+		assertEquals(parse("10,A,3,4,5,6,7,8,9", 1), parseBytes("10,A,3,4,5,6,7,8,9", 1));
+	}
+
+	@Test
+	public void wrongWidthIsReportedFirstTest() {
+		assertEquals("java.lang.IllegalArgumentException: ERROR: Mismatch between the dimension {9} and number of elements in solution row 5 {8}.",
+				parse("x,2,3,4,5,6,7,8", 5));
+		assertEquals("java.lang.IllegalArgumentException: ERROR: Mismatch between the dimension {9} and number of elements in solution row {1}.",
+				parse("", 0));
+	}
+
+	@Test
+	public void lineFormatTest() {
+		byte[] cells = new byte[81];
+		CsvRowParser.parseLine("371594862528376194496281735614923587982715643753468921845139276239657418167842359", 9, cells);
+		assertEquals(3, cells[0]);
+		assertEquals(9, cells[80]);
+	}
+
+	@Test
+	public void lineFormatBadCellTest() {
+		try {
+			CsvRowParser.parseLine("371594862528376194496281735614923587982715643753468921845139276239657418167842.59", 9, new byte[81]);
+			fail();
+		} catch (NumberFormatException nfe) {
+			assertEquals("Error: non-integer value \".\" at row 9, column 7", nfe.getMessage());
+		}
+	}
+
+	@Test
+	public void blankCellsTest() {
+		byte[] cells = new byte[9];
+		CsvRowParser.parseRow("5,3,.,0,7,.,.,.,00", 9, cells, 0, 1, true);
+		assertArrayEquals(new byte[] {5,3,0,0,7,0,0,0,0}, cells);
+		try {
+			CsvRowParser.parseRow("5,3,..,0,7,.,1,2,3", 9, cells, 0, 1, true);
+			fail();
+		} catch (NumberFormatException nfe) {
+			assertEquals("Error: non-integer value \"..\" at row 1, column 3", nfe.getMessage());
+		}
+		try {
+			CsvRowParser.parseRow("5,3,.,-1,7,.,1,2,3", 9, cells, 0, 1, true);
+			fail();
+		} catch (IllegalArgumentException iae) {
+			assertEquals("Error: Cell Value -1 at row 1, column 4 is outside range (0,9)", iae.getMessage());
+		}
+
+		cells = new byte[16];
+		CsvRowParser.parseLine("12.40..3.1..4..2", 4, cells, true);
+		assertArrayEquals(new byte[] {1,2,0,4,0,0,0,3,0,1,0,0,4,0,0,2}, cells);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lineFormatShortTest() {
+		CsvRowParser.parseLine("37159486252837619449628173561492358798271564375346892184513927623965741816784235", 9, new byte[81]);
+	}
+
+	@Test
+	public void bytesParseAsCharactersTest() {
+		String[] rows = {"1,2,3,4,5,6,7,8,9", "1,2,3,4,5,6,7,8,9,,,", "+1,2,3,4,5,6,7,8,09", "", ",,,",
+				"1,2,3,4,5,6,7,8", "1,2,3,4,5,6,7,8,9,1", "1,2,3,4,5,6,7,8,-9", "1,2,3,4,5,6,7,8,10",
+				"1,2,3,4,5,6,7,8,x", "1,2,,4,5,6,7,8,9", "0,2,3,4,5,6,7,8,a", "1,2,3,4,5,6,7,8,99999999999",
+				"1,2,3,4,5,6,7,8,\u00a3", "1,2,3,4,5,6,7,8, 9", "1,2,3,4,5,6,7,8,+", "1;2;3;4;5;6;7;8;9", "1,2,3,4,5,6,7,8,1-"};
+		for (String row : rows) {
+			assertEquals(row, parse(row, 7), parseBytes(row, 7));
+		}
+
+		Random random = new Random(11);
+		String chars = "0123456789,+-x ";
+		for (int trial = 0; trial < 5000; trial++) {
+			char[] row = "3,7,1,5,9,4,8,6,2".toCharArray();
+			for (int change = random.nextInt(3); change >= 0; change--) {
+				row[random.nextInt(row.length)] = chars.charAt(random.nextInt(chars.length()));
+			}
+			String text = new String(row);
+			assertEquals(text, parse(text, 2), parseBytes(text, 2));
+		}
+	}
+
+	private static String parse(final String row, final int rowNumber) {
+		byte[] cells = new byte[9];
+		try {
+			CsvRowParser.parseRow(row, 9, cells, 0, rowNumber);
+			return Arrays.toString(cells);
+		} catch (IllegalArgumentException ex) {
+			return ex.getClass().getName() + ": " + ex.getMessage();
+		}
+	}
+
+	private static String parseBytes(final String row, final int rowNumber) {
+		byte[] cells = new byte[9];
+		byte[] bytes = ("#" + row + "#").getBytes(StandardCharsets.UTF_8);
+		try {
+			CsvRowParser.parseRow(ByteBuffer.wrap(bytes), 1, bytes.length - 1, 9, cells, 0, rowNumber);
+			return Arrays.toString(cells);
+		} catch (IllegalArgumentException ex) {
+			return ex.getClass().getName() + ": " + ex.getMessage();
+		}
+	}
+
+	@Test
+	public void letterCellsOfLargerGridsTest() {
+		byte[] cells = new byte[16];
+		CsvRowParser.parseRow("1,2,3,4,5,6,7,8,9,A,b,C,d,E,F,16", 16, cells, 0, 1);
+		assertArrayEquals(new byte[] {1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16}, cells);
+
+		CsvRowParser.parseLine("123456789abcdefg", 4 * 4, cells);
+		assertEquals(16, cells[15]);
+
+		assertEquals("java.lang.IllegalArgumentException: Error: Cell Value H at row 2, column 16 is outside range (1,16)",
+				parse16("1,2,3,4,5,6,7,8,9,A,B,C,D,E,F,H", 2));
+		assertEquals("java.lang.NumberFormatException: Error: non-integer value \"AB\" at row 2, column 10",
+				parse16("1,2,3,4,5,6,7,8,9,AB,B,C,D,E,F,G", 2));
+	}
+
+	@Test
+	public void dimensionOfTest() {
+		assertEquals(9, CsvRowParser.dimensionOf("9,2,8,4,7,6,1,3,5,,"));
+		assertEquals(16, CsvRowParser.dimensionOf("1,2,3,4,5,6,7,8,9,A,B,C,D,E,F,G"));
+		assertEquals(9, CsvRowParser.dimensionOf(
+				"371594862528376194496281735614923587982715643753468921845139276239657418167842359"));
+		assertEquals(4, CsvRowParser.dimensionOf("1234341221434321"));
+		try {
+			CsvRowParser.dimensionOf("1,2,3,4,5,6,7,8");
+			fail("8 is not a perfect square");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: dimension (8) must be a perfect square", ex.getMessage());
+		}
+		try {
+			CsvRowParser.dimensionOf("12345");
+			fail("5 cells are not a grid");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: cannot detect the dimension of a solution line of {5} elements.", ex.getMessage());
+		}
+	}
+
+	private static String parse16(final String line, final int row) {
+		try {
+			CsvRowParser.parseRow(line, 16, new byte[16], 0, row);
+			CsvRowParser.parseRow(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)), 0, line.length(), 16, new byte[16], 0, row);
+			return "accepted";
+		} catch (IllegalArgumentException ex) {
+			return ex.toString();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryWatcherTest {
+
+	private static final String VALID = "371594862528376194496281735614923587982715643753468921845139276239657418167842359\n";
+
+	private static final String INVALID = "371594862528376194496281735614923587982715643753468921845139276239657418167842353\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path inbox;
+
+	private DirectoryWatcher watcher;
+
+	private Thread running;
+
+	@Before
+	public void setUp() {
+		inbox = folder.getRoot().toPath();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (watcher != null)
+			watcher.close();
+		if (running != null)
+			running.join(TimeUnit.SECONDS.toMillis(10));
+	}
+
+	private void start() throws Exception {
+		watcher = new DirectoryWatcher(inbox, 2, 50);
+		running = new Thread(() -> {
+			try {
+				watcher.run();
+			} catch (Exception ex) {
+				throw new RuntimeException(ex);
+			}
+		});
+		running.start();
+	}
+
+	private static void write(final Path file, final String text) throws Exception {
+		Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static void awaitFile(final Path file) throws Exception {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+		while (!Files.exists(file)) {
+			assertTrue("timed out waiting for " + file, System.nanoTime() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private String results() throws Exception {
+		return new String(Files.readAllBytes(inbox.resolve(DirectoryWatcher.RESULTS)), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void droppedFilesTest() throws Exception {
+		write(inbox.resolve("before.txt"), VALID + VALID);
+		start();
+		write(inbox.resolve("good.txt"), VALID);
+		write(inbox.resolve("bad.txt"), VALID + INVALID);
+		write(inbox.resolve(".partial"), INVALID);
+
+		awaitFile(inbox.resolve(DirectoryWatcher.DONE).resolve("before.txt"));
+		awaitFile(inbox.resolve(DirectoryWatcher.DONE).resolve("good.txt"));
+		awaitFile(inbox.resolve(DirectoryWatcher.FAILED).resolve("bad.txt"));
+		watcher.close();
+
+		String results = results();
+		assertTrue(results.contains(inbox.resolve("good.txt") + "#1 VALID"));
+		assertTrue(results.contains(inbox.resolve("bad.txt") + "#2 INVALID"));
+		assertTrue(results.contains(inbox.resolve("bad.txt") + " Checked 2 grids: 1 VALID, 1 INVALID (0 malformed)"));
+		assertTrue(results.contains(inbox.resolve("before.txt") + " Checked 2 grids: 2 VALID"));
+		// hidden files are left alone.
+		assertTrue(Files.exists(inbox.resolve(".partial")));
+		assertTrue(results.indexOf(".partial") < 0);
+	}
+
+	@Test
+	public void checkpointSkipsValidatedFilesTest() throws Exception {
+		Path file = inbox.resolve("again.txt");
+		write(file, VALID);
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		// recorded as failed by a watcher which stopped before moving it.
+		write(inbox.resolve(DirectoryWatcher.CHECKPOINT), "failed " + attributes.size() + " "
+				+ attributes.lastModifiedTime().toMillis() + " again.txt\nfailed 1 2 gone.txt\ndone 3\n");
+
+		start();
+		awaitFile(inbox.resolve(DirectoryWatcher.FAILED).resolve("again.txt"));
+		watcher.close();
+		assertEquals("", results());
+
+		// the checkpoint only keeps the files still to be moved.
+		assertEquals("failed " + attributes.size() + " " + attributes.lastModifiedTime().toMillis() + " again.txt\n",
+				new String(Files.readAllBytes(inbox.resolve(DirectoryWatcher.CHECKPOINT)), StandardCharsets.UTF_8));
+		try (DirectoryWatcher restarted = new DirectoryWatcher(inbox, 1, 50)) {
+			assertTrue(restarted.recorded().isEmpty());
+		}
+	}
+
+	@Test
+	public void changedFileValidatedAgainTest() throws Exception {
+		Path file = inbox.resolve("changed.txt");
+		write(file, VALID);
+		write(inbox.resolve(DirectoryWatcher.CHECKPOINT), "failed 1 2 changed.txt\n");
+
+		start();
+		awaitFile(inbox.resolve(DirectoryWatcher.DONE).resolve("changed.txt"));
+		watcher.close();
+		assertTrue(results().contains(file + "#1 VALID"));
+	}
+
+	@Test
+	public void largeFileMovedTest() throws Exception {
+		// larger than a file read into the heap by a batch run, which would be mapped.
+		StringBuilder grids = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			grids.append(VALID);
+		}
+		start();
+		write(inbox.resolve("large.txt"), grids.toString());
+		awaitFile(inbox.resolve(DirectoryWatcher.DONE).resolve("large.txt"));
+		watcher.close();
+		assertFalse(Files.exists(inbox.resolve("large.txt")));
+		assertTrue(results().contains(inbox.resolve("large.txt") + " Checked 1000 grids: 1000 VALID"));
+	}
+
+	@Test
+	public void checkpointCompactedTest() throws Exception {
+		final int files = DirectoryWatcher.COMPACT_LINES + 10;
+		for (int i = 0; i < files; i++) {
+			write(inbox.resolve("grid" + i + ".txt"), VALID);
+		}
+		start();
+		for (int i = 0; i < files; i++) {
+			awaitFile(inbox.resolve(DirectoryWatcher.DONE).resolve("grid" + i + ".txt"));
+		}
+		watcher.close();
+
+		// the lines of the files moved before the last compaction are gone.
+		String checkpoint = new String(Files.readAllBytes(inbox.resolve(DirectoryWatcher.CHECKPOINT)), StandardCharsets.UTF_8);
+		assertTrue(checkpoint.split("\n").length < DirectoryWatcher.COMPACT_LINES);
+		assertFalse(Files.exists(inbox.resolve(DirectoryWatcher.CHECKPOINT + ".new")));
+	}
+
+	@Test
+	public void takenNameNumberedTest() throws Exception {
+		write(Files.createDirectory(inbox.resolve(DirectoryWatcher.DONE)).resolve("same.txt"), "earlier");
+		start();
+		write(inbox.resolve("same.txt"), VALID);
+		awaitFile(inbox.resolve(DirectoryWatcher.DONE).resolve("same.txt.1"));
+		assertEquals("earlier", new String(Files.readAllBytes(inbox.resolve(DirectoryWatcher.DONE).resolve("same.txt")),
+				StandardCharsets.US_ASCII));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void notADirectoryTest() throws Exception {
+		new DirectoryWatcher(folder.newFile("plain.txt").toPath(), 1, 50);
+	}
+}
@@ -0,0 +1,118 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class GridCursorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void streamSkipsRejectedGridsTest() throws Exception {
+		List<String> errors = new ArrayList<>();
+		try (GridCursor cursor = GridCursor.open(CsvReaderTest.resource("sudokuBatch.txt"), SudokuReader.DETECT_DIMENSION)) {
+			assertTrue(cursor instanceof MappedCsvReader);
+			long valid = cursor.grids((index, error) -> errors.add(index + " " + error.getMessage()))
+					.filter(grid -> Sudoku.getInstance().check(grid) == Status.VALID)
+					.count();
+			assertEquals(2, valid);
+			assertEquals(6, cursor.index());
+		}
+		// the records 4 and 5 of the batch are malformed.
+		assertEquals(2, errors.size());
+		assertTrue(errors.get(0).startsWith("4 "));
+		assertTrue(errors.get(1).startsWith("5 ERROR: Mismatch between the dimension {9} and number of rows"));
+	}
+
+	@Test
+	public void streamReusesOneGridTest() throws Exception {
+		Path file = folder.newFile("three.txt").toPath();
+		String line = "371594862528376194496281735614923587982715643753468921845139276239657418167842359";
+		Files.write(file, (line + "\n" + line + "\n" + line + "\n").getBytes(StandardCharsets.US_ASCII));
+
+		Set<Grid> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		try (GridCursor cursor = GridCursor.open(file, 9)) {
+			cursor.grids(GridCursor.SKIP).forEach(seen::add);
+		}
+		assertEquals(1, seen.size());
+	}
+
+	@Test
+	public void emptyFileStreamsNothingTest() throws Exception {
+		try (GridCursor cursor = GridCursor.open(folder.newFile("empty.txt").toPath(), SudokuReader.DETECT_DIMENSION)) {
+			assertEquals(0, cursor.grids(GridCursor.SKIP).count());
+		}
+	}
+
+	@Test
+	public void binaryStreamSplitsTest() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("many.bin");
+		Grid solution = SolutionFixture.solution();
+		Grid invalid = solution.copy();
+		invalid.set(0, 0, invalid.get(0, 1));
+		try (BinaryGridWriter writer = new BinaryGridWriter(file, 9)) {
+			for (int i = 0; i < 10000; i++) {
+				writer.write(i % 10 == 0 ? invalid : solution);
+			}
+		}
+
+		try (GridCursor cursor = GridCursor.open(file, SudokuReader.DETECT_DIMENSION)) {
+			assertTrue(cursor instanceof BinaryGridReader);
+			// each thread checks its own grid.
+			long valid = cursor.grids(GridCursor.SKIP).parallel()
+					.filter(grid -> Sudoku.getInstance().check(grid) == Status.VALID)
+					.count();
+			assertEquals(9000, valid);
+
+			// the stream starts from the cursor's position.
+			Grid grid = new Grid(9);
+			for (int i = 0; i < 9995; i++) {
+				assertTrue(cursor.next(grid));
+			}
+			assertEquals(5, cursor.grids(GridCursor.SKIP).count());
+		}
+	}
+
+	@Test
+	public void binaryStreamReportsRejectedGridsTest() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("bad.bin");
+		try (BinaryGridWriter writer = new BinaryGridWriter(file, 4)) {
+			for (int i = 0; i < 3; i++) {
+				writer.write(new Grid(4));
+			}
+		}
+		// the first cell of the second grid becomes 7.
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[BinaryGridReader.HEADER_BYTES + BinaryGridReader.recordBytes(4)] = 0x70;
+		Files.write(file, bytes);
+
+		AtomicLong rejected = new AtomicLong();
+		try (GridCursor cursor = GridCursor.open(file, 4)) {
+			assertEquals(2, cursor.grids((index, error) -> rejected.set(index)).count());
+		}
+		assertEquals(2, rejected.get());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void binaryOfAnotherDimensionTest() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("four.bin");
+		new BinaryGridWriter(file, 4).close();
+		GridCursor.open(file, 9);
+	}
+}
@@ -0,0 +1,173 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rmgroup.sudoku.GridGenerator.Fault;
+import com.rmgroup.sudoku.GridGenerator.Format;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class GridGeneratorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void validSolutionsTest() {
+		for (int dimension : new int[] {1, 4, 9, 16, 25}) {
+			GridGenerator generator = new GridGenerator(dimension, dimension);
+			Grid grid = new Grid(dimension);
+			for (int i = 0; i < 200; i++) {
+				generator.next(grid);
+				assertEquals(Status.VALID, Sudoku.getInstance().check(grid));
+			}
+		}
+	}
+
+	@Test
+	public void seedSolutionTest() {
+		Grid seed = SolutionFixture.solution();
+		GridGenerator generator = new GridGenerator(seed, 3);
+		Grid grid = new Grid(9);
+		for (int i = 0; i < 100; i++) {
+			generator.next(grid);
+			assertEquals(Status.VALID, Sudoku.getInstance().check(grid));
+			assertEquals(Canonical.of(seed).toString(), Canonical.of(grid).toString());
+		}
+
+		seed.set(0, 0, seed.get(0, 1));
+		try {
+			new GridGenerator(seed, 3);
+			fail("An INVALID seed solution should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: the seed solution must be VALID", ex.getMessage());
+		}
+	}
+
+	@Test
+	public void reproducibleTest() throws Exception {
+		ByteArrayOutputStream first = new ByteArrayOutputStream(), second = new ByteArrayOutputStream(),
+				other = new ByteArrayOutputStream();
+		new GridGenerator(9, 42).write(first, Format.CSV, 500, 0.3);
+		new GridGenerator(9, 42).write(second, Format.CSV, 500, 0.3);
+		new GridGenerator(9, 43).write(other, Format.CSV, 500, 0.3);
+		assertArrayEquals(first.toByteArray(), second.toByteArray());
+		assertFalse(Arrays.equals(first.toByteArray(), other.toByteArray()));
+	}
+
+	@Test
+	public void distinctSolutionsTest() {
+		GridGenerator generator = new GridGenerator(9, 7);
+		Grid grid = new Grid(9);
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			generator.next(grid);
+			seen.add(grid.toString());
+		}
+		assertTrue(seen.size() > 990);
+	}
+
+	@Test
+	public void faultsTest() throws Exception {
+		for (Format format : Format.values()) {
+			Path file = folder.getRoot().toPath().resolve("grids." + format);
+			GridGenerator.Summary generated = new GridGenerator(9, 11).write(file, format, 2000, 0.5);
+			assertEquals(2000, generated.total());
+			assertTrue(generated.valid() > 800 && generated.valid() < 1200);
+			long rejected = 0;
+			for (Fault fault : Fault.values()) {
+				if (format == Format.BINARY && (fault == Fault.OUT_OF_RANGE || fault == Fault.NON_INTEGER)) {
+					assertEquals(0, generated.faulty(fault));
+				} else {
+					assertTrue(format + " " + fault, generated.faulty(fault) > 100);
+				}
+				if (fault != Fault.DUPLICATE_IN_BOX && format != Format.BINARY)
+					rejected += generated.faulty(fault);
+			}
+
+			BatchValidator.Summary checked = new BatchValidator(SudokuReader.DETECT_DIMENSION, new StringWriter())
+					.validate(file);
+			assertEquals(format.toString(), generated.total(), checked.total());
+			assertEquals(format.toString(), generated.valid(), checked.valid());
+			assertEquals(format.toString(), rejected, checked.malformed());
+		}
+	}
+
+	@Test
+	public void csvFaultsTest() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GridGenerator.Summary summary = new GridGenerator(4, 5).write(out, Format.CSV, 400, 1);
+		assertEquals(1, summary.valid());
+		String text = new String(out.toByteArray(), StandardCharsets.US_ASCII);
+		// a non integer, an out of range value and a short row.
+		assertTrue(text.contains("x"));
+		assertTrue(text.contains("5"));
+		assertTrue(Arrays.asList(text.split("\n")).stream().anyMatch(row -> row.split(",").length == 3));
+		// the first grid is never faulted.
+		assertTrue(text.substring(0, 4 * 8).matches("([1-4],[1-4],[1-4],[1-4]\n){4}"));
+	}
+
+	@Test
+	public void lineTest() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new GridGenerator(16, 1).write(out, Format.LINE, 10, 0);
+		String[] lines = new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+		assertEquals(10, lines.length);
+		for (String line : lines) {
+			assertEquals(256, line.length());
+			assertTrue(line, line.matches("[1-9A-G]+"));
+		}
+
+		try {
+			new GridGenerator(36, 1).write(out, Format.LINE, 1, 0);
+			fail("A 36 x 36 grid cannot be written on one line");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: a 36 x 36 grid cannot be written on one line.", ex.getMessage());
+		}
+	}
+
+	@Test
+	public void illegalArgumentsTest() throws Exception {
+		GridGenerator generator = new GridGenerator(9, 1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			generator.write(out, Format.CSV, -1, 0);
+			fail("A negative count should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: the number of grids cannot be negative", ex.getMessage());
+		}
+		try {
+			generator.write(out, Format.CSV, 1, 1.5);
+			fail("A rate above 1 should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: fault rate 1.5 is outside range (0,1)", ex.getMessage());
+		}
+		try {
+			generator.write(out, Format.BINARY, 1, 0);
+			fail("Binary grids should only be written to a file");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: binary grids must be written to a file", ex.getMessage());
+		}
+		try {
+			generator.next(new Grid(4));
+			fail("A grid of another dimension should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: Mismatch between the dimension {9} and the grid dimension {4}.", ex.getMessage());
+		}
+		assertEquals(Format.BINARY, Format.of(folder.getRoot().toPath().resolve("grids.BIN")));
+		assertEquals(Format.CSV, Format.of(folder.getRoot().toPath().resolve("grids.csv")));
+		assertFalse(Files.exists(folder.getRoot().toPath().resolve("grids.csv")));
+	}
+}
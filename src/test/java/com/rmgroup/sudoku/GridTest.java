@@ -0,0 +1,81 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Grid.Unit;
+
+public class GridTest {
+
+	private Grid grid;
+
+	@Before
+	public void setUp() throws Exception {
+		grid = SolutionFixture.solution();
+	}
+
+	@Test
+	public void dimensionsTest() {
+		assertEquals(9, grid.dimension());
+		assertEquals(3, grid.boxDimension());
+		assertEquals(81, grid.size());
+		assertEquals(81, grid.cells().length);
+	}
+
+	@Test
+	public void rowColumnAndBoxViewsTest() {
+		assertArrayEquals(new Integer[] {6,1,4,9,2,3,5,8,7}, grid.row(3).toArray());
+		assertArrayEquals(new Integer[] {3,5,4,6,9,7,8,2,1}, grid.column(0).toArray());
+		assertArrayEquals(new Integer[] {9,2,3,7,1,5,4,6,8}, grid.box(4).toArray());
+		assertArrayEquals(new Integer[] {2,7,6,4,1,8,3,5,9}, grid.box(8).toArray());
+	}
+
+	@Test
+	public void viewsAreNotCopiesTest() {
+		Unit box = grid.box(4);
+		grid.set(4, 4, 0);
+		assertEquals(0, box.get(4));
+		assertEquals(Unit.Type.BOX, box.type());
+		assertEquals(40, box.cellIndex(4));
+	}
+
+	@Test
+	public void boxedRoundTripTest() {
+		Integer[][] boxed = grid.toArray();
+		assertTrue(Arrays.deepEquals(boxed, Grid.of(boxed).toArray()));
+		assertEquals(grid, Grid.of(boxed));
+		assertEquals(grid.hashCode(), grid.copy().hashCode());
+	}
+
+	@Test
+	public void copyIsIndependentTest() {
+		Grid copy = grid.copy();
+		copy.set(0, 0, 9);
+		assertEquals(3, grid.get(0, 0));
+		assertNotEquals(grid, copy);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void valueTooBigTest() {
+		grid.set(0, 0, 10);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void cellOutsideGridTest() {
+		grid.get(9, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void notPerfectSquareTest() {
+		new Grid(8);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void notSquareGridTest() {
+		Grid.of(new Integer[][] {{1,2,3,4}, {1,2,3,4}, {1,2,3,4}, {1,2,3}});
+	}
+}
@@ -0,0 +1,134 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Grid.Unit;
+import com.rmgroup.sudoku.IncrementalChecker.State;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class IncrementalCheckerTest {
+
+	private final List<String> changes = new ArrayList<>();
+
+	private final IncrementalChecker.Listener recorder =
+			(type, index, state) -> changes.add(type + " " + index + " " + state);
+
+	@Test
+	public void fillingASolutionTest() {
+		Grid solution = SolutionFixture.solution();
+		IncrementalChecker checker = new IncrementalChecker(new Grid(9), recorder);
+		for (int cell = 0; cell < 81; cell++) {
+			assertFalse(checker.isSolved());
+			checker.set(cell / 9, cell % 9, solution.get(cell));
+		}
+		assertTrue(checker.isSolved());
+		assertEquals(0, checker.conflictedUnits());
+		assertEquals(27, changes.size());
+		// the last cell completes its row, column and box at once.
+		assertEquals("[ROW 8 VALID, COLUMN 8 VALID, BOX 8 VALID]", changes.subList(24, 27).toString());
+		assertEquals(solution, checker.grid());
+	}
+
+	@Test
+	public void conflictIsReportedAndClearedTest() {
+		IncrementalChecker checker = new IncrementalChecker(SolutionFixture.solution(), recorder);
+		assertTrue(checker.isSolved());
+		assertTrue(changes.isEmpty());
+
+		// a 7 in place of the 9 at row 4, column 0 repeats a 7 of its row, column and box.
+		assertEquals(3, checker.set(4, 0, 7));
+		assertEquals("[ROW 4 CONFLICTED, COLUMN 0 CONFLICTED, BOX 3 CONFLICTED]", changes.toString());
+		assertFalse(checker.isSolved());
+		assertEquals(3, checker.conflictedUnits());
+		assertEquals(State.CONFLICTED, checker.state(Unit.Type.BOX, 3));
+		assertEquals(State.VALID, checker.state(Unit.Type.BOX, 4));
+
+		changes.clear();
+		assertEquals(3, checker.set(4, 0, Grid.EMPTY));
+		assertEquals("[ROW 4 INCOMPLETE, COLUMN 0 INCOMPLETE, BOX 3 INCOMPLETE]", changes.toString());
+		assertEquals(0, checker.conflictedUnits());
+
+		changes.clear();
+		assertEquals(3, checker.set(4, 0, 9));
+		assertEquals("[ROW 4 VALID, COLUMN 0 VALID, BOX 3 VALID]", changes.toString());
+		assertTrue(checker.isSolved());
+
+		// setting the same value again changes nothing.
+		changes.clear();
+		assertEquals(0, checker.set(4, 0, 9));
+		assertTrue(changes.isEmpty());
+	}
+
+	@Test
+	public void agreesWithFullCheckTest() {
+		Random random = new Random(13);
+		for (int dimension : new int[] {4, 9, 16}) {
+			Grid grid = Grid.wrap(dimension, MaskCheckerTest.validCells(dimension));
+			IncrementalChecker checker = new IncrementalChecker(grid, (type, index, state) -> { });
+			for (int edit = 0; edit < 2000; edit++) {
+				final int row = random.nextInt(dimension), col = random.nextInt(dimension);
+				// mostly put back the solution's value, so the grid is often solved.
+				final int value = random.nextInt(4) == 0 ? random.nextInt(dimension + 1)
+						: MaskCheckerTest.validCells(dimension)[row * dimension + col];
+				checker.set(row, col, value);
+				grid.set(row, col, value);
+
+				assertEquals(Sudoku.getInstance().check(grid) == Status.VALID, checker.isSolved());
+				for (Unit.Type type : Unit.Type.values()) {
+					for (int index = 0; index < dimension; index++) {
+						assertEquals(expected(grid, type, index), checker.state(type, index));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the state of a unit worked out from scratch.
+	 */
+	private static State expected(final Grid grid, final Unit.Type type, final int index) {
+		Unit unit = type == Unit.Type.ROW ? grid.row(index) : type == Unit.Type.COLUMN ? grid.column(index) : grid.box(index);
+		boolean[] seen = new boolean[grid.dimension() + 1];
+		int distinct = 0;
+		for (int i = 0; i < unit.size(); i++) {
+			final int value = unit.get(i);
+			if (value == Grid.EMPTY)
+				continue;
+			if (seen[value])
+				return State.CONFLICTED;
+			seen[value] = true;
+			distinct++;
+		}
+		return distinct == grid.dimension() ? State.VALID : State.INCOMPLETE;
+	}
+
+	@Test
+	public void largestGridTest() {
+		Grid grid = Grid.wrap(121, MaskCheckerTest.validCells(121));
+		IncrementalChecker checker = new IncrementalChecker(grid, recorder);
+		assertTrue(checker.isSolved());
+		checker.set(0, 0, 2);
+		assertEquals(3, checker.conflictedUnits());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void outOfRangeValueTest() {
+		new IncrementalChecker(9).set(0, 0, 10);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void outsideGridTest() {
+		new IncrementalChecker(9).set(9, 0, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullListenerTest() {
+		new IncrementalChecker(new Grid(9), null);
+	}
+}
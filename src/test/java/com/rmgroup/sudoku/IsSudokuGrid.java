@@ -50,6 +50,23 @@ private Sudoku sudoku;
 		assertFalse(sudoku.isSudokuGrid(testGrid));
 	}
 	
+	@Test
+	public void wholeSolutionTest() {
+		// compared as a set, the 81 cells of a solution hold 1..9.
+		assertTrue(sudoku.isSudokuGrid(SolutionFixture.toGrid(SolutionFixture.VALID_SOLUTION)));
+		Integer[][] repeated = {{5,7,1},{8,3,6},{9,2,4,4}};
+		assertTrue(sudoku.isSudokuGrid(repeated));
+	}
+
+	@Test
+	public void singleValueGridTest() {
+		// a 3 x 3 grid holds 1..9, never the set 1..1.
+		Integer[][] ones = {{1,1,1},{1,1,1},{1,1,1}};
+		assertFalse(sudoku.isSudokuGrid(ones));
+		Integer[][] four = {{1,2},{3,4}};
+		assertTrue(sudoku.isSudokuGrid(four));
+	}
+
 	@Test
 	public void emptyGridTest() {
 		Integer[][] testGrid = {{},{},{}};
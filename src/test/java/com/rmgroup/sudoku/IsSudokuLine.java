@@ -50,6 +50,37 @@ private Sudoku sudoku;
 		assertFalse(sudoku.isSudokuLine(line));
 	}
 	
+	@Test
+	public void repeatedElementTest() {
+		// compared as a set, as ever: the second 9 counts once.
+		Integer[] line = {1,2,3,4,5,6,7,8,9,9};
+		assertTrue(sudoku.isSudokuLine(line));
+		Integer[] missing = {1,2,3,4,5,6,7,8,8};
+		assertFalse(sudoku.isSudokuLine(missing));
+	}
+
+	@Test
+	public void otherDimensionsTest() {
+		Integer[] four = {4,1,3,2};
+		assertTrue(sudoku.isSudokuLine(four));
+		Integer[] sixteen = {16,15,14,13,12,11,10,9,8,7,6,5,4,3,2,1};
+		assertTrue(sudoku.isSudokuLine(sixteen));
+		// 1..5 is not the set of a dimension.
+		Integer[] five = {1,2,3,4,5};
+		assertFalse(sudoku.isSudokuLine(five));
+	}
+
+	@Test
+	public void singleValueTest() {
+		// a line of 9 cells holds 1..9, never the set 1..1 or 1..4 of a smaller dimension.
+		Integer[] ones = {1,1,1,1,1,1,1,1,1};
+		assertFalse(sudoku.isSudokuLine(ones));
+		Integer[] four = {1,2,3,4,1,2,3,4,1};
+		assertFalse(sudoku.isSudokuLine(four));
+		Integer[] one = {1};
+		assertTrue(sudoku.isSudokuLine(one));
+	}
+
 	@Test
 	public void emptyElementsTest() {
 		Integer[] line = {};
@@ -0,0 +1,90 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void bucketsAreContiguousTest() {
+		for (int bucket = 0; bucket < 3711; bucket++) {
+			final long lowest = LatencyHistogram.lowest(bucket), next = LatencyHistogram.lowest(bucket + 1);
+			assertTrue(next > lowest);
+			assertEquals(bucket, LatencyHistogram.bucket(lowest));
+			assertEquals(bucket, LatencyHistogram.bucket(next - 1));
+		}
+		assertEquals(3711, LatencyHistogram.bucket(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void valuesHeldWithinOneIn64Test() {
+		Random random = new Random(19);
+		for (int i = 0; i < 10000; i++) {
+			final long value = random.nextLong() >>> 1 + random.nextInt(63);
+			LatencyHistogram histogram = new LatencyHistogram();
+			histogram.record(value);
+			histogram.record(Long.MAX_VALUE);
+			final long p50 = histogram.percentile(50);
+			assertTrue(p50 >= value);
+			assertTrue(p50 - value <= value / 64);
+		}
+	}
+
+	@Test
+	public void percentilesTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int value = 1; value <= 1000; value++) {
+			histogram.record(value);
+		}
+		assertEquals(1000, histogram.count());
+		assertEquals(500500, histogram.total());
+		assertEquals(500, histogram.mean());
+		assertEquals(1000, histogram.max());
+		assertEquals(1000, histogram.percentile(100));
+		assertEquals(1, histogram.percentile(0));
+		assertEquals(500, histogram.percentile(50), 500 / 64);
+		assertEquals(990, histogram.percentile(99), 990 / 64);
+	}
+
+	@Test
+	public void emptyAndResetTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.percentile(99));
+		assertEquals(0, histogram.mean());
+
+		histogram.record(-5);
+		histogram.record(12345);
+		assertEquals(0, histogram.percentile(50));
+		histogram.reset();
+		assertEquals(0, histogram.count());
+		assertEquals(0, histogram.max());
+		assertEquals(0, histogram.percentile(100));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void percentileOutsideRangeTest() {
+		new LatencyHistogram().percentile(100.5);
+	}
+
+	@Test
+	public void concurrentRecordingTest() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 100000; i++) {
+					histogram.record(i % 1000);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(400000, histogram.count());
+		assertEquals(999, histogram.max());
+	}
+}
@@ -0,0 +1,151 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class LineValidationServerTest {
+
+	private static final String VALID_LINE =
+			"371594862528376194496281735614923587982715643753468921845139276239657418167842359";
+
+	@Test
+	public void responsesInOrderTest() throws Exception {
+		String requests = VALID_LINE + "\r\n"
+				+ "\n"
+				+ VALID_LINE.replace('2', '7') + "\n"
+				+ VALID_LINE.substring(1) + "\n"
+				+ "123456789abcdefg23456789abcdefg1" + VALID_LINE.substring(0, 1) + "\n"
+				+ VALID_LINE;
+
+		StringWriter out = new StringWriter();
+		new LineValidationServer(0).serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.US_ASCII)), out);
+
+		String[] responses = out.toString().split("\n");
+		assertEquals(5, responses.length);
+		assertEquals("{\"index\":1,\"status\":\"VALID\"}", responses[0]);
+		assertEquals("{\"index\":2,\"status\":\"INVALID\",\"unit\":\"ROW\",\"unitIndex\":0,\"problem\":\"DUPLICATE\",\"digit\":7,\"row\":0,\"column\":8}",
+				responses[1]);
+		assertEquals("{\"index\":3,\"status\":\"INVALID\",\"error\":\"ERROR: cannot detect the dimension of a solution line of {80} elements.\"}",
+				responses[2]);
+		assertEquals("{\"index\":4,\"status\":\"INVALID\",\"error\":\"ERROR: cannot detect the dimension of a solution line of {33} elements.\"}",
+				responses[3]);
+		assertEquals("{\"index\":5,\"status\":\"VALID\"}", responses[4]);
+	}
+
+	@Test
+	public void linesAcrossReadsTest() throws Exception {
+		StringBuilder requests = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			requests.append(i % 3 == 0 ? VALID_LINE : VALID_LINE.replace('3', '0')).append(i % 2 == 0 ? "\r\n" : "\n");
+		}
+		requests.append(new String(new char[LineValidationServer.MAX_LINE + 10]).replace('\0', '1')).append('\n');
+		requests.append(VALID_LINE);
+
+		// a stream handing out a few bytes a read, so lines and terminators straddle reads.
+		InputStream in = new FilterInputStream(new ByteArrayInputStream(requests.toString().getBytes(StandardCharsets.US_ASCII))) {
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException {
+				return super.read(b, off, Math.min(len, 7));
+			}
+		};
+		StringWriter out = new StringWriter();
+		new LineValidationServer(0).serve(in, out);
+
+		String[] responses = out.toString().split("\n");
+		assertEquals(102, responses.length);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(responses[i], responses[i].startsWith("{\"index\":" + (i + 1) + ",\"status\":\"" + (i % 3 == 0 ? "VALID" : "INVALID")));
+		}
+		assertEquals("{\"index\":101,\"status\":\"INVALID\",\"error\":\"ERROR: the line exceeds 16384 characters.\"}", responses[100]);
+		assertEquals("{\"index\":102,\"status\":\"VALID\"}", responses[101]);
+	}
+
+	@Test
+	public void connectionLimitTest() throws Exception {
+		try (LineValidationServer server = new LineValidationServer(0, 1)) {
+			server.start();
+			try (Socket first = connect(server)) {
+				assertEquals("{\"index\":1,\"status\":\"VALID\"}", request(first));
+
+				// every thread is busy, so a second connection is closed unanswered.
+				try (Socket second = connect(server)) {
+					second.getOutputStream().write((VALID_LINE + "\n").getBytes(StandardCharsets.US_ASCII));
+					assertEquals(-1, second.getInputStream().read());
+				} catch (IOException ex) {
+					// or reset.
+				}
+				assertEquals("{\"index\":2,\"status\":\"VALID\"}", request(first));
+			}
+
+			// once the first is closed its thread serves the next.
+			String response = null;
+			for (int attempt = 0; response == null && attempt < 50; attempt++) {
+				try (Socket next = connect(server)) {
+					response = request(next);
+				} catch (IOException ex) {
+					Thread.sleep(100);
+				}
+			}
+			assertEquals("{\"index\":1,\"status\":\"VALID\"}", response);
+		}
+
+		try {
+			new LineValidationServer(0, 0).close();
+			fail("A server without connections should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: the connections {0} must be at least 1.", ex.getMessage());
+		}
+	}
+
+	private static Socket connect(final LineValidationServer server) throws IOException {
+		Socket socket = new Socket(server.address().getAddress(), server.address().getPort());
+		socket.setSoTimeout(5000);
+		return socket;
+	}
+
+	/**
+	 * Sends a valid line and reads its response, throwing if the connection was closed.
+	 */
+	private static String request(final Socket socket) throws IOException {
+		socket.getOutputStream().write((VALID_LINE + "\n").getBytes(StandardCharsets.US_ASCII));
+		String response = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+		if (response == null)
+			throw new IOException("closed");
+		return response;
+	}
+
+	@Test
+	public void pipelinedOverSocketTest() throws Exception {
+		try (LineValidationServer server = new LineValidationServer(0)) {
+			server.start();
+			try (Socket socket = new Socket(server.address().getAddress(), server.address().getPort())) {
+				socket.setSoTimeout(5000);
+				StringBuilder requests = new StringBuilder();
+				for (int i = 0; i < 1000; i++) {
+					requests.append(i % 2 == 0 ? VALID_LINE : VALID_LINE.replace('3', '0')).append('\n');
+				}
+				OutputStream out = socket.getOutputStream();
+				out.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+				out.flush();
+
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				for (int i = 1; i <= 1000; i++) {
+					String response = in.readLine();
+					assertTrue(response, response.startsWith("{\"index\":" + i + ",\"status\":\"" + (i % 2 == 1 ? "VALID" : "INVALID")));
+				}
+			}
+		}
+	}
+}
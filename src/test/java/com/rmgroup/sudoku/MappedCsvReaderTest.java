@@ -0,0 +1,141 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedCsvReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void sameOutcomeAsCsvReaderTest() throws Exception {
+		for (String name : new String[] {"sudokuValid.csv", "sudokuInvalid.csv", "sudokuHasCellWithLetterA.csv",
+				"sudokuMissingCell.csv", "sudokuOutOfRange.csv"}) {
+			Path file = CsvReaderTest.resource(name);
+			try (MappedCsvReader mapped = new MappedCsvReader(file, 9)) {
+				assertEquals(name, outcome(new CsvReader(file, 9)), outcome(mapped));
+			}
+		}
+	}
+
+	@Test
+	public void slidingWindowTest() throws Exception {
+		Path file = folder.newFile("windowed.csv").toPath();
+		byte[] valid = Files.readAllBytes(CsvReaderTest.resource("sudokuValid.csv"));
+		String crlf = new String(valid, StandardCharsets.US_ASCII).replace("\n", "\r\n");
+		Files.write(file, (crlf + "\r\n" + crlf + crlf).getBytes(StandardCharsets.US_ASCII));
+
+		Grid expected = new CsvReader(CsvReaderTest.resource("sudokuValid.csv"), 9).readGrid();
+		Grid grid = new Grid(9);
+
+		// a window barely longer than a line forces a remap every few lines.
+		for (long window : new long[] {20, 25, 64, MappedCsvReader.DEFAULT_WINDOW}) {
+			try (MappedCsvReader reader = new MappedCsvReader(file, 9, window)) {
+				for (int i = 1; i <= 3; i++) {
+					assertTrue(reader.next(grid));
+					assertEquals(expected, grid);
+					assertEquals(i, reader.index());
+				}
+				assertFalse(reader.next(grid));
+			}
+		}
+	}
+
+	@Test
+	public void smallWindowsAreReadTest() throws Exception {
+		Grid grid = new Grid(9);
+		try (MappedCsvReader reader = new MappedCsvReader(CsvReaderTest.resource("sudokuBatch.txt"), 9)) {
+			assertTrue(reader.next(grid));
+			assertFalse(reader.isMapped());
+		}
+
+		// a file larger than SMALL_FILE is mapped, unless its window is small.
+		Path file = folder.newFile("large.csv").toPath();
+		new GridGenerator(9, 5).write(file, GridGenerator.Format.CSV, 1000, 0);
+		assertTrue(Files.size(file) > MappedCsvReader.SMALL_FILE);
+		Grid expected = new Grid(9);
+		try (MappedCsvReader mapped = new MappedCsvReader(file, 9);
+				MappedCsvReader read = new MappedCsvReader(file, 9, MappedCsvReader.SMALL_FILE)) {
+			for (int i = 0; i < 1000; i++) {
+				assertTrue(mapped.next(expected));
+				assertTrue(mapped.isMapped());
+				assertTrue(read.next(grid));
+				assertFalse(read.isMapped());
+				assertEquals(expected, grid);
+			}
+			assertFalse(mapped.next(expected));
+			assertFalse(read.next(grid));
+		}
+	}
+
+	@Test
+	public void batchFileTest() throws Exception {
+		Grid grid = new Grid(9);
+		try (MappedCsvReader reader = new MappedCsvReader(CsvReaderTest.resource("sudokuBatch.txt"), 9)) {
+			assertTrue(reader.next(grid));
+			assertTrue(reader.next(grid));
+			assertTrue(reader.next(grid));
+			assertEquals(8, grid.get(8, 8));
+			try {
+				reader.next(grid);
+				fail();
+			} catch (NumberFormatException nfe) {
+				assertEquals("Error: non-integer value \"A\" at row 4, column 6", nfe.getMessage());
+			}
+			try {
+				reader.next(grid);
+				fail();
+			} catch (IllegalArgumentException iae) {
+				assertTrue(iae.getMessage().contains("number of rows in solution {4}"));
+			}
+			assertTrue(reader.next(grid));
+			assertEquals(6, reader.index());
+			assertFalse(reader.next(grid));
+		}
+	}
+
+	@Test
+	public void emptyFileTest() throws Exception {
+		try (MappedCsvReader reader = new MappedCsvReader(folder.newFile("empty.csv").toPath(), 9)) {
+			assertFalse(reader.next(new Grid(9)));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void missingFileTest() throws Exception {
+		try (MappedCsvReader reader = new MappedCsvReader(Paths.get("DummyFile"), 9)) {
+			reader.readGrid();
+		}
+	}
+
+	private static String outcome(final SudokuReader reader) throws IOException {
+		try {
+			return Arrays.deepToString(reader.getGrid());
+		} catch (IllegalArgumentException ex) {
+			return ex.getClass().getName() + ": " + ex.getMessage();
+		}
+	}
+
+	@Test
+	public void detectsDimensionTest() throws Exception {
+		try (MappedCsvReader reader = new MappedCsvReader(CsvReaderTest.resource("sudoku16x16Valid.csv"))) {
+			assertEquals(16, reader.dimension());
+			assertEquals(new CsvReader(CsvReaderTest.resource("sudoku16x16Valid.csv"), 16).readGrid(), reader.readGrid());
+		}
+		try (MappedCsvReader reader = new MappedCsvReader(folder.newFile("blank.csv").toPath())) {
+			assertEquals(SudokuReader.DETECT_DIMENSION, reader.dimension());
+			assertFalse(reader.next(new Grid(9)));
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Grid.Unit;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class MaskCheckerTest {
+
+	private final Sudoku sudoku = Sudoku.getInstance();
+
+	/**
+	 * Returns the cells of a valid solution of the given {@code dimension}, built by
+	 * shifting the first row along by a box, or a box and one, for every row.
+	 */
+	static byte[] validCells(final int dimension) {
+		final int box = Grid.boxDimensionOf(dimension);
+		byte[] cells = new byte[dimension * dimension];
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				cells[row * dimension + col] = (byte) ((box * (row % box) + row / box + col) % dimension + 1);
+			}
+		}
+		return cells;
+	}
+
+	@Test
+	public void validSolutionsTest() {
+		for (int dimension : new int[] {1, 4, 9, 16, 25, 36, 49, 64, 81, 100, 121}) {
+			assertEquals("dimension " + dimension, Status.VALID,
+					MaskChecker.check(validCells(dimension), 0, dimension));
+			assertTrue("dimension " + dimension,
+					MaskChecker.diagnose(validCells(dimension), 0, dimension).isValid());
+		}
+	}
+
+	@Test
+	public void duplicateInEachUnitTypeTest() {
+		for (int dimension : new int[] {16, 25, 36, 81, 121}) {
+			byte[] cells = validCells(dimension);
+			cells[cells.length - 1] = cells[cells.length - 2];
+			assertEquals(Status.INVALID, MaskChecker.check(cells, 0, dimension));
+			assertEquals(Unit.Type.ROW, MaskChecker.diagnose(cells, 0, dimension).unitType());
+
+			// swapping two rows of different bands keeps rows and columns, not subgrids.
+			cells = validCells(dimension);
+			final int box = Grid.boxDimensionOf(dimension);
+			byte[] row = new byte[dimension];
+			System.arraycopy(cells, 0, row, 0, dimension);
+			System.arraycopy(cells, box * dimension, cells, 0, dimension);
+			System.arraycopy(row, 0, cells, box * dimension, dimension);
+			assertEquals(Status.INVALID, MaskChecker.check(cells, 0, dimension));
+			assertEquals(Unit.Type.BOX, MaskChecker.diagnose(cells, 0, dimension).unitType());
+		}
+	}
+
+	@Test
+	public void outOfRangeTest() {
+		byte[] cells = validCells(16);
+		cells[37] = 17;
+		assertEquals(Status.INVALID, MaskChecker.check(cells, 0, 16));
+		cells[37] = Grid.EMPTY;
+		assertEquals(Status.INVALID, MaskChecker.check(cells, 0, 16));
+		assertEquals(2, MaskChecker.diagnose(cells, 0, 16).unitIndex());
+	}
+
+	@Test
+	public void boxedGridsOfEveryDimensionTest() {
+		for (int dimension : new int[] {4, 16, 25}) {
+			Integer[][] grid = Grid.wrap(dimension, validCells(dimension)).toArray();
+			assertEquals(Status.VALID, sudoku.check(grid));
+
+			grid[1][1] = grid[1][2];
+			assertEquals(Status.INVALID, sudoku.check(grid));
+		}
+	}
+
+	/**
+	 * Checks the grid with the set comparisons of every row, column and subgrid.
+	 */
+	private Status reference(final Integer[][] grid) {
+		final int box = Grid.boxDimensionOf(grid.length);
+		Integer[][] columns = sudoku.transpose(grid);
+		for (int i = 0; i < grid.length; i++) {
+			if (!sudoku.isSudokuLine(grid[i]) || !sudoku.isSudokuLine(columns[i])
+					|| !sudoku.isSudokuGrid(sudoku.subGrid(i / box * box, i % box * box, box, grid)))
+				return Status.INVALID;
+		}
+		return Status.VALID;
+	}
+
+	@Test
+	public void agreesWithSetComparisonTest() {
+		Random random = new Random(16);
+		for (int trial = 0; trial < 200; trial++) {
+			final int dimension = trial % 2 == 0 ? 16 : 81;
+			byte[] cells = validCells(dimension);
+			for (int change = random.nextInt(3); change > 0; change--) {
+				cells[random.nextInt(cells.length)] = (byte) random.nextInt(dimension + 2);
+			}
+			Status expected = reference(Grid.wrap(dimension, cells).toArray());
+
+			assertEquals(expected, MaskChecker.check(cells, 0, dimension));
+			assertEquals(expected, MaskChecker.diagnose(cells, 0, dimension).status());
+		}
+	}
+}
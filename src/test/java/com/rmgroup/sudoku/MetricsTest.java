@@ -0,0 +1,174 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Metrics.Stage;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class MetricsTest {
+
+	@Before
+	public void setUp() {
+		Metrics.setEnabled(false);
+		Metrics.reset();
+	}
+
+	@After
+	public void tearDown() {
+		Metrics.setEnabled(false);
+		Metrics.reset();
+	}
+
+	@Test
+	public void disabledRecordsNothingTest() throws Exception {
+		assertEquals(0, Metrics.start(Stage.CHECK));
+		assertEquals(Status.VALID, Sudoku.getInstance().check(SolutionFixture.solution()));
+		new BatchValidator(SudokuReader.DETECT_DIMENSION, new StringWriter()).validate(CsvReaderTest.resource("sudokuBatch.txt"));
+
+		assertEquals(0, Metrics.valid() + Metrics.invalid() + Metrics.malformed());
+		for (Stage stage : Stage.values()) {
+			assertEquals(0, Metrics.stage(stage).getCount());
+		}
+	}
+
+	@Test
+	public void batchStagesAndOutcomesTest() throws Exception {
+		Metrics.setEnabled(true);
+		BatchValidator.Summary summary = new BatchValidator(SudokuReader.DETECT_DIMENSION, new StringWriter())
+				.validate(CsvReaderTest.resource("sudokuBatch.txt"));
+
+		assertEquals(summary.valid(), Metrics.valid());
+		assertEquals(summary.invalid(), Metrics.invalid());
+		assertEquals(summary.malformed(), Metrics.malformed());
+		// every grid and the end of the file are parsed, the grids parsed are checked,
+		// and the mapped file has no read stage.
+		assertEquals(summary.total() + 1, Metrics.stage(Stage.PARSE).getCount());
+		assertEquals(summary.total() - summary.malformed(), Metrics.stage(Stage.CHECK).getCount());
+		assertEquals(0, Metrics.stage(Stage.READ).getCount());
+		assertTrue(Metrics.stage(Stage.PARSE).getMaxNanos() > 0);
+	}
+
+	@Test
+	public void lineReadsAndAllocationsTest() throws Exception {
+		Metrics.setEnabled(true);
+		new CsvReader(CsvReaderTest.resource("sudokuValid.csv"), 9).readGrid();
+
+		// nine lines and the end of the file.
+		assertEquals(10, Metrics.stage(Stage.READ).getCount());
+		assertEquals(9, Metrics.stage(Stage.PARSE).getCount());
+		// each line read is a new String.
+		assertTrue(Metrics.stage(Stage.READ).getAllocatedBytes() > 0);
+	}
+
+	@Test
+	public void checkIsTimedTest() {
+		Metrics.setEnabled(true);
+		Sudoku sudoku = Sudoku.getInstance();
+		for (int i = 0; i < 1000; i++) {
+			sudoku.check(SolutionFixture.solution());
+		}
+		sudoku.diagnose(SolutionFixture.solution());
+		StageMXBean check = Metrics.stage(Stage.CHECK);
+		assertEquals(1001, check.getCount());
+		assertTrue(check.getP50Nanos() <= check.getP99Nanos());
+		assertTrue(check.getP999Nanos() <= check.getMaxNanos());
+		assertEquals(check.getCount(), Metrics.histogram(Stage.CHECK).count());
+	}
+
+	@Test
+	public void stageStartedWhileDisabledTest() {
+		final long started = Metrics.start(Stage.CHECK);
+		Metrics.setEnabled(true);
+		Metrics.stop(Stage.CHECK, started);
+		assertEquals(0, Metrics.stage(Stage.CHECK).getCount());
+	}
+
+	@Test
+	public void textAndJsonTest() {
+		Metrics.setEnabled(true);
+		Metrics.outcome(Status.VALID, false);
+		Metrics.outcome(Status.INVALID, true);
+
+		String text = Metrics.text();
+		assertTrue(text.startsWith("Grids: 1 VALID, 1 INVALID (1 malformed)"));
+		assertTrue(text.contains(System.lineSeparator() + "check  count=0 mean=0ns"));
+
+		String json = Metrics.json();
+		assertTrue(json.startsWith("{\"valid\":1,\"invalid\":1,\"malformed\":1,\"stages\":{\"read\":{\"count\":0,"));
+		assertTrue(json.endsWith("\"allocatedBytes\":0}}}"));
+	}
+
+	@Test
+	public void mxBeansTest() throws Exception {
+		Metrics.register();
+		// registering again is harmless.
+		Metrics.register();
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName metrics = new ObjectName(Metrics.OBJECT_NAME);
+		server.setAttribute(metrics, new javax.management.Attribute("Enabled", true));
+		assertTrue(Metrics.isEnabled());
+
+		Sudoku.getInstance().check(SolutionFixture.solution());
+		Metrics.outcome(Status.VALID, false);
+		assertEquals(1L, server.getAttribute(metrics, "Valid"));
+		assertEquals(1L, server.getAttribute(new ObjectName(Metrics.OBJECT_NAME + ",stage=check"), "Count"));
+		assertTrue(((String) server.getAttribute(metrics, "Json")).startsWith("{\"valid\":1,"));
+
+		server.invoke(metrics, "reset", null, null);
+		assertEquals(0L, server.getAttribute(metrics, "Valid"));
+	}
+
+	@Test
+	public void periodicDumpTest() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, true, "UTF-8");
+		ScheduledExecutorService dumps = Metrics.dumpEvery(10, TimeUnit.MILLISECONDS, out, true);
+		try {
+			final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (bytes.size() == 0 && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+		} finally {
+			dumps.shutdownNow();
+			dumps.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		assertTrue(new String(bytes.toByteArray(), StandardCharsets.UTF_8).startsWith("{\"valid\":0,"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void dumpPeriodMustBePositiveTest() {
+		Metrics.dumpEvery(0, TimeUnit.SECONDS, System.err, false);
+	}
+
+	@Test
+	public void configureWithoutPropertyTest() {
+		Metrics.configure(System.err);
+		assertFalse(Metrics.isEnabled());
+	}
+
+	@Test
+	public void nativeImageHasNoEventsTest() {
+		try {
+			System.setProperty(UnitChecker.NATIVE_IMAGE_PROPERTY, "runtime");
+			assertNull(Metrics.events());
+		} finally {
+			System.clearProperty(UnitChecker.NATIVE_IMAGE_PROPERTY);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class PackedUnitsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Returns the solution with two cells swapped and, now and then, a cell of any value.
+	 */
+	private static Grid mutated(final Random random) {
+		Grid grid = SolutionFixture.solution();
+		byte[] cells = grid.cells();
+		int first = random.nextInt(81), second = random.nextInt(81);
+		byte swap = cells[first];
+		cells[first] = cells[second];
+		cells[second] = swap;
+		if (random.nextInt(4) == 0)
+			cells[random.nextInt(81)] = (byte) (random.nextInt(256) - 128);
+		return grid;
+	}
+
+	@Test
+	public void validSolutionTest() {
+		PackedUnits units = new PackedUnits();
+		units.pack(SolutionFixture.solution().cells(), 0);
+		assertEquals(Status.VALID, units.check());
+		// the first digit is in the highest nibble.
+		assertEquals(0x371594862L, units.row(0));
+		assertEquals(0x354697821L, units.column(0));
+	}
+
+	@Test
+	public void agreesWithBitmaskCheckerTest() {
+		Random random = new Random(18);
+		PackedUnits units = new PackedUnits();
+		for (int i = 0; i < 20000; i++) {
+			Grid grid = mutated(random);
+			units.pack(grid.cells(), 0);
+			assertEquals(BitmaskChecker.check(grid.cells(), 0), units.check());
+		}
+	}
+
+	@Test
+	public void outOfRangeValuesTest() {
+		PackedUnits units = new PackedUnits();
+		for (int value : new int[] {0, -1, 10, 15, 16, 17, 127}) {
+			Grid grid = SolutionFixture.solution();
+			grid.cells()[40] = (byte) value;
+			units.pack(grid.cells(), 0);
+			assertEquals(Status.INVALID, units.check());
+		}
+	}
+
+	@Test
+	public void swappedLinesTest() {
+		Grid grid = SolutionFixture.solution();
+		PackedUnits units = new PackedUnits();
+
+		// two rows of a band swapped keep every unit.
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				units.set(row, col, grid.get(row < 2 ? 1 - row : row, col));
+			}
+		}
+		assertEquals(Status.VALID, units.check());
+
+		// two columns of different stacks swapped keep the rows and columns only.
+		units.pack(grid.cells(), 0);
+		for (int row = 0; row < 9; row++) {
+			units.set(row, 0, grid.get(row, 3));
+			units.set(row, 3, grid.get(row, 0));
+		}
+		assertEquals(Status.INVALID, units.check());
+
+		// every row 1..9 leaves each column a single value.
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				units.set(row, col, col + 1);
+			}
+		}
+		assertEquals(Status.INVALID, units.check());
+	}
+
+	@Test
+	public void setOverwritesCellTest() {
+		PackedUnits units = new PackedUnits();
+		units.set(4, 5, 9);
+		units.set(4, 5, 2);
+		assertEquals(0x000002000L, units.row(4));
+		assertEquals(0x000020000L, units.column(5));
+		units.clear();
+		assertEquals(0, units.row(4));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void setOutsideGridTest() {
+		new PackedUnits().set(9, 0, 1);
+	}
+
+	@Test
+	public void readUnitsTest() throws Exception {
+		// over 64KB, so the file is mapped rather than read.
+		Random random = new Random(41);
+		List<Grid> grids = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Grid grid = mutated(random);
+			for (int cell = 0; cell < 81; cell++) {
+				if (grid.cells()[cell] < 0 || grid.cells()[cell] > 9)
+					grid.cells()[cell] = 0;
+			}
+			grids.add(grid);
+		}
+		Path file = folder.getRoot().toPath().resolve("grids.bin");
+		try (BinaryGridWriter writer = new BinaryGridWriter(file, 9)) {
+			for (Grid grid : grids) {
+				writer.write(grid);
+			}
+		}
+
+		PackedUnits units = new PackedUnits();
+		PackedUnits expected = new PackedUnits();
+		try (BinaryGridReader reader = new BinaryGridReader(file)) {
+			for (int position = 0; position < grids.size(); position++) {
+				reader.readUnits(position, units);
+				expected.pack(grids.get(position).cells(), 0);
+				for (int unit = 0; unit < 9; unit++) {
+					assertEquals(expected.row(unit), units.row(unit));
+					assertEquals(expected.column(unit), units.column(unit));
+				}
+				assertEquals(Sudoku.getInstance().check(grids.get(position)), units.check());
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void readUnitsOfAnotherDimensionTest() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("four.bin");
+		try (BinaryGridWriter writer = new BinaryGridWriter(file, 4)) {
+			writer.write(new Grid(4));
+		}
+		try (BinaryGridReader reader = new BinaryGridReader(file)) {
+			reader.readUnits(0, new PackedUnits());
+		}
+	}
+}
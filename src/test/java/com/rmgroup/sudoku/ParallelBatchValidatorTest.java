@@ -0,0 +1,68 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rmgroup.sudoku.BatchValidator.Summary;
+
+public class ParallelBatchValidatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void sameOutputAsSequentialTest() throws Exception {
+		Path file = folder.newFile("many.txt").toPath();
+		Random random = new Random(7);
+		String valid = "371594862528376194496281735614923587982715643753468921845139276239657418167842359";
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < 5000; i++) {
+				char[] line = valid.toCharArray();
+				if (random.nextInt(3) == 0) {
+					line[random.nextInt(line.length)] = (char) ('0' + random.nextInt(10));
+				}
+				if (random.nextInt(50) == 0) {
+					line[random.nextInt(line.length)] = 'x';
+				}
+				writer.write(line);
+				writer.newLine();
+			}
+		}
+
+		StringWriter sequential = new StringWriter();
+		Summary expected = new BatchValidator(9, sequential).validate(file);
+
+		StringWriter parallel = new StringWriter();
+		// small chunks and few in flight to exercise the backpressure.
+		Summary actual = new ParallelBatchValidator(9, parallel, 4, 7, 3).validate(file);
+
+		assertEquals(sequential.toString(), parallel.toString());
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(5000, actual.total());
+		assertTrue(actual.malformed() > 0);
+	}
+
+	@Test
+	public void emptyFileTest() throws Exception {
+		StringWriter out = new StringWriter();
+		Summary summary = new ParallelBatchValidator(9, out, 2).validate(folder.newFile("empty.txt").toPath());
+		assertEquals(0, summary.total());
+		assertEquals("", out.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void noWorkersTest() {
+		new ParallelBatchValidator(9, new StringWriter(), 0);
+	}
+}
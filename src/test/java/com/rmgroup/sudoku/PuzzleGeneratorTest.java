@@ -0,0 +1,128 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.PuzzleGenerator.Difficulty;
+import com.rmgroup.sudoku.PuzzleGenerator.Puzzle;
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class PuzzleGeneratorTest {
+
+	@Test
+	public void uniqueAndMinimalTest() {
+		for (int dimension : new int[] {4, 9}) {
+			PuzzleGenerator generator = new PuzzleGenerator(dimension);
+			SolutionCounter counter = new SolutionCounter(dimension);
+			for (long seed = 0; seed < 20; seed++) {
+				Puzzle puzzle = generator.generate(seed);
+				assertEquals(Status.VALID, Sudoku.getInstance().check(puzzle.solution()));
+				assertTrue(counter.count(puzzle.puzzle(), 2).isUnique());
+
+				byte[] givens = puzzle.puzzle().cells();
+				int count = 0;
+				for (int cell = 0; cell < givens.length; cell++) {
+					if (givens[cell] == Grid.EMPTY)
+						continue;
+					count++;
+					assertEquals(puzzle.solution().cells()[cell], givens[cell]);
+					// every given is needed.
+					Grid fewer = puzzle.puzzle().copy();
+					fewer.cells()[cell] = Grid.EMPTY;
+					assertFalse(counter.count(fewer, 2).isUnique());
+				}
+				assertEquals(count, puzzle.givens());
+			}
+		}
+	}
+
+	@Test
+	public void reproducibleTest() {
+		assertEquals(new PuzzleGenerator(9).generate(7).toString(), new PuzzleGenerator(9).generate(7).toString());
+		assertNotEquals(new PuzzleGenerator(9).generate(7).toString(), new PuzzleGenerator(9).generate(8).toString());
+
+		ForkJoinPool single = new ForkJoinPool(1), pool = new ForkJoinPool(4);
+		try {
+			Puzzle[] sequential = PuzzleGenerator.generate(9, 42, 50, single);
+			Puzzle[] parallel = PuzzleGenerator.generate(9, 42, 50, pool);
+			assertEquals(50, parallel.length);
+			for (int i = 0; i < sequential.length; i++) {
+				assertEquals(sequential[i].toString(), parallel[i].toString());
+				assertEquals(new PuzzleGenerator(9).generate(PuzzleGenerator.seedOf(42, i)).toString(),
+						parallel[i].toString());
+			}
+			assertEquals(0, PuzzleGenerator.generate(9, 42, 0, pool).length);
+		} finally {
+			single.shutdown();
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void rateTest() {
+		PuzzleGenerator generator = new PuzzleGenerator(9);
+		Grid solution = SolutionFixture.solution();
+		assertEquals(Difficulty.EASY, generator.rate(solution));
+
+		// a blank row is filled by naked singles.
+		Grid row = solution.copy();
+		for (int col = 0; col < 9; col++) {
+			row.set(4, col, Grid.EMPTY);
+		}
+		assertEquals(Difficulty.EASY, generator.rate(row));
+
+		for (String line : SolverTest.HARD_PUZZLES) {
+			Grid puzzle = SolverTest.puzzle(line);
+			String before = puzzle.toString();
+			assertEquals(line, Difficulty.HARD, generator.rate(puzzle));
+			assertEquals(before, puzzle.toString());
+		}
+
+		// generated puzzles hold the rating of their puzzle, and need hidden singles or more.
+		boolean[] seen = new boolean[Difficulty.values().length];
+		for (long seed = 0; seed < 50; seed++) {
+			Puzzle puzzle = generator.generate(seed);
+			assertEquals(puzzle.difficulty(), generator.rate(puzzle.puzzle()));
+			seen[puzzle.difficulty().ordinal()] = true;
+		}
+		assertTrue(seen[Difficulty.MEDIUM.ordinal()]);
+		assertTrue(seen[Difficulty.HARD.ordinal()]);
+	}
+
+	@Test
+	public void toStringTest() {
+		Puzzle puzzle = new PuzzleGenerator(16).generate(3);
+		String[] fields = puzzle.toString().split(" ");
+		assertEquals(3, fields.length);
+		assertEquals(256, fields[0].length());
+		assertTrue(fields[0].matches("[.1-9A-G]+"));
+		assertEquals(puzzle.difficulty().name(), fields[1]);
+		assertEquals(Integer.toString(puzzle.givens()), fields[2]);
+		assertTrue(new SolutionCounter(16).count(SolverTest.puzzle(fields[0]), 2).isUnique());
+	}
+
+	@Test
+	public void illegalArgumentsTest() {
+		try {
+			new PuzzleGenerator(9).rate(new Grid(4));
+			fail("A puzzle of another dimension should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: a 4 x 4 puzzle cannot be rated by a 9 x 9 generator", ex.getMessage());
+		}
+		try {
+			PuzzleGenerator.generate(9, 1, -1, ForkJoinPool.commonPool());
+			fail("A negative count should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: the number of puzzles cannot be negative", ex.getMessage());
+		}
+		try {
+			new PuzzleGenerator(8);
+			fail("A dimension which is not a perfect square should be rejected");
+		} catch (IllegalArgumentException ex) {
+			// expected.
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class ReportFormatTest {
+
+	private static final String NL = System.lineSeparator();
+
+	private static CheckResult invalid() {
+		Grid grid = SolutionFixture.solution();
+		grid.set(0, 6, 3);
+		return Sudoku.getInstance().diagnose(grid);
+	}
+
+	@Test
+	public void ofTest() {
+		assertEquals(ReportFormat.JSONL, ReportFormat.of("jsonl"));
+		assertEquals(ReportFormat.CSV, ReportFormat.of("CSV"));
+		assertEquals(ReportFormat.TEXT, ReportFormat.of("Text"));
+		try {
+			ReportFormat.of("xml");
+			fail("An unknown format should be rejected");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("ERROR: the report format must be text, jsonl or csv", ex.getMessage());
+		}
+	}
+
+	@Test
+	public void textTest() {
+		StringBuilder out = new StringBuilder();
+		ReportFormat.TEXT.appendResult(out, "a.csv", 1, Status.VALID, null, null, 10);
+		ReportFormat.TEXT.appendResult(out, "a.csv", 2, Status.INVALID, invalid(), null, 10);
+		ReportFormat.TEXT.appendResult(out, "a.csv", 3, Status.INVALID, null, new IllegalArgumentException("ERROR: bad"), 10);
+		assertEquals("a.csv#1 VALID" + NL + "a.csv#2 INVALID" + NL + "a.csv#3 INVALID (ERROR: bad)" + NL, out.toString());
+		assertEquals("", ReportFormat.TEXT.appendHeader(new StringBuilder()).toString());
+		assertFalse(ReportFormat.TEXT.isStructured());
+	}
+
+	@Test
+	public void jsonlTest() {
+		StringBuilder out = new StringBuilder();
+		ReportFormat.JSONL.appendResult(out, "a.csv", 1, Status.VALID, null, null, 812);
+		ReportFormat.JSONL.appendResult(out, "a.csv", 2, Status.INVALID, invalid(), null, 900);
+		ReportFormat.JSONL.appendResult(out, "dir\\\"b\".csv", 3, Status.INVALID, null,
+				new NumberFormatException("Error: non-integer value \"x\""), 5);
+		assertEquals("{\"source\":\"a.csv\",\"index\":1,\"status\":\"VALID\",\"nanos\":812}" + NL
+				+ "{\"source\":\"a.csv\",\"index\":2,\"status\":\"INVALID\",\"unit\":\"ROW\",\"unitIndex\":0,"
+				+ "\"problem\":\"DUPLICATE\",\"digit\":3,\"row\":0,\"column\":6,\"nanos\":900}" + NL
+				+ "{\"source\":\"dir\\\\\\\"b\\\".csv\",\"index\":3,\"status\":\"INVALID\","
+				+ "\"errorClass\":\"NumberFormatException\",\"error\":\"Error: non-integer value \\\"x\\\"\",\"nanos\":5}" + NL,
+				out.toString());
+	}
+
+	@Test
+	public void csvTest() {
+		StringBuilder out = ReportFormat.CSV.appendHeader(new StringBuilder());
+		ReportFormat.CSV.appendResult(out, "a.csv", 1, Status.VALID, null, null, 812);
+		ReportFormat.CSV.appendResult(out, "a.csv", 2, Status.INVALID, invalid(), null, 900);
+		ReportFormat.CSV.appendResult(out, "b,c.csv", 3, Status.INVALID, null,
+				new NumberFormatException("Error: non-integer value \"x\" at row 1, column 2"), 5);
+		String[] lines = out.toString().split(NL);
+		assertEquals(ReportFormat.CSV_HEADER, lines[0]);
+		assertEquals("a.csv,1,VALID,,,,,,,,,812", lines[1]);
+		assertEquals("a.csv,2,INVALID,ROW,0,DUPLICATE,3,0,6,,,900", lines[2]);
+		assertEquals("\"b,c.csv\",3,INVALID,,,,,,,NumberFormatException,"
+				+ "\"Error: non-integer value \"\"x\"\" at row 1, column 2\",5", lines[3]);
+		// every line has the columns of the header, once the quoted commas are discounted.
+		for (String line : lines) {
+			assertEquals(line, 11, line.replaceAll("\"[^\"]*(\"\"[^\"]*)*\"", "").replaceAll("[^,]", "").length());
+		}
+		assertEquals("", ReportFormat.CSV.appendSummary(new StringBuilder(), new BatchValidator.Summary()).toString());
+	}
+
+	@Test
+	public void batchTest() throws Exception {
+		Path batch = CsvReaderTest.resource("sudokuBatch.txt");
+		StringWriter sequential = new StringWriter(), parallel = new StringWriter();
+		BatchValidator.Summary summary = new BatchValidator(9, sequential, ReportFormat.JSONL).validate(batch);
+		new ParallelBatchValidator(9, parallel, 3, 2, 2, ReportFormat.JSONL).validate(batch);
+
+		String[] lines = sequential.toString().split(NL);
+		assertEquals(6, lines.length);
+		assertTrue(lines[0].matches("\\{\"source\":\".*sudokuBatch.txt\",\"index\":1,\"status\":\"VALID\",\"nanos\":\\d+\\}"));
+		assertTrue(lines[2], lines[2].contains("\"index\":3,\"status\":\"INVALID\",\"unit\":\"ROW\",\"unitIndex\":8,"));
+		assertTrue(lines[3], lines[3].contains("\"index\":4,\"status\":\"INVALID\",\"errorClass\":"));
+		assertTrue(lines[4], lines[4].contains("\"errorClass\":\"IllegalArgumentException\",\"error\":\"ERROR: Mismatch"));
+		assertEquals(sequential.toString().replaceAll("\"nanos\":\\d+", ""),
+				parallel.toString().replaceAll("\"nanos\":\\d+", ""));
+
+		assertEquals("{\"summary\":{\"total\":6,\"valid\":2,\"invalid\":4,\"malformed\":2}}" + NL,
+				ReportFormat.JSONL.appendSummary(new StringBuilder(), summary).toString());
+	}
+}
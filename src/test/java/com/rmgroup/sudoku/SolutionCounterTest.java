@@ -0,0 +1,167 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.rmgroup.sudoku.SolutionCounter.Count;
+
+public class SolutionCounterTest {
+
+	private static ForkJoinPool pool;
+
+	@BeforeClass
+	public static void setUpPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterClass
+	public static void tearDownPool() {
+		pool.shutdown();
+	}
+
+	/**
+	 * @return a sequential and a parallel counter for the given {@code dimension}.
+	 */
+	private static SolutionCounter[] counters(final int dimension) {
+		return new SolutionCounter[] {new SolutionCounter(dimension), new SolutionCounter(dimension, pool)};
+	}
+
+	@Test
+	public void hardPuzzlesAreUniqueTest() {
+		for (SolutionCounter counter : counters(9)) {
+			for (String line : SolverTest.HARD_PUZZLES) {
+				Count count = counter.count(SolverTest.puzzle(line), 2);
+				assertEquals(line, 1, count.solutions());
+				assertTrue(line, count.isUnique());
+				assertFalse(line, count.isLimited());
+				assertTrue(line, count.nodes() > 0);
+			}
+		}
+	}
+
+	@Test
+	public void puzzleIsUnchangedTest() {
+		Grid puzzle = SolverTest.puzzle(SolverTest.HARD_PUZZLES[0]);
+		for (SolutionCounter counter : counters(9)) {
+			counter.count(puzzle, 2);
+			assertEquals(SolverTest.puzzle(SolverTest.HARD_PUZZLES[0]), puzzle);
+		}
+	}
+
+	@Test
+	public void exactCountTest() {
+		// there are 288 4 x 4 solutions.
+		for (SolutionCounter counter : counters(4)) {
+			Count count = counter.count(new Grid(4), 1000);
+			assertEquals(288, count.solutions());
+			assertFalse(count.isLimited());
+			assertFalse(count.isUnique());
+		}
+	}
+
+	@Test
+	public void limitStopsTheCountTest() {
+		for (SolutionCounter counter : counters(9)) {
+			Count count = counter.count(new Grid(9), 1000);
+			assertEquals(1000, count.solutions());
+			assertTrue(count.isLimited());
+
+			count = counter.count(new Grid(9), 1);
+			assertEquals(1, count.solutions());
+			assertTrue(count.isLimited());
+			assertFalse(count.isUnique());
+		}
+	}
+
+	@Test
+	public void twoSolutionsTest() {
+		// blank a rectangle of two rows and two columns, in two boxes, whose corners swap.
+		byte[] cells = SolutionFixture.solution().cells();
+		int[] corners = swappableRectangle(cells);
+		for (int cell : corners) {
+			cells[cell] = Grid.EMPTY;
+		}
+		for (SolutionCounter counter : counters(9)) {
+			Count count = counter.count(Grid.wrap(9, cells), 2);
+			assertEquals(2, count.solutions());
+			assertTrue(count.isLimited());
+			assertEquals(2, counter.count(Grid.wrap(9, cells), 10).solutions());
+		}
+	}
+
+	@Test
+	public void noSolutionTest() {
+		for (SolutionCounter counter : counters(9)) {
+			assertEquals(0, counter.count(SolverTest.puzzle("11" + repeat('.', 79)), 2).solutions());
+			assertEquals(0, counter.count(SolverTest.puzzle(".12345678" + "9" + repeat('.', 71)), 2).solutions());
+		}
+	}
+
+	@Test
+	public void parallelCountsMatchTest() {
+		Random random = new Random(12);
+		SolutionCounter[] counters = counters(9);
+		for (int trial = 0; trial < 20; trial++) {
+			Grid puzzle = SolverTest.puzzle(SolverTest.HARD_PUZZLES[trial % SolverTest.HARD_PUZZLES.length]);
+			// drop a few givens, which may leave several solutions.
+			for (int drop = 0; drop < 3; drop++) {
+				puzzle.cells()[random.nextInt(81)] = Grid.EMPTY;
+			}
+			Count sequential = counters[0].count(puzzle, 50);
+			Count parallel = counters[1].count(puzzle, 50);
+			assertEquals("trial " + trial, sequential.solutions(), parallel.solutions());
+		}
+	}
+
+	@Test
+	public void countToStringTest() {
+		Count count = new Count(2, 2, 415, TimeUnit.MICROSECONDS.toNanos(231));
+		assertEquals("2+ solutions, 415 nodes, 231us", count.toString());
+		assertEquals(231, count.elapsed(TimeUnit.MICROSECONDS));
+		assertEquals("1 solution, 3 nodes, 0us", new Count(1, 2, 3, 10).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void limitMustBePositiveTest() {
+		new SolutionCounter(9).count(new Grid(9), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongDimensionTest() {
+		new SolutionCounter(9, pool).count(new Grid(4), 2);
+	}
+
+	/**
+	 * Returns the cells of a rectangle within one band, spanning two boxes, whose
+	 * diagonally opposite corners hold the same digits, so they may be swapped.
+	 */
+	private static int[] swappableRectangle(final byte[] cells) {
+		for (int row1 = 0; row1 < 9; row1++) {
+			for (int row2 = row1 + 1; row2 < row1 / 3 * 3 + 3; row2++) {
+				for (int col1 = 0; col1 < 9; col1++) {
+					for (int col2 = (col1 / 3 + 1) * 3; col2 < 9; col2++) {
+						if (cells[row1 * 9 + col1] == cells[row2 * 9 + col2]
+								&& cells[row1 * 9 + col2] == cells[row2 * 9 + col1])
+							return new int[] {row1 * 9 + col1, row1 * 9 + col2, row2 * 9 + col1, row2 * 9 + col2};
+					}
+				}
+			}
+		}
+		throw new AssertionError("no rectangle");
+	}
+
+	private static String repeat(final char c, final int count) {
+		StringBuilder text = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			text.append(c);
+		}
+		return text.toString();
+	}
+}
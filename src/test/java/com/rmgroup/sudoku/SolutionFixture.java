@@ -0,0 +1,40 @@
+package com.rmgroup.sudoku;
+
+/**
+ * The valid 9 x 9 solution shared by the tests, as cells, as rows and as a {@link Grid}.
+ */
+final class SolutionFixture {
+
+	static final int[] VALID_SOLUTION = {
+			3,7,1,5,9,4,8,6,2,
+			5,2,8,3,7,6,1,9,4,
+			4,9,6,2,8,1,7,3,5,
+			6,1,4,9,2,3,5,8,7,
+			9,8,2,7,1,5,6,4,3,
+			7,5,3,4,6,8,9,2,1,
+			8,4,5,1,3,9,2,7,6,
+			2,3,9,6,5,7,4,1,8,
+			1,6,7,8,4,2,3,5,9};
+
+	private SolutionFixture() {
+	}
+
+	/**
+	 * @param cells of a 9 x 9 grid in row major order.
+	 * @return the rows of the grid.
+	 */
+	static Integer[][] toGrid(final int[] cells) {
+		Integer[][] grid = new Integer[9][9];
+		for (int i = 0; i < cells.length; i++) {
+			grid[i / 9][i % 9] = cells[i];
+		}
+		return grid;
+	}
+
+	/**
+	 * @return a new grid holding {@link #VALID_SOLUTION}.
+	 */
+	static Grid solution() {
+		return Grid.of(toGrid(VALID_SOLUTION));
+	}
+}
@@ -0,0 +1,168 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class SolverTest {
+
+	/**
+	 * Well known hard 9 x 9 puzzles, each with a single solution: AI Escargot, Easter Monster,
+	 * the 2012 "world's hardest" and the first four of the top95 collection.
+	 */
+	static final String[] HARD_PUZZLES = {
+			"1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+			"1.......2.9.4...5...6...7...5.9.3.......7.......85..4.7.....6...3...9.8...2.....1",
+			"8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+			"4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+			"52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+			"6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+			"48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5...."};
+
+	private final Sudoku sudoku = Sudoku.getInstance();
+
+	/**
+	 * @return the puzzle written on the given line, blanks as {@code .}.
+	 */
+	static Grid puzzle(final String line) {
+		Grid puzzle = new Grid(CsvRowParser.dimensionOfLine(line.length()));
+		CsvRowParser.parseLine(line, puzzle.dimension(), puzzle.cells(), true);
+		return puzzle;
+	}
+
+	/**
+	 * Asserts that {@code solution} is a valid grid agreeing with every given of {@code puzzle}.
+	 */
+	private void assertSolves(final Grid puzzle, final Grid solution) {
+		assertEquals(Status.VALID, sudoku.check(solution));
+		for (int cell = 0; cell < puzzle.size(); cell++) {
+			if (puzzle.get(cell) != Grid.EMPTY)
+				assertEquals("cell " + cell, puzzle.get(cell), solution.get(cell));
+		}
+	}
+
+	@Test
+	public void hardPuzzlesTest() {
+		Solver solver = new Solver(9);
+		for (String line : HARD_PUZZLES) {
+			Grid puzzle = puzzle(line);
+			Grid solution = puzzle.copy();
+			assertTrue(line, solver.solve(solution));
+			assertSolves(puzzle, solution);
+			assertTrue(line, solver.nodes() > 0);
+		}
+	}
+
+	@Test
+	public void puzzleFileTest() throws Exception {
+		Grid puzzle = new CsvReader(CsvReaderTest.resource("sudokuPuzzle.csv"), SudokuReader.DETECT_DIMENSION, true).readGrid();
+		Grid solution = puzzle.copy();
+		Solver solver = new Solver(9);
+		assertTrue(solver.solve(solution));
+		assertSolves(puzzle, solution);
+		// an easy puzzle falls to propagation alone.
+		assertEquals(1, solver.nodes());
+	}
+
+	@Test
+	public void solutionIsLeftAloneTest() {
+		Grid solution = Grid.wrap(9, MaskCheckerTest.validCells(9));
+		assertTrue(new Solver(9).solve(solution));
+		assertEquals(Grid.wrap(9, MaskCheckerTest.validCells(9)), solution);
+	}
+
+	@Test
+	public void emptyGridsTest() {
+		for (int dimension : new int[] {1, 4, 9, 16, 25}) {
+			Grid grid = new Grid(dimension);
+			assertTrue("dimension " + dimension, new Solver(dimension).solve(grid));
+			assertEquals("dimension " + dimension, Status.VALID, sudoku.check(grid));
+		}
+	}
+
+	@Test
+	public void largerPuzzlesTest() {
+		Random random = new Random(11);
+		for (int dimension : new int[] {4, 16, 25}) {
+			Grid puzzle = Grid.wrap(dimension, MaskCheckerTest.validCells(dimension));
+			// blank about half the cells.
+			for (int cell = 0; cell < puzzle.size(); cell++) {
+				if (random.nextBoolean())
+					puzzle.cells()[cell] = Grid.EMPTY;
+			}
+			Grid solution = puzzle.copy();
+			assertTrue("dimension " + dimension, new Solver(dimension).solve(solution));
+			assertSolves(puzzle, solution);
+		}
+	}
+
+	@Test
+	public void noSolutionTest() {
+		Solver solver = new Solver(9);
+
+		// two 1s in the first row.
+		Grid clash = puzzle("11" + repeat('.', 79));
+		assertFalse(solver.solve(clash));
+		assertEquals(puzzle("11" + repeat('.', 79)), clash);
+
+		// no clash among the givens, but the first cell can hold nothing.
+		Grid blocked = puzzle(".12345678" + "9" + repeat('.', 71));
+		assertFalse(solver.solve(blocked));
+		assertEquals(Grid.EMPTY, blocked.get(0, 0));
+
+		// every cell has candidates, but row 0 has nowhere for a 9.
+		Grid hidden = puzzle("........." + ".9......." + "......9.." + repeat('.', 54));
+		hidden.set(0, 3, 1);
+		hidden.set(0, 4, 2);
+		hidden.set(0, 5, 3);
+		hidden.set(5, 3, 9);
+		assertFalse(solver.solve(hidden));
+	}
+
+	@Test
+	public void solverIsReusableTest() {
+		Solver solver = new Solver(9);
+		for (int round = 0; round < 3; round++) {
+			for (String line : HARD_PUZZLES) {
+				Grid solution = puzzle(line);
+				assertTrue(solver.solve(solution));
+				assertSolves(puzzle(line), solution);
+			}
+			assertFalse(solver.solve(puzzle("11" + repeat('.', 79))));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongDimensionTest() {
+		new Solver(9).solve(new Grid(16));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullPuzzleTest() {
+		new Solver(9).solve(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void outOfRangeCellTest() {
+		byte[] cells = new byte[81];
+		cells[40] = 10;
+		new Solver(9).solve(Grid.wrap(9, cells));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void tooLargeTest() {
+		new Solver(81);
+	}
+
+	private static String repeat(final char c, final int count) {
+		StringBuilder text = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			text.append(c);
+		}
+		return text.toString();
+	}
+}
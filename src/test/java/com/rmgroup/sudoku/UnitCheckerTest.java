@@ -0,0 +1,109 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rmgroup.sudoku.Sudoku.Status;
+
+public class UnitCheckerTest {
+
+	private UnitChecker vector;
+
+	@Before
+	public void setUp() {
+		// only where the build and the hardware support the Vector API.
+		vector = UnitChecker.vector();
+		assumeNotNull(vector);
+	}
+
+	private static byte[] solution(final int offset, final int length) {
+		byte[] cells = new byte[length];
+		for (int i = 0; i < BitmaskChecker.CELL_COUNT; i++) {
+			cells[offset + i] = (byte) SolutionFixture.VALID_SOLUTION[i];
+		}
+		return cells;
+	}
+
+	private void assertAgrees(final byte[] cells, final int offset) {
+		assertEquals(BitmaskChecker.check(cells, offset), vector.check(cells, offset));
+	}
+
+	@Test
+	public void validSolutionTest() {
+		assertEquals(Status.VALID, vector.check(solution(0, 81), 0));
+		// the last row ends the array, and ends 16 bytes before it.
+		assertEquals(Status.VALID, vector.check(solution(3, 84), 3));
+		assertEquals(Status.VALID, vector.check(solution(0, 97), 0));
+	}
+
+	@Test
+	public void agreesWithBitmaskCheckerTest() {
+		Random random = new Random(17);
+		for (int i = 0; i < 20000; i++) {
+			int offset = random.nextInt(3);
+			byte[] cells = solution(offset, offset + 81 + random.nextInt(20));
+			// a swap of two cells keeps every row complete but may break columns and subgrids.
+			int first = offset + random.nextInt(81), second = offset + random.nextInt(81);
+			byte swap = cells[first];
+			cells[first] = cells[second];
+			cells[second] = swap;
+			if (random.nextBoolean())
+				cells[offset + random.nextInt(81)] = (byte) (random.nextInt(256) - 128);
+			assertAgrees(cells, offset);
+		}
+	}
+
+	@Test
+	public void outOfRangeValuesTest() {
+		// zero, negative and too large values in the middle cell.
+		byte[] cells = solution(0, 81);
+		for (byte value : new byte[] {0, -1, 10, 16, 17, -128, 127}) {
+			byte[] bad = cells.clone();
+			bad[40] = value;
+			assertEquals(Status.INVALID, vector.check(bad, 0));
+		}
+	}
+
+	@Test
+	public void rowsValidColumnsInvalidTest() {
+		byte[] cells = new byte[BitmaskChecker.CELL_COUNT];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = (byte) (i % 9 + 1);
+		}
+		assertEquals(Status.INVALID, vector.check(cells, 0));
+	}
+
+	@Test
+	public void selectHonoursPropertyTest() {
+		String previous = System.getProperty(UnitChecker.VECTOR_PROPERTY);
+		try {
+			System.setProperty(UnitChecker.VECTOR_PROPERTY, "false");
+			assertFalse(UnitChecker.select().getClass().getName().equals(UnitChecker.VECTOR_CHECKER));
+			System.clearProperty(UnitChecker.VECTOR_PROPERTY);
+			assertEquals(UnitChecker.VECTOR_CHECKER, UnitChecker.select().getClass().getName());
+		} finally {
+			if (previous != null)
+				System.setProperty(UnitChecker.VECTOR_PROPERTY, previous);
+		}
+	}
+
+	@Test
+	public void nativeImageKeepsScalarTest() {
+		try {
+			System.setProperty(UnitChecker.NATIVE_IMAGE_PROPERTY, "runtime");
+			assertSame(UnitChecker.scalar(), UnitChecker.select());
+		} finally {
+			System.clearProperty(UnitChecker.NATIVE_IMAGE_PROPERTY);
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void tooFewCellsTest() {
+		vector.check(new byte[81], 1);
+	}
+}
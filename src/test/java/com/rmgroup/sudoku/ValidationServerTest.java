@@ -0,0 +1,134 @@
+package com.rmgroup.sudoku;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ValidationServerTest {
+
+	private static final String VALID_LINE =
+			"371594862528376194496281735614923587982715643753468921845139276239657418167842359";
+
+	private ValidationServer server;
+
+	@Before
+	public void setUp() throws Exception {
+		server = new ValidationServer(0, 2);
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.close();
+	}
+
+	@Test
+	public void batchBodyTest() throws Exception {
+		String body = new String(Files.readAllBytes(CsvReaderTest.resource("sudokuBatch.txt")), StandardCharsets.UTF_8);
+		String json = post("", body, 200);
+
+		assertTrue(json, json.startsWith("{\"dimension\":9,\"valid\":2,\"invalid\":4,\"results\":[{\"index\":1,\"status\":\"VALID\"},"));
+		assertTrue(json, json.contains("{\"index\":3,\"status\":\"INVALID\",\"unit\":\"ROW\",\"unitIndex\":8,\"problem\":\"DUPLICATE\",\"digit\":8,\"row\":8,\"column\":8}"));
+		assertTrue(json, json.contains("{\"index\":4,\"status\":\"INVALID\",\"error\":\"Error: non-integer value \\\"A\\\" at row 4, column 6\"}"));
+		assertTrue(json, json.endsWith("}]}"));
+	}
+
+	@Test
+	public void dimensionTest() throws Exception {
+		String body = new String(Files.readAllBytes(CsvReaderTest.resource("sudoku16x16Valid.csv")), StandardCharsets.UTF_8);
+		assertEquals("{\"dimension\":16,\"valid\":1,\"invalid\":0,\"results\":[{\"index\":1,\"status\":\"VALID\"}]}",
+				post("", body, 200));
+		assertEquals("{\"dimension\":16,\"valid\":1,\"invalid\":0,\"results\":[{\"index\":1,\"status\":\"VALID\"}]}",
+				post("?dimension=16", body, 200));
+		assertEquals("{\"dimension\":0,\"valid\":0,\"invalid\":0,\"results\":[]}", post("", "\n\n", 200));
+		assertEquals("{\"error\":\"ERROR: dimension (8) must be a perfect square\"}",
+				post("", "1,2,3,4,5,6,7,8\n", 400));
+	}
+
+	@Test
+	public void methodNotAllowedTest() throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) url("").openConnection();
+		assertEquals(405, connection.getResponseCode());
+		assertEquals("POST", connection.getHeaderField("Allow"));
+	}
+
+	@Test
+	public void pipelinedRequestsTest() throws Exception {
+		String request = "POST " + ValidationServer.PATH + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: "
+				+ VALID_LINE.length() + "\r\n\r\n" + VALID_LINE;
+
+		try (Socket socket = new Socket(server.address().getAddress(), server.address().getPort())) {
+			socket.setSoTimeout(5000);
+			OutputStream out = socket.getOutputStream();
+			// three requests in one write, before any response is read.
+			out.write((request + request + request).getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+
+			InputStream in = socket.getInputStream();
+			for (int response = 0; response < 3; response++) {
+				assertTrue(readResponse(in).endsWith("{\"index\":1,\"status\":\"VALID\"}]}"));
+			}
+		}
+	}
+
+	/**
+	 * Reads one response with a Content-Length, returning its head and body.
+	 */
+	private static String readResponse(final InputStream in) throws IOException {
+		StringBuilder head = new StringBuilder();
+		while (head.length() < 4 || !head.substring(head.length() - 4).equals("\r\n\r\n")) {
+			int b = in.read();
+			assertTrue("connection closed", b >= 0);
+			head.append((char) b);
+		}
+		String headers = head.toString();
+		assertTrue(headers, headers.startsWith("HTTP/1.1 200"));
+
+		int length = 0;
+		for (String header : headers.split("\r\n")) {
+			if (header.toLowerCase().startsWith("content-length:"))
+				length = Integer.parseInt(header.substring("content-length:".length()).trim());
+		}
+		byte[] body = new byte[length];
+		for (int read = 0; read < length; ) {
+			read += in.read(body, read, length - read);
+		}
+		return headers + new String(body, StandardCharsets.UTF_8);
+	}
+
+	private URL url(final String query) throws IOException {
+		return new URL("http", server.address().getHostString(), server.address().getPort(), ValidationServer.PATH + query);
+	}
+
+	private String post(final String query, final String body, final int expectedCode) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url(query).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(expectedCode, connection.getResponseCode());
+
+		try (InputStream in = expectedCode < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				bytes.write(buffer, 0, read);
+			}
+			return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
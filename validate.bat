@@ -4,10 +4,35 @@
 if [%1]==[] goto :cmdLineExample
 
 SET JAR_FILE="target/sudoku-validator-0.0.1.jar"
-SET SOLUTION=%1 
-
-java -jar %JAR_FILE% %SOLUTION%
-
+SET SOLUTION=%* 
+
+REM The native executable of mvn package -Pnative starts fastest of all.
+IF EXIST target\sudoku-validate.exe (
+	target\sudoku-validate.exe %SOLUTION%
+	goto :finished
+)
+
+REM A single solution is checked long before the optimising compiler pays off,
+REM the --batch, --serve and other modes run long enough to gain from it.
+SET JAVA_OPTS=
+SET MODE=%~1
+IF NOT "%MODE:~0,2%"=="--" SET JAVA_OPTS=-XX:TieredStopAtLevel=1
+
+REM Those modes check 9 x 9 grids with the incubating Vector API where the JDK has it,
+REM an older JDK rejects the option and the scalar checker is used.
+IF "%MODE:~0,2%"=="--" (
+	java --add-modules jdk.incubator.vector -version >nul 2>&1
+	IF NOT ERRORLEVEL 1 SET JAVA_OPTS=--add-modules jdk.incubator.vector
+)
+
+REM The AppCDS archive of mvn package -Pappcds was trained on a single solution, so it
+REM is only passed for one, it would not match the modules of the other modes. A stale
+REM archive, once the jar is rebuilt, is ignored.
+IF NOT "%MODE:~0,2%"=="--" IF EXIST target\sudoku-validator.jsa SET JAVA_OPTS=%JAVA_OPTS% -XX:SharedArchiveFile=target/sudoku-validator.jsa -Xlog:cds=off,cds+dynamic=off
+
+java %JAVA_OPTS% -jar %JAR_FILE% %SOLUTION%
+
+:finished
 @echo Finished.
 goto :end
 
@@ -15,6 +40,7 @@ goto :end
 :cmdLineExample
 @echo Error: missing solution file parameter. 
 @echo Example usage: validate target/test-classes/sudokuValid.csv   
+@echo Cells above 9 are letters, A for 10 up to Z for 35: a 16 x 16 grid uses 1-9 and A-G, not 0-F.
 exit /B 1
 
-:end
\ No newline at end of file
+:end